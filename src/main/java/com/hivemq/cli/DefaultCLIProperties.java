@@ -18,6 +18,7 @@ package com.hivemq.cli;
 
 import com.hivemq.cli.converters.EnvVarToByteBufferConverter;
 import com.hivemq.cli.converters.PasswordFileToByteBufferConverter;
+import com.hivemq.cli.mqtt.Transport;
 import com.hivemq.client.mqtt.MqttVersion;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -68,6 +69,9 @@ public class DefaultCLIProperties {
     private static final @NotNull String TRUSTSTORE = "auth.truststore";
     private static final @NotNull String TRUSTSTORE_PASSWORD = "auth.truststore.password";
     private static final @NotNull String WEBSOCKET_PATH = "ws.path";
+    private static final @NotNull String TRANSPORT = "client.transport";
+    private static final @NotNull String NETTY_THREADS = "client.netty.threads";
+    private static final @NotNull String APPLICATION_THREADS = "client.application.threads";
 
     private final @NotNull Map<String, String> propertyToValue = new HashMap<String, String>() {{
         put(MQTT_VERSION, "5");
@@ -92,6 +96,9 @@ public class DefaultCLIProperties {
         put(TRUSTSTORE, null);
         put(TRUSTSTORE_PASSWORD, null);
         put(WEBSOCKET_PATH, "/mqtt");
+        put(TRANSPORT, null);
+        put(NETTY_THREADS, null);
+        put(APPLICATION_THREADS, null);
     }};
 
     private final @NotNull File storePropertiesFile;
@@ -305,4 +312,34 @@ public class DefaultCLIProperties {
         return propertyToValue.get(WEBSOCKET_PATH);
     }
 
+    public @Nullable Transport getTransport() {
+        final String transport = propertyToValue.get(TRANSPORT);
+        if (transport == null) {
+            return null;
+        }
+        switch (transport.toLowerCase()) {
+            case "nio":
+                return Transport.NIO;
+            case "epoll":
+                return Transport.EPOLL;
+        }
+        throw new IllegalArgumentException("'" + transport + "' is not a valid transport");
+    }
+
+    public @Nullable Integer getNettyThreads() {
+        final String nettyThreads = propertyToValue.get(NETTY_THREADS);
+        if (nettyThreads == null) {
+            return null;
+        }
+        return Integer.parseInt(nettyThreads);
+    }
+
+    public @Nullable Integer getApplicationThreads() {
+        final String applicationThreads = propertyToValue.get(APPLICATION_THREADS);
+        if (applicationThreads == null) {
+            return null;
+        }
+        return Integer.parseInt(applicationThreads);
+    }
+
 }
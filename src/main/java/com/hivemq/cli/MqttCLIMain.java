@@ -19,8 +19,10 @@ package com.hivemq.cli;
 import com.hivemq.cli.ioc.DaggerMqttCLI;
 import com.hivemq.cli.ioc.MqttCLI;
 import com.hivemq.cli.mqtt.ClientData;
-import com.hivemq.cli.mqtt.ClientKey;
 import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.cli.mqtt.SubscribePublishPipeline;
+import com.hivemq.cli.mqtt.capture.CaptureWriter;
+import com.hivemq.cli.mqtt.output.OutputFileWriter;
 import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
@@ -31,7 +33,6 @@ import picocli.CommandLine;
 import java.security.Security;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 public class MqttCLIMain {
@@ -71,12 +72,14 @@ public class MqttCLIMain {
 
         @Override
         public void run() {
-            final Map<ClientKey, ClientData> clientKeyToClientData = MqttClientExecutor.getClientDataMap();
+            // Shutdown hooks run concurrently, so the received messages are written and acknowledged while the
+            // clients are still connected and before the files are closed.
+            SubscribePublishPipeline.closeAll();
 
             final List<CompletableFuture<Void>> disconnectFutures = new ArrayList<>();
 
-            for (final Map.Entry<ClientKey, ClientData> entry : clientKeyToClientData.entrySet()) {
-                final MqttClient client = entry.getValue().getClient();
+            for (final ClientData clientData : MqttClientExecutor.getClientRegistry().getAll()) {
+                final MqttClient client = clientData.getClient();
                 if (client.getConfig().getState().isConnectedOrReconnect()) {
                     switch (client.getConfig().getMqttVersion()) {
                         case MQTT_5_0:
@@ -89,6 +92,9 @@ public class MqttCLIMain {
                 }
             }
             CompletableFuture.allOf(disconnectFutures.toArray(new CompletableFuture<?>[0])).join();
+
+            OutputFileWriter.closeAll();
+            CaptureWriter.closeAll();
         }
     }
 
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.cli;
+
+import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.commands.options.BenchOptions;
+import com.hivemq.cli.commands.options.ConnectOptions;
+import com.hivemq.cli.commands.options.DebugOptions;
+import com.hivemq.cli.commands.options.DisconnectOptions;
+import com.hivemq.cli.commands.options.HelpOptions;
+import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.cli.mqtt.bench.Benchmark;
+import com.hivemq.cli.mqtt.bench.BenchmarkResult;
+import com.hivemq.cli.mqtt.bench.LatencyHistogram;
+import com.hivemq.cli.utils.LoggerUtils;
+import com.hivemq.client.mqtt.MqttClient;
+import org.jetbrains.annotations.NotNull;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+import javax.inject.Inject;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+@CommandLine.Command(name = "bench",
+                     versionProvider = MqttCLIMain.CLIVersionProvider.class,
+                     description = "Benchmark the throughput and latency of a broker with publisher and subscriber " +
+                             "connections.")
+public class BenchCommand implements Callable<Integer> {
+
+    private static final @NotNull String RESULT_FORMAT = "%-4s %12s %14s %14s %10s %10s %10s %10s %10s%n";
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-l"},
+                        defaultValue = "false",
+                        description = "Log to $HOME/.mqtt-cli/logs (Configurable through $HOME/.mqtt-cli/config.properties)")
+    private boolean logToLogfile;
+
+    @CommandLine.Mixin
+    private final @NotNull ConnectOptions connectOptions = new ConnectOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull BenchOptions benchOptions = new BenchOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull DebugOptions debugOptions = new DebugOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull HelpOptions helpOptions = new HelpOptions();
+
+    private final @NotNull MqttClientExecutor mqttClientExecutor;
+
+    @Inject
+    public BenchCommand(final @NotNull MqttClientExecutor mqttClientExecutor) {
+        this.mqttClientExecutor = mqttClientExecutor;
+    }
+
+    @Override
+    public @NotNull Integer call() {
+        String logLevel = "warn";
+        if (debugOptions.isDebug()) {
+            logLevel = "debug";
+        }
+        if (debugOptions.isVerbose()) {
+            logLevel = "trace";
+        }
+        LoggerUtils.setupConsoleLogging(logToLogfile, logLevel);
+
+        Logger.trace("Command {}", this);
+
+        if (benchOptions.getPublishers() < 1 || benchOptions.getSubscribers() < 1) {
+            Logger.error("The number of publishers and subscribers must be at least 1");
+            return 1;
+        }
+        if (connectOptions.getIdentifier() != null) {
+            Logger.error("An identifier can not be used for a benchmark, use --identifierPrefix instead");
+            return 1;
+        }
+
+        connectOptions.setDefaultOptions();
+        connectOptions.logUnusedOptions();
+
+        final String identifierPrefix = Objects.requireNonNull(connectOptions.getIdentifierPrefix());
+        final List<MqttClient> clients = new ArrayList<>();
+        try {
+            final List<MqttClient> subscribers = connectGroup(identifierPrefix + "-sub-",
+                    benchOptions.getSubscribers(),
+                    clients);
+            final List<MqttClient> publishers = connectGroup(identifierPrefix + "-pub-",
+                    benchOptions.getPublishers(),
+                    clients);
+
+            final List<BenchmarkResult> results = new Benchmark(publishers, subscribers, benchOptions).run();
+            printResults(System.out, results);
+            for (final BenchmarkResult result : results) {
+                if (result.getReceived() == 0) {
+                    Logger.error("No message was received with QoS {} and a payload of {} bytes",
+                            result.getQos().getCode(),
+                            result.getPayloadSize());
+                    return 1;
+                }
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } catch (final Exception exception) {
+            LoggerUtils.logCommandError("Unable to run the benchmark", exception, debugOptions);
+            return 1;
+        } finally {
+            disconnect(clients);
+        }
+
+        return 0;
+    }
+
+    private @NotNull List<MqttClient> connectGroup(
+            final @NotNull String group, final int count, final @NotNull List<MqttClient> clients) throws Exception {
+        final List<MqttClient> groupClients =
+                mqttClientExecutor.connectGroup(connectOptions, group, count, benchOptions.getParallelism());
+        clients.addAll(groupClients);
+        if (groupClients.size() < count) {
+            throw new IllegalStateException("Only " + groupClients.size() + " of " + count + " clients could connect");
+        }
+        return groupClients;
+    }
+
+    private void disconnect(final @NotNull List<MqttClient> clients) {
+        try {
+            mqttClientExecutor.forEachClient(clients,
+                    benchOptions.getParallelism(),
+                    "disconnect",
+                    client -> mqttClientExecutor.disconnect(client, new DisconnectOptions()));
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void printResults(final @NotNull PrintStream out, final @NotNull List<BenchmarkResult> results) {
+        out.printf(Locale.ROOT,
+                RESULT_FORMAT,
+                "QoS",
+                "Payload (B)",
+                "Sent (msg/s)",
+                "Recv (msg/s)",
+                "Lost",
+                "p50 (ms)",
+                "p99 (ms)",
+                "p99.9 (ms)",
+                "Max (ms)");
+        for (final BenchmarkResult result : results) {
+            final LatencyHistogram latencies = result.getLatencies();
+            out.printf(Locale.ROOT,
+                    RESULT_FORMAT,
+                    result.getQos().getCode(),
+                    result.getPayloadSize(),
+                    String.format(Locale.ROOT, "%.1f", result.getSentPerSecond()),
+                    String.format(Locale.ROOT, "%.1f", result.getReceivedPerSecond()),
+                    result.getLost(),
+                    millis(latencies.getValueAtPercentile(50)),
+                    millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMax()));
+        }
+    }
+
+    private static @NotNull String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", (double) nanos / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "BenchCommand{" +
+                "logToLogfile=" +
+                logToLogfile +
+                ", connectOptions=" +
+                connectOptions +
+                ", benchOptions=" +
+                benchOptions +
+                ", debugOptions=" +
+                debugOptions +
+                ", helpOptions=" +
+                helpOptions +
+                ", mqttClientExecutor=" +
+                mqttClientExecutor +
+                '}';
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.cli;
+
+import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.commands.options.ConnectOptions;
+import com.hivemq.cli.commands.options.DebugOptions;
+import com.hivemq.cli.commands.options.HelpOptions;
+import com.hivemq.cli.commands.options.ReplayOptions;
+import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.cli.mqtt.capture.CaptureReader;
+import com.hivemq.cli.mqtt.capture.CaptureReplayer;
+import com.hivemq.cli.utils.LoggerUtils;
+import com.hivemq.client.mqtt.MqttClient;
+import org.jetbrains.annotations.NotNull;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@CommandLine.Command(name = "replay",
+                     versionProvider = MqttCLIMain.CLIVersionProvider.class,
+                     description = "Republish the messages of a capture recorded with 'sub --output-format capture'.")
+public class ReplayCommand implements Callable<Integer> {
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-l"},
+                        defaultValue = "false",
+                        description = "Log to $HOME/.mqtt-cli/logs (Configurable through $HOME/.mqtt-cli/config.properties)")
+    private boolean logToLogfile;
+
+    @CommandLine.Mixin
+    private final @NotNull ConnectOptions connectOptions = new ConnectOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull ReplayOptions replayOptions = new ReplayOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull DebugOptions debugOptions = new DebugOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull HelpOptions helpOptions = new HelpOptions();
+
+    private final @NotNull MqttClientExecutor mqttClientExecutor;
+
+    @Inject
+    public ReplayCommand(final @NotNull MqttClientExecutor mqttClientExecutor) {
+        this.mqttClientExecutor = mqttClientExecutor;
+    }
+
+    @Override
+    public @NotNull Integer call() {
+        String logLevel = "warn";
+        if (debugOptions.isDebug()) {
+            logLevel = "debug";
+        }
+        if (debugOptions.isVerbose()) {
+            logLevel = "trace";
+        }
+        LoggerUtils.setupConsoleLogging(logToLogfile, logLevel);
+
+        Logger.trace("Command {}", this);
+
+        connectOptions.setDefaultOptions();
+        connectOptions.logUnusedOptions();
+
+        if (replayOptions.getConnections() < 1) {
+            Logger.error("The number of connections must be at least 1, but was {}", replayOptions.getConnections());
+            return 1;
+        }
+
+        try (final CaptureReader reader = new CaptureReader(replayOptions.getFile().toPath())) {
+            final List<MqttClient> clients = new ArrayList<>();
+            final String identifier = connectOptions.getIdentifier();
+            try {
+                for (int i = 0; i < replayOptions.getConnections(); i++) {
+                    // an empty identifier is assigned by the broker, any other one has to be unique per connection
+                    if (i > 0 && identifier != null && !identifier.isEmpty()) {
+                        connectOptions.setIdentifier(identifier + "-" + i);
+                    }
+                    clients.add(mqttClientExecutor.connect(connectOptions, null));
+                }
+            } catch (final Exception exception) {
+                LoggerUtils.logCommandError("Unable to connect", exception, debugOptions);
+                return 1;
+            }
+
+            final long failed = new CaptureReplayer(clients, replayOptions).replay(reader);
+            if (failed > 0) {
+                Logger.error("{} of the replayed PUBLISHes failed", failed);
+                return 1;
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } catch (final Exception exception) {
+            LoggerUtils.logCommandError("Unable to replay", exception, debugOptions);
+            return 1;
+        }
+
+        return 0;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ReplayCommand{" +
+                "logToLogfile=" +
+                logToLogfile +
+                ", connectOptions=" +
+                connectOptions +
+                ", replayOptions=" +
+                replayOptions +
+                ", debugOptions=" +
+                debugOptions +
+                ", helpOptions=" +
+                helpOptions +
+                ", mqttClientExecutor=" +
+                mqttClientExecutor +
+                '}';
+    }
+}
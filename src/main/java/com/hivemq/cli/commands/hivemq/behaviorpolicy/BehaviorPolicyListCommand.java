@@ -16,6 +16,7 @@
 
 package com.hivemq.cli.commands.hivemq.behaviorpolicy;
 
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.DataHubOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.hivemq.behaviorpolicy.BehaviorPolicyListTask;
@@ -59,6 +60,9 @@ public class BehaviorPolicyListCommand implements Callable<Integer> {
     @CommandLine.Option(names = {"--limit"}, description = "Limit the number of returned policies")
     private @Nullable Integer limit;
 
+    @CommandLine.Mixin
+    private final @NotNull DataHubListOptions dataHubListOptions = new DataHubListOptions();
+
     @CommandLine.Mixin
     private final @NotNull DataHubOptions dataHubOptions = new DataHubOptions();
 
@@ -84,8 +88,18 @@ public class BehaviorPolicyListCommand implements Callable<Integer> {
             return 1;
         }
 
-        final BehaviorPolicyListTask behaviorPolicyListTask =
-                new BehaviorPolicyListTask(outputFormatter, behaviorPoliciesApi, policyIds, clientIds, fields, limit);
+        if (!dataHubListOptions.validate(outputFormatter)) {
+            return 1;
+        }
+
+        final BehaviorPolicyListTask behaviorPolicyListTask = new BehaviorPolicyListTask(outputFormatter,
+                behaviorPoliciesApi,
+                policyIds,
+                clientIds,
+                fields,
+                limit,
+                dataHubListOptions.getPageSize(),
+                dataHubListOptions.getFormat());
 
         if (behaviorPolicyListTask.execute()) {
             return 0;
@@ -108,6 +122,8 @@ public class BehaviorPolicyListCommand implements Callable<Integer> {
                 Arrays.toString(fields) +
                 ", limit=" +
                 limit +
+                ", dataHubListOptions=" +
+                dataHubListOptions +
                 ", dataHubOptions=" +
                 dataHubOptions +
                 ", outputFormatter=" +
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.datahub;
+
+import com.google.gson.Gson;
+import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.hivemq.datahub.DataHubApplyTask;
+import com.hivemq.cli.hivemq.datahub.DataHubDefinition;
+import com.hivemq.cli.hivemq.datahub.DataHubDefinitions;
+import com.hivemq.cli.rest.HiveMQRestService;
+import org.jetbrains.annotations.NotNull;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@CommandLine.Command(name = "apply",
+                     description = "Create or update all schemas, scripts and policies of a directory",
+                     synopsisHeading = "%n@|bold Usage:|@  ",
+                     descriptionHeading = "%n",
+                     optionListHeading = "%n@|bold Options:|@%n",
+                     commandListHeading = "%n@|bold Commands:|@%n",
+                     versionProvider = MqttCLIMain.CLIVersionProvider.class,
+                     mixinStandardHelpOptions = true)
+public class DataHubApplyCommand implements Callable<Integer> {
+
+    private static final int DEFAULT_PARALLELISM = 8;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Option(names = {"-d", "--directory"},
+                        required = true,
+                        description = "The directory with the subdirectories 'schemas', 'scripts', 'data-policies' " +
+                                "and 'behavior-policies' which contain the definitions as JSON files")
+    private @NotNull Path directory;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--parallelism"},
+                        defaultValue = "" + DEFAULT_PARALLELISM,
+                        description = "The maximum number of definitions applied concurrently (default " +
+                                DEFAULT_PARALLELISM +
+                                ")")
+    private int parallelism;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--dry-run"},
+                        defaultValue = "false",
+                        description = "Only print which definitions would be created or updated (default false)")
+    private boolean dryRun;
+
+    @CommandLine.Mixin
+    private final @NotNull DataHubOptions dataHubOptions = new DataHubOptions();
+
+    private final @NotNull OutputFormatter outputFormatter;
+    private final @NotNull HiveMQRestService hiveMQRestService;
+    private final @NotNull Gson gson;
+
+    @Inject
+    public DataHubApplyCommand(
+            final @NotNull HiveMQRestService hiveMQRestService,
+            final @NotNull OutputFormatter outputFormatter,
+            final @NotNull Gson gson) {
+        this.outputFormatter = outputFormatter;
+        this.hiveMQRestService = hiveMQRestService;
+        this.gson = gson;
+    }
+
+    @Override
+    public @NotNull Integer call() {
+        Logger.trace("Command {}", this);
+
+        if (parallelism < 1) {
+            outputFormatter.printError("The parallelism must be at least 1.");
+            return 1;
+        }
+
+        final List<DataHubDefinition> definitions;
+        try {
+            definitions = DataHubDefinitions.load(directory);
+        } catch (final IOException e) {
+            outputFormatter.printError(e.getMessage());
+            return 1;
+        }
+
+        final String url = dataHubOptions.getUrl();
+        final double rateLimit = dataHubOptions.getRateLimit();
+        final DataHubApplyTask dataHubApplyTask = new DataHubApplyTask(outputFormatter,
+                hiveMQRestService.getSchemasApi(url, rateLimit),
+                hiveMQRestService.getScriptsApi(url, rateLimit),
+                hiveMQRestService.getDataPoliciesApi(url, rateLimit),
+                hiveMQRestService.getBehaviorPoliciesApi(url, rateLimit),
+                gson,
+                definitions,
+                parallelism,
+                dryRun);
+        if (dataHubApplyTask.execute()) {
+            return 0;
+        } else {
+            return 1;
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "DataHubApplyCommand{" +
+                "directory=" +
+                directory +
+                ", parallelism=" +
+                parallelism +
+                ", dryRun=" +
+                dryRun +
+                ", dataHubOptions=" +
+                dataHubOptions +
+                ", outputFormatter=" +
+                outputFormatter +
+                ", hiveMQRestService=" +
+                hiveMQRestService +
+                ", gson=" +
+                gson +
+                '}';
+    }
+}
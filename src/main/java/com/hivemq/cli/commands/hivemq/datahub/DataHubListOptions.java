@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.datahub;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import picocli.CommandLine;
+
+public class DataHubListOptions {
+
+    public enum OutputFormat {
+        json,
+        ndjson
+    }
+
+    public static final int MIN_PAGE_SIZE = 10;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int DEFAULT_PAGE_SIZE = MAX_PAGE_SIZE;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--page-size"},
+                        defaultValue = "" + DEFAULT_PAGE_SIZE,
+                        description = "The number of items requested per page between " +
+                                MIN_PAGE_SIZE +
+                                " and " +
+                                MAX_PAGE_SIZE +
+                                " (default " +
+                                DEFAULT_PAGE_SIZE +
+                                ")")
+    private int pageSize;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) // will be initialized via default value
+    @CommandLine.Option(names = {"--format"},
+                        defaultValue = "json",
+                        description = "The output format: ${COMPLETION-CANDIDATES} (default json)")
+    private @NotNull OutputFormat format;
+
+    public DataHubListOptions() {
+    }
+
+    @VisibleForTesting
+    public DataHubListOptions(final int pageSize, final @NotNull OutputFormat format) {
+        this.pageSize = pageSize;
+        this.format = format;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public @NotNull OutputFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Prints an error if the page size is out of range.
+     *
+     * @return true if the options are valid
+     */
+    public boolean validate(final @NotNull OutputFormatter outputFormatter) {
+        if (pageSize < MIN_PAGE_SIZE || pageSize > MAX_PAGE_SIZE) {
+            outputFormatter.printError("The page size must be between " +
+                    MIN_PAGE_SIZE +
+                    " and " +
+                    MAX_PAGE_SIZE +
+                    ".");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the page size to request, which is not larger than needed for the limit
+     */
+    public static int pageSize(final int pageSize, final @Nullable Integer limit) {
+        if (limit == null) {
+            return pageSize;
+        }
+        return Math.max(MIN_PAGE_SIZE, Math.min(pageSize, limit));
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "DataHubListOptions{" + "pageSize=" + pageSize + ", format=" + format + '}';
+    }
+}
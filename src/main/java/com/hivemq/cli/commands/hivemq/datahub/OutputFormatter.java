@@ -42,6 +42,15 @@ public class OutputFormatter {
         out.println(gson.toJson(object));
     }
 
+    /**
+     * @return a printer which prints the items of a list as they are retrieved, either as a JSON object with an
+     *         <code>items</code> array (like {@link #printJson(Object)} of the whole list) or as one JSON object per
+     *         line
+     */
+    public @NotNull ItemsPrinter printItems(final @NotNull DataHubListOptions.OutputFormat format) {
+        return new ItemsPrinter(format);
+    }
+
     public void printError(final @NotNull String message) {
         System.err.println(message);
         Logger.error(message);
@@ -66,4 +75,56 @@ public class OutputFormatter {
         System.err.println(prettyResponse);
         Logger.error("{}: {}", operationDescription, prettyResponse);
     }
+
+    public class ItemsPrinter {
+
+        private static final @NotNull String ITEMS_START = "{\n  \"items\": [";
+        private static final @NotNull String ITEMS_END = "\n  ]\n}";
+        private static final @NotNull String EMPTY_ITEMS = "{\n  \"items\": []\n}";
+        private static final @NotNull String ITEM_INDENT = "    ";
+
+        private final @NotNull DataHubListOptions.OutputFormat format;
+        private long count;
+
+        private ItemsPrinter(final @NotNull DataHubListOptions.OutputFormat format) {
+            this.format = format;
+        }
+
+        public void print(final @NotNull Object item) {
+            if (format == DataHubListOptions.OutputFormat.ndjson) {
+                out.println(gson.toJsonTree(item));
+            } else {
+                // the start of the array is only printed with the first item, so nothing is printed if the first
+                // page can not be retrieved
+                out.print(count == 0 ? ITEMS_START + "\n" : ",\n");
+                out.print(ITEM_INDENT + gson.toJson(item).replace("\n", "\n" + ITEM_INDENT));
+            }
+            count++;
+        }
+
+        /**
+         * Completes the list after all items were printed.
+         */
+        public void finish() {
+            if (format == DataHubListOptions.OutputFormat.json) {
+                out.println(count == 0 ? EMPTY_ITEMS : ITEMS_END);
+            }
+            out.flush();
+        }
+
+        /**
+         * Completes the items which were printed before a later page could not be retrieved, so that the printed
+         * output is still a valid JSON document.
+         */
+        public void abort() {
+            if (format == DataHubListOptions.OutputFormat.json && count > 0) {
+                out.println(ITEMS_END);
+            }
+            out.flush();
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.hivemq.cli.commands.hivemq.datapolicy;
 
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.DataHubOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.hivemq.datapolicy.DataPolicyListTask;
@@ -57,6 +58,9 @@ public class DataPolicyListCommand implements Callable<Integer> {
     @CommandLine.Option(names = {"--limit"}, description = "Limit the number of returned policies")
     private @Nullable Integer limit;
 
+    @CommandLine.Mixin
+    private final @NotNull DataHubListOptions dataHubListOptions = new DataHubListOptions();
+
     @CommandLine.Mixin
     private final @NotNull DataHubOptions dataHubOptions = new DataHubOptions();
 
@@ -82,8 +86,19 @@ public class DataPolicyListCommand implements Callable<Integer> {
             return 1;
         }
 
-        final DataPolicyListTask dataPolicyListTask =
-                new DataPolicyListTask(outputFormatter, dataPoliciesApi, topic, policyIds, schemaIds, fields, limit);
+        if (!dataHubListOptions.validate(outputFormatter)) {
+            return 1;
+        }
+
+        final DataPolicyListTask dataPolicyListTask = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                topic,
+                policyIds,
+                schemaIds,
+                fields,
+                limit,
+                dataHubListOptions.getPageSize(),
+                dataHubListOptions.getFormat());
 
         if (dataPolicyListTask.execute()) {
             return 0;
@@ -106,6 +121,8 @@ public class DataPolicyListCommand implements Callable<Integer> {
                 Arrays.toString(fields) +
                 ", limit=" +
                 limit +
+                ", dataHubListOptions=" +
+                dataHubListOptions +
                 ", dataHubOptions=" +
                 dataHubOptions +
                 ", outputFormatter=" +
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiCertificateInformation;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientRestrictions;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiConnectionDetails;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiProxyInformation;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiTLV;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiTlsInformation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The exported fields of the client details in the order of the export columns. Every field only reads the nested
+ * objects it needs, so fields which are not selected are never converted.
+ */
+public enum ClientDetailsField implements ExportField<HivemqOpenapiClientDetails> {
+
+    clientId(HivemqOpenapiClientDetails::getId),
+    connected(HivemqOpenapiClientDetails::getConnected),
+    sessionExpiryInterval(HivemqOpenapiClientDetails::getSessionExpiryInterval),
+    connectedAt(HivemqOpenapiClientDetails::getConnectedAt),
+    messageQueueSize(HivemqOpenapiClientDetails::getMessageQueueSize),
+    willPresent(HivemqOpenapiClientDetails::getWillPresent),
+    maxMessageSize(details -> restrictions(details, HivemqOpenapiClientRestrictions::getMaxMessageSize)),
+    maxQueueSize(details -> restrictions(details, HivemqOpenapiClientRestrictions::getMaxQueueSize)),
+    queuedMessageStrategy(details -> restrictions(details,
+            HivemqOpenapiClientRestrictions::getQueuedMessageStrategy)),
+    ip(details -> connection(details, HivemqOpenapiConnectionDetails::getSourceIp)),
+    sourceIp(details -> proxy(details, HivemqOpenapiProxyInformation::getSourceIp)),
+    sourcePort(details -> proxy(details, HivemqOpenapiProxyInformation::getSourcePort)),
+    destinationIp(details -> proxy(details, HivemqOpenapiProxyInformation::getDestinationIp)),
+    destinationPort(details -> proxy(details, HivemqOpenapiProxyInformation::getDestinationPort)),
+    tlvs(details -> proxy(details, proxyInformation -> tlvsString(proxyInformation.getTlvs()))),
+    mqttVersion(details -> connection(details, HivemqOpenapiConnectionDetails::getMqttVersion)),
+    connectedListenerId(details -> connection(details, HivemqOpenapiConnectionDetails::getConnectedListenerId)),
+    connectedNodeId(details -> connection(details, HivemqOpenapiConnectionDetails::getConnectedNodeId)),
+    keepAlive(details -> connection(details, HivemqOpenapiConnectionDetails::getKeepAlive)),
+    username(details -> connection(details, HivemqOpenapiConnectionDetails::getUsername)),
+    password(details -> connection(details, connectionDetails -> {
+        final byte[] password = connectionDetails.getPassword();
+        return password != null ? new String(password, StandardCharsets.UTF_8) : null;
+    })),
+    cleanStart(details -> connection(details, HivemqOpenapiConnectionDetails::getCleanStart)),
+    cipherSuite(details -> tls(details, HivemqOpenapiTlsInformation::getCipherSuite)),
+    tlsVersion(details -> tls(details, HivemqOpenapiTlsInformation::getTlsVersion)),
+    certificateCommonName(details -> certificate(details, HivemqOpenapiCertificateInformation::getCommonName)),
+    certificateOrganization(details -> certificate(details, HivemqOpenapiCertificateInformation::getOrganization)),
+    certificateOrganizationalUnit(details -> certificate(details,
+            HivemqOpenapiCertificateInformation::getOrganizationalUnit)),
+    certificateSerial(details -> certificate(details, HivemqOpenapiCertificateInformation::getSerial)),
+    certificateValidFrom(details -> certificate(details, HivemqOpenapiCertificateInformation::getValidFrom)),
+    certificateValidUntil(details -> certificate(details, HivemqOpenapiCertificateInformation::getValidUntil)),
+    certificateCountry(details -> certificate(details, HivemqOpenapiCertificateInformation::getCountry)),
+    certificateState(details -> certificate(details, HivemqOpenapiCertificateInformation::getState));
+
+    private final @NotNull Function<HivemqOpenapiClientDetails, Object> extractor;
+
+    ClientDetailsField(final @NotNull Function<HivemqOpenapiClientDetails, Object> extractor) {
+        this.extractor = extractor;
+    }
+
+    @Override
+    public @Nullable Object value(final @NotNull HivemqOpenapiClientDetails clientDetails) {
+        return extractor.apply(clientDetails);
+    }
+
+    private static @Nullable Object restrictions(
+            final @NotNull HivemqOpenapiClientDetails clientDetails,
+            final @NotNull Function<HivemqOpenapiClientRestrictions, Object> extractor) {
+        final HivemqOpenapiClientRestrictions restrictions = clientDetails.getRestrictions();
+        return restrictions != null ? extractor.apply(restrictions) : null;
+    }
+
+    private static @Nullable Object connection(
+            final @NotNull HivemqOpenapiClientDetails clientDetails,
+            final @NotNull Function<HivemqOpenapiConnectionDetails, Object> extractor) {
+        final HivemqOpenapiConnectionDetails connectionDetails = clientDetails.getConnection();
+        return connectionDetails != null ? extractor.apply(connectionDetails) : null;
+    }
+
+    private static @Nullable Object proxy(
+            final @NotNull HivemqOpenapiClientDetails clientDetails,
+            final @NotNull Function<HivemqOpenapiProxyInformation, Object> extractor) {
+        return connection(clientDetails, connectionDetails -> {
+            final HivemqOpenapiProxyInformation proxyInformation = connectionDetails.getProxyInformation();
+            return proxyInformation != null ? extractor.apply(proxyInformation) : null;
+        });
+    }
+
+    private static @Nullable Object tls(
+            final @NotNull HivemqOpenapiClientDetails clientDetails,
+            final @NotNull Function<HivemqOpenapiTlsInformation, Object> extractor) {
+        return connection(clientDetails, connectionDetails -> {
+            final HivemqOpenapiTlsInformation tlsInformation = connectionDetails.getTlsInformation();
+            return tlsInformation != null ? extractor.apply(tlsInformation) : null;
+        });
+    }
+
+    private static @Nullable Object certificate(
+            final @NotNull HivemqOpenapiClientDetails clientDetails,
+            final @NotNull Function<HivemqOpenapiCertificateInformation, Object> extractor) {
+        return tls(clientDetails, tlsInformation -> {
+            final HivemqOpenapiCertificateInformation certificateInformation =
+                    tlsInformation.getCertificateInformation();
+            return certificateInformation != null ? extractor.apply(certificateInformation) : null;
+        });
+    }
+
+    private static @Nullable String tlvsString(final @Nullable List<HivemqOpenapiTLV> tlvs) {
+        if (tlvs == null) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder();
+        for (final HivemqOpenapiTLV tlv : tlvs) {
+            sb.append(tlv.getKey()).append("=");
+            final String value = tlv.getValue();
+            if (value != null) {
+                sb.append(value);
+            }
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+}
@@ -20,28 +20,57 @@ import com.hivemq.cli.openapi.ApiCallback;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientItem;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientSubscription;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientSubscriptionList;
 import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
+import com.hivemq.cli.rest.AdaptiveConcurrencyLimiter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Retrieves the details, and optionally the subscriptions, of all client ids from the client ids queue with an adaptive
+ * number of concurrent requests.
+ * <p>
+ * Requests which fail because the HiveMQ API is overloaded (HTTP 429, 503, 504 or an I/O error like a timeout) decrease
+ * the concurrency and are retried per client id with a jittered exponential backoff, which is at least as long as a
+ * <code>Retry-After</code> header of the response.
+ */
 public class ClientDetailsRetrieverTask implements Runnable {
 
-    private final static int MAX_CONCURRENT_REQUESTS = 100;
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 200;
+    public static final int DEFAULT_MAX_RETRIES = 10;
+
+    private static final int INITIAL_CONCURRENT_REQUESTS = 10;
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
 
     private final @NotNull MqttClientsApi mqttClientsApi;
     private final @NotNull CompletableFuture<Void> clientIdsFuture;
     private final @NotNull BlockingQueue<String> clientIdsQueue;
     private final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue;
-    private final @NotNull Semaphore clientDetailsInProgress;
+    private final @NotNull AdaptiveConcurrencyLimiter limiter;
+    private final int maxRetries;
+    private final @Nullable ExportCheckpoint checkpoint;
+    private final @Nullable BlockingQueue<ClientSubscription> subscriptionsQueue;
+    private final @NotNull DelayQueue<Retry> retryQueue = new DelayQueue<>();
+    private final @NotNull AtomicInteger requestsInProgress = new AtomicInteger();
+    private final @NotNull AtomicLong retryCount = new AtomicLong();
     private final @NotNull AtomicBoolean failed = new AtomicBoolean(false);
 
     public ClientDetailsRetrieverTask(
@@ -49,81 +78,226 @@ public class ClientDetailsRetrieverTask implements Runnable {
             final @NotNull CompletableFuture<Void> clientIdsFuture,
             final @NotNull BlockingQueue<String> clientIdsQueue,
             final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue) {
+        this(mqttClientsApi,
+                clientIdsFuture,
+                clientIdsQueue,
+                clientDetailsQueue,
+                DEFAULT_MAX_CONCURRENT_REQUESTS,
+                DEFAULT_MAX_RETRIES);
+    }
+
+    public ClientDetailsRetrieverTask(
+            final @NotNull MqttClientsApi mqttClientsApi,
+            final @NotNull CompletableFuture<Void> clientIdsFuture,
+            final @NotNull BlockingQueue<String> clientIdsQueue,
+            final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue,
+            final int maxConcurrentRequests,
+            final int maxRetries) {
+        this(mqttClientsApi,
+                clientIdsFuture,
+                clientIdsQueue,
+                clientDetailsQueue,
+                maxConcurrentRequests,
+                maxRetries,
+                null);
+    }
+
+    public ClientDetailsRetrieverTask(
+            final @NotNull MqttClientsApi mqttClientsApi,
+            final @NotNull CompletableFuture<Void> clientIdsFuture,
+            final @NotNull BlockingQueue<String> clientIdsQueue,
+            final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue,
+            final int maxConcurrentRequests,
+            final int maxRetries,
+            final @Nullable ExportCheckpoint checkpoint) {
+        this(mqttClientsApi,
+                clientIdsFuture,
+                clientIdsQueue,
+                clientDetailsQueue,
+                maxConcurrentRequests,
+                maxRetries,
+                checkpoint,
+                null);
+    }
+
+    /**
+     * @param subscriptionsQueue the queue for the subscriptions of the clients or null if the subscriptions are not
+     *                           retrieved
+     */
+    public ClientDetailsRetrieverTask(
+            final @NotNull MqttClientsApi mqttClientsApi,
+            final @NotNull CompletableFuture<Void> clientIdsFuture,
+            final @NotNull BlockingQueue<String> clientIdsQueue,
+            final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue,
+            final int maxConcurrentRequests,
+            final int maxRetries,
+            final @Nullable ExportCheckpoint checkpoint,
+            final @Nullable BlockingQueue<ClientSubscription> subscriptionsQueue) {
         this.mqttClientsApi = mqttClientsApi;
         this.clientIdsFuture = clientIdsFuture;
         this.clientIdsQueue = clientIdsQueue;
         this.clientDetailsQueue = clientDetailsQueue;
-        clientDetailsInProgress = new Semaphore(MAX_CONCURRENT_REQUESTS);
+        this.limiter = new AdaptiveConcurrencyLimiter(INITIAL_CONCURRENT_REQUESTS, maxConcurrentRequests);
+        this.maxRetries = maxRetries;
+        this.checkpoint = checkpoint;
+        this.subscriptionsQueue = subscriptionsQueue;
     }
 
     @Override
     public void run() {
         try {
-            while (!clientIdsFuture.isDone() || !clientIdsQueue.isEmpty()) {
+            while (!clientIdsFuture.isDone() || !clientIdsQueue.isEmpty() || requestsInProgress.get() > 0) {
                 if (failed.get()) {
                     Logger.error("Retrieval of client details failed");
                     throw new CompletionException(new RuntimeException("Retrieval of client details failed"));
                 }
 
-                final String clientId = clientIdsQueue.poll(50, TimeUnit.MILLISECONDS);
+                final Retry retry = retryQueue.poll();
+                if (retry != null) {
+                    if (retry.subscriptions) {
+                        requestSubscriptions(retry.clientId, retry.attempt);
+                    } else {
+                        requestDetails(retry.clientId, retry.attempt);
+                    }
+                    continue;
+                }
+
+                final Retry nextRetry = retryQueue.peek();
+                final long pollMillis =
+                        nextRetry == null ? 50 : Math.max(1, Math.min(50, nextRetry.getDelay(TimeUnit.MILLISECONDS)));
+                final String clientId = clientIdsQueue.poll(pollMillis, TimeUnit.MILLISECONDS);
                 if (clientId != null) {
-                    final ClientItemApiCallback clientItemApiCallback =
-                            new ClientItemApiCallback(clientDetailsQueue, clientDetailsInProgress, failed);
-                    clientDetailsInProgress.acquire();
-                    mqttClientsApi.getMqttClientDetailsAsync(clientId, clientItemApiCallback);
+                    requestsInProgress.incrementAndGet();
+                    requestDetails(clientId, 0);
+                    if (subscriptionsQueue != null) {
+                        requestsInProgress.incrementAndGet();
+                        requestSubscriptions(clientId, 0);
+                    }
                 }
             }
 
             // Block until all callbacks are finished
-            clientDetailsInProgress.acquire(MAX_CONCURRENT_REQUESTS);
+            limiter.awaitIdle();
         } catch (final Exception e) {
             Logger.error(e, "Retrieval of client details failed");
             throw new CompletionException(e);
         }
-        Logger.debug("Finished retrieving client details");
+        Logger.debug("Finished retrieving client details (concurrency limit {}, {} retries)",
+                limiter.getLimit(),
+                retryCount.get());
     }
 
-    private static class ClientItemApiCallback implements ApiCallback<HivemqOpenapiClientItem> {
+    private void requestDetails(final @NotNull String clientId, final int attempt) throws Exception {
+        final long startNanos = limiter.acquire();
+        try {
+            mqttClientsApi.getMqttClientDetailsAsync(clientId,
+                    new ClientItemApiCallback(clientId, attempt, startNanos));
+        } catch (final Exception e) {
+            limiter.onIgnore(startNanos);
+            throw e;
+        }
+    }
 
-        private final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue;
-        private final @NotNull Semaphore clientDetailsInProgress;
-        private final @NotNull AtomicBoolean failed;
+    private void requestSubscriptions(final @NotNull String clientId, final int attempt) throws Exception {
+        final long startNanos = limiter.acquire();
+        try {
+            mqttClientsApi.getSubscriptionsForMqttClientAsync(clientId,
+                    new SubscriptionsApiCallback(clientId, attempt, startNanos));
+        } catch (final Exception e) {
+            limiter.onIgnore(startNanos);
+            throw e;
+        }
+    }
 
-        public ClientItemApiCallback(
-                final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue,
-                final @NotNull Semaphore clientDetailsInProgress,
-                final @NotNull AtomicBoolean failed) {
-            this.clientDetailsQueue = clientDetailsQueue;
-            this.clientDetailsInProgress = clientDetailsInProgress;
-            this.failed = failed;
+    private static boolean isRetryable(final int statusCode) {
+        // status code 0 means that no response was received, e.g. because of a timeout
+        return statusCode == 0 || statusCode == 429 || statusCode == 503 || statusCode == 504;
+    }
+
+    private static long backoffMillis(final int attempt) {
+        final long maxMillis = INITIAL_BACKOFF_MILLIS << Math.min(attempt, 20);
+        final long cappedMillis = Math.min(MAX_BACKOFF_MILLIS, maxMillis);
+        // equal jitter spreads the retries of requests which failed at the same time
+        return cappedMillis / 2 + ThreadLocalRandom.current().nextLong(cappedMillis / 2 + 1);
+    }
+
+    /**
+     * Handles the failure of a request: 404 is ignored, overload responses are retried and all other errors fail the
+     * retrieval.
+     */
+    private abstract class RetryingApiCallback<R> implements ApiCallback<R> {
+
+        final @NotNull String clientId;
+        private final int attempt;
+        private final long startNanos;
+
+        RetryingApiCallback(final @NotNull String clientId, final int attempt, final long startNanos) {
+            this.clientId = clientId;
+            this.attempt = attempt;
+            this.startNanos = startNanos;
         }
 
+        abstract void onResult(@NotNull R result);
+
+        /**
+         * Called if the client does not exist anymore.
+         */
+        abstract void onNotFound();
+
+        abstract boolean isSubscriptions();
+
         @Override
         public void onSuccess(
-                final @NotNull HivemqOpenapiClientItem result,
+                final @NotNull R result,
                 final int statusCode,
                 final @NotNull Map<String, List<String>> responseHeaders) {
-            final HivemqOpenapiClientDetails clientDetails = result.getClient();
-            if (clientDetails != null) {
-                try {
-                    clientDetailsQueue.put(clientDetails);
-                } catch (final InterruptedException ignored) {
-                }
-            }
-            clientDetailsInProgress.release();
+            limiter.onSuccess(startNanos);
+            onResult(result);
+            requestsInProgress.decrementAndGet();
         }
 
         @Override
         public void onFailure(
                 final @NotNull ApiException e,
                 final int statusCode,
-                final @NotNull Map<String, List<String>> responseHeaders) {
+                final @Nullable Map<String, List<String>> responseHeaders) {
             //ignore 404 because MQTT client could be non-persistent and disconnected by now
-            if (e.getCode() != 404) {
+            if (e.getCode() == 404) {
+                limiter.onIgnore(startNanos);
+                onNotFound();
+                requestsInProgress.decrementAndGet();
+                return;
+            }
+            if (!isRetryable(e.getCode())) {
+                limiter.onIgnore(startNanos);
                 Logger.trace(e, "Failed to retrieve client details");
                 failed.set(true);
+                requestsInProgress.decrementAndGet();
+                return;
             }
-            clientDetailsInProgress.release();
+
+            final Duration retryAfter =
+                    AdaptiveConcurrencyLimiter.parseRetryAfter(responseHeaders, ZonedDateTime.now());
+            if (retryAfter != null) {
+                limiter.pause(retryAfter);
+            }
+            limiter.onOverload(startNanos);
+            if (attempt >= maxRetries) {
+                Logger.trace(e, "Failed to retrieve client details after {} retries", attempt);
+                failed.set(true);
+                requestsInProgress.decrementAndGet();
+                return;
+            }
+            long delayMillis = backoffMillis(attempt);
+            if (retryAfter != null) {
+                delayMillis = Math.max(delayMillis, retryAfter.toMillis());
+            }
+            Logger.trace("Retrying retrieval of client details for client '{}' in {} ms (status {})",
+                    clientId,
+                    delayMillis,
+                    e.getCode());
+            retryCount.incrementAndGet();
+            retryQueue.put(new Retry(clientId, isSubscriptions(), attempt + 1, delayMillis));
         }
 
         @Override
@@ -134,4 +308,91 @@ public class ClientDetailsRetrieverTask implements Runnable {
         public void onDownloadProgress(final long bytesRead, final long contentLength, final boolean done) {
         }
     }
+
+    private class ClientItemApiCallback extends RetryingApiCallback<HivemqOpenapiClientItem> {
+
+        ClientItemApiCallback(final @NotNull String clientId, final int attempt, final long startNanos) {
+            super(clientId, attempt, startNanos);
+        }
+
+        @Override
+        void onResult(final @NotNull HivemqOpenapiClientItem result) {
+            final HivemqOpenapiClientDetails clientDetails = result.getClient();
+            if (clientDetails != null) {
+                try {
+                    clientDetailsQueue.put(clientDetails);
+                } catch (final InterruptedException ignored) {
+                }
+            } else {
+                onNotFound();
+            }
+        }
+
+        @Override
+        void onNotFound() {
+            if (checkpoint != null) {
+                checkpoint.complete(clientId, false);
+            }
+        }
+
+        @Override
+        boolean isSubscriptions() {
+            return false;
+        }
+    }
+
+    private class SubscriptionsApiCallback extends RetryingApiCallback<HivemqOpenapiClientSubscriptionList> {
+
+        SubscriptionsApiCallback(final @NotNull String clientId, final int attempt, final long startNanos) {
+            super(clientId, attempt, startNanos);
+        }
+
+        @Override
+        void onResult(final @NotNull HivemqOpenapiClientSubscriptionList result) {
+            final List<HivemqOpenapiClientSubscription> subscriptions = result.getItems();
+            if (subscriptions == null || subscriptionsQueue == null) {
+                return;
+            }
+            try {
+                for (final HivemqOpenapiClientSubscription subscription : subscriptions) {
+                    subscriptionsQueue.put(new ClientSubscription(clientId, subscription));
+                }
+            } catch (final InterruptedException ignored) {
+            }
+        }
+
+        @Override
+        void onNotFound() {
+        }
+
+        @Override
+        boolean isSubscriptions() {
+            return true;
+        }
+    }
+
+    private static class Retry implements Delayed {
+
+        private final @NotNull String clientId;
+        private final boolean subscriptions;
+        private final int attempt;
+        private final long dueNanos;
+
+        Retry(final @NotNull String clientId, final boolean subscriptions, final int attempt, final long delayMillis) {
+            this.clientId = clientId;
+            this.subscriptions = subscriptions;
+            this.attempt = attempt;
+            this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+
+        @Override
+        public long getDelay(final @NotNull TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(final @NotNull Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
 }
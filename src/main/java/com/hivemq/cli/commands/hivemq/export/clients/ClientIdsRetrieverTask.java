@@ -18,68 +18,104 @@ package com.hivemq.cli.commands.hivemq.export.clients;
 
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClient;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientList;
-import com.hivemq.cli.openapi.hivemq.HivemqOpenapiPaginationCursor;
 import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
+import com.hivemq.cli.rest.PaginatedIterator;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 
-import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletionException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class ClientIdsRetrieverTask implements Runnable {
 
-    private static final @NotNull Pattern CURSOR_PATTERN = Pattern.compile("cursor=([^&]*)");
+    public static final int DEFAULT_PAGE_SIZE = 2500;
 
     private final @NotNull BlockingQueue<String> clientIdsQueue;
     private final @NotNull MqttClientsApi mqttClientsApi;
+    private final int pageSize;
+    private final @Nullable ExportCheckpoint checkpoint;
 
     private long receivedClientIds = 0;
 
     public ClientIdsRetrieverTask(
             final @NotNull MqttClientsApi mqttClientsApi, final @NotNull BlockingQueue<String> clientIdsQueue) {
+        this(mqttClientsApi, clientIdsQueue, DEFAULT_PAGE_SIZE);
+    }
+
+    public ClientIdsRetrieverTask(
+            final @NotNull MqttClientsApi mqttClientsApi,
+            final @NotNull BlockingQueue<String> clientIdsQueue,
+            final int pageSize) {
+        this(mqttClientsApi, clientIdsQueue, pageSize, null);
+    }
+
+    /**
+     * @param checkpoint the checkpoint of the export which the client ids are registered with, the retrieval starts
+     *                   with its resume cursor and skips already written clients
+     */
+    public ClientIdsRetrieverTask(
+            final @NotNull MqttClientsApi mqttClientsApi,
+            final @NotNull BlockingQueue<String> clientIdsQueue,
+            final int pageSize,
+            final @Nullable ExportCheckpoint checkpoint) {
         this.mqttClientsApi = mqttClientsApi;
         this.clientIdsQueue = clientIdsQueue;
+        this.pageSize = pageSize;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * @return an iterator over all clients of the HiveMQ cluster which requests the next page while the current one
+     *         is processed
+     */
+    public static @NotNull PaginatedIterator<HivemqOpenapiClient> clients(
+            final @NotNull MqttClientsApi mqttClientsApi, final int pageSize) {
+        return clients(mqttClientsApi, pageSize, null);
+    }
+
+    /**
+     * @param startCursor the cursor of the first requested page or null to start with the first page
+     */
+    public static @NotNull PaginatedIterator<HivemqOpenapiClient> clients(
+            final @NotNull MqttClientsApi mqttClientsApi, final int pageSize, final @Nullable String startCursor) {
+        return new PaginatedIterator<>(cursor -> {
+            final HivemqOpenapiClientList clientList = mqttClientsApi.getAllMqttClients(pageSize, cursor);
+            return new PaginatedIterator.Page<>(clientList.getItems(), clientList.getLinks());
+        }, true, PaginatedIterator.prefetchExecutor(), startCursor);
     }
 
     @Override
     public void run() {
-        boolean hasNextCursor = true;
-        String nextCursor = null;
-        try {
-            while (hasNextCursor) {
-                final HivemqOpenapiClientList clientList;
-                clientList = mqttClientsApi.getAllMqttClients(2500, nextCursor);
-                final List<HivemqOpenapiClient> clients = clientList.getItems();
-                final HivemqOpenapiPaginationCursor links = clientList.getLinks();
-
-                if (clients != null) {
-                    receivedClientIds += clients.size();
-                    for (final HivemqOpenapiClient client : clients) {
-                        if (client.getId() != null) {
-                            clientIdsQueue.put(client.getId());
-                        }
+        final String startCursor = checkpoint != null ? checkpoint.getResumeCursor() : null;
+        try (final PaginatedIterator<HivemqOpenapiClient> clients = clients(mqttClientsApi, pageSize, startCursor)) {
+            long registeredPage = 0;
+            while (clients.hasNext()) {
+                final HivemqOpenapiClient client = clients.next();
+                final String clientId = client.getId();
+                if (checkpoint != null) {
+                    if (clients.getPageCount() != registeredPage) {
+                        registeredPage = clients.getPageCount();
+                        checkpoint.registerPage(clients.getPageCursor());
                     }
-                }
-
-                if (links != null && links.getNext() != null) {
-                    final Matcher m = CURSOR_PATTERN.matcher(links.getNext());
-                    if (m.find()) {
-                        nextCursor = m.group(1);
-                    } else {
-                        hasNextCursor = false;
+                    if (clientId != null && !checkpoint.registerClientId(clientId)) {
+                        // already exported before the export was resumed
+                        continue;
                     }
-                } else {
-                    hasNextCursor = false;
                 }
+                receivedClientIds++;
+                if (clientId != null) {
+                    clientIdsQueue.put(clientId);
+                }
+            }
+            if (checkpoint != null) {
+                checkpoint.registerLastPage();
             }
+            Logger.debug("Finished retrieving {} client ids in {} pages", receivedClientIds, clients.getPageCount());
         } catch (final Exception ex) {
             Logger.error(ex, "Retrieval of client ids failed");
             throw new CompletionException(ex);
         }
-        Logger.debug("Finished retrieving {} client ids", receivedClientIds);
     }
 
     public long getReceivedClientIds() {
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientSubscription;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A subscription of an MQTT client, as the subscriptions returned by the HiveMQ API do not contain the client id.
+ */
+public class ClientSubscription {
+
+    private final @NotNull String clientId;
+    private final @NotNull HivemqOpenapiClientSubscription subscription;
+
+    public ClientSubscription(
+            final @NotNull String clientId, final @NotNull HivemqOpenapiClientSubscription subscription) {
+        this.clientId = clientId;
+        this.subscription = subscription;
+    }
+
+    public @NotNull String getClientId() {
+        return clientId;
+    }
+
+    public @NotNull HivemqOpenapiClientSubscription getSubscription() {
+        return subscription;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Function;
+
+/**
+ * The exported fields of the client subscriptions in the order of the export columns.
+ */
+public enum ClientSubscriptionField implements ExportField<ClientSubscription> {
+
+    clientId(ClientSubscription::getClientId),
+    topicFilter(subscription -> subscription.getSubscription().getTopicFilter()),
+    qos(subscription -> subscription.getSubscription().getQos()),
+    retainHandling(subscription -> subscription.getSubscription().getRetainHandling()),
+    retainAsPublished(subscription -> subscription.getSubscription().getRetainAsPublished()),
+    noLocal(subscription -> subscription.getSubscription().getNoLocal()),
+    subscriptionIdentifier(subscription -> subscription.getSubscription().getSubscriptionIdentifier());
+
+    private final @NotNull Function<ClientSubscription, Object> extractor;
+
+    ClientSubscriptionField(final @NotNull Function<ClientSubscription, Object> extractor) {
+        this.extractor = extractor;
+    }
+
+    @Override
+    public @Nullable Object value(final @NotNull ClientSubscription subscription) {
+        return extractor.apply(subscription);
+    }
+}
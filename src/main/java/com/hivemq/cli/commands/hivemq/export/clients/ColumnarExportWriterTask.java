@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the items in a compressed columnar format. The rows are collected in row groups and every row group
+ * stores the values column by column, with every column compressed separately, so that readers can decompress only
+ * the columns they need.
+ * <p>
+ * The layout of the file is (all integers are 4 byte big-endian):
+ * <ul>
+ *     <li>the magic bytes <code>MQCC</code>, the format version as one byte and the number of columns, followed by
+ *     the name of every column (as written by {@link DataOutputStream#writeUTF(String)})</li>
+ *     <li>row groups until the end of the file: the number of rows, followed by the uncompressed length, the
+ *     compressed length and the Deflate compressed data of every column</li>
+ * </ul>
+ * The data of a column contains one value per row: the UTF-8 length of the string representation plus one as unsigned
+ * varint followed by the UTF-8 bytes, or a single 0 byte if the value is not present.
+ *
+ * @param <T> the type of the exported items
+ */
+public class ColumnarExportWriterTask<T> extends ExportWriterTask<T> {
+
+    static final byte @NotNull [] MAGIC = {'M', 'Q', 'C', 'C'};
+    static final int VERSION = 1;
+    public static final int DEFAULT_ROW_GROUP_SIZE = 10_000;
+
+    private final @NotNull DataOutputStream outputStream;
+    private final int rowGroupSize;
+    private final @NotNull ByteArrayOutputStream @NotNull [] columns;
+    private final @NotNull Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final byte @NotNull [] deflateBuffer = new byte[64 * 1024];
+    private final @NotNull ByteArrayOutputStream compressedColumn = new ByteArrayOutputStream();
+    private int rows;
+
+    public ColumnarExportWriterTask(
+            final @NotNull CompletableFuture<Void> itemsFuture,
+            final @NotNull BlockingQueue<T> itemsQueue,
+            final @NotNull File file,
+            final @NotNull List<? extends ExportField<T>> fields,
+            final int rowGroupSize,
+            final boolean append,
+            final @Nullable ExportCheckpoint checkpoint,
+            final @NotNull Function<T, String> clientIdOf) throws IOException {
+        super(itemsFuture, itemsQueue, file, fields, append, checkpoint, clientIdOf);
+        this.outputStream =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, isAppend()), 64 * 1024));
+        this.rowGroupSize = rowGroupSize;
+        this.columns = new ByteArrayOutputStream[fields.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ByteArrayOutputStream();
+        }
+    }
+
+    @Override
+    protected int getFlushInterval() {
+        // rows are only written to the file with their row group
+        return rowGroupSize;
+    }
+
+    @Override
+    protected void writeHeader() throws IOException {
+        outputStream.write(MAGIC);
+        outputStream.writeByte(VERSION);
+        outputStream.writeInt(fields.size());
+        for (final ExportField<T> field : fields) {
+            outputStream.writeUTF(field.name());
+        }
+    }
+
+    @Override
+    protected void writeRow(final @NotNull T item) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            final String value = fields.get(i).stringValue(item);
+            if (value == null) {
+                columns[i].write(0);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(columns[i], bytes.length + 1);
+                columns[i].write(bytes, 0, bytes.length);
+            }
+        }
+        if (++rows == rowGroupSize) {
+            writeRowGroup();
+        }
+    }
+
+    @Override
+    protected void flush() throws IOException {
+        writeRowGroup();
+        outputStream.flush();
+    }
+
+    @Override
+    protected void close() throws IOException {
+        try {
+            writeRowGroup();
+            outputStream.close();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeRowGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        outputStream.writeInt(rows);
+        for (final ByteArrayOutputStream column : columns) {
+            compress(column);
+            outputStream.writeInt(column.size());
+            outputStream.writeInt(compressedColumn.size());
+            compressedColumn.writeTo(outputStream);
+            column.reset();
+        }
+        rows = 0;
+    }
+
+    private void compress(final @NotNull ByteArrayOutputStream column) {
+        compressedColumn.reset();
+        deflater.reset();
+        deflater.setInput(column.toByteArray());
+        deflater.finish();
+        while (!deflater.finished()) {
+            final int length = deflater.deflate(deflateBuffer);
+            compressedColumn.write(deflateBuffer, 0, length);
+        }
+    }
+
+    private static void writeVarInt(final @NotNull ByteArrayOutputStream out, final int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.opencsv.CSVWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Writes one CSV row per item with a header row.
+ *
+ * @param <T> the type of the exported items
+ */
+public class CsvExportWriterTask<T> extends ExportWriterTask<T> {
+
+    private final @NotNull CSVWriter csvWriter;
+    private final @NotNull String @NotNull [] row;
+
+    public CsvExportWriterTask(
+            final @NotNull CompletableFuture<Void> itemsFuture,
+            final @NotNull BlockingQueue<T> itemsQueue,
+            final @NotNull File file,
+            final @NotNull List<? extends ExportField<T>> fields,
+            final char lineSeparator,
+            final char quoteCharacter,
+            final char escapeCharacter,
+            final @NotNull String lineEndCharacter,
+            final boolean append,
+            final @Nullable ExportCheckpoint checkpoint,
+            final @NotNull Function<T, String> clientIdOf) throws IOException {
+        super(itemsFuture, itemsQueue, file, fields, append, checkpoint, clientIdOf);
+        final BufferedWriter bufferedFileWriter = new BufferedWriter(new FileWriter(file, isAppend()));
+        csvWriter = new CSVWriter(bufferedFileWriter, lineSeparator, quoteCharacter, escapeCharacter, lineEndCharacter);
+        row = new String[fields.size()];
+    }
+
+    @Override
+    protected void writeHeader() {
+        for (int i = 0; i < row.length; i++) {
+            row[i] = fields.get(i).name();
+        }
+        csvWriter.writeNext(row);
+    }
+
+    @Override
+    protected void writeRow(final @NotNull T item) {
+        // the row array is reused, as the CSV writer does not keep a reference to it
+        for (int i = 0; i < row.length; i++) {
+            row[i] = fields.get(i).stringValue(item);
+        }
+        csvWriter.writeNext(row);
+    }
+
+    @Override
+    protected void flush() throws IOException {
+        csvWriter.flush();
+    }
+
+    @Override
+    protected void close() throws IOException {
+        csvWriter.close();
+    }
+}
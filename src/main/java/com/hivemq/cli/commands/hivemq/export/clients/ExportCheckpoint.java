@@ -0,0 +1,379 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the progress of a client export in a sidecar file next to the output file, so that a failed export can be
+ * resumed instead of being started from scratch.
+ * <p>
+ * The sidecar file is an append-only log with one entry per line. It starts with the <code>format</code> and the
+ * <code>fields</code> of the export, followed by <code>id &lt;clientId&gt;</code> for every client whose details were
+ * written to the output file, <code>cursor &lt;cursor&gt;</code> whenever all clients of the pages before the page with
+ * this pagination cursor are completed and <code>length &lt;bytes&gt;</code> whenever the output file was flushed. A
+ * resumed export truncates the output file to the last recorded length, requests the client ids starting with the last
+ * cursor recorded before it and skips all clients which were recorded as written before it. Entries after the last
+ * length may refer to rows which were lost or only partially written and are ignored.
+ * <p>
+ * Client ids are registered per page by the client ids retrieval and completed either when they are written or when
+ * their details could not be retrieved because the client does not exist anymore.
+ */
+public class ExportCheckpoint implements Closeable {
+
+    private static final @NotNull String HEADER = "# mqtt-cli client export checkpoint";
+    private static final @NotNull String FORMAT_PREFIX = "format ";
+    private static final @NotNull String FIELDS_PREFIX = "fields ";
+    private static final @NotNull String LENGTH_PREFIX = "length ";
+    private static final @NotNull String CURSOR_PREFIX = "cursor ";
+    private static final @NotNull String CLIENT_ID_PREFIX = "id ";
+    private static final @NotNull String FILE_SUFFIX = ".checkpoint";
+
+    private final @NotNull File file;
+    private final @NotNull BufferedWriter writer;
+    private final @Nullable String resumeCursor;
+    private final long resumeLength;
+    private final @NotNull Set<String> writtenClientIds;
+    private final int resumedClientIds;
+    private final @NotNull Map<String, Page> pendingClientIds = new HashMap<>();
+    private final @NotNull ArrayDeque<Page> pages = new ArrayDeque<>();
+    private boolean allPagesRegistered;
+    private @Nullable IOException writeException;
+
+    private ExportCheckpoint(
+            final @NotNull File file,
+            final @NotNull BufferedWriter writer,
+            final @Nullable String resumeCursor,
+            final long resumeLength,
+            final @NotNull Set<String> writtenClientIds) {
+        this.file = file;
+        this.writer = writer;
+        this.resumeCursor = resumeCursor;
+        this.resumeLength = resumeLength;
+        this.writtenClientIds = writtenClientIds;
+        this.resumedClientIds = writtenClientIds.size();
+    }
+
+    /**
+     * @return the sidecar checkpoint file of the given export output file
+     */
+    public static @NotNull File fileOf(final @NotNull File outputFile) {
+        return new File(outputFile.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * Creates a new checkpoint file, replacing an existing one.
+     *
+     * @param format the output format of the export
+     * @param fields the names of the exported fields
+     */
+    public static @NotNull ExportCheckpoint create(
+            final @NotNull File file, final @NotNull String format, final @NotNull List<String> fields)
+            throws IOException {
+        final BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+        writeSettings(writer, format, fields);
+        writer.flush();
+        return new ExportCheckpoint(file, writer, null, 0, new HashSet<>());
+    }
+
+    /**
+     * Reads an existing checkpoint file, drops the entries after the last recorded output length and continues to
+     * append to it.
+     *
+     * @param format the output format of the resumed export
+     * @param fields the names of the exported fields of the resumed export
+     * @throws IOException if the file does not exist, is not a checkpoint file or was written by an export with a
+     *                     different format or different fields
+     */
+    public static @NotNull ExportCheckpoint resume(
+            final @NotNull File file, final @NotNull String format, final @NotNull List<String> fields)
+            throws IOException {
+        String cursor = null;
+        long length = 0;
+        final Set<String> writtenClientIds = new HashSet<>();
+        String uncommittedCursor = null;
+        final List<String> uncommittedClientIds = new ArrayList<>();
+        // a line may be truncated if the previous export was killed while writing
+        final boolean lastLineComplete = endsWithLineBreak(file);
+        try (final BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                throw new IOException("File " + file.getPath() + " is not a client export checkpoint");
+            }
+            checkSetting(file, reader.readLine(), FORMAT_PREFIX, format);
+            checkSetting(file, reader.readLine(), FIELDS_PREFIX, String.join(",", fields));
+            String line = reader.readLine();
+            while (line != null) {
+                final String next = reader.readLine();
+                if (next == null && !lastLineComplete) {
+                    break;
+                }
+                if (line.startsWith(CLIENT_ID_PREFIX)) {
+                    uncommittedClientIds.add(unescape(line.substring(CLIENT_ID_PREFIX.length())));
+                } else if (line.startsWith(CURSOR_PREFIX)) {
+                    uncommittedCursor = line.substring(CURSOR_PREFIX.length());
+                } else if (line.startsWith(LENGTH_PREFIX)) {
+                    length = Long.parseLong(line.substring(LENGTH_PREFIX.length()));
+                    writtenClientIds.addAll(uncommittedClientIds);
+                    uncommittedClientIds.clear();
+                    if (uncommittedCursor != null) {
+                        cursor = uncommittedCursor;
+                        uncommittedCursor = null;
+                    }
+                }
+                line = next;
+            }
+        } catch (final NumberFormatException e) {
+            throw new IOException("File " + file.getPath() + " is not a valid client export checkpoint", e);
+        }
+
+        // the file is rewritten without the ignored entries, so that they are not recorded by the resumed export
+        final Path tempFile = Path.of(file.getPath() + ".tmp");
+        try (final BufferedWriter tempWriter = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            writeSettings(tempWriter, format, fields);
+            for (final String clientId : writtenClientIds) {
+                tempWriter.write(CLIENT_ID_PREFIX + escape(clientId));
+                tempWriter.newLine();
+            }
+            if (cursor != null) {
+                tempWriter.write(CURSOR_PREFIX + cursor);
+                tempWriter.newLine();
+            }
+            tempWriter.write(LENGTH_PREFIX + length);
+            tempWriter.newLine();
+        }
+        Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        final BufferedWriter writer =
+                Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        return new ExportCheckpoint(file, writer, cursor, length, writtenClientIds);
+    }
+
+    /**
+     * @return the cursor of the first page with clients which were not completed or null to start with the first page
+     */
+    public @Nullable String getResumeCursor() {
+        return resumeCursor;
+    }
+
+    /**
+     * @return the length of the output file which contains all clients that were already written by earlier exports,
+     *         the output file must be truncated to it before it is resumed
+     */
+    public long getResumeLength() {
+        return resumeLength;
+    }
+
+    /**
+     * @return the number of clients which were already written by earlier exports
+     */
+    public int getResumedClientIds() {
+        return resumedClientIds;
+    }
+
+    public @NotNull File getFile() {
+        return file;
+    }
+
+    /**
+     * Starts a new page. All following client ids are registered for this page.
+     *
+     * @param cursor the cursor the page was requested with
+     */
+    public synchronized void registerPage(final @Nullable String cursor) {
+        pages.add(new Page(cursor));
+        advance();
+    }
+
+    /**
+     * Registers a client id of the current page.
+     *
+     * @return false if the client was already written or registered and must be skipped
+     */
+    public synchronized boolean registerClientId(final @NotNull String clientId) {
+        final Page page = pages.peekLast();
+        if (page == null) {
+            throw new IllegalStateException("No page registered for client id " + clientId);
+        }
+        if (writtenClientIds.contains(clientId) || pendingClientIds.containsKey(clientId)) {
+            return false;
+        }
+        pendingClientIds.put(clientId, page);
+        page.pendingClientIds++;
+        return true;
+    }
+
+    /**
+     * Marks that all pages were registered.
+     */
+    public synchronized void registerLastPage() {
+        allPagesRegistered = true;
+        advance();
+    }
+
+    /**
+     * Completes a registered client id.
+     *
+     * @param written true if the details of the client were written, false if the client was skipped
+     */
+    public synchronized void complete(final @NotNull String clientId, final boolean written) {
+        if (written && writtenClientIds.add(clientId)) {
+            writeLine(CLIENT_ID_PREFIX + escape(clientId));
+        }
+        final Page page = pendingClientIds.remove(clientId);
+        if (page != null) {
+            page.pendingClientIds--;
+            advance();
+        }
+    }
+
+    /**
+     * Records that the output file contains all completed clients and flushes the recorded progress. Must only be
+     * called after the written client details were flushed to the output file, so that the checkpoint never contains
+     * clients which are missing in the output.
+     *
+     * @param outputLength the length of the flushed output file
+     */
+    public synchronized void flush(final long outputLength) throws IOException {
+        writeLine(LENGTH_PREFIX + outputLength);
+        throwWriteException();
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            throwWriteException();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void advance() {
+        while (!pages.isEmpty() && pages.peek().pendingClientIds == 0 && (pages.size() > 1 || allPagesRegistered)) {
+            pages.poll();
+            final Page next = pages.peek();
+            if (next != null && next.cursor != null) {
+                writeLine(CURSOR_PREFIX + next.cursor);
+            }
+        }
+    }
+
+    private void writeLine(final @NotNull String line) {
+        if (writeException != null) {
+            return;
+        }
+        try {
+            writer.write(line);
+            writer.newLine();
+        } catch (final IOException e) {
+            writeException = e;
+        }
+    }
+
+    private static void writeSettings(
+            final @NotNull BufferedWriter writer, final @NotNull String format, final @NotNull List<String> fields)
+            throws IOException {
+        writer.write(HEADER);
+        writer.newLine();
+        writer.write(FORMAT_PREFIX + format);
+        writer.newLine();
+        writer.write(FIELDS_PREFIX + String.join(",", fields));
+        writer.newLine();
+    }
+
+    private static void checkSetting(
+            final @NotNull File file,
+            final @Nullable String line,
+            final @NotNull String prefix,
+            final @NotNull String expected) throws IOException {
+        if (line == null || !line.startsWith(prefix)) {
+            throw new IOException("File " + file.getPath() + " is not a valid client export checkpoint");
+        }
+        final String actual = line.substring(prefix.length());
+        if (!actual.equals(expected)) {
+            throw new IOException("The export can only be resumed with the same --" +
+                    prefix.trim() +
+                    " as the failed export (" +
+                    actual +
+                    ")");
+        }
+    }
+
+    private static boolean endsWithLineBreak(final @NotNull File file) throws IOException {
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            final long length = randomAccessFile.length();
+            if (length == 0) {
+                return true;
+            }
+            randomAccessFile.seek(length - 1);
+            return randomAccessFile.read() == '\n';
+        }
+    }
+
+    private void throwWriteException() throws IOException {
+        if (writeException != null) {
+            throw new IOException("Writing of checkpoint file " + file.getPath() + " failed", writeException);
+        }
+    }
+
+    private static @NotNull String escape(final @NotNull String value) {
+        return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static @NotNull String unescape(final @NotNull String value) {
+        final StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                final char escaped = value.charAt(++i);
+                builder.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static class Page {
+
+        private final @Nullable String cursor;
+        private int pendingClientIds;
+
+        Page(final @Nullable String cursor) {
+            this.cursor = cursor;
+        }
+    }
+}
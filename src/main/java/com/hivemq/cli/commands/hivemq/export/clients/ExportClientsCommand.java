@@ -38,8 +38,13 @@ import picocli.CommandLine;
 import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -50,6 +55,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @CommandLine.Command(name = "clients",
                      description = "Export HiveMQ client details",
@@ -59,7 +65,9 @@ import java.util.function.BiFunction;
 public class ExportClientsCommand implements Callable<Integer> {
 
     public enum OutputFormat {
-        csv
+        csv,
+        ndjson,
+        columnar
     }
 
     @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) //will be initialized via default value
@@ -74,25 +82,73 @@ public class ExportClientsCommand implements Callable<Integer> {
                         order = 2)
     private @Nullable File file;
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--resume"},
+                        defaultValue = "false",
+                        description = "Resume a failed export to the given file from its checkpoint file (default false)",
+                        order = 3)
+    private boolean resume;
+
     @SuppressWarnings("unused")
     @CommandLine.Option(names = {"-r", "--rate"},
                         defaultValue = "1500",
                         description = "The rate limit of the rest calls to the HiveMQ API endpoint in requests per second (default 1500 rps)",
-                        order = 3)
+                        order = 4)
     private double rateLimit;
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--page-size"},
+                        defaultValue = "" + ClientIdsRetrieverTask.DEFAULT_PAGE_SIZE,
+                        description = "The number of client ids requested per page from the HiveMQ API endpoint " +
+                                "(default " + ClientIdsRetrieverTask.DEFAULT_PAGE_SIZE + ")",
+                        order = 5)
+    private int pageSize;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--max-concurrent-requests"},
+                        defaultValue = "" + ClientDetailsRetrieverTask.DEFAULT_MAX_CONCURRENT_REQUESTS,
+                        description = "The maximum number of concurrent requests for client details, the actual " +
+                                "number adapts to the latency and overload responses of the HiveMQ API endpoint " +
+                                "(default " + ClientDetailsRetrieverTask.DEFAULT_MAX_CONCURRENT_REQUESTS + ")",
+                        order = 6)
+    private int maxConcurrentRequests;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--max-retries"},
+                        defaultValue = "" + ClientDetailsRetrieverTask.DEFAULT_MAX_RETRIES,
+                        description = "The maximum number of retries per client if the HiveMQ API endpoint is " +
+                                "overloaded (HTTP 429, 503, 504 or timeout) (default " +
+                                ClientDetailsRetrieverTask.DEFAULT_MAX_RETRIES + ")",
+                        order = 7)
+    private int maxRetries;
+
     @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) //will be initialized via default value
     @CommandLine.Option(names = {"--format"},
                         defaultValue = "csv",
-                        description = "The export output format (default csv)",
-                        order = 4)
+                        description = "The export output format: ${COMPLETION-CANDIDATES} (default csv)",
+                        order = 8)
     private @NotNull OutputFormat format;
 
+    @CommandLine.Option(names = {"--fields"},
+                        split = ",",
+                        description = "The comma separated fields to export (default all fields)",
+                        order = 9)
+    private @Nullable List<ClientDetailsField> fields;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--include-subscriptions"},
+                        defaultValue = "false",
+                        description = "Export the subscriptions of the clients to a second file with the suffix " +
+                                "'_subscriptions' in the same format, such an export can not be resumed " +
+                                "(default false)",
+                        order = 10)
+    private boolean includeSubscriptions;
+
     @SuppressWarnings("unused")
     @CommandLine.Option(names = {"--csvSeparator"},
                         defaultValue = "" + CSVWriter.DEFAULT_SEPARATOR,
                         description = "The separator for CSV export (default " + CSVWriter.DEFAULT_SEPARATOR + ")",
-                        order = 5)
+                        order = 11)
     private char csvSeparator;
 
     @SuppressWarnings("unused")
@@ -101,7 +157,7 @@ public class ExportClientsCommand implements Callable<Integer> {
                         description = "The quote character for csv export (default " +
                                 CSVWriter.DEFAULT_QUOTE_CHARACTER +
                                 ")",
-                        order = 6)
+                        order = 12)
     private char csvQuoteCharacter;
 
     @SuppressWarnings("unused")
@@ -110,21 +166,21 @@ public class ExportClientsCommand implements Callable<Integer> {
                         description = "The escape character for csv export (default " +
                                 CSVWriter.DEFAULT_ESCAPE_CHARACTER +
                                 ")",
-                        order = 7)
+                        order = 13)
     private char csvEscapeChar;
 
     @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) //will be initialized via default value
     @CommandLine.Option(names = {"--csvLineEndChar"},
                         defaultValue = CSVWriter.DEFAULT_LINE_END,
                         description = "The line-end character for csv export (default \\n)",
-                        order = 8)
+                        order = 14)
     private @NotNull String csvLineEndCharacter;
 
     @SuppressWarnings("unused")
     @CommandLine.Option(names = {"-l"},
                         defaultValue = "false",
                         description = "Log to $HOME/.mqtt-cli/logs (Configurable through $HOME/.mqtt-cli/config.properties)",
-                        order = 9)
+                        order = 15)
     private void initLogging(final boolean logToLogfile) {
         LoggerUtils.turnOffConsoleLogging(logToLogfile);
     }
@@ -132,6 +188,7 @@ public class ExportClientsCommand implements Callable<Integer> {
     private final static @NotNull String DEFAULT_FILE_NAME = "hivemq_client_details";
     private final static int CLIENT_IDS_QUEUE_LIMIT = 100_000;
     private final static int CLIENT_DETAILS_QUEUE_LIMIT = 10_000;
+    private final static int SUBSCRIPTIONS_QUEUE_LIMIT = 10_000;
 
     @Inject
     public ExportClientsCommand() {
@@ -141,9 +198,6 @@ public class ExportClientsCommand implements Callable<Integer> {
     public @NotNull Integer call() throws IOException, InterruptedException, ExecutionException {
         Logger.trace("Command {}", this);
 
-        // For now only CSV is supported as output format
-        assert format == OutputFormat.csv;
-
         // Check if given URL is valid
         final HttpUrl httpUrl = HttpUrl.parse(url);
         if (httpUrl == null) {
@@ -152,31 +206,95 @@ public class ExportClientsCommand implements Callable<Integer> {
             return -1;
         }
 
+        if (resume && file == null) {
+            Logger.error("An export can only be resumed with the file of the failed export");
+            System.err.println("An export can only be resumed with the file of the failed export (--file)");
+            return -1;
+        }
+
+        if (resume && includeSubscriptions) {
+            // the subscriptions are not recorded in the checkpoint, so their file would contain duplicates or gaps
+            Logger.error("An export with subscriptions can not be resumed");
+            System.err.println("An export with subscriptions (--include-subscriptions) can not be resumed");
+            return -1;
+        }
+
         // If no file is given create a new file with a current timestamp
         final String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
         if (file == null) {
-            final String fileType = OutputFormat.csv.name();
+            final String fileType = format.name();
             file = new File(DEFAULT_FILE_NAME + "_" + timestamp + "." + fileType);
         }
 
+        final List<ClientDetailsField> exportedFields =
+                fields != null && !fields.isEmpty() ? fields : Arrays.asList(ClientDetailsField.values());
+        final List<String> exportedFieldNames = new ArrayList<>(exportedFields.size());
+        for (final ClientDetailsField exportedField : exportedFields) {
+            exportedFieldNames.add(exportedField.name());
+        }
+
+        // Record the progress of the export, so that it can be resumed if it fails
+        final File checkpointFile = ExportCheckpoint.fileOf(file);
+        final ExportCheckpoint checkpoint;
+        if (resume) {
+            if (!checkpointFile.exists()) {
+                Logger.error("No checkpoint file {} found to resume the export", checkpointFile.getPath());
+                System.err.println("No checkpoint file " + checkpointFile.getPath() + " found to resume the export");
+                return -1;
+            }
+            try {
+                checkpoint = ExportCheckpoint.resume(checkpointFile, format.name(), exportedFieldNames);
+            } catch (final IOException e) {
+                Logger.error(e, "Export can not be resumed");
+                System.err.println("Export can not be resumed: " + e.getMessage());
+                return -1;
+            }
+            // Rows written after the last checkpoint flush may be incomplete, their clients are exported again
+            final long resumeLength = checkpoint.getResumeLength();
+            if (file.length() < resumeLength) {
+                checkpoint.close();
+                Logger.error("Export file {} is shorter than recorded in its checkpoint", file.getPath());
+                System.err.println("Export can not be resumed: " +
+                        file.getPath() +
+                        " is shorter than recorded in its checkpoint");
+                return -1;
+            }
+            if (file.exists()) {
+                try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                    channel.truncate(resumeLength);
+                }
+            }
+            Logger.info("Resuming export after {} previously exported client details",
+                    checkpoint.getResumedClientIds());
+        } else {
+            checkpoint = ExportCheckpoint.create(checkpointFile, format.name(), exportedFieldNames);
+        }
+
         // Setup rest service and queues
-        final MqttClientsApi mqttClientsApi = new HiveMQRestService().getMqttClientsApi(url, rateLimit);
+        final MqttClientsApi mqttClientsApi =
+                new HiveMQRestService().getMqttClientsApi(url, rateLimit, maxConcurrentRequests);
         final BlockingQueue<String> clientIdsQueue = new LinkedBlockingQueue<>(CLIENT_IDS_QUEUE_LIMIT);
         final BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue =
                 new LinkedBlockingQueue<>(CLIENT_DETAILS_QUEUE_LIMIT);
+        final BlockingQueue<ClientSubscription> subscriptionsQueue =
+                includeSubscriptions ? new LinkedBlockingQueue<>(SUBSCRIPTIONS_QUEUE_LIMIT) : null;
 
         Logger.info("Starting export of client details for HiveMQ at {}", url);
 
         // Start retrieving client ids
         final ClientIdsRetrieverTask clientIdsRetrieverTask =
-                new ClientIdsRetrieverTask(mqttClientsApi, clientIdsQueue);
+                new ClientIdsRetrieverTask(mqttClientsApi, clientIdsQueue, pageSize, checkpoint);
         final CompletableFuture<Void> clientIdsRetrieverFuture = CompletableFuture.runAsync(clientIdsRetrieverTask);
 
         // Start retrieving client details
         final ClientDetailsRetrieverTask clientDetailsRetrieverTask = new ClientDetailsRetrieverTask(mqttClientsApi,
                 clientIdsRetrieverFuture,
                 clientIdsQueue,
-                clientDetailsQueue);
+                clientDetailsQueue,
+                maxConcurrentRequests,
+                maxRetries,
+                checkpoint,
+                subscriptionsQueue);
         final CompletableFuture<Void> clientDetailsRetrieverFuture =
                 CompletableFuture.runAsync(clientDetailsRetrieverTask);
 
@@ -191,30 +309,48 @@ public class ExportClientsCommand implements Callable<Integer> {
         }
 
         // Start writing client details
-        final ClientDetailsCsvWriterTask clientDetailsCsvWriterTask = new ClientDetailsCsvWriterTask(
+        final ExportWriterTask<HivemqOpenapiClientDetails> clientDetailsWriterTask = createWriterTask(
                 clientDetailsRetrieverFuture,
                 clientDetailsQueue,
                 file,
-                csvSeparator,
-                csvQuoteCharacter,
-                csvEscapeChar,
-                csvLineEndCharacter);
-        final CompletableFuture<Void> clientDetailsCsvWriterFuture =
-                CompletableFuture.runAsync(clientDetailsCsvWriterTask);
+                exportedFields,
+                checkpoint,
+                HivemqOpenapiClientDetails::getId);
+        final CompletableFuture<Void> clientDetailsWriterFuture = CompletableFuture.runAsync(clientDetailsWriterTask);
+
+        // Start writing subscriptions, which are not recorded in the checkpoint, so the export can not be resumed
+        final ExportWriterTask<ClientSubscription> subscriptionsWriterTask;
+        final CompletableFuture<Void> subscriptionsWriterFuture;
+        if (subscriptionsQueue != null) {
+            subscriptionsWriterTask = createWriterTask(clientDetailsRetrieverFuture,
+                    subscriptionsQueue,
+                    subscriptionsFileOf(file),
+                    Arrays.asList(ClientSubscriptionField.values()),
+                    null,
+                    ClientSubscription::getClientId);
+            subscriptionsWriterFuture = CompletableFuture.runAsync(subscriptionsWriterTask);
+        } else {
+            subscriptionsWriterTask = null;
+            subscriptionsWriterFuture = CompletableFuture.completedFuture(null);
+        }
 
         // Start printing
         final ScheduledExecutorService printingScheduler = Executors.newScheduledThreadPool(1);
         printingScheduler.scheduleWithFixedDelay(new PrintingTask(clientIdsRetrieverTask,
                 clientIdsRetrieverFuture,
-                clientDetailsCsvWriterTask), 100, 500, TimeUnit.MILLISECONDS);
+                clientDetailsWriterTask), 100, 500, TimeUnit.MILLISECONDS);
 
 
         // Handle completion of all futures
         final CompletableFuture<Void> exportFuture = CompletableFuture.allOf(clientIdsRetrieverFuture,
                 clientDetailsRetrieverFuture,
-                clientDetailsCsvWriterFuture);
+                clientDetailsWriterFuture,
+                subscriptionsWriterFuture);
         final CompletableFuture<Integer> exportResultFuture =
-                exportFuture.handle(new ExportCompletedHandler(clientDetailsCsvWriterTask, printingScheduler));
+                exportFuture.handle(new ExportCompletedHandler(clientDetailsWriterTask,
+                        subscriptionsWriterTask,
+                        checkpoint,
+                        printingScheduler));
 
         // Join all future
         final Integer exitCode = exportResultFuture.get();
@@ -224,6 +360,59 @@ public class ExportClientsCommand implements Callable<Integer> {
         return exitCode;
     }
 
+    private <T> @NotNull ExportWriterTask<T> createWriterTask(
+            final @NotNull CompletableFuture<Void> itemsFuture,
+            final @NotNull BlockingQueue<T> itemsQueue,
+            final @NotNull File file,
+            final @NotNull List<? extends ExportField<T>> exportedFields,
+            final @Nullable ExportCheckpoint checkpoint,
+            final @NotNull Function<T, String> clientIdOf) throws IOException {
+        switch (format) {
+            case ndjson:
+                return new NdjsonExportWriterTask<>(itemsFuture,
+                        itemsQueue,
+                        file,
+                        exportedFields,
+                        resume,
+                        checkpoint,
+                        clientIdOf);
+            case columnar:
+                return new ColumnarExportWriterTask<>(itemsFuture,
+                        itemsQueue,
+                        file,
+                        exportedFields,
+                        ColumnarExportWriterTask.DEFAULT_ROW_GROUP_SIZE,
+                        resume,
+                        checkpoint,
+                        clientIdOf);
+            default:
+                return new CsvExportWriterTask<>(itemsFuture,
+                        itemsQueue,
+                        file,
+                        exportedFields,
+                        csvSeparator,
+                        csvQuoteCharacter,
+                        csvEscapeChar,
+                        csvLineEndCharacter,
+                        resume,
+                        checkpoint,
+                        clientIdOf);
+        }
+    }
+
+    /**
+     * @return the file for the subscriptions next to the given client details file, e.g. clients_subscriptions.csv for
+     *         clients.csv
+     */
+    static @NotNull File subscriptionsFileOf(final @NotNull File file) {
+        final String name = file.getName();
+        final int extensionIndex = name.lastIndexOf('.');
+        final String subscriptionsName = extensionIndex > 0 ?
+                name.substring(0, extensionIndex) + "_subscriptions" + name.substring(extensionIndex) :
+                name + "_subscriptions";
+        return new File(file.getParentFile(), subscriptionsName);
+    }
+
     @Override
     public @NotNull String toString() {
         return "ExportClientsCommand{" +
@@ -232,10 +421,22 @@ public class ExportClientsCommand implements Callable<Integer> {
                 '\'' +
                 ", file=" +
                 file +
+                ", resume=" +
+                resume +
                 ", rateLimit=" +
                 rateLimit +
+                ", pageSize=" +
+                pageSize +
+                ", maxConcurrentRequests=" +
+                maxConcurrentRequests +
+                ", maxRetries=" +
+                maxRetries +
                 ", format=" +
                 format +
+                ", fields=" +
+                fields +
+                ", includeSubscriptions=" +
+                includeSubscriptions +
                 ", csvSeparator=" +
                 csvSeparator +
                 ", csvQuoteCharacter=" +
@@ -252,20 +453,20 @@ public class ExportClientsCommand implements Callable<Integer> {
 
         private final @NotNull ClientIdsRetrieverTask clientIdsRetrieverTask;
         private final @NotNull CompletableFuture<Void> clientIdsRetrieverFuture;
-        private final @NotNull ClientDetailsCsvWriterTask clientDetailsCsvWriterTask;
+        private final @NotNull ExportWriterTask<HivemqOpenapiClientDetails> clientDetailsWriterTask;
         private long lastReported = -1;
 
         public PrintingTask(
                 final @NotNull ClientIdsRetrieverTask clientIdsRetrieverTask,
                 final @NotNull CompletableFuture<Void> clientIdsRetrieverFuture,
-                final @NotNull ClientDetailsCsvWriterTask clientDetailsCsvWriterTask) {
+                final @NotNull ExportWriterTask<HivemqOpenapiClientDetails> clientDetailsWriterTask) {
             this.clientIdsRetrieverTask = clientIdsRetrieverTask;
             this.clientIdsRetrieverFuture = clientIdsRetrieverFuture;
-            this.clientDetailsCsvWriterTask = clientDetailsCsvWriterTask;
+            this.clientDetailsWriterTask = clientDetailsWriterTask;
         }
 
         public void run() {
-            final long newValue = clientDetailsCsvWriterTask.getWrittenClientDetails();
+            final long newValue = clientDetailsWriterTask.getWrittenItems();
             if (newValue != lastReported) {
                 lastReported = newValue;
                 if (clientIdsRetrieverFuture.isDone()) {
@@ -284,19 +485,33 @@ public class ExportClientsCommand implements Callable<Integer> {
 
     private class ExportCompletedHandler implements BiFunction<Void, Throwable, Integer> {
 
-        private final @NotNull ClientDetailsCsvWriterTask clientDetailsCsvWriterTask;
+        private final @NotNull ExportWriterTask<HivemqOpenapiClientDetails> clientDetailsWriterTask;
+        private final @Nullable ExportWriterTask<ClientSubscription> subscriptionsWriterTask;
+        private final @NotNull ExportCheckpoint checkpoint;
         private final @NotNull ScheduledExecutorService printingScheduler;
 
         public ExportCompletedHandler(
-                final @NotNull ClientDetailsCsvWriterTask clientDetailsCsvWriterTask,
+                final @NotNull ExportWriterTask<HivemqOpenapiClientDetails> clientDetailsWriterTask,
+                final @Nullable ExportWriterTask<ClientSubscription> subscriptionsWriterTask,
+                final @NotNull ExportCheckpoint checkpoint,
                 final @NotNull ScheduledExecutorService printingScheduler) {
-            this.clientDetailsCsvWriterTask = clientDetailsCsvWriterTask;
+            this.clientDetailsWriterTask = clientDetailsWriterTask;
+            this.subscriptionsWriterTask = subscriptionsWriterTask;
+            this.checkpoint = checkpoint;
             this.printingScheduler = printingScheduler;
         }
 
         @Override
         public @NotNull Integer apply(final @Nullable Void o, final @Nullable Throwable throwable) {
             printingScheduler.shutdown();
+            try {
+                checkpoint.close();
+            } catch (final IOException e) {
+                Logger.error(e, "Writing of checkpoint file failed");
+                System.err.println("\rFailed to write checkpoint file " +
+                        checkpoint.getFile().getPath() +
+                        ", the export can not be resumed");
+            }
             if (throwable != null) {
                 if (throwable.getCause() instanceof ApiException) {
                     final ApiException apiException = (ApiException) throwable.getCause();
@@ -321,23 +536,46 @@ public class ExportClientsCommand implements Callable<Integer> {
                             Throwables.getRootCause(throwable).getMessage());
                 }
 
-                if (clientDetailsCsvWriterTask.getWrittenClientDetails() > 0) {
+                if (clientDetailsWriterTask.getWrittenItems() > 0 || resume) {
                     System.out.println("Wrote " +
-                            clientDetailsCsvWriterTask.getWrittenClientDetails() +
+                            clientDetailsWriterTask.getWrittenItems() +
                             " client details to " +
                             Objects.requireNonNull(file).getPath());
+                    printWrittenSubscriptions();
+                    if (subscriptionsWriterTask != null) {
+                        checkpoint.getFile().delete();
+                        System.out.println("Run the export again to export all clients, " +
+                                "an export with subscriptions can not be resumed");
+                    } else {
+                        System.out.println("Run the export again with --resume to continue it");
+                    }
                 } else {
                     Objects.requireNonNull(file).delete();
+                    checkpoint.getFile().delete();
+                    if (subscriptionsWriterTask != null) {
+                        subscriptionsWriterTask.getFile().delete();
+                    }
                 }
 
                 return -1; // Export failed
             } else {
+                checkpoint.getFile().delete();
                 System.out.println("\rSuccessfully exported " +
-                        clientDetailsCsvWriterTask.getWrittenClientDetails() +
+                        clientDetailsWriterTask.getWrittenItems() +
                         " client details to " +
                         Objects.requireNonNull(file).getPath());
+                printWrittenSubscriptions();
                 return 0; // Export was successful
             }
         }
+
+        private void printWrittenSubscriptions() {
+            if (subscriptionsWriterTask != null) {
+                System.out.println("Wrote " +
+                        subscriptionsWriterTask.getWrittenItems() +
+                        " subscriptions to " +
+                        subscriptionsWriterTask.getFile().getPath());
+            }
+        }
     }
 }
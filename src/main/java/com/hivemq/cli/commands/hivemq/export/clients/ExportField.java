@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A field of an exported item, which is written as one column.
+ *
+ * @param <T> the type of the exported items
+ */
+public interface ExportField<T> {
+
+    /**
+     * @return the name of the column
+     */
+    @NotNull String name();
+
+    /**
+     * @return the value of the field, which is a {@link Boolean}, a {@link Number} or an object which is exported
+     *         with its string representation, or null if the value or one of its enclosing objects is not present
+     */
+    @Nullable Object value(@NotNull T item);
+
+    /**
+     * @return the string representation of the value of the field or null if it is not present
+     */
+    default @Nullable String stringValue(final @NotNull T item) {
+        final Object value = value(item);
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Writes the items from a queue to a file until the retrieval of the items is done. Subclasses implement the output
+ * format.
+ *
+ * @param <T> the type of the exported items
+ */
+public abstract class ExportWriterTask<T> implements Runnable {
+
+    private static final int DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final long IDLE_FLUSH_INTERVAL_MILLIS = 1000;
+
+    private final @NotNull AtomicLong writtenItems = new AtomicLong(0);
+    private final @NotNull AtomicBoolean closed = new AtomicBoolean(false);
+    private final @NotNull CompletableFuture<Void> itemsFuture;
+    private final @NotNull BlockingQueue<T> itemsQueue;
+    private final @NotNull File file;
+    private final boolean append;
+    private final @Nullable ExportCheckpoint checkpoint;
+    private final @NotNull Function<T, String> clientIdOf;
+    private final @NotNull List<String> unflushedClientIds = new ArrayList<>();
+    protected final @NotNull List<? extends ExportField<T>> fields;
+
+    /**
+     * @param itemsFuture the future of the retrieval of the items, the task finishes when it is done and the queue is
+     *                    empty
+     * @param fields      the exported fields in the order of the columns
+     * @param append      true to append to an existing file without writing the header again
+     * @param checkpoint  the checkpoint of the export which the clients of written items are completed in
+     * @param clientIdOf  the client id of an item for the checkpoint
+     */
+    protected ExportWriterTask(
+            final @NotNull CompletableFuture<Void> itemsFuture,
+            final @NotNull BlockingQueue<T> itemsQueue,
+            final @NotNull File file,
+            final @NotNull List<? extends ExportField<T>> fields,
+            final boolean append,
+            final @Nullable ExportCheckpoint checkpoint,
+            final @NotNull Function<T, String> clientIdOf) {
+        this.itemsFuture = itemsFuture;
+        this.itemsQueue = itemsQueue;
+        this.file = file;
+        this.fields = fields;
+        this.append = append && file.length() > 0;
+        this.checkpoint = checkpoint;
+        this.clientIdOf = clientIdOf;
+    }
+
+    @Override
+    public void run() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                synchronized (this) {
+                    closeFile();
+                    if (checkpoint != null) {
+                        completeUnflushedClientIds(checkpoint);
+                        checkpoint.flush(file.length());
+                        checkpoint.close();
+                    }
+                }
+            } catch (final IOException e) {
+                Logger.error(e, "Interrupted before file could be written - file may be malformed");
+                System.err.println("Interrupted before all content was written, output file may be incomplete");
+            }
+        }));
+
+        try {
+            if (!append) {
+                writeHeader();
+            }
+
+            long lastFlush = System.nanoTime();
+            while (!itemsFuture.isDone() || !itemsQueue.isEmpty()) {
+
+                final T item = itemsQueue.poll(50, TimeUnit.MILLISECONDS);
+
+                if (item != null) {
+                    // the shutdown hook must not close the file while a row is only partially written
+                    synchronized (this) {
+                        writeRow(item);
+                        final String clientId = clientIdOf.apply(item);
+                        if (checkpoint != null && clientId != null) {
+                            unflushedClientIds.add(clientId);
+                        }
+                    }
+                    if (writtenItems.incrementAndGet() % getFlushInterval() == 0) {
+                        flushCheckpoint();
+                        lastFlush = System.nanoTime();
+                    }
+                } else if (System.nanoTime() - lastFlush >= TimeUnit.MILLISECONDS.toNanos(IDLE_FLUSH_INTERVAL_MILLIS)) {
+                    flushCheckpoint();
+                    lastFlush = System.nanoTime();
+                }
+            }
+            synchronized (this) {
+                closeFile();
+                if (checkpoint != null) {
+                    completeUnflushedClientIds(checkpoint);
+                    checkpoint.flush(file.length());
+                }
+            }
+        } catch (final Exception e) {
+            Logger.error(e, "Writing of export file {} failed", file.getAbsolutePath());
+            throw new CompletionException(e);
+        }
+        Logger.debug("Finished writing {} items to export file {}", writtenItems, file.getAbsolutePath());
+    }
+
+    public long getWrittenItems() {
+        return writtenItems.get();
+    }
+
+    public @NotNull File getFile() {
+        return file;
+    }
+
+    protected boolean isAppend() {
+        return append;
+    }
+
+    /**
+     * @return the number of rows after which the rows are flushed to the file and recorded in the checkpoint
+     */
+    protected int getFlushInterval() {
+        return DEFAULT_FLUSH_INTERVAL;
+    }
+
+    protected abstract void writeHeader() throws IOException;
+
+    protected abstract void writeRow(@NotNull T item) throws IOException;
+
+    /**
+     * Writes all rows which were written so far to the file.
+     */
+    protected abstract void flush() throws IOException;
+
+    /**
+     * Writes all remaining rows and closes the file.
+     */
+    protected abstract void close() throws IOException;
+
+    private void closeFile() throws IOException {
+        if (closed.compareAndSet(false, true)) {
+            close();
+        }
+    }
+
+    private synchronized void flushCheckpoint() throws IOException {
+        if (checkpoint != null) {
+            // the rows must be in the file before the checkpoint records them as written
+            flush();
+            completeUnflushedClientIds(checkpoint);
+            checkpoint.flush(file.length());
+        }
+    }
+
+    private void completeUnflushedClientIds(final @NotNull ExportCheckpoint checkpoint) {
+        for (final String clientId : unflushedClientIds) {
+            checkpoint.complete(clientId, true);
+        }
+        unflushedClientIds.clear();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Writes every item as one JSON object per line. Booleans and numbers are written as JSON values, all other values as
+ * strings. Fields without a value are omitted.
+ *
+ * @param <T> the type of the exported items
+ */
+public class NdjsonExportWriterTask<T> extends ExportWriterTask<T> {
+
+    private final @NotNull BufferedWriter bufferedFileWriter;
+    private final @NotNull JsonWriter jsonWriter;
+
+    public NdjsonExportWriterTask(
+            final @NotNull CompletableFuture<Void> itemsFuture,
+            final @NotNull BlockingQueue<T> itemsQueue,
+            final @NotNull File file,
+            final @NotNull List<? extends ExportField<T>> fields,
+            final boolean append,
+            final @Nullable ExportCheckpoint checkpoint,
+            final @NotNull Function<T, String> clientIdOf) throws IOException {
+        super(itemsFuture, itemsQueue, file, fields, append, checkpoint, clientIdOf);
+        bufferedFileWriter = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8, isAppend()));
+        jsonWriter = new JsonWriter(bufferedFileWriter);
+        // lenient to allow multiple top level objects, which are separated by line breaks
+        jsonWriter.setStrictness(Strictness.LENIENT);
+    }
+
+    @Override
+    protected void writeHeader() {
+    }
+
+    @Override
+    protected void writeRow(final @NotNull T item) throws IOException {
+        jsonWriter.beginObject();
+        for (final ExportField<T> field : fields) {
+            final Object value = field.value(item);
+            if (value instanceof Boolean) {
+                jsonWriter.name(field.name()).value((Boolean) value);
+            } else if (value instanceof Number) {
+                jsonWriter.name(field.name()).value((Number) value);
+            } else if (value != null) {
+                jsonWriter.name(field.name()).value(value.toString());
+            }
+        }
+        jsonWriter.endObject();
+        bufferedFileWriter.write('\n');
+    }
+
+    @Override
+    protected void flush() throws IOException {
+        jsonWriter.flush();
+    }
+
+    @Override
+    protected void close() throws IOException {
+        // the JSON writer would reject closing an export without any client details as an incomplete document
+        bufferedFileWriter.close();
+    }
+}
@@ -17,6 +17,7 @@
 package com.hivemq.cli.commands.hivemq.schema;
 
 import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.DataHubOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.converters.SchemaTypeConverter;
@@ -62,6 +63,9 @@ public class SchemaListCommand implements Callable<Integer> {
     @CommandLine.Option(names = {"--limit"}, description = "Limit the number of returned schemas")
     private @Nullable Integer limit;
 
+    @CommandLine.Mixin
+    private final @NotNull DataHubListOptions dataHubListOptions = new DataHubListOptions();
+
     @CommandLine.Mixin
     private final @NotNull DataHubOptions dataHubOptions = new DataHubOptions();
 
@@ -87,8 +91,18 @@ public class SchemaListCommand implements Callable<Integer> {
             return 1;
         }
 
-        final ListSchemasTask listSchemasTask =
-                new ListSchemasTask(outputFormatter, schemasApi, schemaTypes, schemaIds, fields, limit);
+        if (!dataHubListOptions.validate(outputFormatter)) {
+            return 1;
+        }
+
+        final ListSchemasTask listSchemasTask = new ListSchemasTask(outputFormatter,
+                schemasApi,
+                schemaTypes,
+                schemaIds,
+                fields,
+                limit,
+                dataHubListOptions.getPageSize(),
+                dataHubListOptions.getFormat());
 
         if (listSchemasTask.execute()) {
             return 0;
@@ -108,6 +122,8 @@ public class SchemaListCommand implements Callable<Integer> {
                 Arrays.toString(fields) +
                 ", limit=" +
                 limit +
+                ", dataHubListOptions=" +
+                dataHubListOptions +
                 ", dataGovernanceOptions=" +
                 dataHubOptions +
                 ", outputFormatter=" +
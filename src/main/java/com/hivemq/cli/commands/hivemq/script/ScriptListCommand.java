@@ -17,6 +17,7 @@
 package com.hivemq.cli.commands.hivemq.script;
 
 import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.DataHubOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.converters.FunctionTypeConverter;
@@ -63,6 +64,9 @@ public class ScriptListCommand implements Callable<Integer> {
     @CommandLine.Option(names = {"--limit"}, description = "Limit the number of returned scripts")
     private @Nullable Integer limit;
 
+    @CommandLine.Mixin
+    private final @NotNull DataHubListOptions dataHubListOptions = new DataHubListOptions();
+
     @CommandLine.Mixin
     private final @NotNull DataHubOptions dataHubOptions = new DataHubOptions();
 
@@ -88,8 +92,18 @@ public class ScriptListCommand implements Callable<Integer> {
             return 1;
         }
 
-        final ListScriptsTask listScriptsTask =
-                new ListScriptsTask(outputFormatter, scriptsApi, functionTypes, scriptIds, fields, limit);
+        if (!dataHubListOptions.validate(outputFormatter)) {
+            return 1;
+        }
+
+        final ListScriptsTask listScriptsTask = new ListScriptsTask(outputFormatter,
+                scriptsApi,
+                functionTypes,
+                scriptIds,
+                fields,
+                limit,
+                dataHubListOptions.getPageSize(),
+                dataHubListOptions.getFormat());
 
         if (listScriptsTask.execute()) {
             return 0;
@@ -105,6 +119,7 @@ public class ScriptListCommand implements Callable<Integer> {
                 ", scriptIds=" + Arrays.toString(scriptIds) +
                 ", fields=" + Arrays.toString(fields) +
                 ", limit=" + limit +
+                ", dataHubListOptions=" + dataHubListOptions +
                 ", dataHubOptions=" + dataHubOptions +
                 ", outputFormatter=" + outputFormatter +
                 ", hiveMQRestService=" + hiveMQRestService +
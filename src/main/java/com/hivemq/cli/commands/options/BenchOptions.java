@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import com.hivemq.cli.converters.ByteSizeConverter;
+import com.hivemq.cli.converters.DurationConverter;
+import com.hivemq.cli.converters.MqttQosConverter;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import picocli.CommandLine;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+public class BenchOptions {
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--publishers"},
+                        defaultValue = "1",
+                        description = "The number of publisher connections (default: 1)")
+    private int publishers;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--subscribers"},
+                        defaultValue = "1",
+                        description = "The number of subscriber connections (default: 1)")
+    private int subscribers;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--topics"},
+                        defaultValue = "1",
+                        description = "The number of topics. Publisher and subscriber n use topic n modulo the " +
+                                "number of topics, so 1 topic fans in all publishers and fans out to all " +
+                                "subscribers (default: 1)")
+    private int topics;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Option(names = {"-t", "--topic-prefix"},
+                        defaultValue = "bench",
+                        description = "The prefix of the benchmark topics (default: bench)")
+    private @NotNull String topicPrefix;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Option(names = {"-q", "--qos"},
+                        converter = MqttQosConverter.class,
+                        split = ",",
+                        defaultValue = "0",
+                        description = "The QoS levels to benchmark, e.g. 0,1,2 (default: 0)")
+    private @NotNull MqttQos @NotNull [] qos;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Option(names = {"--payload-size"},
+                        converter = ByteSizeConverter.class,
+                        split = ",",
+                        defaultValue = "64B",
+                        description = "The payload sizes to benchmark, at least 8 bytes for the send timestamp, " +
+                                "e.g. 64B,1KB,64KB (default: 64B)")
+    private @NotNull Long @NotNull [] payloadSizes;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Option(names = {"--warmup"},
+                        converter = DurationConverter.class,
+                        defaultValue = "5s",
+                        description = "The time to publish before every measurement, e.g. 5s (default: 5s)")
+    private @NotNull Duration warmup;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Option(names = {"--duration"},
+                        converter = DurationConverter.class,
+                        defaultValue = "30s",
+                        description = "The time to measure every combination of QoS and payload size, e.g. 30s or " +
+                                "5m (default: 30s)")
+    private @NotNull Duration duration;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--rate"},
+                        description = "The maximum number of messages every publisher sends per second " +
+                                "(default: unlimited)")
+    private @Nullable Double rate;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--maxInFlight"},
+                        defaultValue = "100",
+                        description = "The maximum number of publishes per publisher sent without waiting for " +
+                                "their acknowledgement. Bounded by the receive maximum of the broker (default: 100)")
+    private int maxInFlight;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--parallelism"},
+                        defaultValue = "50",
+                        description = "The maximum number of clients which connect at the same time (default: 50)")
+    private int parallelism;
+
+    public int getPublishers() {
+        return publishers;
+    }
+
+    public int getSubscribers() {
+        return subscribers;
+    }
+
+    public int getTopics() {
+        return topics;
+    }
+
+    public @NotNull String getTopicPrefix() {
+        return topicPrefix;
+    }
+
+    public @NotNull MqttQos @NotNull [] getQos() {
+        return qos;
+    }
+
+    public @NotNull Long @NotNull [] getPayloadSizes() {
+        return payloadSizes;
+    }
+
+    public @NotNull Duration getWarmup() {
+        return warmup;
+    }
+
+    public @NotNull Duration getDuration() {
+        return duration;
+    }
+
+    public @Nullable Double getRate() {
+        return rate;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "BenchOptions{" +
+                "publishers=" +
+                publishers +
+                ", subscribers=" +
+                subscribers +
+                ", topics=" +
+                topics +
+                ", topicPrefix='" +
+                topicPrefix +
+                '\'' +
+                ", qos=" +
+                Arrays.toString(qos) +
+                ", payloadSizes=" +
+                Arrays.toString(payloadSizes) +
+                ", warmup=" +
+                warmup +
+                ", duration=" +
+                duration +
+                ", rate=" +
+                rate +
+                ", maxInFlight=" +
+                maxInFlight +
+                ", parallelism=" +
+                parallelism +
+                '}';
+    }
+}
@@ -105,6 +105,9 @@ public class ConnectOptions {
     @CommandLine.Mixin
     private final @NotNull TlsOptions tlsOptions = new TlsOptions();
 
+    @CommandLine.Mixin
+    private final @NotNull ExecutorOptions executorOptions = new ExecutorOptions();
+
     public @NotNull MqttVersion getVersion() {
         return Objects.requireNonNull(version);
     }
@@ -121,6 +124,14 @@ public class ConnectOptions {
         return identifier;
     }
 
+    public @Nullable String getIdentifierPrefix() {
+        return identifierPrefix;
+    }
+
+    public void setIdentifier(final @NotNull String identifier) {
+        this.identifier = identifier;
+    }
+
     public @Nullable Long getSessionExpiryInterval() {
         return sessionExpiryInterval;
     }
@@ -141,6 +152,10 @@ public class ConnectOptions {
         return connectRestrictionOptions;
     }
 
+    public @NotNull ExecutorOptions getExecutorOptions() {
+        return executorOptions;
+    }
+
     public @Nullable MqttClientSslConfig buildSslConfig() throws Exception {
         return tlsOptions.buildSslConfig();
     }
@@ -196,6 +211,7 @@ public class ConnectOptions {
         }
 
         authenticationOptions.setDefaultOptions();
+        executorOptions.setDefaultOptions(defaultCLIProperties);
     }
 
     public void logUnusedOptions() {
@@ -282,6 +298,8 @@ public class ConnectOptions {
                 authenticationOptions +
                 ", tlsOptions=" +
                 tlsOptions +
+                ", executorOptions=" +
+                executorOptions +
                 '}';
     }
 }
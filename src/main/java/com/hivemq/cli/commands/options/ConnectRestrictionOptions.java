@@ -65,7 +65,9 @@ public class ConnectRestrictionOptions {
 
     @SuppressWarnings("unused")
     @CommandLine.Option(names = {"--sendTopicAliasMax"},
-                        description = "The maximum amount of topic aliases the client sends to the server. (default: " +
+                        description = "The maximum amount of topic aliases the client sends to the server. " +
+                                "Repeated topics are sent as topic aliases automatically, bounded by the topic alias " +
+                                "maximum of the server. (default: " +
                                 Mqtt5ConnectRestrictions.DEFAULT_SEND_TOPIC_ALIAS_MAXIMUM +
                                 ")")
     private @Nullable Integer sendTopicAliasMaximum;
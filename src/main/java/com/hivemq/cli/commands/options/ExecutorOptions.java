@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import com.hivemq.cli.DefaultCLIProperties;
+import com.hivemq.cli.converters.TransportConverter;
+import com.hivemq.cli.mqtt.Transport;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+public class ExecutorOptions {
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--transport"},
+                        converter = TransportConverter.class,
+                        description = "The network transport of the clients, nio or epoll. Selected by the first " +
+                                "client of the process (default: epoll if available, else nio)")
+    private @Nullable Transport transport;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--netty-threads"},
+                        description = "The number of Netty event loop threads the clients share (default: twice " +
+                                "the number of available processors)")
+    private @Nullable Integer nettyThreads;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--application-threads"},
+                        description = "The number of threads the clients share to run callbacks, e.g. for " +
+                                "received messages (default: the number of available processors)")
+    private @Nullable Integer applicationThreads;
+
+    public @Nullable Transport getTransport() {
+        return transport;
+    }
+
+    public @Nullable Integer getNettyThreads() {
+        return nettyThreads;
+    }
+
+    public @Nullable Integer getApplicationThreads() {
+        return applicationThreads;
+    }
+
+    public void setDefaultOptions(final @NotNull DefaultCLIProperties defaultCLIProperties) {
+        if (transport == null) {
+            transport = defaultCLIProperties.getTransport();
+            Logger.trace("Setting value of 'transport' to default value: {}", transport);
+        }
+        if (nettyThreads == null) {
+            nettyThreads = defaultCLIProperties.getNettyThreads();
+            Logger.trace("Setting value of 'nettyThreads' to default value: {}", nettyThreads);
+        }
+        if (applicationThreads == null) {
+            applicationThreads = defaultCLIProperties.getApplicationThreads();
+            Logger.trace("Setting value of 'applicationThreads' to default value: {}", applicationThreads);
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ExecutorOptions{" +
+                "transport=" +
+                transport +
+                ", nettyThreads=" +
+                nettyThreads +
+                ", applicationThreads=" +
+                applicationThreads +
+                '}';
+    }
+}
@@ -18,10 +18,16 @@ package com.hivemq.cli.commands.options;
 
 import com.hivemq.cli.converters.ByteBufferConverter;
 import com.hivemq.cli.converters.FileToByteBufferConverter;
+import com.hivemq.cli.utils.MessageRecordReader;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import picocli.CommandLine;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class MessagePayloadOptions {
 
@@ -51,6 +57,18 @@ public class MessagePayloadOptions {
         messageBuffer = messageFromFile;
     }
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-m:file-lines", "--message-file-lines"},
+                        description = "Publish every record of a file as a separate message, " +
+                                "the file is streamed and never loaded completely into memory")
+    private @Nullable Path messageRecordsFile;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-m:stdin-lines", "--stdin-lines"},
+                        defaultValue = "false",
+                        description = "Publish every record read from stdin as a separate message")
+    private boolean messageRecordsFromStdin;
+
     @SuppressWarnings("NotNullFieldNotInitialized")
     private @NotNull ByteBuffer messageBuffer;
 
@@ -58,8 +76,40 @@ public class MessagePayloadOptions {
         return messageBuffer;
     }
 
+    /**
+     * @return true if the messages are streamed record by record from a file or stdin instead of a single payload
+     */
+    public boolean isStreaming() {
+        return messageRecordsFile != null || messageRecordsFromStdin;
+    }
+
+    public boolean isStreamingFromStdin() {
+        return messageRecordsFromStdin;
+    }
+
+    public @NotNull MessageRecordReader openRecordReader(final @NotNull MessageRecordReader.RecordFormat recordFormat)
+            throws IOException {
+        if (messageRecordsFile != null) {
+            if (!Files.isReadable(messageRecordsFile)) {
+                throw new FileNotFoundException("File not found or not readable: " + messageRecordsFile);
+            }
+            return new MessageRecordReader(Files.newInputStream(messageRecordsFile), recordFormat);
+        }
+        if (messageRecordsFromStdin) {
+            return new MessageRecordReader(System.in, recordFormat);
+        }
+        throw new IllegalStateException("No message records source was configured");
+    }
+
     @Override
     public @NotNull String toString() {
-        return "MessagePayloadOptions{" + "messageBuffer=" + messageBuffer + '}';
+        return "MessagePayloadOptions{" +
+                "messageBuffer=" +
+                messageBuffer +
+                ", messageRecordsFile=" +
+                messageRecordsFile +
+                ", messageRecordsFromStdin=" +
+                messageRecordsFromStdin +
+                '}';
     }
 }
@@ -17,10 +17,12 @@
 package com.hivemq.cli.commands.options;
 
 import com.hivemq.cli.converters.ByteBufferConverter;
+import com.hivemq.cli.converters.DurationConverter;
 import com.hivemq.cli.converters.Mqtt5UserPropertyConverter;
 import com.hivemq.cli.converters.MqttQosConverter;
 import com.hivemq.cli.converters.PayloadFormatIndicatorConverter;
 import com.hivemq.cli.converters.UnsignedIntConverter;
+import com.hivemq.cli.utils.MessageRecordReader;
 import com.hivemq.cli.utils.MqttUtils;
 import com.hivemq.client.mqtt.MqttVersion;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
@@ -32,7 +34,9 @@ import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 import picocli.CommandLine;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.Arrays;
 
 public class PublishOptions {
@@ -91,6 +95,39 @@ public class PublishOptions {
                         description = "A user property of the publish message")
     private @Nullable Mqtt5UserProperty @Nullable [] userProperties;
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--maxInFlight"},
+                        defaultValue = "1",
+                        description = "The maximum number of publishes sent without waiting for their " +
+                                "acknowledgement. Bounded by the receive maximum of the broker (default: 1)")
+    private int maxInFlight;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--count"},
+                        description = "The number of messages to publish to every topic. Topics and message may " +
+                                "contain the placeholders {seq}, {ts}, {uuid} and {random:<bytes>} " +
+                                "(default: 1, unlimited if a duration is set or the message is streamed)")
+    private @Nullable Long count;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--rate"},
+                        description = "The maximum number of messages to publish per second (default: unlimited)")
+    private @Nullable Double rate;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--duration"},
+                        converter = DurationConverter.class,
+                        description = "The time to keep publishing messages, e.g. 30s, 5m or 1h. Topics and message " +
+                                "may contain the same placeholders as with --count (default: unlimited)")
+    private @Nullable Duration duration;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--record-format"},
+                        defaultValue = "lines",
+                        description = "The format of the records streamed with --message-file-lines or " +
+                                "--stdin-lines: lines or lengthPrefixed (4 byte big-endian length) (default: lines)")
+    private @NotNull MessageRecordReader.RecordFormat recordFormat = MessageRecordReader.RecordFormat.lines;
+
     public @NotNull String @NotNull [] getTopics() {
         return topics;
     }
@@ -131,6 +168,42 @@ public class PublishOptions {
         return MqttUtils.convertToMqtt5UserProperties(userProperties);
     }
 
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public @Nullable Long getCount() {
+        return count;
+    }
+
+    public @Nullable Double getRate() {
+        return rate;
+    }
+
+    public @Nullable Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return true if more than a single message is published to every topic, in which case topics and message are
+     *         treated as {@link com.hivemq.cli.utils.MessageTemplate}s (streamed messages are never templated)
+     */
+    public boolean isBulk() {
+        return (count != null && count != 1) || duration != null || message.isStreaming();
+    }
+
+    public boolean isStreaming() {
+        return message.isStreaming();
+    }
+
+    public boolean isStreamingFromStdin() {
+        return message.isStreamingFromStdin();
+    }
+
+    public @NotNull MessageRecordReader openRecordReader() throws IOException {
+        return message.openRecordReader(recordFormat);
+    }
+
     public void logUnusedOptions(final @NotNull MqttVersion mqttVersion) {
         if (mqttVersion == MqttVersion.MQTT_3_1_1) {
             if (messageExpiryInterval != null) {
@@ -186,6 +259,16 @@ public class PublishOptions {
                 correlationData +
                 ", userProperties=" +
                 Arrays.toString(userProperties) +
+                ", maxInFlight=" +
+                maxInFlight +
+                ", count=" +
+                count +
+                ", rate=" +
+                rate +
+                ", duration=" +
+                duration +
+                ", recordFormat=" +
+                recordFormat +
                 '}';
     }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import com.hivemq.cli.converters.TimestampConverter;
+import com.hivemq.cli.mqtt.capture.TopicRewrite;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class ReplayOptions {
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) //will be initialized via required
+    @CommandLine.Option(names = {"-f", "--file"},
+                        required = true,
+                        description = "The capture file recorded with 'sub --output-format capture'")
+    private @NotNull File file;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--speed"},
+                        defaultValue = "1",
+                        description = "Replay with the original timing between messages, sped up by the given " +
+                                "factor, e.g. 10 (default: 1)")
+    private double speed;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--max-speed"},
+                        defaultValue = "false",
+                        description = "Replay the messages as fast as possible, ignoring the original timing " +
+                                "(default: false)")
+    private boolean maxSpeed;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--maxInFlight"},
+                        defaultValue = "100",
+                        description = "The maximum number of publishes per connection sent without waiting for " +
+                                "their acknowledgement. Bounded by the receive maximum of the broker (default: 100)")
+    private int maxInFlight;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--connections"},
+                        defaultValue = "1",
+                        description = "The number of parallel publisher connections. Messages are distributed by " +
+                                "topic, so the order per topic is kept (default: 1)")
+    private int connections;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--from"},
+                        converter = TimestampConverter.class,
+                        description = "Only replay messages received at or after this time (epoch milliseconds or " +
+                                "ISO-8601, e.g. 2024-01-02T03:04:05Z)")
+    private @Nullable Long from;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--to"},
+                        converter = TimestampConverter.class,
+                        description = "Only replay messages received before this time (epoch milliseconds or " +
+                                "ISO-8601, e.g. 2024-01-02T04:00:00Z)")
+    private @Nullable Long to;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--topic-rewrite"},
+                        arity = "2",
+                        paramLabel = "<regex> <replacement>",
+                        description = "Replace every match of the regular expression in the captured topics, e.g. " +
+                                "'^prod/' 'staging/'. Can be repeated and is applied in order")
+    private @Nullable List<String> topicRewrites;
+
+    public @NotNull File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the speed factor or null if the messages are replayed as fast as possible
+     */
+    public @Nullable Double getSpeed() {
+        return maxSpeed ? null : speed;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public @Nullable Long getFrom() {
+        return from;
+    }
+
+    public @Nullable Long getTo() {
+        return to;
+    }
+
+    public @NotNull List<TopicRewrite> getTopicRewrites() {
+        final List<TopicRewrite> rewrites = new ArrayList<>();
+        if (topicRewrites != null) {
+            for (int i = 0; i + 1 < topicRewrites.size(); i += 2) {
+                try {
+                    rewrites.add(new TopicRewrite(Pattern.compile(topicRewrites.get(i)), topicRewrites.get(i + 1)));
+                } catch (final PatternSyntaxException e) {
+                    throw new IllegalArgumentException(
+                            "Invalid topic rewrite pattern '" + topicRewrites.get(i) + "': " + e.getDescription());
+                }
+            }
+        }
+        return rewrites;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ReplayOptions{" +
+                "file=" +
+                file +
+                ", speed=" +
+                speed +
+                ", maxSpeed=" +
+                maxSpeed +
+                ", maxInFlight=" +
+                maxInFlight +
+                ", connections=" +
+                connections +
+                ", from=" +
+                from +
+                ", to=" +
+                to +
+                ", topicRewrites=" +
+                topicRewrites +
+                '}';
+    }
+}
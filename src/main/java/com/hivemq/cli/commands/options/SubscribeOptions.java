@@ -18,8 +18,11 @@ package com.hivemq.cli.commands.options;
 
 import com.hivemq.cli.DefaultCLIProperties;
 import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.converters.ByteSizeConverter;
+import com.hivemq.cli.converters.DurationConverter;
 import com.hivemq.cli.converters.Mqtt5UserPropertyConverter;
 import com.hivemq.cli.converters.MqttQosConverter;
+import com.hivemq.cli.mqtt.output.OutputFileWriter;
 import com.hivemq.cli.utils.MqttUtils;
 import com.hivemq.client.mqtt.MqttVersion;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
@@ -32,21 +35,37 @@ import picocli.CommandLine;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
 public class SubscribeOptions {
 
+    public enum OutputFormat {
+        text,
+        capture
+    }
+
     @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
     @CommandLine.Spec
     private @NotNull CommandLine.Model.CommandSpec spec;
 
     private final @NotNull List<String> deprecationWarnings;
 
-    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) //will be initialized via required
-    @CommandLine.Option(names = {"-t", "--topic"}, required = true, description = "The topics to subscribe to")
-    private @NotNull String @NotNull [] topics;
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-t", "--topic"}, description = "The topics to subscribe to")
+    private @NotNull String @Nullable [] topics;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--topics-file"},
+                        description = "A file with one topic to subscribe to per line. The topics are subscribed " +
+                                "after the topics of --topic and with as few SUBSCRIBE packets as possible")
+    private @Nullable Path topicsFile;
+
+    private @NotNull String @Nullable [] allTopics;
 
     @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) //will be initialized via default value
     @CommandLine.Option(names = {"-q", "--qos"},
@@ -122,6 +141,62 @@ public class SubscribeOptions {
         this.outputFile = outputFileLegacy;
     }
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-flush-interval"},
+                        converter = DurationConverter.class,
+                        description = "The maximum time received messages are buffered before they are written to " +
+                                "the output file, e.g. 100ms or 1s (default: written as soon as no more messages are " +
+                                "pending)")
+    private @Nullable Duration outputFlushInterval;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-fsync"},
+                        defaultValue = "never",
+                        description = "When to force the written messages to the storage device: never, close or " +
+                                "commit (after every group of written messages) (default: never)")
+    private @NotNull OutputFileWriter.FsyncPolicy outputFsyncPolicy = OutputFileWriter.FsyncPolicy.never;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-rotate-size"},
+                        converter = ByteSizeConverter.class,
+                        description = "Roll over the output file once it would exceed the given size, e.g. 512MB")
+    private @Nullable Long outputRotateSize;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-rotate-interval"},
+                        converter = DurationConverter.class,
+                        description = "Roll over the output file once the given time elapsed since it was started, " +
+                                "e.g. 1h")
+    private @Nullable Duration outputRotateInterval;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-compression"},
+                        defaultValue = "none",
+                        description = "The compression of rolled over output files: none or gzip (default: none)")
+    private @NotNull OutputFileWriter.Compression outputCompression = OutputFileWriter.Compression.none;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-format"},
+                        defaultValue = "text",
+                        description = "The format of the output file: text (formatted like the console output) or " +
+                                "capture (binary records with all message properties and an index file) (default: " +
+                                "text)")
+    private @NotNull OutputFormat outputFormat = OutputFormat.text;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--pipeline-workers"},
+                        description = "Format received messages on the given number of worker threads instead of " +
+                                "the MQTT client thread. A single writer thread writes them in order and acknowledges " +
+                                "them in batches after they were written (default: disabled)")
+    private @Nullable Integer pipelineWorkers;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--pipeline-queue-size"},
+                        defaultValue = "10000",
+                        description = "The maximum number of received messages waiting to be formatted and written " +
+                                "if --pipeline-workers is set (default: 10000)")
+    private int pipelineQueueSize;
+
     private boolean isEncodePayloadInBase64 = false;
 
     @SuppressWarnings("unused")
@@ -180,6 +255,12 @@ public class SubscribeOptions {
         jsonOutput = true;
     }
 
+    @SuppressWarnings({"unused", "FieldMayBeFinal"})
+    @CommandLine.Option(names = {"--ndjson"},
+                        defaultValue = "false",
+                        description = "Print the received publishes in compact JSON format, one publish per line (implies --json-output)")
+    private boolean ndjson = false;
+
     private boolean showTopics = false;
 
     @SuppressWarnings("unused")
@@ -216,8 +297,44 @@ public class SubscribeOptions {
         setDefaultOptions();
     }
 
+    /**
+     * @return the topics of --topic followed by the topics of --topics-file
+     * @throws CommandLine.ParameterException if no topic is given or the topics file can not be read
+     */
     public @NotNull String @NotNull [] getTopics() {
-        return topics;
+        if (allTopics == null) {
+            allTopics = readTopics(spec.commandLine(), topics, topicsFile);
+        }
+        return allTopics;
+    }
+
+    static @NotNull String @NotNull [] readTopics(
+            final @NotNull CommandLine commandLine,
+            final @NotNull String @Nullable [] topics,
+            final @Nullable Path topicsFile) {
+        final List<String> allTopics = new ArrayList<>();
+        if (topics != null) {
+            allTopics.addAll(Arrays.asList(topics));
+        }
+        if (topicsFile != null) {
+            try {
+                allTopics.addAll(MqttUtils.readTopicsFile(topicsFile));
+            } catch (final IOException e) {
+                throw new CommandLine.ParameterException(commandLine,
+                        "Could not read topics file '" + topicsFile + "': " + e.getMessage(),
+                        e);
+            }
+        }
+        if (allTopics.isEmpty()) {
+            final String separator = commandLine.getCommandSpec().parser().separator();
+            throw new CommandLine.ParameterException(commandLine,
+                    "Missing required option: '--topic" +
+                            separator +
+                            "<topics>' or '--topics-file" +
+                            separator +
+                            "<topicsFile>'");
+        }
+        return allTopics.toArray(new String[0]);
     }
 
     public @NotNull MqttQos @NotNull [] getQos() {
@@ -228,6 +345,38 @@ public class SubscribeOptions {
         return outputFile;
     }
 
+    public @Nullable Duration getOutputFlushInterval() {
+        return outputFlushInterval;
+    }
+
+    public @NotNull OutputFileWriter.FsyncPolicy getOutputFsyncPolicy() {
+        return outputFsyncPolicy;
+    }
+
+    public @Nullable Long getOutputRotateSize() {
+        return outputRotateSize;
+    }
+
+    public @Nullable Duration getOutputRotateInterval() {
+        return outputRotateInterval;
+    }
+
+    public @NotNull OutputFileWriter.Compression getOutputCompression() {
+        return outputCompression;
+    }
+
+    public @NotNull OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    public @Nullable Integer getPipelineWorkers() {
+        return pipelineWorkers;
+    }
+
+    public int getPipelineQueueSize() {
+        return pipelineQueueSize;
+    }
+
     public boolean isPrintToSTDOUT() {
         return printToSTDOUT;
     }
@@ -237,7 +386,11 @@ public class SubscribeOptions {
     }
 
     public boolean isJsonOutput() {
-        return jsonOutput;
+        return jsonOutput || ndjson;
+    }
+
+    public boolean isNdjson() {
+        return ndjson;
     }
 
     public @Nullable Mqtt5UserProperties getUserProperties() {
@@ -279,7 +432,7 @@ public class SubscribeOptions {
     }
 
     public void arrangeQosToMatchTopics() {
-        qos = MqttUtils.arrangeQosToMatchTopics(topics, qos);
+        qos = MqttUtils.arrangeQosToMatchTopics(getTopics(), qos);
     }
 
     public void logUnusedOptions(final @NotNull MqttVersion mqttVersion) {
@@ -306,17 +459,37 @@ public class SubscribeOptions {
         return "SubscribeOptions{" +
                 "topics=" +
                 Arrays.toString(topics) +
+                ", topicsFile=" +
+                topicsFile +
                 ", qos=" +
                 Arrays.toString(qos) +
                 ", userProperties=" +
                 Arrays.toString(userProperties) +
                 ", outputFile=" +
                 outputFile +
+                ", outputFlushInterval=" +
+                outputFlushInterval +
+                ", outputFsyncPolicy=" +
+                outputFsyncPolicy +
+                ", outputRotateSize=" +
+                outputRotateSize +
+                ", outputRotateInterval=" +
+                outputRotateInterval +
+                ", outputCompression=" +
+                outputCompression +
+                ", outputFormat=" +
+                outputFormat +
+                ", pipelineWorkers=" +
+                pipelineWorkers +
+                ", pipelineQueueSize=" +
+                pipelineQueueSize +
                 ", printToSTDOUT=" +
                 printToSTDOUT +
                 ", base64=" + isEncodePayloadInBase64 +
                 ", jsonOutput=" +
                 jsonOutput +
+                ", ndjson=" +
+                ndjson +
                 ", showTopics=" +
                 showTopics +
                 '}';
@@ -25,6 +25,7 @@ import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 import picocli.CommandLine;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -33,8 +34,21 @@ import java.util.stream.Collectors;
 public class UnsubscribeOptions {
 
     @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
-    @CommandLine.Option(names = {"-t", "--topic"}, required = true, description = "The topics to publish to")
-    private @NotNull String @NotNull [] topics;
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-t", "--topic"}, description = "The topics to unsubscribe from")
+    private @NotNull String @Nullable [] topics;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--topics-file"},
+                        description = "A file with one topic to unsubscribe from per line. The topics are " +
+                                "unsubscribed after the topics of --topic and with as few UNSUBSCRIBE packets as " +
+                                "possible")
+    private @Nullable Path topicsFile;
+
+    private @NotNull String @Nullable [] allTopics;
 
     @SuppressWarnings("unused")
     @CommandLine.Option(names = {"-up", "--userProperty"},
@@ -48,11 +62,19 @@ public class UnsubscribeOptions {
     public UnsubscribeOptions(
             final @NotNull String @NotNull [] topics, final @Nullable Mqtt5UserProperty @Nullable [] userProperties) {
         this.topics = topics;
+        this.allTopics = topics;
         this.userProperties = userProperties;
     }
 
+    /**
+     * @return the topics of --topic followed by the topics of --topics-file
+     * @throws CommandLine.ParameterException if no topic is given or the topics file can not be read
+     */
     public @NotNull String @NotNull [] getTopics() {
-        return topics;
+        if (allTopics == null) {
+            allTopics = SubscribeOptions.readTopics(spec.commandLine(), topics, topicsFile);
+        }
+        return allTopics;
     }
 
     public @NotNull Mqtt5UserProperties getUserProperties() {
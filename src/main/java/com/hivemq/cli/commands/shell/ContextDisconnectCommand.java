@@ -57,8 +57,9 @@ public class ContextDisconnectCommand extends ShellContextCommand implements Cal
                 final ClientKey clientKey =
                         ClientKey.of(disconnectOptions.getClientIdentifier(), disconnectOptions.getHost());
                 mqttClientExecutor.disconnect(clientKey, disconnectOptions);
-            } else if (contextClient != null) {
-                mqttClientExecutor.disconnect(contextClient, disconnectOptions);
+            } else if (forEachContextClient("disconnect",
+                    client -> mqttClientExecutor.disconnect(client, disconnectOptions)) > 0) {
+                return 1;
             }
         } catch (final Exception ex) {
             LoggerUtils.logShellError("Unable to disconnect", ex);
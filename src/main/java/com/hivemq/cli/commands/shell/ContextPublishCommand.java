@@ -45,11 +45,19 @@ public class ContextPublishCommand extends ShellContextCommand implements Callab
         Logger.trace("Command {}", this);
 
         if (contextClient != null) {
+            if (publishOptions.isStreamingFromStdin()) {
+                Logger.error("Streaming messages from stdin is not supported in shell mode");
+                return 1;
+            }
             publishOptions.logUnusedOptions(contextClient.getConfig().getMqttVersion());
             publishOptions.arrangeQosToMatchTopics();
 
             try {
-                mqttClientExecutor.publish(contextClient, publishOptions);
+                final int failed =
+                        forEachContextClient("publish", client -> mqttClientExecutor.publish(client, publishOptions));
+                if (failed > 0) {
+                    return 1;
+                }
             } catch (final Exception ex) {
                 LoggerUtils.logShellError("Unable to publish", ex);
                 return 1;
@@ -90,7 +90,11 @@ public class ContextSubscribeCommand extends ShellContextCommand implements Call
         }
 
         try {
-            mqttClientExecutor.subscribe(Objects.requireNonNull(contextClient), subscribeOptions);
+            final int failed =
+                    forEachContextClient("subscribe", client -> mqttClientExecutor.subscribe(client, subscribeOptions));
+            if (failed > 0) {
+                return 1;
+            }
         } catch (final Exception ex) {
             LoggerUtils.logShellError("Unable to subscribe", ex);
             return 1;
@@ -141,7 +145,8 @@ public class ContextSubscribeCommand extends ShellContextCommand implements Call
             if (!contextClient.getState().isConnectedOrReconnect()) {
                 removeContext();
             } else {
-                mqttClientExecutor.unsubscribe(contextClient, UnsubscribeOptions.of(subscribeOptions));
+                forEachContextClient("unsubscribe",
+                        client -> mqttClientExecutor.unsubscribe(client, UnsubscribeOptions.of(subscribeOptions)));
             }
         }
     }
@@ -18,6 +18,7 @@ package com.hivemq.cli.commands.shell;
 
 import com.hivemq.cli.commands.options.HelpOptions;
 import com.hivemq.cli.mqtt.ClientKey;
+import com.hivemq.cli.mqtt.ClientRegistry;
 import com.hivemq.cli.mqtt.MqttClientExecutor;
 import com.hivemq.cli.utils.LoggerUtils;
 import com.hivemq.client.mqtt.MqttClient;
@@ -27,6 +28,7 @@ import org.tinylog.Logger;
 import picocli.CommandLine;
 
 import javax.inject.Inject;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 
@@ -34,7 +36,10 @@ import java.util.concurrent.Callable;
 public class ContextSwitchCommand extends ShellContextCommand implements Callable<Integer> {
 
     @SuppressWarnings("unused")
-    @CommandLine.Parameters(index = "0", arity = "0..1", description = "The name of the context, e.g. client@localhost")
+    @CommandLine.Parameters(index = "0",
+                            arity = "0..1",
+                            description = "The name of the context, e.g. client@localhost, or a glob pattern of " +
+                                    "client identifiers, e.g. sensor-*@localhost")
     private @Nullable String contextName;
 
     @CommandLine.Option(names = {"-i", "--identifier"},
@@ -46,6 +51,12 @@ public class ContextSwitchCommand extends ShellContextCommand implements Callabl
                         description = "The hostname of the message broker (default 'localhost')")
     private @Nullable String host;
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--parallelism"},
+                        defaultValue = "50",
+                        description = "The maximum number of selected clients which publish, subscribe or disconnect at the same time (default: 50)")
+    private int parallelism;
+
     @CommandLine.Mixin
     private final @NotNull HelpOptions helpOptions = new HelpOptions();
 
@@ -72,6 +83,10 @@ public class ContextSwitchCommand extends ShellContextCommand implements Callabl
             }
         }
 
+        if (identifier != null && ClientRegistry.isPattern(identifier)) {
+            return switchToSelection(identifier, Objects.requireNonNull(host));
+        }
+
         final MqttClient client =
                 mqttClientExecutor.getMqttClient(ClientKey.of(identifier, Objects.requireNonNull(host)));
 
@@ -85,6 +100,21 @@ public class ContextSwitchCommand extends ShellContextCommand implements Callabl
         return 0;
     }
 
+    private int switchToSelection(final @NotNull String pattern, final @NotNull String host) {
+        if (parallelism < 1) {
+            Logger.error("The parallelism must be at least 1, but was {}", parallelism);
+            return 1;
+        }
+        final List<MqttClient> clients = mqttClientExecutor.selectClients(pattern, host);
+        if (clients.isEmpty()) {
+            Logger.error("No client matches {}@{}", pattern, host);
+            return 1;
+        }
+        Logger.info("Selected {} clients matching {}@{}", clients.size(), pattern, host);
+        updateContextSelection(pattern, clients.get(0), parallelism);
+        return 0;
+    }
+
     private void extractKeyFromContextName(final String contextName) {
         final String[] context = contextName.split("@");
 
@@ -110,6 +140,8 @@ public class ContextSwitchCommand extends ShellContextCommand implements Callabl
                 ", host='" +
                 host +
                 '\'' +
+                ", parallelism=" +
+                parallelism +
                 ", helpOptions=" +
                 helpOptions +
                 '}';
@@ -49,10 +49,15 @@ public class ContextUnsubscribeCommand extends ShellContextCommand implements Ca
             return 1;
         }
 
+        // reads the topics file and fails with a usage error if no topic is given
+        unsubscribeOptions.getTopics();
         unsubscribeOptions.logUnusedUnsubscribeOptions(contextClient.getConfig().getMqttVersion());
 
         try {
-            mqttClientExecutor.unsubscribe(contextClient, unsubscribeOptions);
+            if (forEachContextClient("unsubscribe",
+                    client -> mqttClientExecutor.unsubscribe(client, unsubscribeOptions)) > 0) {
+                return 1;
+            }
         } catch (final Exception ex) {
             LoggerUtils.logShellError("Unable to unsubscribe", ex);
             return 1;
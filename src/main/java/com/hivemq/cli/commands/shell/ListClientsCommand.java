@@ -17,9 +17,12 @@
 package com.hivemq.cli.commands.shell;
 
 import com.hivemq.cli.mqtt.ClientData;
+import com.hivemq.cli.mqtt.ClientRegistry;
 import com.hivemq.cli.mqtt.MqttClientExecutor;
 import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttClientConfig;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 import picocli.CommandLine;
 
@@ -27,12 +30,11 @@ import javax.inject.Inject;
 import java.io.PrintWriter;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.stream.Collectors;
 
 @CommandLine.Command(name = "ls",
                      aliases = "list",
@@ -66,6 +68,13 @@ public class ListClientsCommand implements Callable<Integer> {
                         description = "list subscribed topics of clients")
     private boolean listSubscriptions;
 
+    @SuppressWarnings("unused")
+    @CommandLine.Parameters(index = "0",
+                            arity = "0..1",
+                            description = "list only the clients whose identifier matches the glob pattern, e.g. " +
+                                    "sensor-*")
+    private @Nullable String pattern;
+
     @Inject
     public ListClientsCommand() {
     }
@@ -85,32 +94,22 @@ public class ListClientsCommand implements Callable<Integer> {
                 return 0;
             }
 
-            final Set<MqttClient> clients =
-                    sortedClientData.stream().map(ClientData::getClient).collect(Collectors.toSet());
-
-            final int longestID = clients.stream()
-                    .filter(c -> c.getConfig().getClientIdentifier().isPresent())
-                    .map(c -> c.getConfig().getClientIdentifier().get().toString().length())
-                    .max(Integer::compareTo)
-                    .orElse(0);
-
-            final int longestHost =
-                    clients.stream().map(c -> c.getConfig().getServerHost().length()).max(Integer::compareTo).orElse(0);
-
-            final int longestState = clients.stream()
-                    .map(c -> c.getConfig().getState().toString().length())
-                    .max(Integer::compareTo)
-                    .orElse(0);
-
-            final int longestVersion = clients.stream()
-                    .map(c -> c.getConfig().getMqttVersion().toString().length())
-                    .max(Integer::compareTo)
-                    .orElse(0);
-
-            final int longestSSLVersion = clients.stream()
-                    .map(c -> c.getConfig().getSslConfig().toString().length())
-                    .max(Integer::compareTo)
-                    .orElse("NO_SSL".length());
+            // all column widths are computed in a single pass, as there may be many clients
+            int longestID = 0;
+            int longestHost = 0;
+            int longestState = 0;
+            int longestVersion = 0;
+            int longestSSLVersion = 0;
+            for (final ClientData clientData : sortedClientData) {
+                final MqttClientConfig config = clientData.getClient().getConfig();
+                if (config.getClientIdentifier().isPresent()) {
+                    longestID = Math.max(longestID, config.getClientIdentifier().get().toString().length());
+                }
+                longestHost = Math.max(longestHost, config.getServerHost().length());
+                longestState = Math.max(longestState, config.getState().toString().length());
+                longestVersion = Math.max(longestVersion, config.getMqttVersion().toString().length());
+                longestSSLVersion = Math.max(longestSSLVersion, config.getSslConfig().toString().length());
+            }
 
             final String format = "%-" +
                     longestState +
@@ -171,27 +170,24 @@ public class ListClientsCommand implements Callable<Integer> {
     }
 
     public @NotNull List<ClientData> getSortedClientData() {
-        final List<ClientData> sortedClientData = new ArrayList<>(MqttClientExecutor.getClientDataMap().values());
+        final ClientRegistry clientRegistry = MqttClientExecutor.getClientRegistry();
+        // the registry is already sorted by identifier
+        final List<ClientData> sortedClientData =
+                pattern == null ? new ArrayList<>(clientRegistry.getAll()) : clientRegistry.select(pattern, null);
 
         if (doNotSort) {
             return sortedClientData;
         }
 
-        Comparator<ClientData> comparator;
         if (sortByTime) {
-            comparator = Comparator.comparing(ClientData::getCreationTime);
-        } else {
-            comparator = Comparator.comparing(clientData -> clientData.getClient()
-                    .getConfig()
-                    .getClientIdentifier()
-                    .map(Object::toString)
-                    .orElse(""));
-        }
-        if (reverse) {
-            comparator = comparator.reversed();
+            Comparator<ClientData> comparator = Comparator.comparing(ClientData::getCreationTime);
+            if (reverse) {
+                comparator = comparator.reversed();
+            }
+            sortedClientData.sort(comparator);
+        } else if (reverse) {
+            Collections.reverse(sortedClientData);
         }
-
-        sortedClientData.sort(comparator);
         return sortedClientData;
     }
 
@@ -208,6 +204,9 @@ public class ListClientsCommand implements Callable<Integer> {
                 longOutput +
                 ", listSubscriptions=" +
                 listSubscriptions +
+                ", pattern='" +
+                pattern +
+                '\'' +
                 '}';
     }
 }
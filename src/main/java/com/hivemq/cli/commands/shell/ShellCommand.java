@@ -20,7 +20,6 @@ import com.google.common.base.Throwables;
 import com.hivemq.cli.DefaultCLIProperties;
 import com.hivemq.cli.MqttCLIMain;
 import com.hivemq.cli.utils.LoggerUtils;
-import com.hivemq.client.mqtt.datatypes.MqttClientIdentifier;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jline.reader.Candidate;
@@ -177,8 +176,12 @@ public class ShellCommand implements Callable<Integer> {
                 .append(Objects.requireNonNull(ShellContextCommand.contextClient)
                         .getConfig()
                         .getClientIdentifier()
-                        .orElse(MqttClientIdentifier.of(""))
-                        .toString())
+                        .map(identifier -> ShellContextCommand.contextGroup != null ?
+                                ShellContextCommand.contextGroup + "*" :
+                                ShellContextCommand.contextPattern != null ?
+                                        ShellContextCommand.contextPattern :
+                                        identifier.toString())
+                        .orElse(""))
                 .style(AttributedStyle.DEFAULT)
                 .append("@")
                 .style(AttributedStyle.BOLD.foreground(AttributedStyle.YELLOW))
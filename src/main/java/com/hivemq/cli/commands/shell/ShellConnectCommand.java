@@ -22,10 +22,13 @@ import com.hivemq.cli.mqtt.MqttClientExecutor;
 import com.hivemq.cli.utils.LoggerUtils;
 import com.hivemq.client.mqtt.MqttClient;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 import picocli.CommandLine;
 
 import javax.inject.Inject;
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.Callable;
 
 @CommandLine.Command(name = "con",
@@ -40,6 +43,17 @@ public class ShellConnectCommand implements Callable<Integer> {
     @CommandLine.Mixin
     private final @NotNull HelpOptions helpOptions = new HelpOptions();
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--count"},
+                        description = "The number of clients to connect as a group. The clients are identified by the identifier prefix followed by their number (1 to count)")
+    private @Nullable Integer count;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--parallelism"},
+                        defaultValue = "50",
+                        description = "The maximum number of clients of a group which connect, publish, subscribe or disconnect at the same time (default: 50)")
+    private int parallelism;
+
     private final @NotNull MqttClientExecutor mqttClientExecutor;
 
     @Inject
@@ -50,6 +64,10 @@ public class ShellConnectCommand implements Callable<Integer> {
     public @NotNull Integer call() {
         Logger.trace("Command {}", this);
 
+        if (count != null) {
+            return connectGroup(count);
+        }
+
         connectOptions.setDefaultOptions();
         connectOptions.logUnusedOptions();
 
@@ -66,12 +84,51 @@ public class ShellConnectCommand implements Callable<Integer> {
         return 0;
     }
 
+    private int connectGroup(final int count) {
+        if (count < 1) {
+            Logger.error("The number of clients must be at least 1, but was {}", count);
+            return 1;
+        }
+        if (parallelism < 1) {
+            Logger.error("The parallelism must be at least 1, but was {}", parallelism);
+            return 1;
+        }
+        if (connectOptions.getIdentifier() != null) {
+            Logger.error("An identifier can not be used together with --count, use --identifierPrefix instead");
+            return 1;
+        }
+
+        connectOptions.setDefaultOptions();
+        connectOptions.logUnusedOptions();
+
+        final String group = Objects.requireNonNull(connectOptions.getIdentifierPrefix());
+        final List<MqttClient> clients;
+        try {
+            clients = mqttClientExecutor.connectGroup(connectOptions, group, count, parallelism);
+        } catch (final Exception exception) {
+            LoggerUtils.logShellError("Unable to connect", exception);
+            return 1;
+        }
+        if (clients.isEmpty()) {
+            Logger.error("No client of group '{}' could connect", group);
+            return 1;
+        }
+
+        ShellContextCommand.updateContext(group, clients.get(0), parallelism);
+
+        return clients.size() == count ? 0 : 1;
+    }
+
     @Override
     public @NotNull String toString() {
         return "ShellConnectCommand{" +
                 "connectOptions=" +
                 connectOptions +
                 ", helpOptions=" + helpOptions +
+                ", count=" +
+                count +
+                ", parallelism=" +
+                parallelism +
                 ", mqttClientExecutor=" +
                 mqttClientExecutor +
                 '}';
@@ -25,6 +25,7 @@ import picocli.CommandLine;
 import javax.inject.Inject;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 
 @CommandLine.Command(sortOptions = false,
                      name = "> ",
@@ -39,6 +40,20 @@ public class ShellContextCommand implements Callable<Integer> {
 
     public static @Nullable MqttClient contextClient;
 
+    /**
+     * The group of clients the context commands apply to, if a group of clients was connected. The context client is
+     * then one of the clients of the group.
+     */
+    public static @Nullable String contextGroup;
+
+    /**
+     * The glob pattern of the client identifiers the context commands apply to, if the context was switched to a
+     * selection of clients, e.g. <code>sensor-*</code>. The context client is then one of the selected clients.
+     */
+    public static @Nullable String contextPattern;
+
+    static int contextGroupParallelism = 1;
+
     @NotNull MqttClientExecutor mqttClientExecutor;
 
     @Inject
@@ -49,15 +64,70 @@ public class ShellContextCommand implements Callable<Integer> {
     static void updateContext(final @Nullable MqttClient client) {
         if (client != null && client.getConfig().getState().isConnectedOrReconnect()) {
             contextClient = client;
+            contextGroup = null;
+            contextPattern = null;
+            ShellCommand.readFromContext();
+        }
+    }
+
+    static void updateContext(
+            final @NotNull String group, final @NotNull MqttClient client, final int parallelism) {
+        if (client.getConfig().getState().isConnectedOrReconnect()) {
+            contextClient = client;
+            contextGroup = group;
+            contextPattern = null;
+            contextGroupParallelism = parallelism;
+            ShellCommand.readFromContext();
+        }
+    }
+
+    static void updateContextSelection(
+            final @NotNull String pattern, final @NotNull MqttClient client, final int parallelism) {
+        if (client.getConfig().getState().isConnectedOrReconnect()) {
+            contextClient = client;
+            contextGroup = null;
+            contextPattern = pattern;
+            contextGroupParallelism = parallelism;
             ShellCommand.readFromContext();
         }
     }
 
     public static void removeContext() {
         contextClient = null;
+        contextGroup = null;
+        contextPattern = null;
         ShellCommand.readFromShell();
     }
 
+    /**
+     * Runs the action for all connected clients of the context group or selection or for the context client.
+     *
+     * @return the number of clients the action failed for
+     */
+    int forEachContextClient(final @NotNull String actionName, final @NotNull Consumer<MqttClient> action)
+            throws InterruptedException {
+        final MqttClient client = contextClient;
+        final String group = contextGroup;
+        final String pattern = contextPattern;
+        if (group != null) {
+            return mqttClientExecutor.forEachClient(mqttClientExecutor.getGroupClients(group),
+                    contextGroupParallelism,
+                    actionName,
+                    action);
+        }
+        if (pattern != null && client != null) {
+            return mqttClientExecutor.forEachClient(
+                    mqttClientExecutor.selectClients(pattern, client.getConfig().getServerHost()),
+                    contextGroupParallelism,
+                    actionName,
+                    action);
+        }
+        if (client != null) {
+            action.accept(client);
+        }
+        return 0;
+    }
+
     @Override
     public @NotNull Integer call() {
         Objects.requireNonNull(ShellCommand.TERMINAL_WRITER).println(ShellCommand.getUsageMessage());
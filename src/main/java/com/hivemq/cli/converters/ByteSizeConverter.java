@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.converters;
+
+import org.jetbrains.annotations.NotNull;
+import picocli.CommandLine;
+
+import java.util.Locale;
+
+public class ByteSizeConverter implements CommandLine.ITypeConverter<Long> {
+
+    static final @NotNull String WRONG_INPUT_MESSAGE =
+            "Value must be a positive number of bytes or a number followed by one of the units B, KB, MB, GB";
+
+    @Override
+    public @NotNull Long convert(final @NotNull String s) throws Exception {
+        final String value = s.trim().toLowerCase(Locale.ROOT);
+        int unitIndex = 0;
+        while (unitIndex < value.length() && Character.isDigit(value.charAt(unitIndex))) {
+            unitIndex++;
+        }
+        if (unitIndex == 0) {
+            throw new Exception(WRONG_INPUT_MESSAGE);
+        }
+        final long amount;
+        try {
+            amount = Long.parseLong(value.substring(0, unitIndex));
+        } catch (final NumberFormatException e) {
+            throw new Exception(WRONG_INPUT_MESSAGE);
+        }
+        final long unit;
+        switch (value.substring(unitIndex).trim()) {
+            case "":
+            case "b":
+                unit = 1;
+                break;
+            case "k":
+            case "kb":
+                unit = 1024;
+                break;
+            case "m":
+            case "mb":
+                unit = 1024 * 1024;
+                break;
+            case "g":
+            case "gb":
+                unit = 1024 * 1024 * 1024;
+                break;
+            default:
+                throw new Exception(WRONG_INPUT_MESSAGE);
+        }
+        if (amount == 0 || amount > Long.MAX_VALUE / unit) {
+            throw new Exception(WRONG_INPUT_MESSAGE);
+        }
+        return amount * unit;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.converters;
+
+import org.jetbrains.annotations.NotNull;
+import picocli.CommandLine;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Converts epoch milliseconds or an ISO-8601 date-time with offset (e.g. 2024-01-02T03:04:05Z) to epoch milliseconds.
+ */
+public class TimestampConverter implements CommandLine.ITypeConverter<Long> {
+
+    static final @NotNull String WRONG_INPUT_MESSAGE =
+            "Value must be epoch milliseconds or an ISO-8601 date-time with offset, e.g. 2024-01-02T03:04:05Z";
+
+    @Override
+    public @NotNull Long convert(final @NotNull String s) throws Exception {
+        final String value = s.trim();
+        try {
+            final long epochMillis = Long.parseLong(value);
+            if (epochMillis < 0) {
+                throw new Exception(WRONG_INPUT_MESSAGE);
+            }
+            return epochMillis;
+        } catch (final NumberFormatException ignored) {
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (final DateTimeParseException e) {
+            throw new Exception(WRONG_INPUT_MESSAGE);
+        }
+    }
+}
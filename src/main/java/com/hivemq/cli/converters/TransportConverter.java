@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.converters;
+
+import com.hivemq.cli.mqtt.Transport;
+import org.jetbrains.annotations.NotNull;
+import picocli.CommandLine;
+
+public class TransportConverter implements CommandLine.ITypeConverter<Transport> {
+
+    static final @NotNull String WRONG_INPUT_MESSAGE = "Value must be nio or epoll";
+    static final @NotNull String IO_URING_MESSAGE =
+            "The io_uring transport is not supported by the MQTT client library, use epoll instead";
+
+    @Override
+    public @NotNull Transport convert(final @NotNull String s) throws Exception {
+        switch (s.toLowerCase()) {
+            case "nio":
+                return Transport.NIO;
+            case "epoll":
+                return Transport.EPOLL;
+            case "io_uring":
+            case "iouring":
+                throw new Exception(IO_URING_MESSAGE);
+            default:
+                throw new Exception(WRONG_INPUT_MESSAGE);
+        }
+    }
+}
@@ -16,33 +16,26 @@
 
 package com.hivemq.cli.hivemq.behaviorpolicy;
 
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.DataHubBehaviorPoliciesApi;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiBehaviorPolicy;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiBehaviorPolicyList;
-import com.hivemq.cli.openapi.hivemq.HivemqOpenapiPaginationCursor;
+import com.hivemq.cli.rest.PaginatedIterator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-
 public class BehaviorPolicyListTask {
 
-    private static final @NotNull Pattern CURSOR_PATTERN = Pattern.compile("cursor=([^&]*)");
-
     private final @NotNull OutputFormatter outputFormatter;
     private final @NotNull DataHubBehaviorPoliciesApi behaviorPoliciesApi;
     private final @Nullable String @Nullable [] policyIds;
     private final @Nullable String @Nullable [] clientIds;
     private final @Nullable String @Nullable [] fields;
     private final @Nullable Integer limit;
-
-    private static final int DEFAULT_PAGE_SIZE = 50;
+    private final int pageSize;
+    private final @NotNull DataHubListOptions.OutputFormat format;
 
     public BehaviorPolicyListTask(
             final @NotNull OutputFormatter outputFormatter,
@@ -50,13 +43,17 @@ public class BehaviorPolicyListTask {
             final @Nullable String @Nullable [] policyIds,
             final @Nullable String @Nullable [] clientIds,
             final @Nullable String @Nullable [] fields,
-            final @Nullable Integer limit) {
+            final @Nullable Integer limit,
+            final int pageSize,
+            final @NotNull DataHubListOptions.OutputFormat format) {
         this.outputFormatter = outputFormatter;
         this.behaviorPoliciesApi = behaviorPoliciesApi;
         this.policyIds = policyIds;
         this.clientIds = clientIds;
         this.fields = fields;
         this.limit = limit;
+        this.pageSize = pageSize;
+        this.format = format;
     }
 
     public boolean execute() {
@@ -81,48 +78,28 @@ public class BehaviorPolicyListTask {
             clientIdsQueryParam = String.join(",", clientIds);
         }
 
-        List<HivemqOpenapiBehaviorPolicy> allPolicies = new ArrayList<>();
-
-        try {
-            String nextCursor = null;
-            do {
-                final HivemqOpenapiBehaviorPolicyList policyList = behaviorPoliciesApi.getAllBehaviorPolicies(
-                        fieldsQueryParam,
-                        policyIdsQueryParam,
-                        clientIdsQueryParam,
-                        DEFAULT_PAGE_SIZE,
-                        nextCursor);
-                final List<HivemqOpenapiBehaviorPolicy> policies = policyList.getItems();
-                final HivemqOpenapiPaginationCursor links = policyList.getLinks();
-
-                if (policies != null) {
-                    allPolicies.addAll(policies);
-                }
-
-                if (limit != null && allPolicies.size() >= limit) {
-                    allPolicies = allPolicies.stream().limit(limit).collect(Collectors.toList());
-                    nextCursor = null;
-                } else {
-                    if (links == null || links.getNext() == null) {
-                        nextCursor = null;
-                    } else {
-                        final Matcher matcher = CURSOR_PATTERN.matcher(links.getNext());
-                        if (!matcher.find()) {
-                            nextCursor = null;
-                        } else {
-                            nextCursor = matcher.group(1);
-                        }
-                    }
-                }
-            } while (nextCursor != null);
+        final int requestedPageSize = DataHubListOptions.pageSize(pageSize, limit);
+        final OutputFormatter.ItemsPrinter itemsPrinter = outputFormatter.printItems(format);
+
+        // with a limit, pages are only requested when needed so that no page beyond the limit is fetched
+        try (final PaginatedIterator<HivemqOpenapiBehaviorPolicy> policies = new PaginatedIterator<>(cursor -> {
+            final HivemqOpenapiBehaviorPolicyList policyList = behaviorPoliciesApi.getAllBehaviorPolicies(fieldsQueryParam,
+                    policyIdsQueryParam,
+                    clientIdsQueryParam,
+                    requestedPageSize,
+                    cursor);
+            return new PaginatedIterator.Page<>(policyList.getItems(), policyList.getLinks());
+        }, limit == null)) {
+            while ((limit == null || itemsPrinter.getCount() < limit) && policies.hasNext()) {
+                itemsPrinter.print(policies.next());
+            }
         } catch (final ApiException apiException) {
+            itemsPrinter.abort();
             outputFormatter.printApiException("Failed to list behavior policies", apiException);
             return false;
         }
 
-        final HivemqOpenapiBehaviorPolicyList policyList = new HivemqOpenapiBehaviorPolicyList().items(allPolicies);
-
-        outputFormatter.printJson(policyList);
+        itemsPrinter.finish();
 
         return true;
     }
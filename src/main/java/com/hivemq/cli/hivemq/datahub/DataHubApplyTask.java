@@ -0,0 +1,489 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.hivemq.datahub;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
+import com.hivemq.cli.openapi.ApiException;
+import com.hivemq.cli.openapi.hivemq.DataHubBehaviorPoliciesApi;
+import com.hivemq.cli.openapi.hivemq.DataHubDataPoliciesApi;
+import com.hivemq.cli.openapi.hivemq.DataHubSchemasApi;
+import com.hivemq.cli.openapi.hivemq.DataHubScriptsApi;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiBehaviorPolicy;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiBehaviorPolicyList;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicy;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicyList;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiSchema;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiSchemaList;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiScript;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiScriptList;
+import com.hivemq.cli.rest.PaginatedIterator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Applies a set of Data Hub definitions level by level in dependency order. The definitions of a level are applied
+ * concurrently with a bounded parallelism. Every definition is compared to the current state of the broker first, so
+ * that unchanged definitions are skipped. Schemas and scripts can not be updated, a changed schema or script is
+ * created as a new version.
+ * <p>
+ * With a {@link DataHubFingerprintCache} only the markers of the remote definitions are listed. A definition is only
+ * fetched if its marker changed since its fingerprint was cached and the cached fingerprint is not equal to the
+ * fingerprint of the local definition.
+ */
+public class DataHubApplyTask {
+
+    /**
+     * Fields which are assigned by the broker and are ignored in the comparison and not sent.
+     */
+    private static final @NotNull List<String> SERVER_FIELDS = Arrays.asList("version", "createdAt", "lastUpdatedAt");
+    private static final int MARKERS_PAGE_SIZE = 500;
+    private static final @NotNull Comparator<HivemqOpenapiSchema> SCHEMA_VERSION_ORDER =
+            Comparator.comparing(HivemqOpenapiSchema::getVersion, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(HivemqOpenapiSchema::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+    private static final @NotNull Comparator<HivemqOpenapiScript> SCRIPT_VERSION_ORDER =
+            Comparator.comparing(HivemqOpenapiScript::getVersion, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(HivemqOpenapiScript::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final @NotNull OutputFormatter outputFormatter;
+    private final @NotNull DataHubSchemasApi schemasApi;
+    private final @NotNull DataHubScriptsApi scriptsApi;
+    private final @NotNull DataHubDataPoliciesApi dataPoliciesApi;
+    private final @NotNull DataHubBehaviorPoliciesApi behaviorPoliciesApi;
+    private final @NotNull Gson gson;
+    private final @NotNull List<DataHubDefinition> definitions;
+    private final int parallelism;
+    private final boolean dryRun;
+    private final @Nullable DataHubFingerprintCache cache;
+    private final @NotNull Map<String, String> remoteMarkers = new HashMap<>();
+    private volatile boolean changed;
+
+    public DataHubApplyTask(
+            final @NotNull OutputFormatter outputFormatter,
+            final @NotNull DataHubSchemasApi schemasApi,
+            final @NotNull DataHubScriptsApi scriptsApi,
+            final @NotNull DataHubDataPoliciesApi dataPoliciesApi,
+            final @NotNull DataHubBehaviorPoliciesApi behaviorPoliciesApi,
+            final @NotNull Gson gson,
+            final @NotNull List<DataHubDefinition> definitions,
+            final int parallelism,
+            final boolean dryRun) {
+        this(outputFormatter,
+                schemasApi,
+                scriptsApi,
+                dataPoliciesApi,
+                behaviorPoliciesApi,
+                gson,
+                definitions,
+                parallelism,
+                dryRun,
+                null);
+    }
+
+    public DataHubApplyTask(
+            final @NotNull OutputFormatter outputFormatter,
+            final @NotNull DataHubSchemasApi schemasApi,
+            final @NotNull DataHubScriptsApi scriptsApi,
+            final @NotNull DataHubDataPoliciesApi dataPoliciesApi,
+            final @NotNull DataHubBehaviorPoliciesApi behaviorPoliciesApi,
+            final @NotNull Gson gson,
+            final @NotNull List<DataHubDefinition> definitions,
+            final int parallelism,
+            final boolean dryRun,
+            final @Nullable DataHubFingerprintCache cache) {
+        this.outputFormatter = outputFormatter;
+        this.schemasApi = schemasApi;
+        this.scriptsApi = scriptsApi;
+        this.dataPoliciesApi = dataPoliciesApi;
+        this.behaviorPoliciesApi = behaviorPoliciesApi;
+        this.gson = gson;
+        this.definitions = definitions;
+        this.parallelism = parallelism;
+        this.dryRun = dryRun;
+        this.cache = cache;
+    }
+
+    public boolean execute() {
+        final List<List<DataHubDefinition>> levels;
+        try {
+            levels = DataHubDefinitions.levels(definitions);
+        } catch (final IllegalStateException e) {
+            outputFormatter.printError(e.getMessage());
+            return false;
+        }
+
+        if (cache != null) {
+            try {
+                listRemoteMarkers();
+            } catch (final ApiException apiException) {
+                outputFormatter.printApiException("Failed to list Data Hub definitions", apiException);
+                return false;
+            }
+        }
+
+        final JsonArray items = new JsonArray();
+        boolean failed = false;
+        final ExecutorService executorService = Executors.newFixedThreadPool(parallelism);
+        try {
+            for (final List<DataHubDefinition> level : levels) {
+                if (failed) {
+                    // the definitions of the following levels may depend on the failed definitions
+                    for (final DataHubDefinition definition : level) {
+                        items.add(item(definition, "skipped", null));
+                    }
+                    continue;
+                }
+                final List<CompletableFuture<JsonObject>> futures = new ArrayList<>(level.size());
+                for (final DataHubDefinition definition : level) {
+                    futures.add(CompletableFuture.supplyAsync(() -> apply(definition), executorService));
+                }
+                for (final CompletableFuture<JsonObject> future : futures) {
+                    final JsonObject item = future.join();
+                    if (item.get("action").getAsString().equals("failed")) {
+                        failed = true;
+                    }
+                    items.add(item);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (final IOException e) {
+                Logger.warn(e, "Failed to write the fingerprint cache");
+            }
+        }
+
+        final JsonObject result = new JsonObject();
+        result.add("items", items);
+        outputFormatter.printJson(result);
+        return !failed;
+    }
+
+    /**
+     * @return true if at least one definition was (or in a dry run would have been) created or updated
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    private void listRemoteMarkers() throws ApiException {
+        final Set<DataHubDefinition.Type> types = EnumSet.noneOf(DataHubDefinition.Type.class);
+        for (final DataHubDefinition definition : definitions) {
+            types.add(definition.getType());
+        }
+        // only the fields of the markers are requested, the definitions themselves are only fetched when changed
+        if (types.contains(DataHubDefinition.Type.SCHEMA)) {
+            listRemoteMarkers(DataHubDefinition.Type.SCHEMA, cursor -> {
+                final HivemqOpenapiSchemaList list =
+                        schemasApi.getAllSchemas("id,version,createdAt", null, null, MARKERS_PAGE_SIZE, cursor);
+                return new PaginatedIterator.Page<>(list.getItems(), list.getLinks());
+            }, HivemqOpenapiSchema::getId, SCHEMA_VERSION_ORDER, DataHubApplyTask::markerOf);
+        }
+        if (types.contains(DataHubDefinition.Type.SCRIPT)) {
+            listRemoteMarkers(DataHubDefinition.Type.SCRIPT, cursor -> {
+                final HivemqOpenapiScriptList list =
+                        scriptsApi.getAllScripts("id,version,createdAt", null, null, MARKERS_PAGE_SIZE, cursor);
+                return new PaginatedIterator.Page<>(list.getItems(), list.getLinks());
+            }, HivemqOpenapiScript::getId, SCRIPT_VERSION_ORDER, DataHubApplyTask::markerOf);
+        }
+        if (types.contains(DataHubDefinition.Type.DATA_POLICY)) {
+            listRemoteMarkers(DataHubDefinition.Type.DATA_POLICY, cursor -> {
+                final HivemqOpenapiDataPolicyList list = dataPoliciesApi.getAllDataPolicies(
+                        "id,createdAt,lastUpdatedAt",
+                        null,
+                        null,
+                        null,
+                        MARKERS_PAGE_SIZE,
+                        cursor);
+                return new PaginatedIterator.Page<>(list.getItems(), list.getLinks());
+            }, HivemqOpenapiDataPolicy::getId, null, DataHubApplyTask::markerOf);
+        }
+        if (types.contains(DataHubDefinition.Type.BEHAVIOR_POLICY)) {
+            listRemoteMarkers(DataHubDefinition.Type.BEHAVIOR_POLICY, cursor -> {
+                final HivemqOpenapiBehaviorPolicyList list = behaviorPoliciesApi.getAllBehaviorPolicies(
+                        "id,createdAt,lastUpdatedAt",
+                        null,
+                        null,
+                        MARKERS_PAGE_SIZE,
+                        cursor);
+                return new PaginatedIterator.Page<>(list.getItems(), list.getLinks());
+            }, HivemqOpenapiBehaviorPolicy::getId, null, DataHubApplyTask::markerOf);
+        }
+        Logger.debug("Listed {} remote Data Hub definitions", remoteMarkers.size());
+    }
+
+    /**
+     * @param versionOrder the order of the versions of a definition, as all versions of schemas and scripts are listed,
+     *                     or null if only one version is listed per id
+     */
+    private <T> void listRemoteMarkers(
+            final @NotNull DataHubDefinition.Type type,
+            final @NotNull PaginatedIterator.PageRequest<T> pageRequest,
+            final @NotNull Function<T, String> idOf,
+            final @Nullable Comparator<T> versionOrder,
+            final @NotNull Function<T, String> markerOf) throws ApiException {
+        final Map<String, T> latestDefinitions = new HashMap<>();
+        try (final PaginatedIterator<T> remoteDefinitions = new PaginatedIterator<>(pageRequest, true)) {
+            while (remoteDefinitions.hasNext()) {
+                final T remoteDefinition = remoteDefinitions.next();
+                final String id = idOf.apply(remoteDefinition);
+                if (id != null) {
+                    // the marker of the latest version is kept, as the latest version is fetched for the comparison
+                    latestDefinitions.merge(id,
+                            remoteDefinition,
+                            (previous, current) -> versionOrder != null && versionOrder.compare(previous, current) > 0 ?
+                                    previous :
+                                    current);
+                }
+            }
+        }
+        for (final Map.Entry<String, T> entry : latestDefinitions.entrySet()) {
+            remoteMarkers.put(DataHubDefinition.key(type, entry.getKey()), markerOf.apply(entry.getValue()));
+        }
+    }
+
+    private @NotNull JsonObject apply(final @NotNull DataHubDefinition definition) {
+        final JsonObject desired = withoutServerFields(definition.getJson());
+        final String description = definition.getType().getDisplayName() + " '" + definition.getId() + "'";
+        try {
+            // both sides are converted through the API model, so that defaults of the model are no difference
+            final JsonObject normalizedDesired = normalized(definition.getType(), desired);
+            final JsonObject current;
+            String fingerprint = null;
+            if (cache != null) {
+                final String marker = remoteMarkers.get(definition.getKey());
+                fingerprint = DataHubFingerprintCache.fingerprintOf(normalizedDesired);
+                if (marker == null) {
+                    current = null;
+                } else if (fingerprint.equals(cache.getFingerprint(definition.getKey(), marker))) {
+                    Logger.debug("Skipped unchanged {} (cached)", description);
+                    return item(definition, "unchanged", null);
+                } else {
+                    current = fetch(definition);
+                    if (current != null && changedFields(normalizedDesired, withoutServerFields(current)).isEmpty()) {
+                        cache.put(definition.getKey(), marker, fingerprint);
+                    }
+                }
+            } else {
+                current = fetch(definition);
+            }
+            if (current == null) {
+                if (!dryRun) {
+                    remember(definition, fingerprint, create(definition.getType(), desired));
+                }
+                changed = true;
+                Logger.debug("Created {}", description);
+                return item(definition, dryRun ? "create" : "created", null);
+            }
+            final Set<String> changedFields = changedFields(normalizedDesired, withoutServerFields(current));
+            if (changedFields.isEmpty()) {
+                Logger.debug("Skipped unchanged {}", description);
+                return item(definition, "unchanged", null);
+            }
+            if (!dryRun) {
+                remember(definition, fingerprint, update(definition.getType(), definition.getId(), desired));
+            }
+            changed = true;
+            Logger.debug("Updated fields {} of {}", changedFields, description);
+            return item(definition, dryRun ? "update" : "updated", changedFields);
+        } catch (final ApiException apiException) {
+            outputFormatter.printApiException("Failed to apply " + description, apiException);
+            return item(definition, "failed", null);
+        } catch (final JsonParseException jsonParseException) {
+            outputFormatter.printError("Could not parse " +
+                    description +
+                    " in " +
+                    definition.getPath() +
+                    ": " +
+                    jsonParseException.getMessage());
+            return item(definition, "failed", null);
+        }
+    }
+
+    /**
+     * Caches the fingerprint of the applied definition for the marker of the created or updated remote definition.
+     */
+    private void remember(
+            final @NotNull DataHubDefinition definition,
+            final @Nullable String fingerprint,
+            final @Nullable Object applied) {
+        if (cache == null || fingerprint == null || applied == null) {
+            return;
+        }
+        final String marker;
+        if (applied instanceof HivemqOpenapiSchema) {
+            marker = markerOf((HivemqOpenapiSchema) applied);
+        } else if (applied instanceof HivemqOpenapiScript) {
+            marker = markerOf((HivemqOpenapiScript) applied);
+        } else if (applied instanceof HivemqOpenapiDataPolicy) {
+            marker = markerOf((HivemqOpenapiDataPolicy) applied);
+        } else {
+            marker = markerOf((HivemqOpenapiBehaviorPolicy) applied);
+        }
+        cache.put(definition.getKey(), marker, fingerprint);
+    }
+
+    private static @NotNull String markerOf(final @NotNull HivemqOpenapiSchema schema) {
+        return String.valueOf(schema.getCreatedAt());
+    }
+
+    private static @NotNull String markerOf(final @NotNull HivemqOpenapiScript script) {
+        return script.getVersion() + "@" + script.getCreatedAt();
+    }
+
+    private static @NotNull String markerOf(final @NotNull HivemqOpenapiDataPolicy policy) {
+        return String.valueOf(policy.getLastUpdatedAt() != null ? policy.getLastUpdatedAt() : policy.getCreatedAt());
+    }
+
+    private static @NotNull String markerOf(final @NotNull HivemqOpenapiBehaviorPolicy policy) {
+        return String.valueOf(policy.getLastUpdatedAt() != null ? policy.getLastUpdatedAt() : policy.getCreatedAt());
+    }
+
+    private @Nullable JsonObject fetch(final @NotNull DataHubDefinition definition) throws ApiException {
+        final Object current;
+        try {
+            switch (definition.getType()) {
+                case SCHEMA:
+                    current = schemasApi.getSchema(definition.getId(), null);
+                    break;
+                case SCRIPT:
+                    current = scriptsApi.getScript(definition.getId(), null);
+                    break;
+                case DATA_POLICY:
+                    current = dataPoliciesApi.getDataPolicy(definition.getId(), null);
+                    break;
+                default:
+                    current = behaviorPoliciesApi.getBehaviorPolicy(definition.getId(), null);
+                    break;
+            }
+        } catch (final ApiException apiException) {
+            if (apiException.getCode() == 404) {
+                return null;
+            }
+            throw apiException;
+        }
+        return current == null ? null : gson.toJsonTree(current).getAsJsonObject();
+    }
+
+    private @Nullable Object create(final @NotNull DataHubDefinition.Type type, final @NotNull JsonObject json)
+            throws ApiException {
+        switch (type) {
+            case SCHEMA:
+                return schemasApi.createSchema(gson.fromJson(json, HivemqOpenapiSchema.class));
+            case SCRIPT:
+                return scriptsApi.createScript(gson.fromJson(json, HivemqOpenapiScript.class));
+            case DATA_POLICY:
+                return dataPoliciesApi.createDataPolicy(gson.fromJson(json, HivemqOpenapiDataPolicy.class));
+            default:
+                return behaviorPoliciesApi.createBehaviorPolicy(gson.fromJson(json,
+                        HivemqOpenapiBehaviorPolicy.class));
+        }
+    }
+
+    private @Nullable Object update(
+            final @NotNull DataHubDefinition.Type type, final @NotNull String id, final @NotNull JsonObject json)
+            throws ApiException {
+        switch (type) {
+            case SCHEMA:
+            case SCRIPT:
+                // creating a schema or script with an existing id creates a new version of it
+                return create(type, json);
+            case DATA_POLICY:
+                return dataPoliciesApi.updateDataPolicy(id, gson.fromJson(json, HivemqOpenapiDataPolicy.class));
+            default:
+                return behaviorPoliciesApi.updateBehaviorPolicy(id,
+                        gson.fromJson(json, HivemqOpenapiBehaviorPolicy.class));
+        }
+    }
+
+    private @NotNull JsonObject normalized(final @NotNull DataHubDefinition.Type type, final @NotNull JsonObject json) {
+        return withoutServerFields(gson.toJsonTree(gson.fromJson(json, modelClass(type))).getAsJsonObject());
+    }
+
+    private static @NotNull Class<?> modelClass(final @NotNull DataHubDefinition.Type type) {
+        switch (type) {
+            case SCHEMA:
+                return HivemqOpenapiSchema.class;
+            case SCRIPT:
+                return HivemqOpenapiScript.class;
+            case DATA_POLICY:
+                return HivemqOpenapiDataPolicy.class;
+            default:
+                return HivemqOpenapiBehaviorPolicy.class;
+        }
+    }
+
+    private static @NotNull JsonObject withoutServerFields(final @NotNull JsonObject json) {
+        final JsonObject copy = json.deepCopy();
+        for (final String field : SERVER_FIELDS) {
+            copy.remove(field);
+        }
+        return copy;
+    }
+
+    private static @NotNull Set<String> changedFields(
+            final @NotNull JsonObject desired, final @NotNull JsonObject current) {
+        final Set<String> fields = new LinkedHashSet<>(desired.keySet());
+        fields.addAll(current.keySet());
+        fields.removeIf(field -> {
+            final JsonElement desiredValue = desired.get(field);
+            final JsonElement currentValue = current.get(field);
+            return desiredValue == null ? currentValue.isJsonNull() : desiredValue.equals(currentValue);
+        });
+        return fields;
+    }
+
+    private static @NotNull JsonObject item(
+            final @NotNull DataHubDefinition definition,
+            final @NotNull String action,
+            final @Nullable Set<String> changedFields) {
+        final JsonObject item = new JsonObject();
+        item.addProperty("type", definition.getType().getDisplayName());
+        item.addProperty("id", definition.getId());
+        item.addProperty("action", action);
+        if (changedFields != null) {
+            final JsonArray fields = new JsonArray();
+            changedFields.forEach(fields::add);
+            item.add("changedFields", fields);
+        }
+        return item;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.hivemq.datahub;
+
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * A schema, script or policy definition loaded from a file, in the JSON format of the HiveMQ REST API.
+ */
+public class DataHubDefinition {
+
+    public enum Type {
+        SCHEMA("schemas", "schema"),
+        SCRIPT("scripts", "script"),
+        DATA_POLICY("data-policies", "data-policy"),
+        BEHAVIOR_POLICY("behavior-policies", "behavior-policy");
+
+        private final @NotNull String directoryName;
+        private final @NotNull String displayName;
+
+        Type(final @NotNull String directoryName, final @NotNull String displayName) {
+            this.directoryName = directoryName;
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return the name of the subdirectory which contains the definitions of this type
+         */
+        public @NotNull String getDirectoryName() {
+            return directoryName;
+        }
+
+        public @NotNull String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private final @NotNull Type type;
+    private final @NotNull String id;
+    private final @NotNull JsonObject json;
+    private final @NotNull Path path;
+    private final @NotNull Set<String> dependencies;
+
+    public DataHubDefinition(
+            final @NotNull Type type,
+            final @NotNull String id,
+            final @NotNull JsonObject json,
+            final @NotNull Path path,
+            final @NotNull Set<String> dependencies) {
+        this.type = type;
+        this.id = id;
+        this.json = json;
+        this.path = path;
+        this.dependencies = dependencies;
+    }
+
+    public static @NotNull String key(final @NotNull Type type, final @NotNull String id) {
+        return type.getDisplayName() + ":" + id;
+    }
+
+    /**
+     * @return the type and id of the definition, which identify it across all definitions
+     */
+    public @NotNull String getKey() {
+        return key(type, id);
+    }
+
+    public @NotNull Type getType() {
+        return type;
+    }
+
+    public @NotNull String getId() {
+        return id;
+    }
+
+    public @NotNull JsonObject getJson() {
+        return json;
+    }
+
+    public @NotNull Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the keys of the schemas and scripts this definition references
+     */
+    public @NotNull Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "DataHubDefinition{" +
+                "type=" +
+                type +
+                ", id='" +
+                id +
+                '\'' +
+                ", path=" +
+                path +
+                ", dependencies=" +
+                dependencies +
+                '}';
+    }
+}
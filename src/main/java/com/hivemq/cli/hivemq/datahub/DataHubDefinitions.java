@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.hivemq.datahub;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads a directory of Data Hub definitions and orders them by their dependencies.
+ * <p>
+ * The directory contains the subdirectories <code>schemas</code>, <code>scripts</code>, <code>data-policies</code> and
+ * <code>behavior-policies</code> with one JSON file (<code>*.json</code>) per definition.
+ */
+public final class DataHubDefinitions {
+
+    private static final @NotNull String FUNCTION_ID_PREFIX = "fn:";
+
+    private DataHubDefinitions() {
+    }
+
+    public static @NotNull List<DataHubDefinition> load(final @NotNull Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Directory not found: " + directory);
+        }
+        final Map<String, DataHubDefinition> definitions = new LinkedHashMap<>();
+        for (final DataHubDefinition.Type type : DataHubDefinition.Type.values()) {
+            final Path typeDirectory = directory.resolve(type.getDirectoryName());
+            if (!Files.isDirectory(typeDirectory)) {
+                continue;
+            }
+            final List<Path> files;
+            try (final Stream<Path> list = Files.list(typeDirectory)) {
+                files = list.filter(path -> path.getFileName().toString().endsWith(".json"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            for (final Path file : files) {
+                final DataHubDefinition definition = loadDefinition(type, file);
+                final DataHubDefinition previous = definitions.putIfAbsent(definition.getKey(), definition);
+                if (previous != null) {
+                    throw new IOException("Duplicate " +
+                            type.getDisplayName() +
+                            " '" +
+                            definition.getId() +
+                            "' in " +
+                            previous.getPath() +
+                            " and " +
+                            file);
+                }
+            }
+        }
+        return new ArrayList<>(definitions.values());
+    }
+
+    /**
+     * Groups the definitions into levels, so that every definition only depends on definitions of previous levels.
+     * Dependencies which are not part of the definitions are expected to already exist and are ignored.
+     */
+    public static @NotNull List<List<DataHubDefinition>> levels(final @NotNull List<DataHubDefinition> definitions) {
+        final Map<String, DataHubDefinition> remaining = new LinkedHashMap<>();
+        for (final DataHubDefinition definition : definitions) {
+            remaining.put(definition.getKey(), definition);
+        }
+        final Set<String> keys = new HashSet<>(remaining.keySet());
+        final Set<String> applied = new HashSet<>();
+        final List<List<DataHubDefinition>> levels = new ArrayList<>();
+        while (!remaining.isEmpty()) {
+            final List<DataHubDefinition> level = new ArrayList<>();
+            for (final DataHubDefinition definition : remaining.values()) {
+                boolean ready = true;
+                for (final String dependency : definition.getDependencies()) {
+                    if (keys.contains(dependency) && !applied.contains(dependency)) {
+                        ready = false;
+                        break;
+                    }
+                }
+                if (ready) {
+                    level.add(definition);
+                }
+            }
+            if (level.isEmpty()) {
+                throw new IllegalStateException("Cyclic dependencies between " + remaining.keySet());
+            }
+            for (final DataHubDefinition definition : level) {
+                remaining.remove(definition.getKey());
+                applied.add(definition.getKey());
+            }
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    private static @NotNull DataHubDefinition loadDefinition(
+            final @NotNull DataHubDefinition.Type type, final @NotNull Path file) throws IOException {
+        final JsonObject json;
+        try {
+            final JsonElement element =
+                    JsonParser.parseString(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            if (!element.isJsonObject()) {
+                throw new IOException("The " + type.getDisplayName() + " definition in " + file + " is no object");
+            }
+            json = element.getAsJsonObject();
+        } catch (final JsonParseException e) {
+            throw new IOException("Could not parse " + type.getDisplayName() + " JSON in " + file + ": " +
+                    e.getMessage(), e);
+        }
+        final JsonElement id = json.get("id");
+        if (id == null || !id.isJsonPrimitive() || id.getAsString().isEmpty()) {
+            throw new IOException("The " + type.getDisplayName() + " definition in " + file + " has no id");
+        }
+        final Set<String> dependencies = new HashSet<>();
+        if (type == DataHubDefinition.Type.DATA_POLICY || type == DataHubDefinition.Type.BEHAVIOR_POLICY) {
+            collectDependencies(json, dependencies);
+        }
+        return new DataHubDefinition(type, id.getAsString(), json, file, dependencies);
+    }
+
+    /**
+     * Collects the referenced schemas (<code>schemaId</code>) and scripts (<code>functionId</code> of the form
+     * <code>fn:&lt;scriptId&gt;:&lt;version&gt;</code>).
+     */
+    private static void collectDependencies(
+            final @NotNull JsonElement element, final @NotNull Set<String> dependencies) {
+        if (element.isJsonArray()) {
+            for (final JsonElement child : (JsonArray) element) {
+                collectDependencies(child, dependencies);
+            }
+        } else if (element.isJsonObject()) {
+            for (final Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                final JsonElement value = entry.getValue();
+                if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+                    final String string = value.getAsString();
+                    if (entry.getKey().equals("schemaId")) {
+                        dependencies.add(DataHubDefinition.key(DataHubDefinition.Type.SCHEMA, string));
+                    } else if (entry.getKey().equals("functionId") && string.startsWith(FUNCTION_ID_PREFIX)) {
+                        final int versionIndex = string.lastIndexOf(':');
+                        final String scriptId = versionIndex > FUNCTION_ID_PREFIX.length() ?
+                                string.substring(FUNCTION_ID_PREFIX.length(), versionIndex) :
+                                string.substring(FUNCTION_ID_PREFIX.length());
+                        dependencies.add(DataHubDefinition.key(DataHubDefinition.Type.SCRIPT, scriptId));
+                    }
+                } else {
+                    collectDependencies(value, dependencies);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.hivemq.datahub;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local cache of the fingerprints of the Data Hub definitions on a broker.
+ * <p>
+ * Every fingerprint is stored together with a marker of the remote definition, which changes whenever the definition
+ * changes (the update timestamp of a policy, the version and creation timestamp of a schema or script). The markers
+ * of all definitions can be listed cheaply, so only the definitions with a changed marker have to be fetched to
+ * compute their fingerprint again.
+ * <p>
+ * The cache file contains the fingerprints of all brokers by their URL.
+ */
+public class DataHubFingerprintCache {
+
+    private final @NotNull Path file;
+    private final @NotNull String url;
+    private final @NotNull Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private DataHubFingerprintCache(final @NotNull Path file, final @NotNull String url) {
+        this.file = file;
+        this.url = url;
+    }
+
+    /**
+     * Loads the fingerprints for the given broker URL. A missing or unreadable cache file results in an empty cache.
+     */
+    public static @NotNull DataHubFingerprintCache load(final @NotNull Path file, final @NotNull String url) {
+        final DataHubFingerprintCache cache = new DataHubFingerprintCache(file, url);
+        if (!Files.exists(file)) {
+            return cache;
+        }
+        try {
+            final JsonObject brokers =
+                    JsonParser.parseString(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+                            .getAsJsonObject();
+            final JsonElement broker = brokers.get(url);
+            if (broker != null) {
+                for (final Map.Entry<String, JsonElement> entry : broker.getAsJsonObject().entrySet()) {
+                    final JsonObject value = entry.getValue().getAsJsonObject();
+                    cache.entries.put(entry.getKey(),
+                            new Entry(value.get("marker").getAsString(), value.get("fingerprint").getAsString()));
+                }
+            }
+        } catch (final IOException | JsonParseException | IllegalStateException | NullPointerException e) {
+            Logger.warn(e, "Ignoring unreadable fingerprint cache {}", file);
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * @return the cached fingerprint of the definition or null if it is not cached or the marker has changed
+     */
+    public @Nullable String getFingerprint(final @NotNull String key, final @NotNull String marker) {
+        final Entry entry = entries.get(key);
+        if (entry == null || !entry.marker.equals(marker)) {
+            return null;
+        }
+        return entry.fingerprint;
+    }
+
+    public void put(final @NotNull String key, final @NotNull String marker, final @NotNull String fingerprint) {
+        entries.put(key, new Entry(marker, fingerprint));
+    }
+
+    /**
+     * Writes the fingerprints of the broker to the cache file and keeps the fingerprints of other brokers.
+     */
+    public void save() throws IOException {
+        JsonObject brokers = new JsonObject();
+        if (Files.exists(file)) {
+            try {
+                brokers = JsonParser.parseString(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+                        .getAsJsonObject();
+            } catch (final JsonParseException | IllegalStateException e) {
+                Logger.warn(e, "Overwriting unreadable fingerprint cache {}", file);
+            }
+        }
+        final JsonObject broker = new JsonObject();
+        final List<String> keys = new ArrayList<>(entries.keySet());
+        Collections.sort(keys);
+        for (final String key : keys) {
+            final Entry entry = entries.get(key);
+            final JsonObject value = new JsonObject();
+            value.addProperty("marker", entry.marker);
+            value.addProperty("fingerprint", entry.fingerprint);
+            broker.add(key, value);
+        }
+        brokers.add(url, broker);
+
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // write to a temporary file first, so that an interrupted write does not corrupt the cache
+        final Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporaryFile, brokers.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return the SHA-256 hash of the JSON with the members of all objects sorted by name, so that the fingerprint
+     *         does not depend on the order of the members
+     */
+    public static @NotNull String fingerprintOf(final @NotNull JsonElement json) {
+        final StringBuilder canonical = new StringBuilder();
+        appendCanonical(json, canonical);
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final byte[] hash = digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        final StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (final byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void appendCanonical(final @NotNull JsonElement json, final @NotNull StringBuilder canonical) {
+        if (json.isJsonObject()) {
+            final List<String> names = new ArrayList<>(json.getAsJsonObject().keySet());
+            Collections.sort(names);
+            canonical.append('{');
+            for (final String name : names) {
+                final JsonElement value = json.getAsJsonObject().get(name);
+                if (value.isJsonNull()) {
+                    continue;
+                }
+                canonical.append(new JsonPrimitive(name)).append(':');
+                appendCanonical(value, canonical);
+                canonical.append(',');
+            }
+            canonical.append('}');
+        } else if (json.isJsonArray()) {
+            canonical.append('[');
+            for (final JsonElement element : (JsonArray) json) {
+                appendCanonical(element, canonical);
+                canonical.append(',');
+            }
+            canonical.append(']');
+        } else if (json.isJsonPrimitive() && json.getAsJsonPrimitive().isNumber()) {
+            // integral numbers are equal regardless of their representation, e.g. 1 and 1.0
+            final double value = json.getAsDouble();
+            canonical.append(value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value));
+        } else {
+            canonical.append(json);
+        }
+    }
+
+    private static class Entry {
+
+        private final @NotNull String marker;
+        private final @NotNull String fingerprint;
+
+        Entry(final @NotNull String marker, final @NotNull String fingerprint) {
+            this.marker = marker;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -16,25 +16,18 @@
 
 package com.hivemq.cli.hivemq.datapolicy;
 
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.DataHubDataPoliciesApi;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicy;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicyList;
-import com.hivemq.cli.openapi.hivemq.HivemqOpenapiPaginationCursor;
+import com.hivemq.cli.rest.PaginatedIterator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-
 public class DataPolicyListTask {
 
-    private static final @NotNull Pattern CURSOR_PATTERN = Pattern.compile("cursor=([^&]*)");
-
     private final @NotNull OutputFormatter outputFormatter;
     private final @NotNull DataHubDataPoliciesApi dataPoliciesApi;
     private final @Nullable String topic;
@@ -42,8 +35,8 @@ public class DataPolicyListTask {
     private final @Nullable String @Nullable [] schemaIds;
     private final @Nullable String @Nullable [] fields;
     private final @Nullable Integer limit;
-
-    private static final int DEFAULT_PAGE_SIZE = 50;
+    private final int pageSize;
+    private final @NotNull DataHubListOptions.OutputFormat format;
 
     public DataPolicyListTask(
             final @NotNull OutputFormatter outputFormatter,
@@ -52,7 +45,9 @@ public class DataPolicyListTask {
             final @Nullable String @Nullable [] policyIds,
             final @Nullable String @Nullable [] schemaIds,
             final @Nullable String @Nullable [] fields,
-            final @Nullable Integer limit) {
+            final @Nullable Integer limit,
+            final int pageSize,
+            final @NotNull DataHubListOptions.OutputFormat format) {
         this.outputFormatter = outputFormatter;
         this.dataPoliciesApi = dataPoliciesApi;
         this.topic = topic;
@@ -60,6 +55,8 @@ public class DataPolicyListTask {
         this.schemaIds = schemaIds;
         this.fields = fields;
         this.limit = limit;
+        this.pageSize = pageSize;
+        this.format = format;
     }
 
     public boolean execute() {
@@ -84,48 +81,29 @@ public class DataPolicyListTask {
             schemaIdsQueryParam = String.join(",", schemaIds);
         }
 
-        List<HivemqOpenapiDataPolicy> allPolicies = new ArrayList<>();
-
-        try {
-            String nextCursor = null;
-            do {
-                final HivemqOpenapiDataPolicyList policyList = dataPoliciesApi.getAllDataPolicies(fieldsQueryParam,
-                        policyIdsQueryParam,
-                        schemaIdsQueryParam,
-                        topic,
-                        DEFAULT_PAGE_SIZE,
-                        nextCursor);
-                final List<HivemqOpenapiDataPolicy> policies = policyList.getItems();
-                final HivemqOpenapiPaginationCursor links = policyList.getLinks();
-
-                if (policies != null) {
-                    allPolicies.addAll(policies);
-                }
-
-                if (limit != null && allPolicies.size() >= limit) {
-                    allPolicies = allPolicies.stream().limit(limit).collect(Collectors.toList());
-                    nextCursor = null;
-                } else {
-                    if (links == null || links.getNext() == null) {
-                        nextCursor = null;
-                    } else {
-                        final Matcher matcher = CURSOR_PATTERN.matcher(links.getNext());
-                        if (!matcher.find()) {
-                            nextCursor = null;
-                        } else {
-                            nextCursor = matcher.group(1);
-                        }
-                    }
-                }
-            } while (nextCursor != null);
+        final int requestedPageSize = DataHubListOptions.pageSize(pageSize, limit);
+        final OutputFormatter.ItemsPrinter itemsPrinter = outputFormatter.printItems(format);
+
+        // with a limit, pages are only requested when needed so that no page beyond the limit is fetched
+        try (final PaginatedIterator<HivemqOpenapiDataPolicy> policies = new PaginatedIterator<>(cursor -> {
+            final HivemqOpenapiDataPolicyList policyList = dataPoliciesApi.getAllDataPolicies(fieldsQueryParam,
+                    policyIdsQueryParam,
+                    schemaIdsQueryParam,
+                    topic,
+                    requestedPageSize,
+                    cursor);
+            return new PaginatedIterator.Page<>(policyList.getItems(), policyList.getLinks());
+        }, limit == null)) {
+            while ((limit == null || itemsPrinter.getCount() < limit) && policies.hasNext()) {
+                itemsPrinter.print(policies.next());
+            }
         } catch (final ApiException apiException) {
+            itemsPrinter.abort();
             outputFormatter.printApiException("Failed to list data policies", apiException);
             return false;
         }
 
-        final HivemqOpenapiDataPolicyList policyList = new HivemqOpenapiDataPolicyList().items(allPolicies);
-
-        outputFormatter.printJson(policyList);
+        itemsPrinter.finish();
 
         return true;
     }
@@ -16,31 +16,26 @@
 
 package com.hivemq.cli.hivemq.schemas;
 
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.DataHubSchemasApi;
-import com.hivemq.cli.openapi.hivemq.HivemqOpenapiPaginationCursor;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiSchema;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiSchemaList;
+import com.hivemq.cli.rest.PaginatedIterator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-
 public class ListSchemasTask {
 
-    private static final @NotNull Pattern CURSOR_PATTERN = Pattern.compile("cursor=([^&]*)");
-
     private final @NotNull OutputFormatter outputFormatter;
     private final @NotNull DataHubSchemasApi schemasApi;
     private final @Nullable String @Nullable [] schemaTypes;
     private final @Nullable String @Nullable [] schemaIds;
     private final @Nullable String @Nullable [] fields;
     private final @Nullable Integer limit;
+    private final int pageSize;
+    private final @NotNull DataHubListOptions.OutputFormat format;
 
     public ListSchemasTask(
             final @NotNull OutputFormatter outputFormatter,
@@ -48,13 +43,17 @@ public class ListSchemasTask {
             final @Nullable String @Nullable [] schemaTypes,
             final @Nullable String @Nullable [] schemaIds,
             final @Nullable String @Nullable [] fields,
-            final @Nullable Integer limit) {
+            final @Nullable Integer limit,
+            final int pageSize,
+            final @NotNull DataHubListOptions.OutputFormat format) {
         this.outputFormatter = outputFormatter;
         this.schemasApi = schemasApi;
         this.schemaTypes = schemaTypes;
         this.schemaIds = schemaIds;
         this.limit = limit;
         this.fields = fields;
+        this.pageSize = pageSize;
+        this.format = format;
     }
 
     public boolean execute() {
@@ -79,47 +78,28 @@ public class ListSchemasTask {
             schemaTypesQueryParam = String.join(",", schemaTypes);
         }
 
-        List<HivemqOpenapiSchema> allSchemas = new ArrayList<>();
-
-        try {
-            String nextCursor = null;
-            do {
-                final HivemqOpenapiSchemaList schemaList = schemasApi.getAllSchemas(fieldsQueryParam,
-                        schemaTypesQueryParam,
-                        schemaIdsQueryParam,
-                        50,
-                        nextCursor);
-                final List<HivemqOpenapiSchema> schemas = schemaList.getItems();
-                final HivemqOpenapiPaginationCursor links = schemaList.getLinks();
-
-                if (schemas != null) {
-                    allSchemas.addAll(schemas);
-                }
-
-                if (limit != null && allSchemas.size() >= limit) {
-                    allSchemas = allSchemas.stream().limit(limit).collect(Collectors.toList());
-                    nextCursor = null;
-                } else {
-                    if (links == null || links.getNext() == null) {
-                        nextCursor = null;
-                    } else {
-                        final Matcher matcher = CURSOR_PATTERN.matcher(links.getNext());
-                        if (!matcher.find()) {
-                            nextCursor = null;
-                        } else {
-                            nextCursor = matcher.group(1);
-                        }
-                    }
-                }
-
-            } while (nextCursor != null);
+        final int requestedPageSize = DataHubListOptions.pageSize(pageSize, limit);
+        final OutputFormatter.ItemsPrinter itemsPrinter = outputFormatter.printItems(format);
+
+        // with a limit, pages are only requested when needed so that no page beyond the limit is fetched
+        try (final PaginatedIterator<HivemqOpenapiSchema> schemas = new PaginatedIterator<>(cursor -> {
+            final HivemqOpenapiSchemaList schemaList = schemasApi.getAllSchemas(fieldsQueryParam,
+                    schemaTypesQueryParam,
+                    schemaIdsQueryParam,
+                    requestedPageSize,
+                    cursor);
+            return new PaginatedIterator.Page<>(schemaList.getItems(), schemaList.getLinks());
+        }, limit == null)) {
+            while ((limit == null || itemsPrinter.getCount() < limit) && schemas.hasNext()) {
+                itemsPrinter.print(schemas.next());
+            }
         } catch (final ApiException apiException) {
+            itemsPrinter.abort();
             outputFormatter.printApiException("Failed to list schemas", apiException);
             return false;
         }
 
-        final HivemqOpenapiSchemaList schemaList = new HivemqOpenapiSchemaList().items(allSchemas);
-        outputFormatter.printJson(schemaList);
+        itemsPrinter.finish();
 
         return true;
     }
@@ -16,33 +16,30 @@
 
 package com.hivemq.cli.hivemq.scripts;
 
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.DataHubScriptsApi;
-import com.hivemq.cli.openapi.hivemq.HivemqOpenapiPaginationCursor;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiScript;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiScriptList;
+import com.hivemq.cli.rest.PaginatedIterator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class ListScriptsTask {
 
-    private static final @NotNull Pattern CURSOR_PATTERN = Pattern.compile("cursor=([^&]*)");
-
     private final @NotNull OutputFormatter outputFormatter;
     private final @NotNull DataHubScriptsApi scriptsApi;
     private final @Nullable HivemqOpenapiScript.FunctionTypeEnum @Nullable [] functionTypes;
     private final @Nullable String @Nullable [] scriptIds;
     private final @Nullable String @Nullable [] fields;
     private final @Nullable Integer limit;
+    private final int pageSize;
+    private final @NotNull DataHubListOptions.OutputFormat format;
 
     public ListScriptsTask(
             final @NotNull OutputFormatter outputFormatter,
@@ -50,13 +47,17 @@ public class ListScriptsTask {
             final @Nullable HivemqOpenapiScript.FunctionTypeEnum @Nullable [] functionTypes,
             final @Nullable String @Nullable [] scriptIds,
             final @Nullable String @Nullable [] fields,
-            final @Nullable Integer limit) {
+            final @Nullable Integer limit,
+            final int pageSize,
+            final @NotNull DataHubListOptions.OutputFormat format) {
         this.outputFormatter = outputFormatter;
         this.scriptsApi = scriptApi;
         this.functionTypes = functionTypes;
         this.scriptIds = scriptIds;
         this.limit = limit;
         this.fields = fields;
+        this.pageSize = pageSize;
+        this.format = format;
     }
 
     public boolean execute() {
@@ -84,47 +85,28 @@ public class ListScriptsTask {
                     .collect(Collectors.joining(","));
         }
 
-        List<HivemqOpenapiScript> allScripts = new ArrayList<>();
-
-        try {
-            String nextCursor = null;
-            do {
-                final HivemqOpenapiScriptList scriptList = scriptsApi.getAllScripts(fieldsQueryParam,
-                        functionTypesQueryParam,
-                        scriptIdsQueryParam,
-                        50,
-                        nextCursor);
-                final List<HivemqOpenapiScript> scripts = scriptList.getItems();
-                final HivemqOpenapiPaginationCursor links = scriptList.getLinks();
-
-                if (scripts != null) {
-                    allScripts.addAll(scripts);
-                }
-
-                if (limit != null && allScripts.size() >= limit) {
-                    allScripts = allScripts.stream().limit(limit).collect(Collectors.toList());
-                    nextCursor = null;
-                } else {
-                    if (links == null || links.getNext() == null) {
-                        nextCursor = null;
-                    } else {
-                        final Matcher matcher = CURSOR_PATTERN.matcher(links.getNext());
-                        if (!matcher.find()) {
-                            nextCursor = null;
-                        } else {
-                            nextCursor = matcher.group(1);
-                        }
-                    }
-                }
-
-            } while (nextCursor != null);
+        final int requestedPageSize = DataHubListOptions.pageSize(pageSize, limit);
+        final OutputFormatter.ItemsPrinter itemsPrinter = outputFormatter.printItems(format);
+
+        // with a limit, pages are only requested when needed so that no page beyond the limit is fetched
+        try (final PaginatedIterator<HivemqOpenapiScript> scripts = new PaginatedIterator<>(cursor -> {
+            final HivemqOpenapiScriptList scriptList = scriptsApi.getAllScripts(fieldsQueryParam,
+                    functionTypesQueryParam,
+                    scriptIdsQueryParam,
+                    requestedPageSize,
+                    cursor);
+            return new PaginatedIterator.Page<>(scriptList.getItems(), scriptList.getLinks());
+        }, limit == null)) {
+            while ((limit == null || itemsPrinter.getCount() < limit) && scripts.hasNext()) {
+                itemsPrinter.print(scripts.next());
+            }
         } catch (final ApiException apiException) {
+            itemsPrinter.abort();
             outputFormatter.printApiException("Failed to list scripts", apiException);
             return false;
         }
 
-        final HivemqOpenapiScriptList scriptList = new HivemqOpenapiScriptList().items(allScripts);
-        outputFormatter.printJson(scriptList);
+        itemsPrinter.finish();
 
         return true;
     }
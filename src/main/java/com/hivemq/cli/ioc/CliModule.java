@@ -23,7 +23,9 @@ import com.hivemq.cli.DefaultCLIProperties;
 import com.hivemq.cli.commandline.CommandErrorMessageHandler;
 import com.hivemq.cli.commandline.CommandLineConfig;
 import com.hivemq.cli.commands.MqttCLICommand;
+import com.hivemq.cli.commands.cli.BenchCommand;
 import com.hivemq.cli.commands.cli.PublishCommand;
+import com.hivemq.cli.commands.cli.ReplayCommand;
 import com.hivemq.cli.commands.cli.SubscribeCommand;
 import com.hivemq.cli.commands.cli.TestBrokerCommand;
 import com.hivemq.cli.commands.shell.ShellCommand;
@@ -59,6 +61,8 @@ class CliModule {
             final @NotNull MqttCLICommand main,
             final @NotNull PublishCommand publishCommand,
             final @NotNull SubscribeCommand subscribeCommand,
+            final @NotNull ReplayCommand replayCommand,
+            final @NotNull BenchCommand benchCommand,
             final @NotNull ShellCommand shellCommand,
             final @NotNull TestBrokerCommand testBrokerCommand,
             final @NotNull @Named("hivemq-cli") CommandLine hivemqCliCommandLine,
@@ -67,6 +71,8 @@ class CliModule {
             final @NotNull CommandErrorMessageHandler handler) {
         return new CommandLine(main).addSubcommand(publishCommand)
                 .addSubcommand(subscribeCommand)
+                .addSubcommand(replayCommand)
+                .addSubcommand(benchCommand)
                 .addSubcommand(shellCommand)
                 .addSubcommand(testBrokerCommand)
                 .addSubcommand(hivemqCliCommandLine)
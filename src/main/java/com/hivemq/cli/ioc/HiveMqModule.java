@@ -27,6 +27,9 @@ import com.hivemq.cli.commands.hivemq.behaviorpolicy.BehaviorPolicyListCommand;
 import com.hivemq.cli.commands.hivemq.behaviorpolicy.BehaviorPolicyUpdateCommand;
 import com.hivemq.cli.commands.hivemq.behaviorstate.BehaviorStateCommand;
 import com.hivemq.cli.commands.hivemq.behaviorstate.BehaviorStateGetCommand;
+import com.hivemq.cli.commands.hivemq.datahub.DataHubApplyCommand;
+import com.hivemq.cli.commands.hivemq.datahub.DataHubCommand;
+import com.hivemq.cli.commands.hivemq.datahub.DataHubSyncCommand;
 import com.hivemq.cli.commands.hivemq.datapolicy.DataPolicyCreateCommand;
 import com.hivemq.cli.commands.hivemq.datapolicy.DataPolicyCommand;
 import com.hivemq.cli.commands.hivemq.datapolicy.DataPolicyDeleteCommand;
@@ -88,6 +91,9 @@ class HiveMqModule {
             final @NotNull ScriptListCommand scriptListCommand,
             final @NotNull ScriptCreateCommand scriptCreateCommand,
             final @NotNull ScriptDeleteCommand scriptDeleteCommand,
+            final @NotNull DataHubCommand dataHubCommand,
+            final @NotNull DataHubApplyCommand dataHubApplyCommand,
+            final @NotNull DataHubSyncCommand dataHubSyncCommand,
             final @NotNull CommandLineConfig config,
             final @NotNull CommandErrorMessageHandler handler) {
 
@@ -112,6 +118,8 @@ class HiveMqModule {
                 .addSubcommand(scriptListCommand)
                 .addSubcommand(scriptCreateCommand)
                 .addSubcommand(scriptDeleteCommand);
+        final CommandLine dataHubCommandLine = new CommandLine(dataHubCommand).addSubcommand(dataHubApplyCommand)
+                .addSubcommand(dataHubSyncCommand);
 
         return new CommandLine(hivemqCliCommand).addSubcommand(new CommandLine(exportCommand).addSubcommand(
                         exportClientsCommand))
@@ -120,6 +128,7 @@ class HiveMqModule {
                 .addSubcommand(behaviorStateCommandLine)
                 .addSubcommand(schemaCommandLine)
                 .addSubcommand(scriptCommandLine)
+                .addSubcommand(dataHubCommandLine)
                 .setColorScheme(config.getColorScheme())
                 .setUsageHelpWidth(config.getCliWidth())
                 .setParameterExceptionHandler(handler);
@@ -16,21 +16,29 @@
 
 package com.hivemq.cli.mqtt;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hivemq.cli.commands.options.AuthenticationOptions;
 import com.hivemq.cli.commands.options.ConnectOptions;
 import com.hivemq.cli.commands.options.ConnectRestrictionOptions;
 import com.hivemq.cli.commands.options.DisconnectOptions;
+import com.hivemq.cli.commands.options.ExecutorOptions;
 import com.hivemq.cli.commands.options.PublishOptions;
 import com.hivemq.cli.commands.options.SubscribeOptions;
 import com.hivemq.cli.commands.options.UnsubscribeOptions;
 import com.hivemq.cli.commands.options.WillOptions;
-import com.hivemq.cli.utils.IntersectionUtil;
+import com.hivemq.cli.utils.LoggerUtils;
+import com.hivemq.cli.utils.MessageRecordReader;
+import com.hivemq.cli.utils.MessageTemplate;
+import com.hivemq.cli.utils.TopicFilterTrie;
 import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.MqttClientBuilder;
-import com.hivemq.client.mqtt.MqttClientState;
+import com.hivemq.client.mqtt.MqttClientExecutorConfig;
+import com.hivemq.client.mqtt.MqttClientExecutorConfigBuilder;
+import com.hivemq.client.mqtt.MqttClientSslConfig;
 import com.hivemq.client.mqtt.MqttGlobalPublishFilter;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
-import com.hivemq.client.mqtt.datatypes.MqttSharedTopicFilter;
 import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
 import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
 import com.hivemq.client.mqtt.mqtt3.message.auth.Mqtt3SimpleAuth;
@@ -39,6 +47,9 @@ import com.hivemq.client.mqtt.mqtt3.message.connect.Mqtt3ConnectBuilder;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3PublishBuilder;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConnectionConfig;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
 import com.hivemq.client.mqtt.mqtt5.message.auth.Mqtt5SimpleAuth;
 import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5Connect;
 import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5ConnectBuilder;
@@ -47,24 +58,49 @@ import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5ConnectRestrictionsBuil
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5WillPublish;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5WillPublishBuilder;
+import io.netty.channel.epoll.Epoll;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
 import org.tinylog.Logger;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 abstract class AbstractMqttClientExecutor {
 
-    private static final @NotNull Map<ClientKey, ClientData> clientKeyToClientData = new ConcurrentHashMap<>();
+    private static final @NotNull ClientRegistry clientRegistry = new ClientRegistry();
+    private static final @NotNull Map<Integer, Scheduler> applicationSchedulers = new ConcurrentHashMap<>();
+    private static final @NotNull String NETTY_NO_NATIVE_PROPERTY = "io.netty.transport.noNative";
+    private static boolean transportSelected = false;
+    private static @Nullable Transport selectedTransport;
+
+    private static final int MAX_TOPICS_PER_PACKET = 1000;
+    // fixed header, packet identifier and property length of a SUBSCRIBE or UNSUBSCRIBE packet
+    private static final int TOPIC_BATCH_PACKET_OVERHEAD = 16;
+    private static final int MAX_MQTT_PACKET_SIZE = 268_435_460;
 
     abstract void mqtt5Connect(
             final @NotNull Mqtt5Client client, final @NotNull Mqtt5Connect connectMessage);
@@ -72,35 +108,54 @@ abstract class AbstractMqttClientExecutor {
     abstract void mqtt3Connect(
             final @NotNull Mqtt3Client client, final @NotNull Mqtt3Connect connectMessage);
 
-    abstract void mqtt5Subscribe(
+    /**
+     * Sends one SUBSCRIBE with all given topic filters.
+     *
+     * @return a future completing with the number of topic filters the broker did not accept, never exceptionally
+     */
+    abstract @NotNull CompletableFuture<Integer> mqtt5Subscribe(
             final @NotNull Mqtt5Client client,
             final @NotNull SubscribeOptions subscribeOptions,
-            final @NotNull String topic,
-            final @NotNull MqttQos qos);
+            final @NotNull List<String> topics,
+            final @NotNull List<MqttQos> qos,
+            final @Nullable SubscribePublishPipeline pipeline);
 
-    abstract void mqtt3Subscribe(
+    abstract @NotNull CompletableFuture<Integer> mqtt3Subscribe(
             final @NotNull Mqtt3Client client,
             final @NotNull SubscribeOptions subscribeOptions,
-            final @NotNull String topic,
-            final @NotNull MqttQos qos);
+            final @NotNull List<String> topics,
+            final @NotNull List<MqttQos> qos,
+            final @Nullable SubscribePublishPipeline pipeline);
 
-    abstract void mqtt5Publish(
+    abstract @NotNull CompletableFuture<?> mqtt5Publish(
             final @NotNull Mqtt5Client client,
             final @NotNull PublishOptions publishOptions,
             final @NotNull String topic,
-            final @NotNull MqttQos qos);
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload);
 
-    abstract void mqtt3Publish(
+    abstract @NotNull CompletableFuture<?> mqtt3Publish(
             final @NotNull Mqtt3Client client,
             final @NotNull PublishOptions publishOptions,
             final @NotNull String topic,
-            final @NotNull MqttQos qos);
-
-    abstract void mqtt5Unsubscribe(
-            final @NotNull Mqtt5Client client, final @NotNull UnsubscribeOptions unsubscribeOptions);
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload);
+
+    /**
+     * Sends one UNSUBSCRIBE with all given topic filters.
+     *
+     * @return a future completing with the number of topic filters the broker did not unsubscribe, never
+     *         exceptionally
+     */
+    abstract @NotNull CompletableFuture<Integer> mqtt5Unsubscribe(
+            final @NotNull Mqtt5Client client,
+            final @NotNull UnsubscribeOptions unsubscribeOptions,
+            final @NotNull List<String> topics);
 
-    abstract void mqtt3Unsubscribe(
-            final @NotNull Mqtt3Client client, final @NotNull UnsubscribeOptions unsubscribeOptions);
+    abstract @NotNull CompletableFuture<Integer> mqtt3Unsubscribe(
+            final @NotNull Mqtt3Client client,
+            final @NotNull UnsubscribeOptions unsubscribeOptions,
+            final @NotNull List<String> topics);
 
     abstract void mqtt5Disconnect(
             final @NotNull Mqtt5Client client, final @NotNull DisconnectOptions disconnectOptions);
@@ -120,105 +175,391 @@ abstract class AbstractMqttClientExecutor {
         if (isConnected(clientKey)) {
             Logger.debug("Client is already connected ({})", clientKey);
             Logger.info("Using already connected  ({})", clientKey);
-            return clientKeyToClientData.get(clientKey).getClient();
+            return Objects.requireNonNull(clientRegistry.get(clientKey)).getClient();
         }
 
+        final String identifier = connectOptions.getIdentifier();
+        final MqttClientSslConfig sslConfig = connectOptions.buildSslConfig();
         switch (connectOptions.getVersion()) {
             case MQTT_5_0:
-                return connectMqtt5Client(connectOptions, subscribeOptions);
+                return connectMqtt5Client(connectOptions, identifier, sslConfig, null, subscribeOptions);
             case MQTT_3_1_1:
-                return connectMqtt3Client(connectOptions, subscribeOptions);
+                return connectMqtt3Client(connectOptions, identifier, sslConfig, null, subscribeOptions);
             default:
                 throw new IllegalStateException("The MQTT Version specified is not supported. Version was " +
                         connectOptions.getVersion());
         }
     }
 
+    /**
+     * Connects a group of clients with the identifiers <code>&lt;group&gt;1</code> to
+     * <code>&lt;group&gt;&lt;count&gt;</code>. At most <code>parallelism</code> clients connect at the same time.
+     * <p>
+     * The TLS configuration is only built once for the whole group and all clients share the Netty event loop of the
+     * MQTT client library. Clients which fail to connect are logged and skipped.
+     *
+     * @return the connected clients of the group
+     */
+    public @NotNull List<MqttClient> connectGroup(
+            final @NotNull ConnectOptions connectOptions,
+            final @NotNull String group,
+            final int count,
+            final int parallelism) throws Exception {
+        final MqttClientSslConfig sslConfig = connectOptions.buildSslConfig();
+        final List<String> identifiers = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            identifiers.add(group + i);
+        }
+        final List<MqttClient> clients = new CopyOnWriteArrayList<>();
+        final long startNanos = System.nanoTime();
+        final int failed = runInParallel(identifiers, parallelism, identifier -> {
+            final ClientKey clientKey = ClientKey.of(identifier, connectOptions.getHost());
+            if (isConnected(clientKey)) {
+                Logger.debug("Client is already connected ({})", clientKey);
+                clients.add(Objects.requireNonNull(clientRegistry.get(clientKey)).getClient());
+                return;
+            }
+            try {
+                switch (connectOptions.getVersion()) {
+                    case MQTT_5_0:
+                        clients.add(connectMqtt5Client(connectOptions, identifier, sslConfig, group, null));
+                        break;
+                    case MQTT_3_1_1:
+                        clients.add(connectMqtt3Client(connectOptions, identifier, sslConfig, group, null));
+                        break;
+                }
+            } catch (final Exception exception) {
+                Logger.error("Client '{}' failed to connect: {}",
+                        identifier,
+                        Throwables.getRootCause(exception).getMessage());
+                Logger.trace(exception);
+                throw exception;
+            }
+        });
+        Logger.info("Connected {} clients of group '{}' ({} failed) in {} ms",
+                clients.size(),
+                group,
+                failed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return clients;
+    }
+
+    /**
+     * @return the connected clients which were connected as part of the given group
+     */
+    public @NotNull List<MqttClient> getGroupClients(final @NotNull String group) {
+        return clientsOf(clientRegistry.getByGroup(group));
+    }
+
+    /**
+     * @param host the host the clients are connected to or null for all hosts
+     * @return the clients whose identifier matches the glob pattern, e.g. <code>sensor-*</code>
+     * @see ClientRegistry#select(String, String)
+     */
+    public @NotNull List<MqttClient> selectClients(
+            final @NotNull String identifierPattern, final @Nullable String host) {
+        return clientsOf(clientRegistry.select(identifierPattern, host));
+    }
+
+    private static @NotNull List<MqttClient> clientsOf(final @NotNull List<ClientData> clientData) {
+        final List<MqttClient> clients = new ArrayList<>(clientData.size());
+        for (final ClientData data : clientData) {
+            clients.add(data.getClient());
+        }
+        return clients;
+    }
+
+    /**
+     * Runs the action for all clients, with at most <code>parallelism</code> clients at the same time. Failures are
+     * logged per client.
+     *
+     * @return the number of clients the action failed for
+     */
+    public int forEachClient(
+            final @NotNull List<MqttClient> clients,
+            final int parallelism,
+            final @NotNull String actionName,
+            final @NotNull Consumer<MqttClient> action) throws InterruptedException {
+        return runInParallel(clients, parallelism, client -> {
+            try {
+                action.accept(client);
+            } catch (final Exception exception) {
+                Logger.error("{} failed to {}: {}",
+                        LoggerUtils.getClientPrefix(client.getConfig()),
+                        actionName,
+                        Throwables.getRootCause(exception).getMessage());
+                Logger.trace(exception);
+                throw exception;
+            }
+        });
+    }
+
+    private static <T> int runInParallel(
+            final @NotNull List<T> items, final int parallelism, final @NotNull ParallelTask<T> task)
+            throws InterruptedException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1, but was " + parallelism);
+        }
+        if (items.isEmpty()) {
+            return 0;
+        }
+        final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, items.size()));
+        try {
+            final List<Future<?>> futures = new ArrayList<>(items.size());
+            for (final T item : items) {
+                futures.add(executorService.submit(() -> {
+                    task.run(item);
+                    return null;
+                }));
+            }
+            int failed = 0;
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException e) {
+                    failed++;
+                }
+            }
+            return failed;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
     public void subscribe(final @NotNull MqttClient client, final @NotNull SubscribeOptions subscribeOptions) {
-        for (int i = 0; i < subscribeOptions.getTopics().length; i++) {
-            final String topic = subscribeOptions.getTopics()[i];
-
-            // This check only works as subscribes are implemented blocking.
-            // Otherwise, we would need to check the topics before they are iterated
-            // as they are added to the client data after a successful subscribe.
-            final List<MqttTopicFilter> intersectingFilters =
-                    checkForSharedTopicDuplicate(clientKeyToClientData.get(ClientKey.of(client)).getSubscribedTopics(),
-                            topic);
-            // Client{clientIdentifier='hmq_RcrDi_18591249', hostname='broker.hivemq.com'} -> {ClientData@3806}
-            // Client{clientIdentifier='hmq_RcrDi_18591249', hostname='broker.hivemq.com'}
+        final List<String> topics = Arrays.asList(subscribeOptions.getTopics());
+        final MqttQos[] qos = subscribeOptions.getQos();
+
+        // All topics are checked before the first SUBSCRIBE is sent, so that intersections within this
+        // subscribe are found as well, since the topics are only added to the client data after their SUBACK.
+        final ClientData clientData = Objects.requireNonNull(clientRegistry.get(client));
+        final TopicFilterTrie<MqttTopicFilter> newFilters = new TopicFilterTrie<>();
+        for (final String topic : topics) {
+            final MqttTopicFilter newFilter = MqttTopicFilter.of(topic);
+            final List<MqttTopicFilter> intersectingFilters = clientData.getIntersectingSubscriptions(newFilter);
+            intersectingFilters.addAll(newFilters.getIntersecting(newFilter));
             if (!intersectingFilters.isEmpty()) {
                 Logger.warn("WARN: New subscription to '{}' intersects with already existing subscription(s) {}",
                         topic,
                         intersectingFilters);
             }
+            newFilters.add(newFilter, newFilter);
+        }
 
-            final int qosI = i < subscribeOptions.getQos().length ? i : subscribeOptions.getQos().length - 1;
-            final MqttQos qos = subscribeOptions.getQos()[qosI];
+        // all SUBSCRIBE batches of the command share one pipeline, so their messages are written in receive order
+        final SubscribePublishPipeline pipeline = acquireSubscribePipeline(clientData, subscribeOptions);
+
+        final List<CompletableFuture<Integer>> subscribeFutures = new ArrayList<>();
+        final long maximumPacketSize =
+                getMaximumPacketSize(client) - getEncodedSize(subscribeOptions.getUserProperties());
+        int batchStart = 0;
+        while (batchStart < topics.size()) {
+            final int batchEnd = getTopicBatchEnd(topics, batchStart, maximumPacketSize);
+            final List<String> batchTopics = topics.subList(batchStart, batchEnd);
+            final List<MqttQos> batchQos = new ArrayList<>(batchTopics.size());
+            for (int i = batchStart; i < batchEnd; i++) {
+                batchQos.add(qos[i < qos.length ? i : qos.length - 1]);
+            }
 
             switch (client.getConfig().getMqttVersion()) {
                 case MQTT_5_0:
-                    mqtt5Subscribe((Mqtt5Client) client, subscribeOptions, topic, qos);
+                    subscribeFutures.add(mqtt5Subscribe((Mqtt5Client) client,
+                            subscribeOptions,
+                            batchTopics,
+                            batchQos,
+                            pipeline));
                     break;
                 case MQTT_3_1_1:
-                    mqtt3Subscribe((Mqtt3Client) client, subscribeOptions, topic, qos);
+                    subscribeFutures.add(mqtt3Subscribe((Mqtt3Client) client,
+                            subscribeOptions,
+                            batchTopics,
+                            batchQos,
+                            pipeline));
+                    break;
+            }
+            batchStart = batchEnd;
+        }
+
+        final int failed = sumFailures(subscribeFutures);
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + topics.size() + " subscriptions failed");
+        }
+    }
+
+    public void publish(final @NotNull MqttClient client, final @NotNull PublishOptions publishOptions) {
+        final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
+        final String[] topics = publishOptions.getTopics();
+        final InFlightPublishes inFlightPublishes = new InFlightPublishes(client, publishOptions.getMaxInFlight());
+
+        final boolean bulk = publishOptions.isBulk();
+        final long count = getPublishCount(publishOptions);
+        final Duration duration = publishOptions.getDuration();
+        final long deadlineNanos = duration == null ? 0 : System.nanoTime() + duration.toNanos();
+        final RateLimiter rateLimiter = createPublishRateLimiter(publishOptions);
+        final boolean streaming = publishOptions.isStreaming();
+        final MessageTemplate payloadTemplate =
+                bulk && !streaming ? MessageTemplate.of(publishOptions.getMessage()) : null;
+        final MessageTemplate[] topicTemplates = bulk ? new MessageTemplate[topics.length] : null;
+        if (topicTemplates != null) {
+            for (int i = 0; i < topics.length; i++) {
+                topicTemplates[i] = MessageTemplate.of(topics[i]);
+            }
+        }
+        if (topicTemplates != null && client instanceof Mqtt5Client) {
+            logTopicAliases(clientLogPrefix, getSendTopicAliasMaximum(client), countDistinctTopics(topicTemplates));
+        }
+
+        final long startNanos = System.nanoTime();
+        long sequence = 0;
+        long failed = 0;
+        try (final MessageRecordReader recordReader = streaming ? publishOptions.openRecordReader() : null) {
+            publishLoop:
+            for (long round = 0; round < count; round++) {
+                // At most one record is read ahead of the in-flight window, so the input is streamed with backpressure
+                final ByteBuffer record = recordReader == null ? null : recordReader.next();
+                if (recordReader != null && record == null) {
                     break;
+                }
+                for (int i = 0; i < topics.length; i++) {
+                    if (duration != null && System.nanoTime() - deadlineNanos >= 0) {
+                        break publishLoop;
+                    }
+                    if (rateLimiter != null) {
+                        rateLimiter.acquire();
+                    }
+                    failed += inFlightPublishes.awaitCapacity();
+
+                    final String topic = topicTemplates == null ? topics[i] : topicTemplates[i].renderString(sequence);
+                    final ByteBuffer payload;
+                    if (record != null) {
+                        payload = record;
+                    } else if (payloadTemplate == null || payloadTemplate.isConstant()) {
+                        payload = publishOptions.getMessage();
+                    } else {
+                        payload = payloadTemplate.renderBytes(sequence);
+                    }
+                    final int qosI = i < publishOptions.getQos().length ? i : publishOptions.getQos().length - 1;
+                    final MqttQos qos = publishOptions.getQos()[qosI];
+
+                    final CompletableFuture<?> publishFuture;
+                    switch (client.getConfig().getMqttVersion()) {
+                        case MQTT_5_0:
+                            publishFuture = mqtt5Publish((Mqtt5Client) client, publishOptions, topic, qos, payload);
+                            break;
+                        case MQTT_3_1_1:
+                            publishFuture = mqtt3Publish((Mqtt3Client) client, publishOptions, topic, qos, payload);
+                            break;
+                        default:
+                            throw new IllegalStateException(
+                                    "The MQTT Version specified is not supported. Version was " +
+                                            client.getConfig().getMqttVersion());
+                    }
+                    inFlightPublishes.add(topic, publishFuture);
+                    sequence++;
+                }
             }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to read the message records", e);
+        } finally {
+            failed += inFlightPublishes.awaitAll();
+        }
+
+        if (bulk) {
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            Logger.info("{} finished {} PUBLISHes ({} failed) in {} ms ({} msg/s)",
+                    clientLogPrefix,
+                    sequence,
+                    failed,
+                    elapsedMillis,
+                    elapsedMillis == 0 ? sequence : sequence * 1000 / elapsedMillis);
         }
     }
 
-    @VisibleForTesting
-    @NotNull List<MqttTopicFilter> checkForSharedTopicDuplicate(
-            final @NotNull Set<MqttTopicFilter> subscribedFilters, final @NotNull String topic) {
-        final List<MqttTopicFilter> intersectingFilters = new ArrayList<>();
-        final MqttTopicFilter newUnidentifiedFilter = MqttTopicFilter.of(topic);
-
-        final MqttTopicFilter newFilter;
-        if (newUnidentifiedFilter.isShared()) {
-            newFilter = ((MqttSharedTopicFilter) newUnidentifiedFilter).getTopicFilter();
+    /**
+     * The MQTT 5 client replaces the topic of a publish with a topic alias on its own, once the topic was already sent
+     * on the connection, so repeated topics only take 2 bytes. It maps at most as many topics at the same time as the
+     * send topic alias maximum, which is bounded by the topic alias maximum of the broker from the CONNACK.
+     */
+    private static void logTopicAliases(
+            final @NotNull String clientLogPrefix, final int sendTopicAliasMaximum, final int distinctTopics) {
+        if (sendTopicAliasMaximum == 0) {
+            Logger.debug("{} sending full topic names, topic aliases are disabled by the client or the broker",
+                    clientLogPrefix);
+        } else if (distinctTopics > sendTopicAliasMaximum) {
+            Logger.info("{} only {} of {} topics can be sent as topic aliases at the same time, the maximum is " +
+                            "limited by --sendTopicAliasMax and the broker",
+                    clientLogPrefix,
+                    sendTopicAliasMaximum,
+                    distinctTopics);
         } else {
-            newFilter = newUnidentifiedFilter;
+            Logger.debug("{} sending repeated topics as topic aliases (maximum {})",
+                    clientLogPrefix,
+                    sendTopicAliasMaximum);
         }
+    }
 
-        for (final MqttTopicFilter subscribedFilter : subscribedFilters) {
-            final MqttTopicFilter existingFilter;
-            if (subscribedFilter.isShared()) {
-                existingFilter = ((MqttSharedTopicFilter) subscribedFilter).getTopicFilter();
-            } else {
-                existingFilter = subscribedFilter;
+    /**
+     * @return the number of distinct topics without placeholders, as a topic with placeholders may change with every
+     *         publish
+     */
+    @VisibleForTesting
+    static int countDistinctTopics(final @NotNull MessageTemplate @NotNull [] topicTemplates) {
+        final Set<String> distinctTopics = new HashSet<>();
+        for (final MessageTemplate topicTemplate : topicTemplates) {
+            if (topicTemplate.isConstant()) {
+                distinctTopics.add(topicTemplate.renderString(0));
             }
+        }
+        return distinctTopics.size();
+    }
 
-            if (IntersectionUtil.intersects(existingFilter, newFilter)) {
-                intersectingFilters.add(subscribedFilter);
+    @VisibleForTesting
+    static int getSendTopicAliasMaximum(final @NotNull MqttClient client) {
+        if (client instanceof Mqtt5Client) {
+            final Optional<Mqtt5ClientConnectionConfig> connectionConfig =
+                    ((Mqtt5Client) client).getConfig().getConnectionConfig();
+            if (connectionConfig.isPresent()) {
+                return connectionConfig.get().getRestrictionsConfig().getSendTopicAliasMaximum();
             }
         }
-        return intersectingFilters;
+        return 0;
     }
 
-    public void publish(final @NotNull MqttClient client, final @NotNull PublishOptions publishOptions) {
-        for (int i = 0; i < publishOptions.getTopics().length; i++) {
-            final String topic = publishOptions.getTopics()[i];
-            final int qosI = i < publishOptions.getQos().length ? i : publishOptions.getQos().length - 1;
-            final MqttQos qos = publishOptions.getQos()[qosI];
+    private static long getPublishCount(final @NotNull PublishOptions publishOptions) {
+        final Long count = publishOptions.getCount();
+        if (count == null) {
+            return publishOptions.getDuration() == null && !publishOptions.isStreaming() ? 1 : Long.MAX_VALUE;
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("The publish count must be at least 1, but was " + count);
+        }
+        return count;
+    }
 
-            switch (client.getConfig().getMqttVersion()) {
-                case MQTT_5_0:
-                    mqtt5Publish((Mqtt5Client) client, publishOptions, topic, qos);
-                    break;
-                case MQTT_3_1_1:
-                    mqtt3Publish((Mqtt3Client) client, publishOptions, topic, qos);
-                    break;
-            }
+    private static @Nullable RateLimiter createPublishRateLimiter(final @NotNull PublishOptions publishOptions) {
+        final Double rate = publishOptions.getRate();
+        if (rate == null) {
+            return null;
         }
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("The publish rate must be greater than 0, but was " + rate);
+        }
+        return RateLimiter.create(rate);
     }
 
     public void disconnect(final @NotNull ClientKey clientKey, final @NotNull DisconnectOptions disconnectOptions) {
-        final ClientData clientData = clientKeyToClientData.get(clientKey);
+        final ClientData clientData = clientRegistry.get(clientKey);
         if (clientData != null) {
             disconnect(clientData.getClient(), disconnectOptions);
         }
     }
 
     public void disconnect(final @NotNull MqttClient client, final @NotNull DisconnectOptions disconnectOptions) {
+        final ClientData clientData = clientRegistry.get(client);
+        if (clientData != null) {
+            // the received messages are written and acknowledged before the connection is closed
+            clientData.closeSubscribePipelines();
+        }
         switch (client.getConfig().getMqttVersion()) {
             case MQTT_5_0:
                 mqtt5Disconnect((Mqtt5Client) client, disconnectOptions);
@@ -227,12 +568,13 @@ abstract class AbstractMqttClientExecutor {
                 mqtt3Disconnect((Mqtt3Client) client, disconnectOptions);
                 break;
         }
-        clientKeyToClientData.remove(ClientKey.of(client));
+        clientRegistry.unregister(client);
     }
 
     public void disconnectAllClients(final @NotNull DisconnectOptions disconnectOptions) {
-        for (final Map.Entry<ClientKey, ClientData> entry : clientKeyToClientData.entrySet()) {
-            final MqttClient client = entry.getValue().getClient();
+        for (final ClientData clientData : clientRegistry.getAll()) {
+            clientData.closeSubscribePipelines();
+            final MqttClient client = clientData.getClient();
             switch (client.getConfig().getMqttVersion()) {
                 case MQTT_5_0:
                     mqtt5Disconnect((Mqtt5Client) client, disconnectOptions);
@@ -242,34 +584,101 @@ abstract class AbstractMqttClientExecutor {
                     break;
             }
         }
-        clientKeyToClientData.clear();
+        clientRegistry.clear();
     }
 
     public void unsubscribe(final @NotNull MqttClient client, final @NotNull UnsubscribeOptions unsubscribeOptions) {
-        switch (client.getConfig().getMqttVersion()) {
-            case MQTT_5_0:
-                mqtt5Unsubscribe((Mqtt5Client) client, unsubscribeOptions);
-                break;
-            case MQTT_3_1_1:
-                mqtt3Unsubscribe((Mqtt3Client) client, unsubscribeOptions);
+        final List<String> topics = Arrays.asList(unsubscribeOptions.getTopics());
+        final List<CompletableFuture<Integer>> unsubscribeFutures = new ArrayList<>();
+        final long maximumPacketSize =
+                getMaximumPacketSize(client) - getEncodedSize(unsubscribeOptions.getUserProperties());
+        int batchStart = 0;
+        while (batchStart < topics.size()) {
+            final int batchEnd = getTopicBatchEnd(topics, batchStart, maximumPacketSize);
+            final List<String> batchTopics = topics.subList(batchStart, batchEnd);
+
+            switch (client.getConfig().getMqttVersion()) {
+                case MQTT_5_0:
+                    unsubscribeFutures.add(mqtt5Unsubscribe((Mqtt5Client) client, unsubscribeOptions, batchTopics));
+                    break;
+                case MQTT_3_1_1:
+                    unsubscribeFutures.add(mqtt3Unsubscribe((Mqtt3Client) client, unsubscribeOptions, batchTopics));
+                    break;
+            }
+            batchStart = batchEnd;
+        }
+
+        final int failed = sumFailures(unsubscribeFutures);
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + topics.size() + " unsubscriptions failed");
+        }
+    }
+
+    /**
+     * Returns the end (exclusive) of the batch of topics starting at the given index which fits into one SUBSCRIBE
+     * or UNSUBSCRIBE packet. A batch contains at least one topic, even if the topic alone exceeds the maximum packet
+     * size, so that the client reports the error for it.
+     */
+    @VisibleForTesting
+    static int getTopicBatchEnd(
+            final @NotNull List<String> topics, final int batchStart, final long maximumPacketSize) {
+        long packetSize = TOPIC_BATCH_PACKET_OVERHEAD;
+        int batchEnd = batchStart;
+        while (batchEnd < topics.size() && batchEnd - batchStart < MAX_TOPICS_PER_PACKET) {
+            // 2 bytes length prefix + UTF-8 encoded topic filter + 1 byte subscription options
+            final long entrySize = 3 + topics.get(batchEnd).getBytes(StandardCharsets.UTF_8).length;
+            if (batchEnd > batchStart && packetSize + entrySize > maximumPacketSize) {
                 break;
+            }
+            packetSize += entrySize;
+            batchEnd++;
         }
+        return batchEnd;
+    }
 
+    private static long getMaximumPacketSize(final @NotNull MqttClient client) {
+        if (client instanceof Mqtt5Client) {
+            final Optional<Mqtt5ClientConnectionConfig> connectionConfig =
+                    ((Mqtt5Client) client).getConfig().getConnectionConfig();
+            if (connectionConfig.isPresent()) {
+                return connectionConfig.get().getRestrictionsConfig().getSendMaximumPacketSize();
+            }
+        }
+        return MAX_MQTT_PACKET_SIZE;
     }
 
-    public boolean isConnected(final @NotNull ClientKey key) {
-        if (clientKeyToClientData.containsKey(key)) {
-            final MqttClient client = clientKeyToClientData.get(key).getClient();
-            final MqttClientState state = client.getState();
-            return state.isConnected();
+    private static long getEncodedSize(final @Nullable Mqtt5UserProperties userProperties) {
+        long size = 0;
+        if (userProperties != null) {
+            for (final Mqtt5UserProperty userProperty : userProperties.asList()) {
+                // 1 byte property identifier + 2 length prefixed UTF-8 strings
+                size += 5 + userProperty.getName().toString().getBytes(StandardCharsets.UTF_8).length +
+                        userProperty.getValue().toString().getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return size;
+    }
+
+    private static int sumFailures(final @NotNull List<CompletableFuture<Integer>> futures) {
+        int failed = 0;
+        for (final CompletableFuture<Integer> future : futures) {
+            failed += future.join();
         }
-        return false;
+        return failed;
+    }
+
+    public boolean isConnected(final @NotNull ClientKey key) {
+        final ClientData clientData = clientRegistry.get(key);
+        return clientData != null && clientData.getClient().getState().isConnected();
     }
 
     private @NotNull Mqtt5Client connectMqtt5Client(
-            final @NotNull ConnectOptions connectOptions, final @Nullable SubscribeOptions subscribeOptions)
-            throws Exception {
-        final MqttClientBuilder clientBuilder = createBuilder(connectOptions);
+            final @NotNull ConnectOptions connectOptions,
+            final @Nullable String identifier,
+            final @Nullable MqttClientSslConfig sslConfig,
+            final @Nullable String group,
+            final @Nullable SubscribeOptions subscribeOptions) throws Exception {
+        final MqttClientBuilder clientBuilder = createBuilder(connectOptions, identifier, sslConfig);
         final Mqtt5Client client = clientBuilder.useMqttVersion5()
                 .advancedConfig()
                 .interceptors()
@@ -313,24 +722,32 @@ abstract class AbstractMqttClientExecutor {
         //noinspection ResultOfMethodCallIgnored
         connectBuilder.simpleAuth(buildMqtt5Authentication(connectOptions.getAuthenticationOptions()));
 
+        final ClientData clientData = new ClientData(client, group);
+
         client.toAsync()
                 .publishes(MqttGlobalPublishFilter.REMAINING,
-                        buildRemainingMqtt5PublishesCallback(subscribeOptions, client),
+                        buildRemainingMqtt5PublishesCallback(subscribeOptions, client, clientData),
                         true);
 
-        mqtt5Connect(client, connectBuilder.build());
-
-        final ClientData clientData = new ClientData(client);
+        try {
+            mqtt5Connect(client, connectBuilder.build());
+        } catch (final Exception e) {
+            clientData.closeSubscribePipelines();
+            throw e;
+        }
 
-        clientKeyToClientData.put(ClientKey.of(client), clientData);
+        clientRegistry.register(clientData);
 
         return client;
     }
 
     private @NotNull Mqtt3Client connectMqtt3Client(
-            final @NotNull ConnectOptions connectOptions, final @Nullable SubscribeOptions subscribeOptions)
-            throws Exception {
-        final MqttClientBuilder clientBuilder = createBuilder(connectOptions);
+            final @NotNull ConnectOptions connectOptions,
+            final @Nullable String identifier,
+            final @Nullable MqttClientSslConfig sslConfig,
+            final @Nullable String group,
+            final @Nullable SubscribeOptions subscribeOptions) throws Exception {
+        final MqttClientBuilder clientBuilder = createBuilder(connectOptions, identifier, sslConfig);
         final Mqtt3Client client = clientBuilder.useMqttVersion3().build();
 
         final Mqtt3Publish willPublish = createMqtt3WillPublish(connectOptions.getWillOptions());
@@ -349,16 +766,21 @@ abstract class AbstractMqttClientExecutor {
         //noinspection ResultOfMethodCallIgnored
         connectBuilder.simpleAuth(buildMqtt3Authentication(connectOptions.getAuthenticationOptions()));
 
+        final ClientData clientData = new ClientData(client, group);
+
         client.toAsync()
                 .publishes(MqttGlobalPublishFilter.REMAINING,
-                        buildRemainingMqtt3PublishesCallback(subscribeOptions, client),
+                        buildRemainingMqtt3PublishesCallback(subscribeOptions, client, clientData),
                         true);
 
-        mqtt3Connect(client, connectBuilder.build());
-
-        final ClientData clientData = new ClientData(client);
+        try {
+            mqtt3Connect(client, connectBuilder.build());
+        } catch (final Exception e) {
+            clientData.closeSubscribePipelines();
+            throw e;
+        }
 
-        clientKeyToClientData.put(ClientKey.of(client), clientData);
+        clientRegistry.register(clientData);
 
         return client;
     }
@@ -458,14 +880,70 @@ abstract class AbstractMqttClientExecutor {
         return restrictionsBuilder.build();
     }
 
-    private @NotNull MqttClientBuilder createBuilder(final @NotNull ConnectOptions connectOptions) throws Exception {
-        return MqttClient.builder()
+    private @NotNull MqttClientBuilder createBuilder(
+            final @NotNull ConnectOptions connectOptions,
+            final @Nullable String identifier,
+            final @Nullable MqttClientSslConfig sslConfig) {
+        final ExecutorOptions executorOptions = connectOptions.getExecutorOptions();
+        selectTransport(executorOptions.getTransport());
+        final MqttClientBuilder clientBuilder = MqttClient.builder()
                 .addDisconnectedListener(new ContextClientDisconnectListener())
                 .webSocketConfig(connectOptions.getWebSocketConfig())
                 .serverHost(connectOptions.getHost())
                 .serverPort(connectOptions.getPort())
-                .sslConfig(connectOptions.buildSslConfig())
-                .identifier(connectOptions.getIdentifier());
+                .sslConfig(sslConfig)
+                .identifier(identifier);
+        if (executorOptions.getNettyThreads() != null || executorOptions.getApplicationThreads() != null) {
+            final MqttClientExecutorConfigBuilder executorConfigBuilder = MqttClientExecutorConfig.builder();
+            if (executorOptions.getNettyThreads() != null) {
+                //noinspection ResultOfMethodCallIgnored
+                executorConfigBuilder.nettyThreads(executorOptions.getNettyThreads());
+            }
+            if (executorOptions.getApplicationThreads() != null) {
+                //noinspection ResultOfMethodCallIgnored
+                executorConfigBuilder.applicationScheduler(
+                        getApplicationScheduler(executorOptions.getApplicationThreads()));
+            }
+            //noinspection ResultOfMethodCallIgnored
+            clientBuilder.executorConfig(executorConfigBuilder.build());
+        }
+        return clientBuilder;
+    }
+
+    /**
+     * Selects the Netty transport before the first client is created. The MQTT client library uses epoll if it is
+     * available and Netty only checks this once, so later clients use the transport of the first one.
+     */
+    private static synchronized void selectTransport(final @Nullable Transport transport) {
+        if (transportSelected) {
+            if (transport != null && transport != selectedTransport) {
+                Logger.warn("The transport {} is ignored, as the clients of this process already use {}",
+                        transport,
+                        selectedTransport == null ? "the default transport" : selectedTransport);
+            }
+            return;
+        }
+        if (transport == Transport.NIO) {
+            System.setProperty(NETTY_NO_NATIVE_PROPERTY, "true");
+        } else if (transport == Transport.EPOLL && !Epoll.isAvailable()) {
+            throw new IllegalStateException("The epoll transport is not available", Epoll.unavailabilityCause());
+        }
+        selectedTransport = transport;
+        transportSelected = true;
+    }
+
+    /**
+     * @return a scheduler with the given number of threads which is shared by all clients, so that the number of
+     *         threads does not grow with the number of clients
+     */
+    private static @NotNull Scheduler getApplicationScheduler(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of application threads must be at least 1, but was " +
+                    threads);
+        }
+        return applicationSchedulers.computeIfAbsent(threads,
+                key -> Schedulers.from(Executors.newFixedThreadPool(threads,
+                        new ThreadFactoryBuilder().setNameFormat("mqtt-cli-application-%d").setDaemon(true).build())));
     }
 
     private @Nullable Mqtt5SimpleAuth buildMqtt5Authentication(final @NotNull AuthenticationOptions authenticationOptions) {
@@ -496,24 +974,23 @@ abstract class AbstractMqttClientExecutor {
         return null;
     }
 
-    public static @NotNull Map<ClientKey, ClientData> getClientDataMap() {
-        return clientKeyToClientData;
+    public static @NotNull ClientRegistry getClientRegistry() {
+        return clientRegistry;
     }
 
     public @Nullable MqttClient getMqttClient(final @NotNull ClientKey clientKey) {
-        MqttClient client = null;
-
-        if (clientKeyToClientData.containsKey(clientKey)) {
-            client = clientKeyToClientData.get(clientKey).getClient();
-        }
-
-        return client;
+        final ClientData clientData = clientRegistry.get(clientKey);
+        return clientData == null ? null : clientData.getClient();
     }
 
     private @NotNull Consumer<Mqtt5Publish> buildRemainingMqtt5PublishesCallback(
-            final @Nullable SubscribeOptions subscribeOptions, final @NotNull Mqtt5Client client) {
+            final @Nullable SubscribeOptions subscribeOptions,
+            final @NotNull Mqtt5Client client,
+            final @NotNull ClientData clientData) {
         if (subscribeOptions != null) {
-            return new SubscribeMqtt5PublishCallback(subscribeOptions, client);
+            return new SubscribeMqtt5PublishCallback(subscribeOptions,
+                    client,
+                    acquireSubscribePipeline(clientData, subscribeOptions));
         } else {
             return mqtt5Publish -> Logger.debug("received PUBLISH: {}, MESSAGE: '{}'",
                     mqtt5Publish,
@@ -522,9 +999,13 @@ abstract class AbstractMqttClientExecutor {
     }
 
     private @NotNull Consumer<Mqtt3Publish> buildRemainingMqtt3PublishesCallback(
-            final @Nullable SubscribeOptions subscribeOptions, final @NotNull Mqtt3Client client) {
+            final @Nullable SubscribeOptions subscribeOptions,
+            final @NotNull Mqtt3Client client,
+            final @NotNull ClientData clientData) {
         if (subscribeOptions != null) {
-            return new SubscribeMqtt3PublishCallback(subscribeOptions, client);
+            return new SubscribeMqtt3PublishCallback(subscribeOptions,
+                    client,
+                    acquireSubscribePipeline(clientData, subscribeOptions));
         } else {
             return mqtt3Publish -> Logger.debug("received PUBLISH: {}, MESSAGE: '{}'",
                     mqtt3Publish,
@@ -532,4 +1013,17 @@ abstract class AbstractMqttClientExecutor {
         }
     }
 
+    private static @Nullable SubscribePublishPipeline acquireSubscribePipeline(
+            final @NotNull ClientData clientData, final @NotNull SubscribeOptions subscribeOptions) {
+        final SubscribePublishPipeline pipeline = SubscribePublishPipeline.acquire(subscribeOptions);
+        if (pipeline != null) {
+            clientData.addSubscribePipeline(pipeline);
+        }
+        return pipeline;
+    }
+
+    private interface ParallelTask<T> {
+
+        void run(@NotNull T item) throws Exception;
+    }
 }
@@ -16,44 +16,108 @@
 
 package com.hivemq.cli.mqtt;
 
+import com.hivemq.cli.utils.TopicFilterTrie;
 import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ClientData {
 
     private final @NotNull MqttClient mqttClient;
     private final @NotNull LocalDateTime creationTime;
     private final @NotNull Set<MqttTopicFilter> subscribedTopics;
+    private final @NotNull TopicFilterTrie<MqttTopicFilter> subscribedTopicTrie;
+    private final @Nullable String group;
+    /**
+     * The pipelines of the subscribe commands of the client, guarded by this.
+     */
+    private final @NotNull Set<SubscribePublishPipeline> subscribePipelines =
+            Collections.newSetFromMap(new IdentityHashMap<>());
 
-    public ClientData(final @NotNull MqttClient mqttClient) {
+    public ClientData(final @NotNull MqttClient mqttClient, final @Nullable String group) {
         this.mqttClient = mqttClient;
         this.creationTime = LocalDateTime.now();
-        this.subscribedTopics = new HashSet<>();
+        this.subscribedTopics = ConcurrentHashMap.newKeySet();
+        this.subscribedTopicTrie = new TopicFilterTrie<>();
+        this.group = group;
     }
 
-    public void addSubscription(final @NotNull MqttTopicFilter topic) {
-        subscribedTopics.add(topic);
+    public synchronized void addSubscription(final @NotNull MqttTopicFilter topic) {
+        if (subscribedTopics.add(topic)) {
+            subscribedTopicTrie.add(topic, topic);
+        }
     }
 
-    public void removeSubscription(final @NotNull MqttTopicFilter topic) {
-        subscribedTopics.remove(topic);
+    public synchronized void removeSubscription(final @NotNull MqttTopicFilter topic) {
+        if (subscribedTopics.remove(topic)) {
+            subscribedTopicTrie.remove(topic, topic);
+        }
     }
 
-    public void removeAllSubscriptions() {
+    public synchronized void removeAllSubscriptions() {
         subscribedTopics.clear();
+        subscribedTopicTrie.clear();
+    }
+
+    /**
+     * @return the subscribed topic filters which intersect with the given topic filter, shared subscriptions are
+     *         compared by the topic filter they share
+     */
+    public synchronized @NotNull List<MqttTopicFilter> getIntersectingSubscriptions(
+            final @NotNull MqttTopicFilter topicFilter) {
+        return subscribedTopicTrie.getIntersecting(topicFilter);
+    }
+
+    /**
+     * Keeps a pipeline acquired for the client until {@link #closeSubscribePipelines()}. A pipeline is only kept once
+     * per client, so a further reference is released immediately.
+     */
+    synchronized void addSubscribePipeline(final @NotNull SubscribePublishPipeline pipeline) {
+        if (!subscribePipelines.add(pipeline)) {
+            pipeline.release();
+        }
+    }
+
+    /**
+     * Releases the pipelines of the client, which drains and closes every pipeline no other client uses anymore.
+     */
+    void closeSubscribePipelines() {
+        final List<SubscribePublishPipeline> pipelines;
+        synchronized (this) {
+            pipelines = new ArrayList<>(subscribePipelines);
+            subscribePipelines.clear();
+        }
+        for (final SubscribePublishPipeline pipeline : pipelines) {
+            pipeline.release();
+        }
     }
 
     public @NotNull LocalDateTime getCreationTime() {
         return creationTime;
     }
 
+    /**
+     * @return an unmodifiable live view of the subscribed topic filters, which can be read while subscriptions are
+     *         added or removed concurrently
+     */
     public @NotNull Set<MqttTopicFilter> getSubscribedTopics() {
-        return subscribedTopics;
+        return Collections.unmodifiableSet(subscribedTopics);
+    }
+
+    /**
+     * @return the group the client was connected with or null if it was connected on its own
+     */
+    public @Nullable String getGroup() {
+        return group;
     }
 
     public @NotNull MqttClient getClient() {
@@ -16,6 +16,8 @@
 
 package com.hivemq.cli.mqtt;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.MqttClientConfig;
 import org.jetbrains.annotations.NotNull;
@@ -23,28 +25,42 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
 
+/**
+ * Identifies a client by its identifier and the host it is connected to. Keys are interned, so equal keys are
+ * usually the same instance.
+ */
 public class ClientKey {
 
+    private static final @NotNull Interner<ClientKey> INTERNER = Interners.newWeakInterner();
+
     private final @Nullable String clientIdentifier;
     private final @NotNull String hostname;
+    private final int hashCode;
 
     private ClientKey(final @Nullable String clientIdentifier, final @NotNull String hostname) {
         this.clientIdentifier = clientIdentifier;
         this.hostname = hostname;
+        this.hashCode = Objects.hash(clientIdentifier, hostname);
+    }
+
+    public static @NotNull ClientKey of(final @Nullable String clientIdentifier, final @NotNull String hostname) {
+        return INTERNER.intern(new ClientKey(clientIdentifier, hostname));
+    }
+
+    public static @NotNull ClientKey of(final @NotNull MqttClient client) {
+        return of(client.getConfig());
     }
 
-    public static ClientKey of(final @Nullable String clientIdentifier, final @NotNull String hostname) {
-        return new ClientKey(clientIdentifier, hostname);
+    public static @NotNull ClientKey of(final @NotNull MqttClientConfig clientConfig) {
+        return of(clientConfig.getClientIdentifier().map(Objects::toString).orElse(""), clientConfig.getServerHost());
     }
 
-    public static ClientKey of(final @NotNull MqttClient client) {
-        return new ClientKey(client.getConfig().getClientIdentifier().map(Objects::toString).orElse(""),
-                client.getConfig().getServerHost());
+    public @Nullable String getClientIdentifier() {
+        return clientIdentifier;
     }
 
-    public static ClientKey of(final @NotNull MqttClientConfig clientConfig) {
-        return new ClientKey(clientConfig.getClientIdentifier().map(Objects::toString).orElse(""),
-                clientConfig.getServerHost());
+    public @NotNull String getHostname() {
+        return hostname;
     }
 
     @Override
@@ -56,12 +72,14 @@ public class ClientKey {
             return false;
         }
         final ClientKey clientKey = (ClientKey) o;
-        return Objects.equals(clientIdentifier, clientKey.clientIdentifier) && hostname.equals(clientKey.hostname);
+        return hashCode == clientKey.hashCode &&
+                Objects.equals(clientIdentifier, clientKey.clientIdentifier) &&
+                hostname.equals(clientKey.hostname);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(clientIdentifier, hostname);
+        return hashCode;
     }
 
     @Override
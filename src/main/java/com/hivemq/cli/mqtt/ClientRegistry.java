@@ -0,0 +1,250 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.client.mqtt.MqttClient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * The clients of this process, indexed by their key, the client object, the host, the group they were connected with
+ * and their identifier in sorted order, so that a client or a selection of clients is found without iterating over
+ * all clients.
+ * <p>
+ * Lookups and selections are lock free and can run concurrently with registrations. Registrations and removals are
+ * serialized, so that all indexes stay consistent.
+ */
+public class ClientRegistry {
+
+    private static final @NotNull Comparator<ClientKey> IDENTIFIER_ORDER =
+            Comparator.comparing((ClientKey key) -> Objects.requireNonNullElse(key.getClientIdentifier(), ""))
+                    .thenComparing(ClientKey::getHostname);
+
+    private final @NotNull Map<ClientKey, ClientData> byKey = new ConcurrentHashMap<>();
+    private final @NotNull Map<MqttClient, ClientData> byClient = new ConcurrentHashMap<>();
+    private final @NotNull ConcurrentSkipListMap<ClientKey, ClientData> byIdentifier =
+            new ConcurrentSkipListMap<>(IDENTIFIER_ORDER);
+    private final @NotNull Map<String, Set<ClientData>> byHost = new ConcurrentHashMap<>();
+    private final @NotNull Map<String, Set<ClientData>> byGroup = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the client, replacing a client with the same identifier and host.
+     */
+    public synchronized void register(final @NotNull ClientData clientData) {
+        final ClientKey clientKey = ClientKey.of(clientData.getClient());
+        final ClientData previous = byKey.put(clientKey, clientData);
+        if (previous != null) {
+            removeFromIndexes(clientKey, previous);
+        }
+        byClient.put(clientData.getClient(), clientData);
+        byIdentifier.put(clientKey, clientData);
+        addToIndex(byHost, clientKey.getHostname(), clientData);
+        if (clientData.getGroup() != null) {
+            addToIndex(byGroup, clientData.getGroup(), clientData);
+        }
+    }
+
+    /**
+     * @return the removed client or null if no client was registered with the key
+     */
+    public synchronized @Nullable ClientData unregister(final @NotNull ClientKey clientKey) {
+        final ClientData clientData = byKey.remove(clientKey);
+        if (clientData != null) {
+            removeFromIndexes(clientKey, clientData);
+        }
+        return clientData;
+    }
+
+    public @Nullable ClientData unregister(final @NotNull MqttClient client) {
+        return unregister(ClientKey.of(client));
+    }
+
+    public synchronized void clear() {
+        byKey.clear();
+        byClient.clear();
+        byIdentifier.clear();
+        byHost.clear();
+        byGroup.clear();
+    }
+
+    public @Nullable ClientData get(final @NotNull ClientKey clientKey) {
+        return byKey.get(clientKey);
+    }
+
+    /**
+     * Looks up the client by identity first, which does not need to build its key.
+     */
+    public @Nullable ClientData get(final @NotNull MqttClient client) {
+        final ClientData clientData = byClient.get(client);
+        if (clientData != null) {
+            return clientData;
+        }
+        return byKey.get(ClientKey.of(client));
+    }
+
+    public boolean contains(final @NotNull ClientKey clientKey) {
+        return byKey.containsKey(clientKey);
+    }
+
+    /**
+     * @return a live view of all clients, sorted by their identifier and host
+     */
+    public @NotNull Collection<ClientData> getAll() {
+        return Collections.unmodifiableCollection(byIdentifier.values());
+    }
+
+    public @NotNull List<ClientData> getByHost(final @NotNull String host) {
+        return copyOf(byHost.get(host));
+    }
+
+    public @NotNull List<ClientData> getByGroup(final @NotNull String group) {
+        return copyOf(byGroup.get(group));
+    }
+
+    /**
+     * @return the clients whose identifier starts with the prefix, sorted by their identifier and host
+     */
+    public @NotNull List<ClientData> getByIdentifierPrefix(final @NotNull String prefix) {
+        return select(prefix, null, null);
+    }
+
+    /**
+     * Selects the clients whose identifier matches a glob pattern, where <code>*</code> matches any number of
+     * characters and <code>?</code> matches a single character, e.g. <code>sensor-*</code>. Only the clients with the
+     * literal prefix of the pattern are compared with it.
+     *
+     * @param host the host the clients are connected to or null for all hosts
+     * @return the matching clients, sorted by their identifier and host
+     */
+    public @NotNull List<ClientData> select(final @NotNull String identifierPattern, final @Nullable String host) {
+        final int wildcardIndex = indexOfWildcard(identifierPattern);
+        if (wildcardIndex != -1) {
+            return select(identifierPattern.substring(0, wildcardIndex), toRegex(identifierPattern), host);
+        }
+        if (host == null) {
+            return select(identifierPattern, Pattern.compile(Pattern.quote(identifierPattern)), null);
+        }
+        final ClientData clientData = byKey.get(ClientKey.of(identifierPattern, host));
+        return clientData == null ? new ArrayList<>() : new ArrayList<>(List.of(clientData));
+    }
+
+    private @NotNull List<ClientData> select(
+            final @NotNull String prefix, final @Nullable Pattern pattern, final @Nullable String host) {
+        final List<ClientData> clients = new ArrayList<>();
+        for (final Map.Entry<ClientKey, ClientData> entry : byIdentifier.tailMap(ClientKey.of(prefix, ""))
+                .entrySet()) {
+            final ClientKey clientKey = entry.getKey();
+            final String identifier = Objects.requireNonNullElse(clientKey.getClientIdentifier(), "");
+            if (!identifier.startsWith(prefix)) {
+                break;
+            }
+            if ((pattern == null || pattern.matcher(identifier).matches()) &&
+                    (host == null || host.equals(clientKey.getHostname()))) {
+                clients.add(entry.getValue());
+            }
+        }
+        return clients;
+    }
+
+    public int size() {
+        return byKey.size();
+    }
+
+    public boolean isEmpty() {
+        return byKey.isEmpty();
+    }
+
+    /**
+     * @return true if the identifier contains a wildcard of a glob pattern
+     */
+    public static boolean isPattern(final @NotNull String identifier) {
+        return indexOfWildcard(identifier) != -1;
+    }
+
+    private void removeFromIndexes(final @NotNull ClientKey clientKey, final @NotNull ClientData clientData) {
+        byClient.remove(clientData.getClient(), clientData);
+        byIdentifier.remove(clientKey, clientData);
+        removeFromIndex(byHost, clientKey.getHostname(), clientData);
+        if (clientData.getGroup() != null) {
+            removeFromIndex(byGroup, clientData.getGroup(), clientData);
+        }
+    }
+
+    private static void addToIndex(
+            final @NotNull Map<String, Set<ClientData>> index,
+            final @NotNull String key,
+            final @NotNull ClientData clientData) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(clientData);
+    }
+
+    private static void removeFromIndex(
+            final @NotNull Map<String, Set<ClientData>> index,
+            final @NotNull String key,
+            final @NotNull ClientData clientData) {
+        final Set<ClientData> clients = index.get(key);
+        if (clients != null && clients.remove(clientData) && clients.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static @NotNull List<ClientData> copyOf(final @Nullable Set<ClientData> clients) {
+        return clients == null ? new ArrayList<>() : new ArrayList<>(clients);
+    }
+
+    private static int indexOfWildcard(final @NotNull String identifierPattern) {
+        for (int i = 0; i < identifierPattern.length(); i++) {
+            final char c = identifierPattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static @NotNull Pattern toRegex(final @NotNull String identifierPattern) {
+        final StringBuilder regex = new StringBuilder();
+        final StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < identifierPattern.length(); i++) {
+            final char c = identifierPattern.charAt(i);
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
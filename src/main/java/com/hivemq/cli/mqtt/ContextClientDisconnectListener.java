@@ -20,6 +20,7 @@ import com.google.common.base.Throwables;
 import com.hivemq.cli.commands.shell.ShellCommand;
 import com.hivemq.cli.commands.shell.ShellContextCommand;
 import com.hivemq.cli.utils.LoggerUtils;
+import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.MqttClientConfig;
 import com.hivemq.client.mqtt.lifecycle.MqttClientDisconnectedContext;
 import com.hivemq.client.mqtt.lifecycle.MqttClientDisconnectedListener;
@@ -28,6 +29,7 @@ import org.jetbrains.annotations.NotNull;
 import org.tinylog.Logger;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 public class ContextClientDisconnectListener implements MqttClientDisconnectedListener {
 
@@ -51,13 +53,21 @@ public class ContextClientDisconnectListener implements MqttClientDisconnectedLi
         } else if (contextEqualsShellContext(context)) {
             ShellContextCommand.removeContext();
         }
-        MqttClientExecutor.getClientDataMap().remove(ClientKey.of(context.getClientConfig()));
+        final ClientData clientData =
+                MqttClientExecutor.getClientRegistry().unregister(ClientKey.of(context.getClientConfig()));
+        if (clientData != null) {
+            // not on the client thread, as closing waits for the messages which are still being written
+            CompletableFuture.runAsync(clientData::closeSubscribePipelines);
+        }
     }
 
     private boolean contextEqualsShellContext(final @NotNull MqttClientDisconnectedContext context) {
+        final MqttClient shellClient = ShellContextCommand.contextClient;
+        if (shellClient == null) {
+            return false;
+        }
         final MqttClientConfig clientConfig = context.getClientConfig();
-        final MqttClientConfig shellClientConfig =
-                Objects.requireNonNull(ShellContextCommand.contextClient).getConfig();
+        final MqttClientConfig shellClientConfig = shellClient.getConfig();
 
         return clientConfig.getClientIdentifier().equals(shellClientConfig.getClientIdentifier()) &&
                 clientConfig.getServerHost().equals(shellClientConfig.getServerHost());
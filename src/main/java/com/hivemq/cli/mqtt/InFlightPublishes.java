@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.google.common.base.Throwables;
+import com.hivemq.cli.utils.LoggerUtils;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConnectionConfig;
+import org.jetbrains.annotations.NotNull;
+import org.tinylog.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The publishes of a connection which were sent but whose results were not yet reported, bounded by an in-flight
+ * window, so that publishes are pipelined without waiting for every acknowledgement while memory stays bounded.
+ * <p>
+ * Results are reported in the order of the publishes, regardless of the order the acknowledgements arrive in.
+ * <p>
+ * This class is not thread safe.
+ */
+public class InFlightPublishes {
+
+    private final @NotNull String clientLogPrefix;
+    private final int window;
+    private final @NotNull ArrayDeque<PendingPublish> pendingPublishes;
+
+    public InFlightPublishes(final @NotNull MqttClient client, final int maxInFlight) {
+        clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
+        window = getWindow(client, maxInFlight);
+        pendingPublishes = new ArrayDeque<>(window);
+    }
+
+    /**
+     * @return the maximum number of in-flight publishes, bounded by the send maximum of an MQTT 5 connection
+     */
+    public static int getWindow(final @NotNull MqttClient client, final int maxInFlight) {
+        int window = maxInFlight;
+        if (client instanceof Mqtt5Client) {
+            // The send maximum of an established connection is already bounded by the receive maximum of the broker
+            final Optional<Mqtt5ClientConnectionConfig> connectionConfig =
+                    ((Mqtt5Client) client).getConfig().getConnectionConfig();
+            if (connectionConfig.isPresent()) {
+                window = Math.min(window, connectionConfig.get().getRestrictionsConfig().getSendMaximum());
+            }
+        }
+        return Math.max(1, window);
+    }
+
+    /**
+     * Waits for the results of the oldest publishes until another publish fits into the window.
+     *
+     * @return the number of failed publishes
+     */
+    public int awaitCapacity() {
+        int failed = 0;
+        while (pendingPublishes.size() >= window) {
+            failed += report(pendingPublishes.removeFirst());
+        }
+        return failed;
+    }
+
+    /**
+     * Waits for the results of all publishes.
+     *
+     * @return the number of failed publishes
+     */
+    public int awaitAll() {
+        int failed = 0;
+        while (!pendingPublishes.isEmpty()) {
+            failed += report(pendingPublishes.removeFirst());
+        }
+        return failed;
+    }
+
+    public void add(final @NotNull String topic, final @NotNull CompletableFuture<?> future) {
+        add(topic, future, true);
+    }
+
+    /**
+     * @param counted false if a failure of the publish is only logged, but not counted, e.g. during a warmup
+     */
+    public void add(final @NotNull String topic, final @NotNull CompletableFuture<?> future, final boolean counted) {
+        pendingPublishes.addLast(new PendingPublish(topic, future, counted));
+    }
+
+    public int size() {
+        return pendingPublishes.size();
+    }
+
+    private int report(final @NotNull PendingPublish pendingPublish) {
+        try {
+            final Object publishResult = pendingPublish.future.join();
+            Logger.debug("{} finish PUBLISH\n    {}", clientLogPrefix, publishResult);
+            return 0;
+        } catch (final CompletionException | CancellationException exception) {
+            Logger.error("{} failed PUBLISH to TOPIC '{}': {}",
+                    clientLogPrefix,
+                    pendingPublish.topic,
+                    Throwables.getRootCause(exception).getMessage());
+            Logger.trace(exception);
+            return pendingPublish.counted ? 1 : 0;
+        }
+    }
+
+    private static class PendingPublish {
+
+        private final @NotNull String topic;
+        private final @NotNull CompletableFuture<?> future;
+        private final boolean counted;
+
+        private PendingPublish(
+                final @NotNull String topic, final @NotNull CompletableFuture<?> future, final boolean counted) {
+            this.topic = topic;
+            this.future = future;
+            this.counted = counted;
+        }
+    }
+}
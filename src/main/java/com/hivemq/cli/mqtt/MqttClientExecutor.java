@@ -32,7 +32,9 @@ import com.hivemq.client.mqtt.mqtt3.message.connect.connack.Mqtt3ConnAck;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3PublishBuilder;
 import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3Subscribe;
-import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3SubscribeBuilder;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3Subscription;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.suback.Mqtt3SubAck;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.suback.Mqtt3SubAckReturnCode;
 import com.hivemq.client.mqtt.mqtt3.message.unsubscribe.Mqtt3Unsubscribe;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
 import com.hivemq.client.mqtt.mqtt5.exceptions.Mqtt5ConnAckException;
@@ -46,14 +48,23 @@ import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishBuilder;
 import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5Subscribe;
 import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5SubscribeBuilder;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5Subscription;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.suback.Mqtt5SubAck;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.suback.Mqtt5SubAckReasonCode;
 import com.hivemq.client.mqtt.mqtt5.message.unsubscribe.Mqtt5Unsubscribe;
+import com.hivemq.client.mqtt.mqtt5.message.unsubscribe.unsuback.Mqtt5UnsubAck;
+import com.hivemq.client.mqtt.mqtt5.message.unsubscribe.unsuback.Mqtt5UnsubAckReasonCode;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Singleton
 public class MqttClientExecutor extends AbstractMqttClientExecutor {
@@ -95,13 +106,18 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
         Logger.debug("{} received CONNACK\n    {}", clientLogPrefix, connAck);
     }
 
-    void mqtt5Subscribe(
+    @NotNull CompletableFuture<Integer> mqtt5Subscribe(
             final @NotNull Mqtt5Client client,
             final @NotNull SubscribeOptions subscribeOptions,
-            final @NotNull String topic,
-            final @NotNull MqttQos qos) {
+            final @NotNull List<String> topics,
+            final @NotNull List<MqttQos> qos,
+            final @Nullable SubscribePublishPipeline pipeline) {
         final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
-        final Mqtt5SubscribeBuilder.Start.Complete builder = Mqtt5Subscribe.builder().topicFilter(topic).qos(qos);
+        final List<Mqtt5Subscription> subscriptions = new ArrayList<>(topics.size());
+        for (int i = 0; i < topics.size(); i++) {
+            subscriptions.add(Mqtt5Subscription.builder().topicFilter(topics.get(i)).qos(qos.get(i)).build());
+        }
+        final Mqtt5SubscribeBuilder.Complete builder = Mqtt5Subscribe.builder().addSubscriptions(subscriptions);
 
         if (subscribeOptions.getUserProperties() != null) {
             //noinspection ResultOfMethodCallIgnored
@@ -112,74 +128,105 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
 
         Logger.debug("{} sending SUBSCRIBE\n    {}", clientLogPrefix, subscribeMessage);
 
-        client.toAsync()
-                .subscribe(subscribeMessage, new SubscribeMqtt5PublishCallback(subscribeOptions, client), true)
-                .whenComplete((subAck, throwable) -> {
+        return client.toAsync()
+                .subscribe(subscribeMessage,
+                        new SubscribeMqtt5PublishCallback(subscribeOptions, client, pipeline),
+                        true)
+                .handle((subAck, throwable) -> {
+                    final List<Mqtt5SubAckReasonCode> reasonCodes;
                     if (throwable != null) {
-                        if (throwable instanceof Mqtt5SubAckException) {
-                            Logger.debug("{} received SUBACK\n    {}",
-                                    clientLogPrefix,
-                                    ((Mqtt5SubAckException) throwable).getMqttMessage());
+                        if (!(throwable instanceof Mqtt5SubAckException)) {
+                            return logFailedTopics(clientLogPrefix, "SUBSCRIBE to", topics, throwable);
                         }
-                        Logger.error("{} failed SUBSCRIBE to TOPIC '{}': {}",
-                                clientLogPrefix,
-                                topic,
-                                Throwables.getRootCause(throwable).getMessage());
+                        final Mqtt5SubAck failedSubAck = ((Mqtt5SubAckException) throwable).getMqttMessage();
+                        Logger.debug("{} received SUBACK\n    {}", clientLogPrefix, failedSubAck);
                         Logger.trace(throwable);
+                        reasonCodes = failedSubAck.getReasonCodes();
                     } else {
-                        final ClientKey clientKey = ClientKey.of(client);
-                        getClientDataMap().get(clientKey).addSubscription(MqttTopicFilter.of(topic));
                         Logger.debug("{} received SUBACK\n    {}", clientLogPrefix, subAck);
+                        reasonCodes = subAck.getReasonCodes();
+                    }
+
+                    final ClientData clientData = getClientRegistry().get(client);
+                    int failed = 0;
+                    for (int i = 0; i < topics.size(); i++) {
+                        if (reasonCodes.get(i).isError()) {
+                            Logger.error("{} failed SUBSCRIBE to TOPIC '{}': {}",
+                                    clientLogPrefix,
+                                    topics.get(i),
+                                    reasonCodes.get(i));
+                            failed++;
+                        } else {
+                            clientData.addSubscription(MqttTopicFilter.of(topics.get(i)));
+                        }
                     }
-                })
-                .join();
+                    return failed;
+                });
     }
 
-    void mqtt3Subscribe(
+    @NotNull CompletableFuture<Integer> mqtt3Subscribe(
             final @NotNull Mqtt3Client client,
             final @NotNull SubscribeOptions subscribeOptions,
-            final @NotNull String topic,
-            final @NotNull MqttQos qos) {
+            final @NotNull List<String> topics,
+            final @NotNull List<MqttQos> qos,
+            final @Nullable SubscribePublishPipeline pipeline) {
         final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
-        final Mqtt3SubscribeBuilder.Start.Complete builder = Mqtt3Subscribe.builder().topicFilter(topic).qos(qos);
-        final Mqtt3Subscribe subscribeMessage = builder.build();
+        final List<Mqtt3Subscription> subscriptions = new ArrayList<>(topics.size());
+        for (int i = 0; i < topics.size(); i++) {
+            subscriptions.add(Mqtt3Subscription.builder().topicFilter(topics.get(i)).qos(qos.get(i)).build());
+        }
+        final Mqtt3Subscribe subscribeMessage = Mqtt3Subscribe.builder().addSubscriptions(subscriptions).build();
 
         Logger.debug("{} sending SUBSCRIBE\n    {}", clientLogPrefix, subscribeMessage);
 
-        client.toAsync()
-                .subscribe(subscribeMessage, new SubscribeMqtt3PublishCallback(subscribeOptions, client), true)
-                .whenComplete((subAck, throwable) -> {
+        return client.toAsync()
+                .subscribe(subscribeMessage,
+                        new SubscribeMqtt3PublishCallback(subscribeOptions, client, pipeline),
+                        true)
+                .handle((subAck, throwable) -> {
+                    final List<Mqtt3SubAckReturnCode> returnCodes;
                     if (throwable != null) {
-                        if (throwable instanceof Mqtt3SubAckException) {
-                            Logger.debug("{} received SUBACK\n    {}",
-                                    clientLogPrefix,
-                                    ((Mqtt3SubAckException) throwable).getMqttMessage());
+                        if (!(throwable instanceof Mqtt3SubAckException)) {
+                            return logFailedTopics(clientLogPrefix, "SUBSCRIBE to", topics, throwable);
                         }
-                        Logger.error("{} failed SUBSCRIBE to TOPIC '{}': {}",
-                                clientLogPrefix,
-                                topic,
-                                Throwables.getRootCause(throwable).getMessage());
+                        final Mqtt3SubAck failedSubAck = ((Mqtt3SubAckException) throwable).getMqttMessage();
+                        Logger.debug("{} received SUBACK\n    {}", clientLogPrefix, failedSubAck);
                         Logger.trace(throwable);
+                        returnCodes = failedSubAck.getReturnCodes();
                     } else {
-                        getClientDataMap().get(ClientKey.of(client)).addSubscription(MqttTopicFilter.of(topic));
-
                         Logger.debug("{} received SUBACK\n    {}", clientLogPrefix, subAck);
+                        returnCodes = subAck.getReturnCodes();
                     }
-                })
-                .join();
+
+                    final ClientData clientData = getClientRegistry().get(client);
+                    int failed = 0;
+                    for (int i = 0; i < topics.size(); i++) {
+                        if (returnCodes.get(i).isError()) {
+                            Logger.error("{} failed SUBSCRIBE to TOPIC '{}': {}",
+                                    clientLogPrefix,
+                                    topics.get(i),
+                                    returnCodes.get(i));
+                            failed++;
+                        } else {
+                            clientData.addSubscription(MqttTopicFilter.of(topics.get(i)));
+                        }
+                    }
+                    return failed;
+                });
     }
 
-    void mqtt5Publish(
+    @NotNull CompletableFuture<?> mqtt5Publish(
             final @NotNull Mqtt5Client client,
             final @NotNull PublishOptions publishOptions,
             final @NotNull String topic,
-            final @NotNull MqttQos qos) {
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload) {
         final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
 
         final Mqtt5PublishBuilder.Complete publishBuilder = Mqtt5Publish.builder()
                 .topic(topic)
                 .qos(qos)
-                .payload(publishOptions.getMessage())
+                .payload(payload)
                 .payloadFormatIndicator(publishOptions.getPayloadFormatIndicator())
                 .contentType(publishOptions.getContentType())
                 .responseTopic(publishOptions.getResponseTopic())
@@ -200,33 +247,23 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
 
         final Mqtt5Publish publishMessage = publishBuilder.build();
 
-        Logger.debug("{} sending PUBLISH ('{}')\n    {}",
-                clientLogPrefix,
-                bufferToString(publishOptions.getMessage()),
-                publishMessage);
+        if (Logger.isDebugEnabled()) {
+            Logger.debug("{} sending PUBLISH ('{}')\n    {}", clientLogPrefix, bufferToString(payload), publishMessage);
+        }
 
-        client.toAsync().publish(publishMessage).whenComplete((publishResult, throwable) -> {
-            if (throwable != null) {
-                Logger.error("{} failed PUBLISH to TOPIC '{}': {}",
-                        clientLogPrefix,
-                        topic,
-                        Throwables.getRootCause(throwable).getMessage());
-                Logger.trace(throwable);
-            } else {
-                Logger.debug("{} finish PUBLISH\n    {}", clientLogPrefix, publishResult);
-            }
-        }).join();
+        return client.toAsync().publish(publishMessage);
     }
 
-    void mqtt3Publish(
+    @NotNull CompletableFuture<?> mqtt3Publish(
             final @NotNull Mqtt3Client client,
             final @NotNull PublishOptions publishOptions,
             final @NotNull String topic,
-            final @NotNull MqttQos qos) {
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload) {
         final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
 
         final Mqtt3PublishBuilder.Complete publishBuilder =
-                Mqtt3Publish.builder().topic(topic).qos(qos).payload(publishOptions.getMessage());
+                Mqtt3Publish.builder().topic(topic).qos(qos).payload(payload);
 
         if (publishOptions.getRetain() != null) {
             //noinspection ResultOfMethodCallIgnored
@@ -235,77 +272,88 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
 
         final Mqtt3Publish publishMessage = publishBuilder.build();
 
-        Logger.debug("{} sending PUBLISH ('{}')\n    {}",
-                clientLogPrefix,
-                bufferToString(publishOptions.getMessage()),
-                publishMessage);
+        if (Logger.isDebugEnabled()) {
+            Logger.debug("{} sending PUBLISH ('{}')\n    {}", clientLogPrefix, bufferToString(payload), publishMessage);
+        }
 
-        client.toAsync().publish(publishMessage).whenComplete((publishResult, throwable) -> {
-            if (throwable != null) {
-                Logger.error("{} failed PUBLISH to TOPIC '{}': {}",
-                        clientLogPrefix,
-                        topic,
-                        Throwables.getRootCause(throwable).getMessage());
-                Logger.trace(throwable);
-            } else {
-                Logger.debug("{} finish PUBLISH\n    {}", clientLogPrefix, publishResult);
-            }
-        }).join();
+        return client.toAsync().publish(publishMessage);
     }
 
     @Override
-    void mqtt5Unsubscribe(final @NotNull Mqtt5Client client, final @NotNull UnsubscribeOptions unsubscribeOptions) {
+    @NotNull CompletableFuture<Integer> mqtt5Unsubscribe(
+            final @NotNull Mqtt5Client client,
+            final @NotNull UnsubscribeOptions unsubscribeOptions,
+            final @NotNull List<String> topics) {
         final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
+        final List<MqttTopicFilter> topicFilters = new ArrayList<>(topics.size());
+        for (final String topic : topics) {
+            topicFilters.add(MqttTopicFilter.of(topic));
+        }
+        final Mqtt5Unsubscribe unsubscribeMessage = Mqtt5Unsubscribe.builder()
+                .addTopicFilters(topicFilters)
+                .userProperties(unsubscribeOptions.getUserProperties())
+                .build();
 
-        for (final String topic : unsubscribeOptions.getTopics()) {
-            final Mqtt5Unsubscribe unsubscribeMessage = Mqtt5Unsubscribe.builder()
-                    .topicFilter(topic)
-                    .userProperties(unsubscribeOptions.getUserProperties())
-                    .build();
+        Logger.debug("{} sending UNSUBSCRIBE\n    {}", clientLogPrefix, unsubscribeMessage);
 
-            Logger.debug("{} sending UNSUBSCRIBE\n    {}", clientLogPrefix, unsubscribeMessage);
+        return client.toAsync().unsubscribe(unsubscribeMessage).handle((unsubAck, throwable) -> {
+            final List<Mqtt5UnsubAckReasonCode> reasonCodes;
+            if (throwable != null) {
+                if (!(throwable instanceof Mqtt5UnsubAckException)) {
+                    return logFailedTopics(clientLogPrefix, "UNSUBSCRIBE from", topics, throwable);
+                }
+                final Mqtt5UnsubAck failedUnsubAck = ((Mqtt5UnsubAckException) throwable).getMqttMessage();
+                Logger.debug("{} received UNSUBACK\n    {}", clientLogPrefix, failedUnsubAck);
+                Logger.trace(throwable);
+                reasonCodes = failedUnsubAck.getReasonCodes();
+            } else {
+                Logger.debug("{} received UNSUBACK\n    {}", clientLogPrefix, unsubAck);
+                reasonCodes = unsubAck.getReasonCodes();
+            }
 
-            client.toAsync().unsubscribe(unsubscribeMessage).whenComplete((unsubAck, throwable) -> {
-                if (throwable != null) {
+            final ClientData clientData = getClientRegistry().get(client);
+            int failed = 0;
+            for (int i = 0; i < topics.size(); i++) {
+                if (reasonCodes.get(i).isError()) {
                     Logger.error("{} failed UNSUBSCRIBE from TOPIC '{}': {}",
                             clientLogPrefix,
-                            topic,
-                            Throwables.getRootCause(throwable).getMessage());
-                    if (throwable instanceof Mqtt5UnsubAckException) {
-                        Logger.debug(((Mqtt5UnsubAckException) throwable).getMqttMessage());
-                    }
-                    Logger.trace(throwable);
+                            topics.get(i),
+                            reasonCodes.get(i));
+                    failed++;
                 } else {
-                    getClientDataMap().get(ClientKey.of(client)).removeSubscription(MqttTopicFilter.of(topic));
-
-                    Logger.debug("{} received UNSUBACK\n    {}", clientLogPrefix, unsubAck);
+                    clientData.removeSubscription(topicFilters.get(i));
                 }
-            }).join();
-        }
+            }
+            return failed;
+        });
     }
 
     @Override
-    void mqtt3Unsubscribe(final @NotNull Mqtt3Client client, final @NotNull UnsubscribeOptions unsubscribeOptions) {
+    @NotNull CompletableFuture<Integer> mqtt3Unsubscribe(
+            final @NotNull Mqtt3Client client,
+            final @NotNull UnsubscribeOptions unsubscribeOptions,
+            final @NotNull List<String> topics) {
         final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
+        final List<MqttTopicFilter> topicFilters = new ArrayList<>(topics.size());
+        for (final String topic : topics) {
+            topicFilters.add(MqttTopicFilter.of(topic));
+        }
+        final Mqtt3Unsubscribe unsubscribeMessage = Mqtt3Unsubscribe.builder().addTopicFilters(topicFilters).build();
 
-        for (final String topic : unsubscribeOptions.getTopics()) {
-            final Mqtt3Unsubscribe unsubscribeMessage = Mqtt3Unsubscribe.builder().topicFilter(topic).build();
-
-            Logger.debug("{} sending UNSUBSCRIBE\n    {}", clientLogPrefix, unsubscribeMessage);
+        Logger.debug("{} sending UNSUBSCRIBE\n    {}", clientLogPrefix, unsubscribeMessage);
 
-            client.toAsync().unsubscribe(unsubscribeMessage).whenComplete((unsubAck, throwable) -> {
-                if (throwable != null) {
-                    Logger.error("{} failed UNSUBSCRIBE from TOPIC '{}': {}",
-                            clientLogPrefix,
-                            topic,
-                            Throwables.getRootCause(throwable).getMessage());
-                    Logger.trace(throwable);
-                } else {
-                    getClientDataMap().get(ClientKey.of(client)).removeSubscription(MqttTopicFilter.of(topic));
-                    Logger.debug("{} received UNSUBACK\n    {}", clientLogPrefix, unsubAck);
-                }
-            }).join();
-        }
+        // an MQTT 3 UNSUBACK has no return codes, it always applies to all topic filters
+        return client.toAsync().unsubscribe(unsubscribeMessage).handle((ignored, throwable) -> {
+            if (throwable != null) {
+                return logFailedTopics(clientLogPrefix, "UNSUBSCRIBE from", topics, throwable);
+            }
+            final ClientData clientData = getClientRegistry().get(client);
+            for (final MqttTopicFilter topicFilter : topicFilters) {
+                clientData.removeSubscription(topicFilter);
+            }
+            Logger.debug("{} received UNSUBACK", clientLogPrefix);
+            return 0;
+        });
     }
 
     @Override
@@ -340,7 +388,26 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
         client.toBlocking().disconnect();
     }
 
-    private @NotNull String bufferToString(final @NotNull ByteBuffer b) {
-        return new String(b.array(), StandardCharsets.UTF_8);
+    private static int logFailedTopics(
+            final @NotNull String clientLogPrefix,
+            final @NotNull String action,
+            final @NotNull List<String> topics,
+            final @NotNull Throwable throwable) {
+        for (final String topic : topics) {
+            Logger.error("{} failed {} TOPIC '{}': {}",
+                    clientLogPrefix,
+                    action,
+                    topic,
+                    Throwables.getRootCause(throwable).getMessage());
+        }
+        Logger.trace(throwable);
+        return topics.size();
+    }
+
+    /**
+     * Decodes only the remaining bytes, as a payload may be a slice of a larger buffer (e.g. a record of a file).
+     */
+    private static @NotNull String bufferToString(final @NotNull ByteBuffer b) {
+        return StandardCharsets.UTF_8.decode(b.duplicate()).toString();
     }
 }
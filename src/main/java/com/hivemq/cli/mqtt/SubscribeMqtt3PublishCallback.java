@@ -17,9 +17,12 @@
 package com.hivemq.cli.mqtt;
 
 import com.hivemq.cli.commands.options.SubscribeOptions;
+import com.hivemq.cli.mqtt.capture.CaptureRecord;
+import com.hivemq.cli.mqtt.capture.CaptureWriter;
+import com.hivemq.cli.mqtt.output.OutputFileWriter;
 import com.hivemq.cli.utils.LoggerUtils;
 import com.hivemq.cli.utils.MqttPublishUtils;
-import com.hivemq.cli.utils.json.JsonMqttPublish;
+import com.hivemq.cli.utils.json.JsonPublishWriter;
 import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
 import org.jetbrains.annotations.NotNull;
@@ -28,61 +31,136 @@ import org.tinylog.Logger;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
-public class SubscribeMqtt3PublishCallback implements Consumer<Mqtt3Publish> {
+public class SubscribeMqtt3PublishCallback
+        implements Consumer<Mqtt3Publish>, SubscribePublishPipeline.Handler<Mqtt3Publish> {
 
-    private final @Nullable File outputFile;
+    private final @Nullable OutputFileWriter outputFileWriter;
+    private final @Nullable CaptureWriter captureWriter;
     private final @NotNull Mqtt3Client client;
     private final boolean printToStdout;
+    private final boolean formatted;
     private final boolean isBase64;
-    private final boolean isJsonOutput;
+    private final @Nullable ThreadLocal<JsonPublishWriter> jsonPublishWriter;
     private final boolean showTopics;
+    private final @Nullable SubscribePublishPipeline pipeline;
 
-    SubscribeMqtt3PublishCallback(final @NotNull SubscribeOptions subscribeOptions, final @NotNull Mqtt3Client client) {
+    SubscribeMqtt3PublishCallback(
+            final @NotNull SubscribeOptions subscribeOptions,
+            final @NotNull Mqtt3Client client,
+            final @Nullable SubscribePublishPipeline pipeline) {
         printToStdout = subscribeOptions.isPrintToSTDOUT();
-        outputFile = subscribeOptions.getOutputFile();
+        final File outputFile = subscribeOptions.getOutputFile();
+        if (outputFile == null) {
+            outputFileWriter = null;
+            captureWriter = null;
+        } else if (subscribeOptions.getOutputFormat() == SubscribeOptions.OutputFormat.capture) {
+            outputFileWriter = null;
+            captureWriter = CaptureWriter.of(outputFile,
+                    subscribeOptions.getOutputFlushInterval(),
+                    subscribeOptions.getOutputFsyncPolicy());
+        } else {
+            outputFileWriter = OutputFileWriter.of(outputFile,
+                    subscribeOptions.getOutputFlushInterval(),
+                    subscribeOptions.getOutputFsyncPolicy(),
+                    subscribeOptions.getOutputRotateSize(),
+                    subscribeOptions.getOutputRotateInterval(),
+                    subscribeOptions.getOutputCompression());
+            captureWriter = null;
+        }
+        formatted = printToStdout || outputFileWriter != null;
         isBase64 = subscribeOptions.isEncodePayloadInBase64();
-        isJsonOutput = subscribeOptions.isJsonOutput();
+        final boolean pretty = !subscribeOptions.isNdjson();
+        jsonPublishWriter = subscribeOptions.isJsonOutput() ?
+                ThreadLocal.withInitial(() -> new JsonPublishWriter(pretty, isBase64)) :
+                null;
         showTopics = subscribeOptions.isShowTopics();
         this.client = client;
+        this.pipeline = pipeline;
     }
 
     @Override
     public void accept(final @NotNull Mqtt3Publish mqtt3Publish) {
+        final long receivedAt = System.currentTimeMillis();
+        if (pipeline != null) {
+            pipeline.submit(this, mqtt3Publish, receivedAt);
+            return;
+        }
         try {
-            String message;
-            try {
-                if (isJsonOutput) {
-                    message = new JsonMqttPublish(mqtt3Publish, isBase64).toString();
-                } else {
-                    message = MqttPublishUtils.formatPayload(mqtt3Publish.getPayloadAsBytes(), isBase64);
-                }
-
-                if (showTopics) {
-                    message = mqtt3Publish.getTopic() + ": " + message;
-                }
+            write(mqtt3Publish, format(mqtt3Publish), receivedAt);
+        } finally {
+            //Necessary to ensure log ordering
+            mqtt3Publish.acknowledge();
+        }
+    }
 
-                Logger.debug("{} received PUBLISH ('{}')\n    {}",
-                        LoggerUtils.getClientPrefix(client.getConfig()),
-                        new String(mqtt3Publish.getPayloadAsBytes(), StandardCharsets.UTF_8),
-                        mqtt3Publish);
-            } catch (final Exception e) {
-                Logger.error("An error occurred while processing an incoming PUBLISH.", e);
-                return;
+    @Override
+    public @Nullable String format(final @NotNull Mqtt3Publish mqtt3Publish) {
+        if (Logger.isDebugEnabled()) {
+            Logger.debug("{} received PUBLISH ('{}')\n    {}",
+                    LoggerUtils.getClientPrefix(client.getConfig()),
+                    new String(mqtt3Publish.getPayloadAsBytes(), StandardCharsets.UTF_8),
+                    mqtt3Publish);
+        }
+        if (!formatted) {
+            // only the capture writer is active, which does not need the formatted message
+            return null;
+        }
+        try {
+            String message;
+            if (jsonPublishWriter != null) {
+                message = jsonPublishWriter.get().write(mqtt3Publish);
+            } else {
+                message = MqttPublishUtils.formatPayload(mqtt3Publish.getPayloadAsBytes(), isBase64);
             }
 
-            if (outputFile != null) {
-                MqttPublishUtils.printToFile(outputFile, message);
+            if (showTopics) {
+                message = mqtt3Publish.getTopic() + ": " + message;
             }
+            return message;
+        } catch (final Exception e) {
+            Logger.error("An error occurred while processing an incoming PUBLISH.", e);
+            return null;
+        }
+    }
 
-            if (printToStdout) {
-                System.out.println(message);
-            }
+    @Override
+    public void write(final @NotNull Mqtt3Publish mqtt3Publish, final @Nullable String message, final long receivedAt) {
+        if (captureWriter != null) {
+            captureWriter.write(CaptureRecord.of(mqtt3Publish, receivedAt));
+        }
 
-        } finally {
-            //Necessary to ensure log ordering
-            mqtt3Publish.acknowledge();
+        if (message == null) {
+            return;
         }
+
+        if (outputFileWriter != null) {
+            outputFileWriter.write(message);
+        }
+
+        if (printToStdout) {
+            System.out.println(message);
+        }
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> commit() {
+        if (printToStdout) {
+            System.out.flush();
+        }
+        if (captureWriter != null) {
+            return captureWriter.flush();
+        }
+        if (outputFileWriter != null) {
+            return outputFileWriter.flush();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void acknowledge(final @NotNull Mqtt3Publish mqtt3Publish) {
+        mqtt3Publish.acknowledge();
     }
 }
@@ -17,9 +17,12 @@
 package com.hivemq.cli.mqtt;
 
 import com.hivemq.cli.commands.options.SubscribeOptions;
+import com.hivemq.cli.mqtt.capture.CaptureRecord;
+import com.hivemq.cli.mqtt.capture.CaptureWriter;
+import com.hivemq.cli.mqtt.output.OutputFileWriter;
 import com.hivemq.cli.utils.LoggerUtils;
 import com.hivemq.cli.utils.MqttPublishUtils;
-import com.hivemq.cli.utils.json.JsonMqttPublish;
+import com.hivemq.cli.utils.json.JsonPublishWriter;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import org.jetbrains.annotations.NotNull;
@@ -28,61 +31,136 @@ import org.tinylog.Logger;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
-public class SubscribeMqtt5PublishCallback implements Consumer<Mqtt5Publish> {
+public class SubscribeMqtt5PublishCallback
+        implements Consumer<Mqtt5Publish>, SubscribePublishPipeline.Handler<Mqtt5Publish> {
 
-    private final @Nullable File outputFile;
+    private final @Nullable OutputFileWriter outputFileWriter;
+    private final @Nullable CaptureWriter captureWriter;
     private final @NotNull Mqtt5Client client;
     private final boolean printToStdout;
+    private final boolean formatted;
     private final boolean isBase64;
-    private final boolean isJsonOutput;
+    private final @Nullable ThreadLocal<JsonPublishWriter> jsonPublishWriter;
     private final boolean showTopics;
+    private final @Nullable SubscribePublishPipeline pipeline;
 
-    SubscribeMqtt5PublishCallback(final @NotNull SubscribeOptions subscribeOptions, final @NotNull Mqtt5Client client) {
+    SubscribeMqtt5PublishCallback(
+            final @NotNull SubscribeOptions subscribeOptions,
+            final @NotNull Mqtt5Client client,
+            final @Nullable SubscribePublishPipeline pipeline) {
         printToStdout = subscribeOptions.isPrintToSTDOUT();
-        outputFile = subscribeOptions.getOutputFile();
+        final File outputFile = subscribeOptions.getOutputFile();
+        if (outputFile == null) {
+            outputFileWriter = null;
+            captureWriter = null;
+        } else if (subscribeOptions.getOutputFormat() == SubscribeOptions.OutputFormat.capture) {
+            outputFileWriter = null;
+            captureWriter = CaptureWriter.of(outputFile,
+                    subscribeOptions.getOutputFlushInterval(),
+                    subscribeOptions.getOutputFsyncPolicy());
+        } else {
+            outputFileWriter = OutputFileWriter.of(outputFile,
+                    subscribeOptions.getOutputFlushInterval(),
+                    subscribeOptions.getOutputFsyncPolicy(),
+                    subscribeOptions.getOutputRotateSize(),
+                    subscribeOptions.getOutputRotateInterval(),
+                    subscribeOptions.getOutputCompression());
+            captureWriter = null;
+        }
+        formatted = printToStdout || outputFileWriter != null;
         isBase64 = subscribeOptions.isEncodePayloadInBase64();
-        isJsonOutput = subscribeOptions.isJsonOutput();
+        final boolean pretty = !subscribeOptions.isNdjson();
+        jsonPublishWriter = subscribeOptions.isJsonOutput() ?
+                ThreadLocal.withInitial(() -> new JsonPublishWriter(pretty, isBase64)) :
+                null;
         showTopics = subscribeOptions.isShowTopics();
         this.client = client;
+        this.pipeline = pipeline;
     }
 
     @Override
     public void accept(final @NotNull Mqtt5Publish mqtt5Publish) {
+        final long receivedAt = System.currentTimeMillis();
+        if (pipeline != null) {
+            pipeline.submit(this, mqtt5Publish, receivedAt);
+            return;
+        }
         try {
-            String message;
-            try {
-                if (isJsonOutput) {
-                    message = new JsonMqttPublish(mqtt5Publish, isBase64).toString();
-                } else {
-                    message = MqttPublishUtils.formatPayload(mqtt5Publish.getPayloadAsBytes(), isBase64);
-                }
-
-                if (showTopics) {
-                    message = mqtt5Publish.getTopic() + ": " + message;
-                }
+            write(mqtt5Publish, format(mqtt5Publish), receivedAt);
+        } finally {
+            //Necessary to ensure log ordering
+            mqtt5Publish.acknowledge();
+        }
+    }
 
-                Logger.debug("{} received PUBLISH ('{}')\n    {}",
-                        LoggerUtils.getClientPrefix(client.getConfig()),
-                        new String(mqtt5Publish.getPayloadAsBytes(), StandardCharsets.UTF_8),
-                        mqtt5Publish);
-            } catch (final Exception e) {
-                Logger.error("An error occurred while processing an incoming PUBLISH.", e);
-                return;
+    @Override
+    public @Nullable String format(final @NotNull Mqtt5Publish mqtt5Publish) {
+        if (Logger.isDebugEnabled()) {
+            Logger.debug("{} received PUBLISH ('{}')\n    {}",
+                    LoggerUtils.getClientPrefix(client.getConfig()),
+                    new String(mqtt5Publish.getPayloadAsBytes(), StandardCharsets.UTF_8),
+                    mqtt5Publish);
+        }
+        if (!formatted) {
+            // only the capture writer is active, which does not need the formatted message
+            return null;
+        }
+        try {
+            String message;
+            if (jsonPublishWriter != null) {
+                message = jsonPublishWriter.get().write(mqtt5Publish);
+            } else {
+                message = MqttPublishUtils.formatPayload(mqtt5Publish.getPayloadAsBytes(), isBase64);
             }
 
-            if (outputFile != null) {
-                MqttPublishUtils.printToFile(outputFile, message);
+            if (showTopics) {
+                message = mqtt5Publish.getTopic() + ": " + message;
             }
+            return message;
+        } catch (final Exception e) {
+            Logger.error("An error occurred while processing an incoming PUBLISH.", e);
+            return null;
+        }
+    }
 
-            if (printToStdout) {
-                System.out.println(message);
-            }
+    @Override
+    public void write(final @NotNull Mqtt5Publish mqtt5Publish, final @Nullable String message, final long receivedAt) {
+        if (captureWriter != null) {
+            captureWriter.write(CaptureRecord.of(mqtt5Publish, receivedAt));
+        }
 
-        } finally {
-            //Necessary to ensure log ordering
-            mqtt5Publish.acknowledge();
+        if (message == null) {
+            return;
         }
+
+        if (outputFileWriter != null) {
+            outputFileWriter.write(message);
+        }
+
+        if (printToStdout) {
+            System.out.println(message);
+        }
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> commit() {
+        if (printToStdout) {
+            System.out.flush();
+        }
+        if (captureWriter != null) {
+            return captureWriter.flush();
+        }
+        if (outputFileWriter != null) {
+            return outputFileWriter.flush();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void acknowledge(final @NotNull Mqtt5Publish mqtt5Publish) {
+        mqtt5Publish.acknowledge();
     }
 }
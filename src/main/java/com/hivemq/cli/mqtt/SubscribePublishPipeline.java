@@ -0,0 +1,372 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.cli.commands.options.SubscribeOptions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Processes received publishes off the MQTT client threads, so that a slow console or disk does not throttle the
+ * incoming message flow directly.
+ * <p>
+ * Received publishes are handed over through a bounded queue. A configurable number of worker threads format them
+ * concurrently, while a single writer thread writes the formatted messages in the order in which they were received.
+ * The writer commits the written messages in batches and acknowledges the publishes of a batch once it is committed,
+ * so QoS 1 and 2 messages are only acknowledged to the broker after they were written. If the queue is full, the client
+ * thread blocks, which applies backpressure to the incoming publishes.
+ * <p>
+ * All callbacks of a subscribe command share one pipeline, see {@link #acquire(SubscribeOptions)}, so the messages of
+ * the command are written by a single writer in the order in which they were received.
+ * <p>
+ * The depth of the queue is logged periodically, independent of the message flow, so that a queue which is stuck at
+ * its capacity is visible as well. The maximum depth is logged when the pipeline is closed.
+ */
+public class SubscribePublishPipeline {
+
+    /**
+     * The processing steps of a received publish.
+     */
+    interface Handler<P> {
+
+        /**
+         * Called concurrently on the worker threads.
+         *
+         * @return the formatted message or null if the publish is not written as text
+         */
+        @Nullable String format(@NotNull P publish);
+
+        /**
+         * Called on the writer thread in the order in which the publishes were received, also if no message was
+         * formatted, e.g. to capture the publish itself.
+         */
+        void write(@NotNull P publish, @Nullable String message, long receivedAt);
+
+        /**
+         * Called on the writer thread after a batch of messages was written.
+         *
+         * @return a future which completes once the written messages are committed
+         */
+        @NotNull CompletableFuture<Void> commit();
+
+        void acknowledge(@NotNull P publish);
+    }
+
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final long QUEUE_DEPTH_LOG_INTERVAL_MILLIS = 10_000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+    private static final @NotNull AtomicInteger PIPELINE_COUNTER = new AtomicInteger();
+    private static final @NotNull CompletableFuture<Received<?>> END_MARKER = CompletableFuture.completedFuture(null);
+    private static final @NotNull ScheduledExecutorService QUEUE_DEPTH_REPORTER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "subscribe-pipeline-reporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+    /**
+     * The pipelines of the running subscribe commands, guarded by itself.
+     */
+    private static final @NotNull Map<SubscribeOptions, SubscribePublishPipeline> PIPELINES = new IdentityHashMap<>();
+
+    private final int pipelineId;
+    private final @NotNull BlockingQueue<CompletableFuture<Received<?>>> queue;
+    private final @NotNull ExecutorService workers;
+    private final @NotNull Thread writerThread;
+    private final @NotNull ScheduledFuture<?> queueDepthReport;
+    private final @NotNull AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final @NotNull ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    /**
+     * Guarded by {@link #closeLock}.
+     */
+    private boolean closed;
+    /**
+     * The number of clients which use the pipeline, guarded by {@link #PIPELINES}.
+     */
+    private int references;
+    /**
+     * Completes once the last written batch is acknowledged, only accessed by the writer thread until it terminated.
+     */
+    private @NotNull CompletableFuture<Void> acknowledged = CompletableFuture.completedFuture(null);
+
+    SubscribePublishPipeline(final int workerCount, final int queueCapacity) {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        pipelineId = PIPELINE_COUNTER.incrementAndGet();
+        final AtomicInteger workerCounter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Math.max(1, workerCount), runnable -> {
+            final Thread thread = new Thread(runnable,
+                    "subscribe-formatter-" + pipelineId + "-" + workerCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        writerThread = new Thread(this::run, "subscribe-writer-" + pipelineId);
+        writerThread.setDaemon(true);
+        writerThread.start();
+        queueDepthReport = QUEUE_DEPTH_REPORTER.scheduleAtFixedRate(this::reportQueueDepth,
+                QUEUE_DEPTH_LOG_INTERVAL_MILLIS,
+                QUEUE_DEPTH_LOG_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the pipeline of a subscribe command, creating it for the first client of the command. Every call must be
+     * paired with a call to {@link #release()}.
+     *
+     * @return the pipeline or null if the subscribe command does not use a pipeline
+     */
+    static @Nullable SubscribePublishPipeline acquire(final @NotNull SubscribeOptions subscribeOptions) {
+        final Integer workerCount = subscribeOptions.getPipelineWorkers();
+        if (workerCount == null) {
+            return null;
+        }
+        synchronized (PIPELINES) {
+            final SubscribePublishPipeline pipeline = PIPELINES.computeIfAbsent(subscribeOptions,
+                    options -> new SubscribePublishPipeline(workerCount, options.getPipelineQueueSize()));
+            pipeline.references++;
+            return pipeline;
+        }
+    }
+
+    /**
+     * Releases a reference obtained by {@link #acquire(SubscribeOptions)} and closes the pipeline once the last client
+     * of the subscribe command released it.
+     */
+    void release() {
+        synchronized (PIPELINES) {
+            if (--references > 0) {
+                return;
+            }
+            PIPELINES.values().remove(this);
+        }
+        close();
+    }
+
+    public static void closeAll() {
+        final List<SubscribePublishPipeline> pipelines;
+        synchronized (PIPELINES) {
+            pipelines = new ArrayList<>(PIPELINES.values());
+            PIPELINES.clear();
+        }
+        for (final SubscribePublishPipeline pipeline : pipelines) {
+            pipeline.close();
+        }
+    }
+
+    /**
+     * Hands a received publish over to the workers. Blocks while the queue is full. Once the pipeline is closed, the
+     * publish is processed on the calling thread instead.
+     */
+    public <P> void submit(final @NotNull Handler<P> handler, final @NotNull P publish, final long receivedAt) {
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                queue.put(CompletableFuture.supplyAsync(() -> format(handler, publish, receivedAt), workers));
+                maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+                return;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Logger.error("Interrupted while handing over an incoming PUBLISH");
+            return;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        final Received<?> received = format(handler, publish, receivedAt);
+        received.write();
+        commit(handler).thenRun(received::acknowledge);
+    }
+
+    /**
+     * Writes, commits and acknowledges all publishes which were handed over before and stops the threads of the
+     * pipeline. Waits at most {@value #CLOSE_TIMEOUT_MILLIS} ms for the messages to be committed.
+     */
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        queueDepthReport.cancel(false);
+        try {
+            queue.put(END_MARKER);
+            writerThread.join();
+            acknowledged.get(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final TimeoutException e) {
+            Logger.warn("Received messages were not committed in time, they are not acknowledged");
+        } catch (final ExecutionException e) {
+            Logger.error("An error occurred while acknowledging received messages.", e.getCause());
+        } finally {
+            workers.shutdown();
+        }
+        Logger.info("Subscription pipeline {} closed, max queue depth: {}", pipelineId, getMaxQueueDepth());
+    }
+
+    /**
+     * @return the number of received publishes which are not yet written
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the highest number of received publishes which were waiting to be written at the same time
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    private void reportQueueDepth() {
+        Logger.debug("Subscription pipeline {} queue depth: {} (max {})",
+                pipelineId,
+                getQueueDepth(),
+                getMaxQueueDepth());
+    }
+
+    private static <P> @NotNull Received<?> format(
+            final @NotNull Handler<P> handler, final @NotNull P publish, final long receivedAt) {
+        String message = null;
+        try {
+            message = handler.format(publish);
+        } catch (final Exception e) {
+            Logger.error("An error occurred while processing an incoming PUBLISH.", e);
+        }
+        return new Received<>(handler, publish, message, receivedAt);
+    }
+
+    private void run() {
+        final List<CompletableFuture<Received<?>>> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        boolean closing = false;
+        while (!closing) {
+            try {
+                batch.add(queue.take());
+            } catch (final InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+            final List<Received<?>> written = new ArrayList<>(batch.size());
+            final Set<Handler<?>> handlers = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (final CompletableFuture<Received<?>> future : batch) {
+                if (future == END_MARKER) {
+                    // nothing is enqueued after the end marker
+                    closing = true;
+                    continue;
+                }
+                final Received<?> received = future.join();
+                received.write();
+                written.add(received);
+                handlers.add(received.handler);
+            }
+            batch.clear();
+            if (!written.isEmpty()) {
+                commitAndAcknowledge(handlers, written);
+            }
+        }
+    }
+
+    private void commitAndAcknowledge(
+            final @NotNull Set<Handler<?>> handlers, final @NotNull List<Received<?>> written) {
+        final List<CompletableFuture<Void>> committed = new ArrayList<>(handlers.size());
+        for (final Handler<?> handler : handlers) {
+            committed.add(commit(handler));
+        }
+        final CompletableFuture<Void> allCommitted =
+                CompletableFuture.allOf(committed.toArray(new CompletableFuture[0]));
+        // acknowledge the batches in order and regardless of the result, as the publishes are not written again
+        acknowledged = acknowledged.thenCombine(allCommitted, (previous, current) -> {
+            for (final Received<?> received : written) {
+                received.acknowledge();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return a future which completes once the written messages are committed or committing them failed
+     */
+    private static @NotNull CompletableFuture<Void> commit(final @NotNull Handler<?> handler) {
+        CompletableFuture<Void> committed;
+        try {
+            committed = handler.commit();
+        } catch (final Exception e) {
+            Logger.error("An error occurred while committing received messages.", e);
+            committed = CompletableFuture.completedFuture(null);
+        }
+        return committed.handle((ignored, throwable) -> {
+            if (throwable != null) {
+                Logger.error("An error occurred while committing received messages.", throwable);
+            }
+            return null;
+        });
+    }
+
+    private static class Received<P> {
+
+        private final @NotNull Handler<P> handler;
+        private final @NotNull P publish;
+        private final @Nullable String message;
+        private final long receivedAt;
+
+        private Received(
+                final @NotNull Handler<P> handler,
+                final @NotNull P publish,
+                final @Nullable String message,
+                final long receivedAt) {
+            this.handler = handler;
+            this.publish = publish;
+            this.message = message;
+            this.receivedAt = receivedAt;
+        }
+
+        private void write() {
+            try {
+                handler.write(publish, message, receivedAt);
+            } catch (final Exception e) {
+                Logger.error("An error occurred while writing an incoming PUBLISH.", e);
+            }
+        }
+
+        private void acknowledge() {
+            handler.acknowledge(publish);
+        }
+    }
+}
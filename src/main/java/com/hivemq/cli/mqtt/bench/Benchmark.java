@@ -0,0 +1,309 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.bench;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.RateLimiter;
+import com.hivemq.cli.commands.options.BenchOptions;
+import com.hivemq.cli.mqtt.InFlightPublishes;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3Subscribe;
+import com.hivemq.client.mqtt.mqtt3.message.unsubscribe.Mqtt3Unsubscribe;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5Subscribe;
+import com.hivemq.client.mqtt.mqtt5.message.unsubscribe.Mqtt5Unsubscribe;
+import org.jetbrains.annotations.NotNull;
+import org.tinylog.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput and the end-to-end latency of a broker with a set of publisher and subscriber connections.
+ * <p>
+ * Every combination of QoS and payload size is run on its own topics, first for the warmup and then for the
+ * measurement time. Publishers send as fast as their in-flight window (or the optional rate) allows and embed the
+ * send time in the first 8 bytes of the payload. As publishers and subscribers run in the same process, the
+ * subscribers compute the latency of every message sent during the measurement phase from it.
+ */
+public class Benchmark {
+
+    static final int TIMESTAMP_SIZE = Long.BYTES;
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final @NotNull List<MqttClient> publishers;
+    private final @NotNull List<MqttClient> subscribers;
+    private final @NotNull BenchOptions benchOptions;
+
+    public Benchmark(
+            final @NotNull List<MqttClient> publishers,
+            final @NotNull List<MqttClient> subscribers,
+            final @NotNull BenchOptions benchOptions) {
+        this.publishers = publishers;
+        this.subscribers = subscribers;
+        this.benchOptions = benchOptions;
+    }
+
+    public @NotNull List<BenchmarkResult> run() throws InterruptedException {
+        if (publishers.isEmpty() || subscribers.isEmpty()) {
+            throw new IllegalArgumentException("At least one publisher and one subscriber are required");
+        }
+        if (benchOptions.getTopics() < 1) {
+            throw new IllegalArgumentException("The number of topics must be at least 1, but was " +
+                    benchOptions.getTopics());
+        }
+        if (benchOptions.getMaxInFlight() < 1) {
+            throw new IllegalArgumentException("The maximum in-flight publishes must be at least 1, but was " +
+                    benchOptions.getMaxInFlight());
+        }
+        final Double rate = benchOptions.getRate();
+        if (rate != null && !(rate > 0)) {
+            throw new IllegalArgumentException("The publish rate must be greater than 0, but was " + rate);
+        }
+        for (final Long payloadSize : benchOptions.getPayloadSizes()) {
+            if (payloadSize < TIMESTAMP_SIZE || payloadSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The payload size must be between " +
+                        TIMESTAMP_SIZE +
+                        " and " +
+                        Integer.MAX_VALUE +
+                        " bytes, but was " +
+                        payloadSize);
+            }
+        }
+
+        final List<BenchmarkResult> results = new ArrayList<>();
+        final ExecutorService publisherThreads = Executors.newFixedThreadPool(publishers.size());
+        try {
+            int runIndex = 0;
+            for (final MqttQos qos : benchOptions.getQos()) {
+                for (final Long payloadSize : benchOptions.getPayloadSizes()) {
+                    final String topicPrefix = benchOptions.getTopicPrefix() + "/" + runIndex++ + "/";
+                    results.add(run(publisherThreads, topicPrefix, qos, payloadSize.intValue()));
+                }
+            }
+        } finally {
+            publisherThreads.shutdownNow();
+        }
+        return results;
+    }
+
+    private @NotNull BenchmarkResult run(
+            final @NotNull ExecutorService publisherThreads,
+            final @NotNull String topicPrefix,
+            final @NotNull MqttQos qos,
+            final int payloadSize) throws InterruptedException {
+        Logger.info("Benchmarking QoS {} with a payload of {} bytes", qos.getCode(), payloadSize);
+        final int topics = benchOptions.getTopics();
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final AtomicLong received = new AtomicLong();
+        final Phases phases = new Phases();
+
+        final long[] subscribersPerTopic = new long[topics];
+        final List<CompletableFuture<?>> subscribeFutures = new ArrayList<>();
+        for (int i = 0; i < subscribers.size(); i++) {
+            subscribersPerTopic[i % topics]++;
+            subscribeFutures.add(subscribe(subscribers.get(i), topicPrefix + i % topics, qos, payload -> {
+                final long sentNanos = payload.getLong(payload.position());
+                if (phases.isMeasured(sentNanos)) {
+                    latencies.record(System.nanoTime() - sentNanos);
+                    received.incrementAndGet();
+                }
+            }));
+        }
+        CompletableFuture.allOf(subscribeFutures.toArray(new CompletableFuture<?>[0])).join();
+
+        final long startNanos = System.nanoTime();
+        phases.measurementStartNanos = startNanos + benchOptions.getWarmup().toNanos();
+        phases.measurementEndNanos = phases.measurementStartNanos + benchOptions.getDuration().toNanos();
+
+        final List<Future<PublisherResult>> publisherFutures = new ArrayList<>();
+        for (int i = 0; i < publishers.size(); i++) {
+            final MqttClient publisher = publishers.get(i);
+            final String topic = topicPrefix + i % topics;
+            publisherFutures.add(publisherThreads.submit(() -> publish(publisher, topic, qos, payloadSize, phases)));
+        }
+        long sent = 0;
+        long failed = 0;
+        long expected = 0;
+        for (int i = 0; i < publisherFutures.size(); i++) {
+            final PublisherResult publisherResult;
+            try {
+                publisherResult = publisherFutures.get(i).get();
+            } catch (final ExecutionException e) {
+                throw new IllegalStateException("Publisher failed: " + Throwables.getRootCause(e).getMessage(), e);
+            }
+            sent += publisherResult.sent;
+            failed += publisherResult.failed;
+            expected += (publisherResult.sent - publisherResult.failed) * subscribersPerTopic[i % topics];
+        }
+
+        // wait for the messages which are still on their way to the subscribers, as long as there is progress
+        long lastReceived = -1;
+        long drainDeadlineNanos = 0;
+        while (received.get() < expected) {
+            final long currentReceived = received.get();
+            if (currentReceived != lastReceived) {
+                lastReceived = currentReceived;
+                drainDeadlineNanos = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+            } else if (System.nanoTime() - drainDeadlineNanos >= 0) {
+                break;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        final List<CompletableFuture<?>> unsubscribeFutures = new ArrayList<>();
+        for (int i = 0; i < subscribers.size(); i++) {
+            unsubscribeFutures.add(unsubscribe(subscribers.get(i), topicPrefix + i % topics));
+        }
+        try {
+            CompletableFuture.allOf(unsubscribeFutures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (final CompletionException e) {
+            Logger.warn("Could not unsubscribe from the benchmark topics: {}", Throwables.getRootCause(e).getMessage());
+        }
+
+        return new BenchmarkResult(qos,
+                payloadSize,
+                phases.measurementEndNanos - phases.measurementStartNanos,
+                sent,
+                failed,
+                expected,
+                received.get(),
+                latencies);
+    }
+
+    private @NotNull PublisherResult publish(
+            final @NotNull MqttClient client,
+            final @NotNull String topic,
+            final @NotNull MqttQos qos,
+            final int payloadSize,
+            final @NotNull Phases phases) {
+        final InFlightPublishes inFlightPublishes = new InFlightPublishes(client, benchOptions.getMaxInFlight());
+        final Double rate = benchOptions.getRate();
+        final RateLimiter rateLimiter = rate == null ? null : RateLimiter.create(rate);
+        final PublisherResult result = new PublisherResult();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                }
+                result.failed += inFlightPublishes.awaitCapacity();
+                final long sentNanos = System.nanoTime();
+                if (sentNanos - phases.measurementEndNanos >= 0) {
+                    break;
+                }
+                final ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+                payload.putLong(0, sentNanos);
+                final boolean measured = phases.isMeasured(sentNanos);
+                // only the failures of measured publishes are counted
+                inFlightPublishes.add(topic, publish(client, topic, qos, payload), measured);
+                if (measured) {
+                    result.sent++;
+                }
+            }
+        } finally {
+            result.failed += inFlightPublishes.awaitAll();
+        }
+        return result;
+    }
+
+    private static @NotNull CompletableFuture<?> publish(
+            final @NotNull MqttClient client,
+            final @NotNull String topic,
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload) {
+        switch (client.getConfig().getMqttVersion()) {
+            case MQTT_5_0:
+                return ((Mqtt5Client) client).toAsync()
+                        .publish(Mqtt5Publish.builder().topic(topic).qos(qos).payload(payload).build());
+            case MQTT_3_1_1:
+                return ((Mqtt3Client) client).toAsync()
+                        .publish(Mqtt3Publish.builder().topic(topic).qos(qos).payload(payload).build());
+            default:
+                throw new IllegalStateException("The MQTT Version specified is not supported. Version was " +
+                        client.getConfig().getMqttVersion());
+        }
+    }
+
+    private static @NotNull CompletableFuture<?> subscribe(
+            final @NotNull MqttClient client,
+            final @NotNull String topic,
+            final @NotNull MqttQos qos,
+            final @NotNull PayloadCallback callback) {
+        switch (client.getConfig().getMqttVersion()) {
+            case MQTT_5_0:
+                return ((Mqtt5Client) client).toAsync()
+                        .subscribe(Mqtt5Subscribe.builder().topicFilter(topic).qos(qos).build(),
+                                publish -> publish.getPayload().ifPresent(callback::onPayload));
+            case MQTT_3_1_1:
+                return ((Mqtt3Client) client).toAsync()
+                        .subscribe(Mqtt3Subscribe.builder().topicFilter(topic).qos(qos).build(),
+                                publish -> publish.getPayload().ifPresent(callback::onPayload));
+            default:
+                throw new IllegalStateException("The MQTT Version specified is not supported. Version was " +
+                        client.getConfig().getMqttVersion());
+        }
+    }
+
+    private static @NotNull CompletableFuture<?> unsubscribe(
+            final @NotNull MqttClient client, final @NotNull String topic) {
+        switch (client.getConfig().getMqttVersion()) {
+            case MQTT_5_0:
+                return ((Mqtt5Client) client).toAsync()
+                        .unsubscribe(Mqtt5Unsubscribe.builder().topicFilter(topic).build());
+            case MQTT_3_1_1:
+                return ((Mqtt3Client) client).toAsync()
+                        .unsubscribe(Mqtt3Unsubscribe.builder().topicFilter(topic).build());
+            default:
+                throw new IllegalStateException("The MQTT Version specified is not supported. Version was " +
+                        client.getConfig().getMqttVersion());
+        }
+    }
+
+    private interface PayloadCallback {
+
+        void onPayload(@NotNull ByteBuffer payload);
+    }
+
+    private static class Phases {
+
+        private volatile long measurementStartNanos;
+        private volatile long measurementEndNanos;
+
+        private boolean isMeasured(final long sentNanos) {
+            return sentNanos - measurementStartNanos >= 0 && sentNanos - measurementEndNanos < 0;
+        }
+    }
+
+    private static class PublisherResult {
+
+        private long sent;
+        private long failed;
+    }
+}
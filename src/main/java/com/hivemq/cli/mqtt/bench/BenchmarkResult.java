@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.bench;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The result of the measurement phase of one combination of QoS and payload size.
+ */
+public class BenchmarkResult {
+
+    private final @NotNull MqttQos qos;
+    private final int payloadSize;
+    private final long measurementNanos;
+    private final long sent;
+    private final long failed;
+    private final long expected;
+    private final long received;
+    private final @NotNull LatencyHistogram latencies;
+
+    BenchmarkResult(
+            final @NotNull MqttQos qos,
+            final int payloadSize,
+            final long measurementNanos,
+            final long sent,
+            final long failed,
+            final long expected,
+            final long received,
+            final @NotNull LatencyHistogram latencies) {
+        this.qos = qos;
+        this.payloadSize = payloadSize;
+        this.measurementNanos = measurementNanos;
+        this.sent = sent;
+        this.failed = failed;
+        this.expected = expected;
+        this.received = received;
+        this.latencies = latencies;
+    }
+
+    public @NotNull MqttQos getQos() {
+        return qos;
+    }
+
+    public int getPayloadSize() {
+        return payloadSize;
+    }
+
+    /**
+     * @return the number of messages sent during the measurement phase
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * @return the number of messages sent during the measurement phase which were not acknowledged
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return the number of messages the subscribers should have received, as every message is received by all
+     *         subscribers of its topic
+     */
+    public long getExpected() {
+        return expected;
+    }
+
+    /**
+     * @return the number of messages sent during the measurement phase which the subscribers received
+     */
+    public long getReceived() {
+        return received;
+    }
+
+    public long getLost() {
+        return Math.max(0, expected - received);
+    }
+
+    public double getSentPerSecond() {
+        return perSecond(sent);
+    }
+
+    public double getReceivedPerSecond() {
+        return perSecond(received);
+    }
+
+    /**
+     * @return the end-to-end latencies in nanoseconds from publishing a message until a subscriber received it
+     */
+    public @NotNull LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    private double perSecond(final long count) {
+        return measurementNanos == 0 ? 0 : (double) count * TimeUnit.SECONDS.toNanos(1) / measurementNanos;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "BenchmarkResult{" +
+                "qos=" +
+                qos +
+                ", payloadSize=" +
+                payloadSize +
+                ", measurementNanos=" +
+                measurementNanos +
+                ", sent=" +
+                sent +
+                ", failed=" +
+                failed +
+                ", expected=" +
+                expected +
+                ", received=" +
+                received +
+                '}';
+    }
+}
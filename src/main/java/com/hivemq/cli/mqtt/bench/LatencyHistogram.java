@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.bench;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with a relative precision of better than 2%. Values can be recorded
+ * concurrently.
+ * <p>
+ * Like an HdrHistogram, values below 128 are counted exactly and every larger power of two range is split into 64
+ * linear buckets, so the memory is fixed regardless of the number and range of the recorded values.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private final @NotNull AtomicLongArray counts = new AtomicLongArray(indexOf(Long.MAX_VALUE) + 1);
+    private final @NotNull AtomicLong totalCount = new AtomicLong();
+    private final @NotNull AtomicLong sum = new AtomicLong();
+    private final @NotNull AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency. Negative values are recorded as 0.
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        final long count = totalCount.get();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * @param percentile the percentile between 0 and 100, e.g. 99.9
+     * @return the highest value of the bucket the percentile falls into, at most the maximum recorded value, or 0 if
+     *         no value was recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long seen = 0;
+        for (int index = 0; index < counts.length(); index++) {
+            seen += counts.get(index);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(index), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int bucket = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return bucket * SUB_BUCKET_HALF_COUNT + (int) (value >>> bucket);
+    }
+
+    static long highestValueOf(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int bucket = index / SUB_BUCKET_HALF_COUNT - 1;
+        final long subBucket = index - (long) bucket * SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << bucket) - 1;
+    }
+}
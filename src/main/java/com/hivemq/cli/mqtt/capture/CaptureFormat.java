@@ -0,0 +1,273 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserPropertiesBuilder;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The binary layout of capture files and their index files.
+ * <p>
+ * A capture file starts with the 4 byte magic <code>MQCP</code>, a version byte and 3 reserved bytes. It is followed
+ * by records, each prefixed with the length of the record as a 4 byte big-endian integer. A record consists of
+ * <ul>
+ *     <li>the receive timestamp in epoch milliseconds (8 bytes)</li>
+ *     <li>a flags byte: QoS (bits 0-1), retain (bit 2), and the presence of the payload format indicator (bit 3),
+ *     message expiry interval (bit 4), content type (bit 5), response topic (bit 6) and correlation data (bit 7)</li>
+ *     <li>the topic (2 byte length + UTF-8)</li>
+ *     <li>the present optional properties in the order of the flags, strings and binary data with a 2 byte length,
+ *     the payload format indicator as 1 byte and the message expiry interval as 4 bytes</li>
+ *     <li>the number of user properties (2 bytes) followed by their names and values (2 byte length + UTF-8)</li>
+ *     <li>the raw payload, which fills the remainder of the record</li>
+ * </ul>
+ * The index file next to the capture file (<code>&lt;capture&gt;.idx</code>) starts with the magic <code>MQCI</code>,
+ * a version byte and 3 reserved bytes, followed by sparse entries of the timestamp (8 bytes) and the file offset
+ * (8 bytes) of a record.
+ */
+public final class CaptureFormat {
+
+    static final byte @NotNull [] CAPTURE_MAGIC = {'M', 'Q', 'C', 'P'};
+    static final byte @NotNull [] INDEX_MAGIC = {'M', 'Q', 'C', 'I'};
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int INDEX_ENTRY_SIZE = 16;
+    static final int LENGTH_PREFIX_SIZE = 4;
+    static final @NotNull String INDEX_FILE_SUFFIX = ".idx";
+
+    private static final int MIN_RECORD_SIZE = 8 + 1 + 2 + 2;
+    private static final int MAX_FIELD_LENGTH = 65_535;
+    private static final int FLAG_RETAIN = 1 << 2;
+    private static final int FLAG_PAYLOAD_FORMAT_INDICATOR = 1 << 3;
+    private static final int FLAG_MESSAGE_EXPIRY_INTERVAL = 1 << 4;
+    private static final int FLAG_CONTENT_TYPE = 1 << 5;
+    private static final int FLAG_RESPONSE_TOPIC = 1 << 6;
+    private static final int FLAG_CORRELATION_DATA = 1 << 7;
+
+    private CaptureFormat() {
+    }
+
+    public static @NotNull Path indexPath(final @NotNull Path capturePath) {
+        return capturePath.resolveSibling(capturePath.getFileName() + INDEX_FILE_SUFFIX);
+    }
+
+    static @NotNull ByteBuffer header(final byte @NotNull [] magic) {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(magic).put(VERSION).put(new byte[HEADER_SIZE - magic.length - 1]);
+        header.flip();
+        return header;
+    }
+
+    static void checkHeader(final @NotNull ByteBuffer header, final byte @NotNull [] magic, final @NotNull Path path)
+            throws IOException {
+        if (header.remaining() < HEADER_SIZE) {
+            throw new IOException("File " + path + " is not a capture file");
+        }
+        for (final byte b : magic) {
+            if (header.get() != b) {
+                throw new IOException("File " + path + " is not a capture file");
+            }
+        }
+        final byte version = header.get();
+        if (version != VERSION) {
+            throw new IOException("Capture file " + path + " has the unsupported version " + version);
+        }
+        header.position(header.position() + HEADER_SIZE - magic.length - 1);
+    }
+
+    /**
+     * @return the length prefixed record, ready to be written
+     */
+    static @NotNull ByteBuffer encode(final @NotNull CaptureRecord record) {
+        final byte[] topic = utf8(record.getTopic());
+        final byte[] contentType = record.getContentType() == null ? null : utf8(record.getContentType());
+        final byte[] responseTopic = record.getResponseTopic() == null ? null : utf8(record.getResponseTopic());
+        final ByteBuffer correlationData = record.getCorrelationData();
+        final List<? extends Mqtt5UserProperty> userProperties = record.getUserProperties().asList();
+        final ByteBuffer payload = record.getPayload();
+
+        int flags = record.getQos().getCode();
+        int size = MIN_RECORD_SIZE + topic.length + payload.remaining();
+        if (record.isRetain()) {
+            flags |= FLAG_RETAIN;
+        }
+        if (record.getPayloadFormatIndicator() != null) {
+            flags |= FLAG_PAYLOAD_FORMAT_INDICATOR;
+            size += 1;
+        }
+        if (record.getMessageExpiryInterval() != null) {
+            flags |= FLAG_MESSAGE_EXPIRY_INTERVAL;
+            size += 4;
+        }
+        if (contentType != null) {
+            flags |= FLAG_CONTENT_TYPE;
+            size += 2 + contentType.length;
+        }
+        if (responseTopic != null) {
+            flags |= FLAG_RESPONSE_TOPIC;
+            size += 2 + responseTopic.length;
+        }
+        if (correlationData != null) {
+            flags |= FLAG_CORRELATION_DATA;
+            size += 2 + correlationData.remaining();
+        }
+        if (userProperties.size() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Too many user properties to capture: " + userProperties.size());
+        }
+        final byte[][] userPropertyStrings = new byte[userProperties.size() * 2][];
+        for (int i = 0; i < userProperties.size(); i++) {
+            userPropertyStrings[2 * i] = utf8(userProperties.get(i).getName().toString());
+            userPropertyStrings[2 * i + 1] = utf8(userProperties.get(i).getValue().toString());
+            size += 4 + userPropertyStrings[2 * i].length + userPropertyStrings[2 * i + 1].length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(LENGTH_PREFIX_SIZE + size);
+        buffer.putInt(size);
+        buffer.putLong(record.getTimestamp());
+        buffer.put((byte) flags);
+        putField(buffer, topic);
+        if (record.getPayloadFormatIndicator() != null) {
+            buffer.put((byte) record.getPayloadFormatIndicator().getCode());
+        }
+        if (record.getMessageExpiryInterval() != null) {
+            buffer.putInt((int) (long) record.getMessageExpiryInterval());
+        }
+        if (contentType != null) {
+            putField(buffer, contentType);
+        }
+        if (responseTopic != null) {
+            putField(buffer, responseTopic);
+        }
+        if (correlationData != null) {
+            checkFieldLength(correlationData.remaining());
+            buffer.putShort((short) correlationData.remaining());
+            buffer.put(correlationData);
+        }
+        buffer.putShort((short) userProperties.size());
+        for (final byte[] userPropertyString : userPropertyStrings) {
+            putField(buffer, userPropertyString);
+        }
+        buffer.put(payload);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @param record the record without its length prefix
+     */
+    static @NotNull CaptureRecord decode(final @NotNull ByteBuffer record, final long offset) throws IOException {
+        try {
+            final long timestamp = record.getLong();
+            final int flags = record.get() & 0xFF;
+            final MqttQos qos = MqttQos.fromCode(flags & 0b11);
+            if (qos == null) {
+                throw new IOException("Corrupt capture record at offset " + offset + ": invalid QoS");
+            }
+            final String topic = getString(record);
+            Mqtt5PayloadFormatIndicator payloadFormatIndicator = null;
+            if ((flags & FLAG_PAYLOAD_FORMAT_INDICATOR) != 0) {
+                payloadFormatIndicator = Mqtt5PayloadFormatIndicator.fromCode(record.get() & 0xFF);
+            }
+            Long messageExpiryInterval = null;
+            if ((flags & FLAG_MESSAGE_EXPIRY_INTERVAL) != 0) {
+                messageExpiryInterval = record.getInt() & 0xFFFF_FFFFL;
+            }
+            final String contentType = (flags & FLAG_CONTENT_TYPE) != 0 ? getString(record) : null;
+            final String responseTopic = (flags & FLAG_RESPONSE_TOPIC) != 0 ? getString(record) : null;
+            final ByteBuffer correlationData = (flags & FLAG_CORRELATION_DATA) != 0 ? getBinary(record) : null;
+            final int userPropertyCount = record.getShort() & 0xFFFF;
+            final Mqtt5UserProperties userProperties;
+            if (userPropertyCount == 0) {
+                userProperties = Mqtt5UserProperties.of();
+            } else {
+                final Mqtt5UserPropertiesBuilder builder = Mqtt5UserProperties.builder();
+                for (int i = 0; i < userPropertyCount; i++) {
+                    //noinspection ResultOfMethodCallIgnored
+                    builder.add(getString(record), getString(record));
+                }
+                userProperties = builder.build();
+            }
+            final ByteBuffer payload = record.slice();
+            return new CaptureRecord(timestamp,
+                    topic,
+                    qos,
+                    (flags & FLAG_RETAIN) != 0,
+                    payloadFormatIndicator,
+                    messageExpiryInterval,
+                    contentType,
+                    responseTopic,
+                    correlationData,
+                    userProperties,
+                    payload);
+        } catch (final BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt capture record at offset " + offset, e);
+        }
+    }
+
+    static boolean isValidRecordLength(final int length) {
+        return length >= MIN_RECORD_SIZE;
+    }
+
+    private static byte @NotNull [] utf8(final @NotNull String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        checkFieldLength(bytes.length);
+        return bytes;
+    }
+
+    private static void checkFieldLength(final int length) {
+        if (length > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Field of " + length + " bytes is too long to capture");
+        }
+    }
+
+    private static void putField(final @NotNull ByteBuffer buffer, final byte @NotNull [] field) {
+        buffer.putShort((short) field.length);
+        buffer.put(field);
+    }
+
+    private static @NotNull String getString(final @NotNull ByteBuffer record) {
+        final ByteBuffer binary = getBinary(record);
+        if (binary.hasArray()) {
+            return new String(binary.array(),
+                    binary.arrayOffset() + binary.position(),
+                    binary.remaining(),
+                    StandardCharsets.UTF_8);
+        }
+        return StandardCharsets.UTF_8.decode(binary).toString();
+    }
+
+    private static @NotNull ByteBuffer getBinary(final @NotNull ByteBuffer record) {
+        final int length = record.getShort() & 0xFFFF;
+        if (length > record.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final ByteBuffer binary = record.slice();
+        binary.limit(length);
+        record.position(record.position() + length);
+        return binary;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads the records of a capture file (see {@link CaptureFormat}) through a read-only memory mapping.
+ * <p>
+ * Captures larger than {@value #MAX_WINDOW_SIZE} bytes are mapped in windows which always start at a record, so every
+ * record is contained in a single mapping. {@link #seek(long)} uses the sparse index file to position the reader
+ * close to a point in time and then only scans the records following the nearest index entry. A truncated last record,
+ * e.g. of a capture which is still being written, is treated as the end of the capture.
+ */
+public class CaptureReader implements Closeable {
+
+    static final long MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private final @NotNull Path path;
+    private final @NotNull FileChannel channel;
+    private final long size;
+    private final long @NotNull [] indexTimestamps;
+    private final long @NotNull [] indexOffsets;
+    private final long maxWindowSize;
+    private @Nullable MappedByteBuffer window;
+    private long windowStart;
+    private long position = CaptureFormat.HEADER_SIZE;
+
+    public CaptureReader(final @NotNull Path path) throws IOException {
+        this(path, MAX_WINDOW_SIZE);
+    }
+
+    CaptureReader(final @NotNull Path path, final long maxWindowSize) throws IOException {
+        this.path = path;
+        this.maxWindowSize = maxWindowSize;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            size = channel.size();
+            final ByteBuffer header = ByteBuffer.allocate(CaptureFormat.HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            CaptureFormat.checkHeader(header, CaptureFormat.CAPTURE_MAGIC, path);
+
+            final ByteBuffer index = readIndex(CaptureFormat.indexPath(path));
+            final int entries = index.remaining() / CaptureFormat.INDEX_ENTRY_SIZE;
+            final long[] timestamps = new long[entries];
+            final long[] offsets = new long[entries];
+            int valid = 0;
+            for (int i = 0; i < entries; i++) {
+                final long timestamp = index.getLong();
+                final long offset = index.getLong();
+                // skip entries which point beyond the capture or are out of order, e.g. after an unclean shutdown
+                if (offset < CaptureFormat.HEADER_SIZE || offset >= size ||
+                        (valid > 0 && (offset <= offsets[valid - 1] || timestamp < timestamps[valid - 1]))) {
+                    continue;
+                }
+                timestamps[valid] = timestamp;
+                offsets[valid] = offset;
+                valid++;
+            }
+            indexTimestamps = Arrays.copyOf(timestamps, valid);
+            indexOffsets = Arrays.copyOf(offsets, valid);
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the next record or null if the end of the capture is reached
+     * @throws IOException if a record is corrupt
+     */
+    public @Nullable CaptureRecord next() throws IOException {
+        if (position + CaptureFormat.LENGTH_PREFIX_SIZE > size) {
+            return null;
+        }
+        final int length = map(position, CaptureFormat.LENGTH_PREFIX_SIZE).getInt();
+        if (!CaptureFormat.isValidRecordLength(length)) {
+            throw new IOException("Corrupt capture record at offset " + position + " in " + path);
+        }
+        if (position + CaptureFormat.LENGTH_PREFIX_SIZE + length > size) {
+            Logger.debug("Ignoring truncated capture record at offset {} in {}", position, path);
+            return null;
+        }
+        final ByteBuffer record = map(position + CaptureFormat.LENGTH_PREFIX_SIZE, length);
+        final CaptureRecord captureRecord = CaptureFormat.decode(record, position);
+        position += CaptureFormat.LENGTH_PREFIX_SIZE + length;
+        return captureRecord;
+    }
+
+    /**
+     * Positions the reader after the last complete record, e.g. to append to the capture after a torn or corrupt last
+     * record. Only the records after the last index entry are scanned, unless no complete record follows it.
+     *
+     * @return the last complete record or null if the capture contains no complete record
+     */
+    @Nullable CaptureRecord seekLast() {
+        for (int i = indexOffsets.length; i >= 0; i--) {
+            position = i == 0 ? CaptureFormat.HEADER_SIZE : indexOffsets[i - 1];
+            CaptureRecord last = null;
+            while (true) {
+                final CaptureRecord record;
+                try {
+                    record = next();
+                } catch (final IOException e) {
+                    Logger.debug("Capture {} ends with a corrupt record: {}", path, e.getMessage());
+                    break;
+                }
+                if (record == null) {
+                    break;
+                }
+                last = record;
+            }
+            if (last != null) {
+                return last;
+            }
+        }
+        position = CaptureFormat.HEADER_SIZE;
+        return null;
+    }
+
+    /**
+     * Positions the reader at the first record which was received at or after the given time.
+     *
+     * @param timestamp the time in epoch milliseconds
+     */
+    public void seek(final long timestamp) throws IOException {
+        position = CaptureFormat.HEADER_SIZE;
+        int low = 0;
+        int high = indexTimestamps.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            // an earlier record can have the same timestamp as the indexed one, so the entry must be strictly before
+            if (indexTimestamps[middle] < timestamp) {
+                position = indexOffsets[middle];
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        while (true) {
+            final long recordPosition = position;
+            final CaptureRecord record = next();
+            if (record == null || record.getTimestamp() >= timestamp) {
+                position = recordPosition;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the file offset of the next record
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private @NotNull ByteBuffer map(final long offset, final int length) throws IOException {
+        MappedByteBuffer window = this.window;
+        if (window == null || offset < windowStart || offset + length > windowStart + window.capacity()) {
+            // windows start at the current record, so a record never spans two windows
+            final long start = Math.min(position, offset);
+            if (offset + length - start > maxWindowSize) {
+                throw new IOException("Capture record at offset " + position + " in " + path + " is too large");
+            }
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(maxWindowSize, size - start));
+            windowStart = start;
+            this.window = window;
+        }
+        final ByteBuffer slice = window.duplicate();
+        slice.position((int) (offset - windowStart));
+        slice.limit((int) (offset - windowStart + length));
+        return slice.slice();
+    }
+
+    private static @NotNull ByteBuffer readIndex(final @NotNull Path indexPath) throws IOException {
+        if (!Files.exists(indexPath)) {
+            return ByteBuffer.allocate(0);
+        }
+        final ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+        try {
+            CaptureFormat.checkHeader(index, CaptureFormat.INDEX_MAGIC, indexPath);
+        } catch (final IOException e) {
+            Logger.warn("Ignoring invalid capture index {}: {}", indexPath, e.getMessage());
+            return ByteBuffer.allocate(0);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A received PUBLISH together with its receive timestamp, as stored in a capture file.
+ * <p>
+ * The payload and correlation data of records read by a {@link CaptureReader} are read-only views of the memory-mapped
+ * capture file and are not copied.
+ */
+public class CaptureRecord {
+
+    private final long timestamp;
+    private final @NotNull String topic;
+    private final @NotNull MqttQos qos;
+    private final boolean retain;
+    private final @Nullable Mqtt5PayloadFormatIndicator payloadFormatIndicator;
+    private final @Nullable Long messageExpiryInterval;
+    private final @Nullable String contentType;
+    private final @Nullable String responseTopic;
+    private final @Nullable ByteBuffer correlationData;
+    private final @NotNull Mqtt5UserProperties userProperties;
+    private final @NotNull ByteBuffer payload;
+
+    public CaptureRecord(
+            final long timestamp,
+            final @NotNull String topic,
+            final @NotNull MqttQos qos,
+            final boolean retain,
+            final @Nullable Mqtt5PayloadFormatIndicator payloadFormatIndicator,
+            final @Nullable Long messageExpiryInterval,
+            final @Nullable String contentType,
+            final @Nullable String responseTopic,
+            final @Nullable ByteBuffer correlationData,
+            final @NotNull Mqtt5UserProperties userProperties,
+            final @NotNull ByteBuffer payload) {
+        this.timestamp = timestamp;
+        this.topic = topic;
+        this.qos = qos;
+        this.retain = retain;
+        this.payloadFormatIndicator = payloadFormatIndicator;
+        this.messageExpiryInterval = messageExpiryInterval;
+        this.contentType = contentType;
+        this.responseTopic = responseTopic;
+        this.correlationData = correlationData;
+        this.userProperties = userProperties;
+        this.payload = payload;
+    }
+
+    public static @NotNull CaptureRecord of(final @NotNull Mqtt5Publish publish, final long timestamp) {
+        return new CaptureRecord(timestamp,
+                publish.getTopic().toString(),
+                publish.getQos(),
+                publish.isRetain(),
+                publish.getPayloadFormatIndicator().orElse(null),
+                publish.getMessageExpiryInterval().isPresent() ? publish.getMessageExpiryInterval().getAsLong() : null,
+                publish.getContentType().map(Object::toString).orElse(null),
+                publish.getResponseTopic().map(Object::toString).orElse(null),
+                publish.getCorrelationData().orElse(null),
+                publish.getUserProperties(),
+                publish.getPayload().orElse(ByteBuffer.allocate(0)));
+    }
+
+    public static @NotNull CaptureRecord of(final @NotNull Mqtt3Publish publish, final long timestamp) {
+        return new CaptureRecord(timestamp,
+                publish.getTopic().toString(),
+                publish.getQos(),
+                publish.isRetain(),
+                null,
+                null,
+                null,
+                null,
+                null,
+                Mqtt5UserProperties.of(),
+                publish.getPayload().orElse(ByteBuffer.allocate(0)));
+    }
+
+    /**
+     * @return the receive time in epoch milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public @NotNull String getTopic() {
+        return topic;
+    }
+
+    public @NotNull MqttQos getQos() {
+        return qos;
+    }
+
+    public boolean isRetain() {
+        return retain;
+    }
+
+    public @Nullable Mqtt5PayloadFormatIndicator getPayloadFormatIndicator() {
+        return payloadFormatIndicator;
+    }
+
+    public @Nullable Long getMessageExpiryInterval() {
+        return messageExpiryInterval;
+    }
+
+    public @Nullable String getContentType() {
+        return contentType;
+    }
+
+    public @Nullable String getResponseTopic() {
+        return responseTopic;
+    }
+
+    public @Nullable ByteBuffer getCorrelationData() {
+        return correlationData == null ? null : correlationData.asReadOnlyBuffer();
+    }
+
+    public @NotNull Mqtt5UserProperties getUserProperties() {
+        return userProperties;
+    }
+
+    public @NotNull ByteBuffer getPayload() {
+        return payload.asReadOnlyBuffer();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "CaptureRecord{" +
+                "timestamp=" +
+                timestamp +
+                ", topic='" +
+                topic +
+                '\'' +
+                ", qos=" +
+                qos +
+                ", retain=" +
+                retain +
+                ", payloadFormatIndicator=" +
+                payloadFormatIndicator +
+                ", messageExpiryInterval=" +
+                messageExpiryInterval +
+                ", contentType='" +
+                contentType +
+                '\'' +
+                ", responseTopic='" +
+                responseTopic +
+                '\'' +
+                ", userProperties=" +
+                userProperties +
+                ", payloadSize=" +
+                payload.remaining() +
+                '}';
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.cli.commands.options.ReplayOptions;
+import com.hivemq.cli.mqtt.InFlightPublishes;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Republishes the records of a capture, either with the original time between the messages (optionally sped up) or
+ * as fast as the in-flight windows of the connections allow.
+ * <p>
+ * Records are distributed over the connections by their captured topic, so messages of the same topic are always sent
+ * over the same connection and keep their order.
+ */
+public class CaptureReplayer {
+
+    private final @NotNull List<MqttClient> clients;
+    private final @NotNull ReplayOptions replayOptions;
+
+    public CaptureReplayer(final @NotNull List<MqttClient> clients, final @NotNull ReplayOptions replayOptions) {
+        this.clients = clients;
+        this.replayOptions = replayOptions;
+    }
+
+    /**
+     * @return the number of failed publishes
+     */
+    public long replay(final @NotNull CaptureReader reader) throws IOException, InterruptedException {
+        if (clients.isEmpty()) {
+            throw new IllegalArgumentException("At least one connection is required to replay a capture");
+        }
+        final Double speed = replayOptions.getSpeed();
+        if (speed != null && !(speed > 0)) {
+            throw new IllegalArgumentException("The replay speed must be greater than 0, but was " + speed);
+        }
+        if (replayOptions.getMaxInFlight() < 1) {
+            throw new IllegalArgumentException("The maximum in-flight publishes must be at least 1, but was " +
+                    replayOptions.getMaxInFlight());
+        }
+        final List<TopicRewrite> topicRewrites = replayOptions.getTopicRewrites();
+        final Long from = replayOptions.getFrom();
+        final Long to = replayOptions.getTo();
+
+        final Connection[] connections = new Connection[clients.size()];
+        for (int i = 0; i < connections.length; i++) {
+            connections[i] = new Connection(clients.get(i), replayOptions.getMaxInFlight());
+        }
+
+        if (from != null) {
+            reader.seek(from);
+        }
+        final long startNanos = System.nanoTime();
+        long firstTimestamp = -1;
+        long maxLagNanos = 0;
+        long published = 0;
+        long failed = 0;
+        try {
+            CaptureRecord record;
+            while ((record = reader.next()) != null) {
+                if (to != null && record.getTimestamp() >= to) {
+                    break;
+                }
+                if (speed != null) {
+                    if (firstTimestamp < 0) {
+                        firstTimestamp = record.getTimestamp();
+                    }
+                    final long offsetNanos =
+                            (long) (TimeUnit.MILLISECONDS.toNanos(record.getTimestamp() - firstTimestamp) / speed);
+                    final long waitNanos = startNanos + offsetNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    } else {
+                        maxLagNanos = Math.max(maxLagNanos, -waitNanos);
+                    }
+                }
+
+                String topic = record.getTopic();
+                final Connection connection = connections[Math.floorMod(topic.hashCode(), connections.length)];
+                for (final TopicRewrite topicRewrite : topicRewrites) {
+                    topic = topicRewrite.apply(topic);
+                }
+                failed += connection.inFlightPublishes.awaitCapacity();
+                connection.inFlightPublishes.add(topic, publish(connection.client, record, topic));
+                published++;
+            }
+        } finally {
+            for (final Connection connection : connections) {
+                failed += connection.inFlightPublishes.awaitAll();
+            }
+        }
+
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        Logger.info("Replayed {} PUBLISHes ({} failed) over {} connection(s) in {} ms ({} msg/s)",
+                published,
+                failed,
+                connections.length,
+                elapsedMillis,
+                elapsedMillis == 0 ? published : published * 1000 / elapsedMillis);
+        if (speed != null && maxLagNanos > 0) {
+            Logger.info("Replay fell behind the original timing by up to {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(maxLagNanos));
+        }
+        return failed;
+    }
+
+    private static @NotNull CompletableFuture<?> publish(
+            final @NotNull MqttClient client, final @NotNull CaptureRecord record, final @NotNull String topic) {
+        switch (client.getConfig().getMqttVersion()) {
+            case MQTT_5_0: {
+                final Mqtt5PublishBuilder.Complete publishBuilder = Mqtt5Publish.builder()
+                        .topic(topic)
+                        .qos(record.getQos())
+                        .retain(record.isRetain())
+                        .payload(record.getPayload())
+                        .payloadFormatIndicator(record.getPayloadFormatIndicator())
+                        .contentType(record.getContentType())
+                        .responseTopic(record.getResponseTopic())
+                        .correlationData(record.getCorrelationData())
+                        .userProperties(record.getUserProperties());
+                if (record.getMessageExpiryInterval() != null) {
+                    //noinspection ResultOfMethodCallIgnored
+                    publishBuilder.messageExpiryInterval(record.getMessageExpiryInterval());
+                }
+                return ((Mqtt5Client) client).toAsync().publish(publishBuilder.build());
+            }
+            case MQTT_3_1_1:
+                return ((Mqtt3Client) client).toAsync()
+                        .publish(Mqtt3Publish.builder()
+                                .topic(topic)
+                                .qos(record.getQos())
+                                .retain(record.isRetain())
+                                .payload(record.getPayload())
+                                .build());
+            default:
+                throw new IllegalStateException("The MQTT Version specified is not supported. Version was " +
+                        client.getConfig().getMqttVersion());
+        }
+    }
+
+    private static class Connection {
+
+        private final @NotNull MqttClient client;
+        private final @NotNull InFlightPublishes inFlightPublishes;
+
+        private Connection(final @NotNull MqttClient client, final int maxInFlight) {
+            this.client = client;
+            this.inFlightPublishes = new InFlightPublishes(client, maxInFlight);
+        }
+    }
+}
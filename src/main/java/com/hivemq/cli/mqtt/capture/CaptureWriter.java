@@ -0,0 +1,451 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.cli.mqtt.output.OutputFileWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends received messages as binary records to a capture file and maintains its sparse index file (see
+ * {@link CaptureFormat}).
+ * <p>
+ * Like the {@link OutputFileWriter}, records are handed over through a bounded queue to a single writer thread, so the
+ * MQTT client callback threads never block on disk I/O or a sync of the file. The writer collects the records in a
+ * write buffer which is written when it is full, on every flush and at least once per flush interval. If the queue is
+ * full, enqueuing blocks, which applies backpressure to the incoming publishes instead of growing the heap.
+ * <p>
+ * An index entry is added for the first record and then for the first record after every
+ * {@value #INDEX_INTERVAL_BYTES} bytes. Timestamps are written non-decreasing, so that the index can be searched by
+ * time.
+ * <p>
+ * There is one writer per capture file and process, so multiple subscriptions writing to the same file share it.
+ */
+public class CaptureWriter implements AutoCloseable {
+
+    static final int INDEX_INTERVAL_BYTES = 1024 * 1024;
+
+    private static final int QUEUE_CAPACITY = 16_384;
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+    private static final int INDEX_BUFFER_SIZE = 256 * CaptureFormat.INDEX_ENTRY_SIZE;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+    private static final @NotNull Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    private static final @NotNull Object CLOSE_MARKER = new Object();
+
+    private static final @NotNull Map<Path, CaptureWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private final @NotNull Path path;
+    private final @NotNull Path indexPath;
+    private final @NotNull Duration flushInterval;
+    private final @NotNull OutputFileWriter.FsyncPolicy fsyncPolicy;
+    private final @NotNull BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final @NotNull ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final @NotNull ByteBuffer indexBuffer = ByteBuffer.allocate(INDEX_BUFFER_SIZE);
+    private final @NotNull Thread writerThread;
+    private @Nullable FileChannel channel;
+    private @Nullable FileChannel indexChannel;
+    private long position;
+    private long lastIndexedPosition = -1;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private volatile boolean closed;
+
+    /**
+     * Returns the writer for the given file, creating and starting it on first use. The flush interval and fsync
+     * policy of the first caller apply to all later callers for the same file.
+     */
+    public static @NotNull CaptureWriter of(
+            final @NotNull File file,
+            final @Nullable Duration flushInterval,
+            final @NotNull OutputFileWriter.FsyncPolicy fsyncPolicy) {
+        final Path path = file.toPath().toAbsolutePath().normalize();
+        return WRITERS.computeIfAbsent(path, p -> new CaptureWriter(p, flushInterval, fsyncPolicy));
+    }
+
+    public static void closeAll() {
+        for (final CaptureWriter writer : WRITERS.values()) {
+            writer.close();
+        }
+        WRITERS.clear();
+    }
+
+    CaptureWriter(final @NotNull Path path, final @NotNull OutputFileWriter.FsyncPolicy fsyncPolicy) {
+        this(path, null, fsyncPolicy);
+    }
+
+    CaptureWriter(
+            final @NotNull Path path,
+            final @Nullable Duration flushInterval,
+            final @NotNull OutputFileWriter.FsyncPolicy fsyncPolicy) {
+        this.path = path;
+        this.indexPath = CaptureFormat.indexPath(path);
+        this.flushInterval = flushInterval == null ? DEFAULT_FLUSH_INTERVAL : flushInterval;
+        this.fsyncPolicy = fsyncPolicy;
+        writerThread = new Thread(this::run, "capture-writer-" + path.getFileName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Enqueues a record to be appended to the capture file. Blocks if the writer is lagging behind by more than the
+     * queue capacity.
+     */
+    public void write(final @NotNull CaptureRecord record) {
+        if (closed) {
+            Logger.debug("Cannot write to closed capture file {}", path);
+            return;
+        }
+        try {
+            queue.put(record);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Logger.error("Interrupted while writing to capture file {}", path);
+        }
+    }
+
+    /**
+     * Writes all records enqueued before this call to the capture and index file, forcing them to the storage device
+     * if the fsync policy is {@link OutputFileWriter.FsyncPolicy#commit}.
+     *
+     * @return a future which completes once the records are written, in the order of the flush calls
+     */
+    public @NotNull CompletableFuture<Void> flush() {
+        final CompletableFuture<Void> flushed = new CompletableFuture<>();
+        if (closed) {
+            flushed.complete(null);
+            return flushed;
+        }
+        try {
+            queue.put(flushed);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flushed.completeExceptionally(e);
+        }
+        return flushed;
+    }
+
+    public @NotNull Path getPath() {
+        return path;
+    }
+
+    /**
+     * Writes all enqueued records and closes the capture and index file. Waits at most
+     * {@value #CLOSE_TIMEOUT_MILLIS} ms for the writer to finish.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(CLOSE_MARKER);
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        WRITERS.remove(path, this);
+    }
+
+    private void run() {
+        final List<Object> batch = new ArrayList<>();
+        long firstPendingNanos = 0;
+        boolean pending = false;
+        try {
+            while (true) {
+                final Object first;
+                if (pending) {
+                    final long remainingNanos = flushInterval.toNanos() - (System.nanoTime() - firstPendingNanos);
+                    first = remainingNanos > 0 ? queue.poll(remainingNanos, TimeUnit.NANOSECONDS) : null;
+                } else {
+                    first = queue.take();
+                }
+                if (first == null) {
+                    commit();
+                    pending = false;
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                boolean close = false;
+                for (final Object element : batch) {
+                    if (element == CLOSE_MARKER) {
+                        close = true;
+                        break;
+                    }
+                    if (element instanceof CompletableFuture) {
+                        commit();
+                        pending = false;
+                        ((CompletableFuture<?>) element).complete(null);
+                        continue;
+                    }
+                    if (!pending) {
+                        firstPendingNanos = System.nanoTime();
+                        pending = true;
+                    }
+                    append((CaptureRecord) element);
+                }
+                batch.clear();
+                if (close) {
+                    break;
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commit();
+        closeChannels();
+        // complete the flushes which were enqueued concurrently to closing the writer
+        queue.drainTo(batch);
+        for (final Object element : batch) {
+            if (element instanceof CompletableFuture) {
+                ((CompletableFuture<?>) element).complete(null);
+            }
+        }
+    }
+
+    private void append(final @NotNull CaptureRecord record) {
+        final ByteBuffer encoded;
+        try {
+            encoded = CaptureFormat.encode(withNonDecreasingTimestamp(record));
+        } catch (final IllegalArgumentException e) {
+            Logger.error("Cannot capture PUBLISH to topic '{}': {}", record.getTopic(), e.getMessage());
+            return;
+        }
+        try {
+            openChannels();
+            final long recordPosition = position;
+            final int length = encoded.remaining();
+            if (length > writeBuffer.remaining()) {
+                writeBuffers();
+            }
+            if (length > writeBuffer.capacity()) {
+                writeFully(encoded, channel);
+            } else {
+                writeBuffer.put(encoded);
+            }
+            position += length;
+            if (lastIndexedPosition < 0 || recordPosition - lastIndexedPosition >= INDEX_INTERVAL_BYTES) {
+                if (!indexBuffer.hasRemaining()) {
+                    writeBuffers();
+                }
+                indexBuffer.putLong(lastTimestamp).putLong(recordPosition);
+                lastIndexedPosition = recordPosition;
+            }
+        } catch (final IOException e) {
+            Logger.error("Cannot write to capture file {}: {}", path, e.getMessage());
+            closeChannels();
+        }
+    }
+
+    private void commit() {
+        final FileChannel channel = this.channel;
+        if (channel == null) {
+            return;
+        }
+        try {
+            writeBuffers();
+            if (fsyncPolicy == OutputFileWriter.FsyncPolicy.commit) {
+                channel.force(false);
+            }
+        } catch (final IOException e) {
+            Logger.error("Cannot write to capture file {}: {}", path, e.getMessage());
+            closeChannels();
+        }
+    }
+
+    private @NotNull CaptureRecord withNonDecreasingTimestamp(final @NotNull CaptureRecord record) {
+        if (record.getTimestamp() >= lastTimestamp) {
+            lastTimestamp = record.getTimestamp();
+            return record;
+        }
+        return new CaptureRecord(lastTimestamp,
+                record.getTopic(),
+                record.getQos(),
+                record.isRetain(),
+                record.getPayloadFormatIndicator(),
+                record.getMessageExpiryInterval(),
+                record.getContentType(),
+                record.getResponseTopic(),
+                record.getCorrelationData(),
+                record.getUserProperties(),
+                record.getPayload());
+    }
+
+    private void openChannels() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        final FileChannel channel =
+                FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            position = channel.size();
+            channel.position(position);
+            if (position == 0) {
+                writeFully(CaptureFormat.header(CaptureFormat.CAPTURE_MAGIC), channel);
+                position = CaptureFormat.HEADER_SIZE;
+            } else {
+                position = truncateToLastRecord(channel);
+            }
+            final FileChannel indexChannel = FileChannel.open(indexPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            try {
+                if (indexChannel.size() < CaptureFormat.HEADER_SIZE) {
+                    indexChannel.truncate(0);
+                    writeFully(CaptureFormat.header(CaptureFormat.INDEX_MAGIC), indexChannel);
+                } else {
+                    truncateIndex(indexChannel, position);
+                }
+            } catch (final IOException e) {
+                indexChannel.close();
+                throw e;
+            }
+            this.indexChannel = indexChannel;
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.channel = channel;
+        lastIndexedPosition = -1;
+    }
+
+    /**
+     * Removes a torn or corrupt record at the end of the capture, e.g. after a crash or a failed write, so that the
+     * appended records can be read again. The timestamps of the appended records continue after the last record.
+     *
+     * @return the end of the last complete record
+     */
+    private long truncateToLastRecord(final @NotNull FileChannel channel) throws IOException {
+        final long end;
+        final CaptureRecord last;
+        try (final CaptureReader reader = new CaptureReader(path)) {
+            last = reader.seekLast();
+            end = reader.getPosition();
+        }
+        if (last != null) {
+            lastTimestamp = Math.max(lastTimestamp, last.getTimestamp());
+        }
+        final long size = channel.size();
+        if (end < size) {
+            Logger.warn("Removing {} bytes of an incomplete record at the end of capture file {}", size - end, path);
+            channel.truncate(end);
+        }
+        channel.position(end);
+        return end;
+    }
+
+    /**
+     * Removes a torn last index entry and the entries which point to removed records, and positions the index channel
+     * at its end.
+     */
+    private static void truncateIndex(final @NotNull FileChannel indexChannel, final long captureEnd)
+            throws IOException {
+        long entries = (indexChannel.size() - CaptureFormat.HEADER_SIZE) / CaptureFormat.INDEX_ENTRY_SIZE;
+        final ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+        while (entries > 0) {
+            final long offsetPosition =
+                    CaptureFormat.HEADER_SIZE + (entries - 1) * CaptureFormat.INDEX_ENTRY_SIZE + Long.BYTES;
+            offset.clear();
+            while (offset.hasRemaining()) {
+                if (indexChannel.read(offset, offsetPosition + offset.position()) < 0) {
+                    throw new IOException("Unexpected end of capture index");
+                }
+            }
+            offset.flip();
+            if (offset.getLong() < captureEnd) {
+                break;
+            }
+            entries--;
+        }
+        final long indexEnd = CaptureFormat.HEADER_SIZE + entries * CaptureFormat.INDEX_ENTRY_SIZE;
+        if (indexEnd < indexChannel.size()) {
+            indexChannel.truncate(indexEnd);
+        }
+        indexChannel.position(indexEnd);
+    }
+
+    private void writeBuffers() throws IOException {
+        final FileChannel channel = this.channel;
+        final FileChannel indexChannel = this.indexChannel;
+        if (channel == null || indexChannel == null) {
+            return;
+        }
+        writeBuffer.flip();
+        try {
+            writeFully(writeBuffer, channel);
+        } finally {
+            writeBuffer.clear();
+        }
+        // index entries are written after the records they point to
+        indexBuffer.flip();
+        try {
+            writeFully(indexBuffer, indexChannel);
+        } finally {
+            indexBuffer.clear();
+        }
+    }
+
+    private static void writeFully(final @NotNull ByteBuffer buffer, final @Nullable FileChannel channel)
+            throws IOException {
+        if (channel == null) {
+            throw new IOException("Capture file is not open");
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeChannels() {
+        final FileChannel channel = this.channel;
+        final FileChannel indexChannel = this.indexChannel;
+        this.channel = null;
+        this.indexChannel = null;
+        writeBuffer.clear();
+        indexBuffer.clear();
+        try {
+            if (channel != null) {
+                if (fsyncPolicy != OutputFileWriter.FsyncPolicy.never) {
+                    channel.force(false);
+                }
+                channel.close();
+            }
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+        } catch (final IOException e) {
+            Logger.error("Cannot close capture file {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.regex.Pattern;
+
+/**
+ * Replaces every match of a regular expression in a topic, e.g. <code>^prod/</code> with <code>staging/</code>.
+ */
+public class TopicRewrite {
+
+    private final @NotNull Pattern pattern;
+    private final @NotNull String replacement;
+
+    public TopicRewrite(final @NotNull Pattern pattern, final @NotNull String replacement) {
+        this.pattern = pattern;
+        this.replacement = replacement;
+    }
+
+    public @NotNull String apply(final @NotNull String topic) {
+        return pattern.matcher(topic).replaceAll(replacement);
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "TopicRewrite{" + "pattern=" + pattern + ", replacement='" + replacement + '\'' + '}';
+    }
+}
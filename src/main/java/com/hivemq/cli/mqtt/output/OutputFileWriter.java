@@ -0,0 +1,459 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.output;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends received messages to an output file without blocking the MQTT client callback threads on disk I/O.
+ * <p>
+ * Messages are handed over through a bounded queue to a single writer thread which keeps the file channel open and
+ * writes messages in groups: a group is committed when the write buffer is full, when the queue runs empty, or - if a
+ * flush interval is configured - when the interval elapsed since the first uncommitted message. If the queue is full,
+ * enqueuing blocks, which applies backpressure to the incoming publishes instead of growing the heap.
+ * <p>
+ * There is one writer per output file and process, so multiple subscriptions writing to the same file share it.
+ * <p>
+ * If a rotation size or interval is configured, the output file is rolled over before a message would exceed the size
+ * or once the interval elapsed since the segment was started. The closed segment is renamed to
+ * <code>name-yyyyMMdd-HHmmss.ext</code> and optionally compressed on a background thread, while new messages are
+ * written to a fresh file under the original name. Rotation only happens between messages, so no message is split
+ * across segments, and the interval is only checked when a message is written.
+ */
+public class OutputFileWriter implements AutoCloseable {
+
+    public enum FsyncPolicy {
+        /**
+         * Leave flushing the written data to the storage device to the operating system.
+         */
+        never,
+        /**
+         * Force the written data to the storage device when the writer is closed.
+         */
+        close,
+        /**
+         * Force the written data to the storage device after every group commit.
+         */
+        commit
+    }
+
+    public enum Compression {
+        /**
+         * Keep rotated segments uncompressed.
+         */
+        none,
+        /**
+         * Compress rotated segments with gzip.
+         */
+        gzip
+    }
+
+    private static final int QUEUE_CAPACITY = 16_384;
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+    private static final long COMPRESSION_TIMEOUT_MILLIS = 120_000;
+    private static final int COMPRESSION_BUFFER_SIZE = 64 * 1024;
+    private static final @NotNull DateTimeFormatter SEGMENT_TIMESTAMP_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final byte @NotNull [] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final @NotNull Object CLOSE_MARKER = new Object();
+
+    private static final @NotNull Map<Path, OutputFileWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private final @NotNull Path path;
+    private final @Nullable Duration flushInterval;
+    private final @NotNull FsyncPolicy fsyncPolicy;
+    private final @Nullable Long rotateSize;
+    private final @Nullable Duration rotateInterval;
+    private final @NotNull BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final @NotNull ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final @NotNull Thread writerThread;
+    private @Nullable ExecutorService compressionExecutor;
+    private @Nullable FileChannel channel;
+    private long segmentSize;
+    private long segmentStartNanos;
+    private volatile boolean closed;
+
+    /**
+     * Returns the writer for the given file, creating and starting it on first use. The flush, fsync, rotation and
+     * compression settings of the first caller apply to all later callers for the same file.
+     */
+    public static @NotNull OutputFileWriter of(
+            final @NotNull File file,
+            final @Nullable Duration flushInterval,
+            final @NotNull FsyncPolicy fsyncPolicy,
+            final @Nullable Long rotateSize,
+            final @Nullable Duration rotateInterval,
+            final @NotNull Compression compression) {
+        final Path path = file.toPath().toAbsolutePath().normalize();
+        return WRITERS.computeIfAbsent(path,
+                p -> new OutputFileWriter(p, flushInterval, fsyncPolicy, rotateSize, rotateInterval, compression));
+    }
+
+    public static void closeAll() {
+        for (final OutputFileWriter writer : WRITERS.values()) {
+            writer.close();
+        }
+        WRITERS.clear();
+    }
+
+    OutputFileWriter(
+            final @NotNull Path path, final @Nullable Duration flushInterval, final @NotNull FsyncPolicy fsyncPolicy) {
+        this(path, flushInterval, fsyncPolicy, null, null, Compression.none);
+    }
+
+    OutputFileWriter(
+            final @NotNull Path path,
+            final @Nullable Duration flushInterval,
+            final @NotNull FsyncPolicy fsyncPolicy,
+            final @Nullable Long rotateSize,
+            final @Nullable Duration rotateInterval,
+            final @NotNull Compression compression) {
+        this.path = path;
+        this.flushInterval = flushInterval;
+        this.fsyncPolicy = fsyncPolicy;
+        this.rotateSize = rotateSize;
+        this.rotateInterval = rotateInterval;
+        if (compression != Compression.none && (rotateSize != null || rotateInterval != null)) {
+            compressionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "output-file-compressor-" + path.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        writerThread = new Thread(this::run, "output-file-writer-" + path.getFileName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Enqueues a message to be appended as a line to the output file. Blocks if the writer is lagging behind by more
+     * than the queue capacity.
+     */
+    public void write(final @NotNull String message) {
+        if (closed) {
+            Logger.debug("Cannot write to closed output file {}", path);
+            return;
+        }
+        try {
+            queue.put(message);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Logger.error("Interrupted while writing to output file {}", path);
+        }
+    }
+
+    /**
+     * Commits all messages enqueued before this call, forcing them to the storage device if the fsync policy is
+     * {@link FsyncPolicy#commit}.
+     *
+     * @return a future which completes once the messages are committed, in the order of the flush calls
+     */
+    public @NotNull CompletableFuture<Void> flush() {
+        final CompletableFuture<Void> committed = new CompletableFuture<>();
+        if (closed) {
+            committed.complete(null);
+            return committed;
+        }
+        try {
+            queue.put(committed);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            committed.completeExceptionally(e);
+        }
+        return committed;
+    }
+
+    public @NotNull Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the number of messages which are enqueued but not yet written
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Writes all enqueued messages and closes the file. Waits at most {@value #CLOSE_TIMEOUT_MILLIS} ms for the
+     * writer and at most {@value #COMPRESSION_TIMEOUT_MILLIS} ms for pending segment compressions to finish.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(CLOSE_MARKER);
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+            final ExecutorService compressionExecutor = this.compressionExecutor;
+            if (compressionExecutor != null) {
+                compressionExecutor.shutdown();
+                if (!compressionExecutor.awaitTermination(COMPRESSION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    Logger.warn("Compression of rotated output files of {} did not finish in time", path);
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        WRITERS.remove(path, this);
+    }
+
+    private void run() {
+        final List<Object> batch = new ArrayList<>();
+        long firstPendingNanos = 0;
+        boolean pending = false;
+        startSegment();
+        try {
+            while (true) {
+                final Object first;
+                if (pending && flushInterval != null) {
+                    final long remainingNanos = flushInterval.toNanos() - (System.nanoTime() - firstPendingNanos);
+                    first = remainingNanos > 0 ? queue.poll(remainingNanos, TimeUnit.NANOSECONDS) : null;
+                } else if (pending) {
+                    first = queue.poll();
+                } else {
+                    first = queue.take();
+                }
+                if (first == null) {
+                    commit();
+                    pending = false;
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                boolean close = false;
+                for (final Object element : batch) {
+                    if (element == CLOSE_MARKER) {
+                        close = true;
+                        break;
+                    }
+                    if (element instanceof CompletableFuture) {
+                        commit();
+                        pending = false;
+                        ((CompletableFuture<?>) element).complete(null);
+                        continue;
+                    }
+                    if (!pending) {
+                        firstPendingNanos = System.nanoTime();
+                        pending = true;
+                    }
+                    final byte[] bytes = ((String) element).getBytes(StandardCharsets.UTF_8);
+                    final long length = bytes.length + LINE_SEPARATOR.length;
+                    if (isRotationDue(length)) {
+                        rotate();
+                    }
+                    append(bytes);
+                    append(LINE_SEPARATOR);
+                    segmentSize += length;
+                }
+                batch.clear();
+                if (close) {
+                    commit();
+                    closeChannel();
+                    return;
+                }
+            }
+        } catch (final InterruptedException e) {
+            commit();
+            closeChannel();
+        }
+    }
+
+    private void startSegment() {
+        try {
+            segmentSize = Files.exists(path) ? Files.size(path) : 0;
+        } catch (final IOException e) {
+            segmentSize = 0;
+        }
+        segmentStartNanos = System.nanoTime();
+    }
+
+    private boolean isRotationDue(final long length) {
+        if (segmentSize == 0) {
+            return false;
+        }
+        if (rotateSize != null && segmentSize + length > rotateSize) {
+            return true;
+        }
+        return rotateInterval != null && System.nanoTime() - segmentStartNanos >= rotateInterval.toNanos();
+    }
+
+    private void rotate() {
+        commit();
+        closeChannel();
+        segmentSize = 0;
+        segmentStartNanos = System.nanoTime();
+        if (!Files.exists(path)) {
+            return;
+        }
+        final Path segment;
+        try {
+            segment = segmentPath(path, LocalDateTime.now());
+            Files.move(path, segment);
+        } catch (final IOException e) {
+            Logger.error("Cannot rotate output file {}: {}", path, e.getMessage());
+            startSegment();
+            return;
+        }
+        Logger.debug("Rotated output file {} to {}", path, segment);
+        final ExecutorService compressionExecutor = this.compressionExecutor;
+        if (compressionExecutor != null) {
+            compressionExecutor.execute(() -> compress(segment));
+        }
+    }
+
+    static @NotNull Path segmentPath(final @NotNull Path path, final @NotNull LocalDateTime time) {
+        final String fileName = path.getFileName().toString();
+        final int extensionIndex = fileName.lastIndexOf('.');
+        final String baseName = extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+        final String extension = extensionIndex > 0 ? fileName.substring(extensionIndex) : "";
+        final String segmentName = baseName + "-" + SEGMENT_TIMESTAMP_FORMATTER.format(time);
+        Path segment = path.resolveSibling(segmentName + extension);
+        int index = 1;
+        while (Files.exists(segment) || Files.exists(segment.resolveSibling(segment.getFileName() + ".gz"))) {
+            segment = path.resolveSibling(segmentName + "-" + index++ + extension);
+        }
+        return segment;
+    }
+
+    private void compress(final @NotNull Path segment) {
+        final Path compressed = segment.resolveSibling(segment.getFileName() + ".gz");
+        final Path temporary = segment.resolveSibling(segment.getFileName() + ".gz.tmp");
+        try {
+            try (final InputStream in = Files.newInputStream(segment);
+                 final OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary),
+                         COMPRESSION_BUFFER_SIZE)) {
+                final byte[] buffer = new byte[COMPRESSION_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            Files.move(temporary, compressed, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(segment);
+            Logger.debug("Compressed rotated output file {} to {}", segment, compressed);
+        } catch (final IOException e) {
+            Logger.error("Cannot compress rotated output file {}: {}", segment, e.getMessage());
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (final IOException ignored) {
+            }
+        }
+    }
+
+    private void append(final byte @NotNull [] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!writeBuffer.hasRemaining()) {
+                writeBufferToChannel();
+            }
+            final int length = Math.min(writeBuffer.remaining(), bytes.length - offset);
+            writeBuffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void commit() {
+        writeBufferToChannel();
+        if (fsyncPolicy == FsyncPolicy.commit && channel != null) {
+            try {
+                channel.force(false);
+            } catch (final IOException e) {
+                Logger.error("Cannot sync output file {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private void writeBufferToChannel() {
+        writeBuffer.flip();
+        try {
+            if (writeBuffer.hasRemaining()) {
+                final FileChannel channel = openChannel();
+                while (writeBuffer.hasRemaining()) {
+                    channel.write(writeBuffer);
+                }
+            }
+        } catch (final IOException e) {
+            Logger.error("Cannot write to output file {}: {}", path, e.getMessage());
+            closeChannel();
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
+    private @NotNull FileChannel openChannel() throws IOException {
+        // Re-create a deleted output file if it was deleted manually
+        if (channel != null && !Files.exists(path)) {
+            Logger.debug("Re-created deleted output file {}", path);
+            closeChannel();
+        }
+        if (channel == null) {
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private void closeChannel() {
+        final FileChannel channel = this.channel;
+        if (channel == null) {
+            return;
+        }
+        this.channel = null;
+        try {
+            if (fsyncPolicy != FsyncPolicy.never) {
+                channel.force(false);
+            }
+            channel.close();
+        } catch (final IOException e) {
+            Logger.error("Cannot close output file {}: {}", path, e.getMessage());
+        }
+    }
+}
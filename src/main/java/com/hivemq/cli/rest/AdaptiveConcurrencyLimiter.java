@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.rest;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Limits the number of concurrent requests to a REST API and adapts the limit to the load of the server (additive
+ * increase, multiplicative decrease).
+ * <p>
+ * The limit starts with a slow start phase, in which it grows by one for every successful request, and afterwards
+ * grows by one per limit of successful requests. It is halved when the server signals overload (e.g. HTTP 429 or 503)
+ * and reduced slightly when the smoothed latency exceeds twice the lowest recently observed latency. Only requests which
+ * were started after the last decrease can decrease the limit again, so a burst of failures of requests sent at the
+ * same time only counts once. A server can additionally pause all requests, e.g. with a <code>Retry-After</code>
+ * header.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double OVERLOAD_DECREASE_FACTOR = 0.5;
+    private static final double LATENCY_DECREASE_FACTOR = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double LATENCY_SMOOTHING = 0.1;
+    private static final int LATENCY_WINDOW_SIZE = 500;
+    private static final int MIN_LIMIT = 1;
+
+    private final int maxLimit;
+    private double limit;
+    private boolean slowStart = true;
+    private int inFlight;
+    private long lastDecreaseNanos;
+    private long pausedUntilNanos;
+    private double smoothedLatencyNanos = -1;
+    private long windowMinLatencyNanos = Long.MAX_VALUE;
+    private long previousWindowMinLatencyNanos = Long.MAX_VALUE;
+    private int windowSamples;
+
+    public AdaptiveConcurrencyLimiter(final int initialLimit, final int maxLimit) {
+        this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+        this.limit = Math.max(MIN_LIMIT, Math.min(initialLimit, this.maxLimit));
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * Blocks until a request may be started.
+     *
+     * @return the start time of the request which must be passed to one of the release methods
+     */
+    public synchronized long acquire() throws InterruptedException {
+        while (true) {
+            final long pausedNanos = pausedUntilNanos - System.nanoTime();
+            if (pausedNanos > 0) {
+                wait(Math.max(1, pausedNanos / 1_000_000));
+            } else if (inFlight >= (int) limit) {
+                wait();
+            } else {
+                inFlight++;
+                return System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Releases a successful request and increases the limit unless the latency indicates that the server is saturated.
+     */
+    public synchronized void onSuccess(final long startNanos) {
+        final long now = System.nanoTime();
+        release();
+        final long latencyNanos = now - startNanos;
+        updateLatency(latencyNanos);
+        final long baselineNanos = Math.min(windowMinLatencyNanos, previousWindowMinLatencyNanos);
+        if (smoothedLatencyNanos > baselineNanos * LATENCY_TOLERANCE) {
+            decrease(startNanos, now, LATENCY_DECREASE_FACTOR);
+        } else if (inFlight + 1 >= (int) limit) {
+            // only grow if the limit is actually used
+            limit = Math.min(maxLimit, limit + (slowStart ? 1 : 1 / limit));
+        }
+    }
+
+    /**
+     * Releases a request which the server rejected because of overload and decreases the limit.
+     */
+    public synchronized void onOverload(final long startNanos) {
+        release();
+        decrease(startNanos, System.nanoTime(), OVERLOAD_DECREASE_FACTOR);
+    }
+
+    /**
+     * Releases a request without adapting the limit, e.g. if it failed for reasons unrelated to the server load.
+     */
+    public synchronized void onIgnore(final long startNanos) {
+        release();
+    }
+
+    /**
+     * Delays all requests which are not started yet by the given duration.
+     */
+    public synchronized void pause(final @NotNull Duration duration) {
+        pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + duration.toNanos());
+    }
+
+    /**
+     * Blocks until all started requests are released.
+     */
+    public synchronized void awaitIdle() throws InterruptedException {
+        while (inFlight > 0) {
+            wait();
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Parses the value of a <code>Retry-After</code> header, which is either a number of seconds or an HTTP date.
+     *
+     * @return the time to wait or null if the header is missing or invalid
+     */
+    public static @Nullable Duration parseRetryAfter(
+            final @Nullable Map<String, List<String>> headers, final @NotNull ZonedDateTime now) {
+        if (headers == null) {
+            return null;
+        }
+        for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if ("Retry-After".equalsIgnoreCase(header.getKey()) && header.getValue() != null &&
+                    !header.getValue().isEmpty()) {
+                return parseRetryAfter(header.getValue().get(0).trim(), now);
+            }
+        }
+        return null;
+    }
+
+    private static @Nullable Duration parseRetryAfter(final @NotNull String value, final @NotNull ZonedDateTime now) {
+        try {
+            final long seconds = Long.parseLong(value);
+            return seconds < 0 ? null : Duration.ofSeconds(seconds);
+        } catch (final NumberFormatException ignored) {
+        }
+        try {
+            final Duration duration =
+                    Duration.between(now, ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return duration.isNegative() ? Duration.ZERO : duration;
+        } catch (final DateTimeParseException ignored) {
+            return null;
+        }
+    }
+
+    private void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    private void decrease(final long startNanos, final long now, final double factor) {
+        slowStart = false;
+        if (startNanos - lastDecreaseNanos < 0) {
+            return;
+        }
+        limit = Math.max(MIN_LIMIT, limit * factor);
+        lastDecreaseNanos = now;
+    }
+
+    private void updateLatency(final long latencyNanos) {
+        smoothedLatencyNanos = smoothedLatencyNanos < 0 ?
+                latencyNanos :
+                smoothedLatencyNanos + LATENCY_SMOOTHING * (latencyNanos - smoothedLatencyNanos);
+        windowMinLatencyNanos = Math.min(windowMinLatencyNanos, latencyNanos);
+        if (++windowSamples >= LATENCY_WINDOW_SIZE) {
+            previousWindowMinLatencyNanos = windowMinLatencyNanos;
+            windowMinLatencyNanos = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+    }
+}
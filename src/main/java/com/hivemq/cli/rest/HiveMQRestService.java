@@ -19,71 +19,123 @@ package com.hivemq.cli.rest;
 import com.google.gson.Gson;
 import com.google.gson.ToNumberPolicy;
 import com.hivemq.cli.openapi.ApiClient;
-import com.hivemq.cli.openapi.Configuration;
 import com.hivemq.cli.openapi.hivemq.DataHubBehaviorPoliciesApi;
 import com.hivemq.cli.openapi.hivemq.DataHubDataPoliciesApi;
 import com.hivemq.cli.openapi.hivemq.DataHubSchemasApi;
 import com.hivemq.cli.openapi.hivemq.DataHubScriptsApi;
 import com.hivemq.cli.openapi.hivemq.DataHubStateApi;
 import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.jetbrains.annotations.NotNull;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Provides the HiveMQ REST APIs. All APIs share one HTTP client, so that the connection pool, the dispatcher and the
+ * HTTP/2 connections are reused across commands. The APIs for the same base URL and rate limit share one
+ * {@link ApiClient} and therefore one rate limit.
+ * <p>
+ * Responses are transparently gzip compressed, as OkHttp requests gzip encoding if no other encoding is set.
+ */
 @Singleton
 public class HiveMQRestService {
 
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 64;
+
     private static final long CONNECT_TIMEOUT = 60;
+    private static final int MAX_IDLE_CONNECTIONS = 32;
+    private static final long KEEP_ALIVE_DURATION = 5;
+
+    private final @NotNull OkHttpClient httpClient;
+    private final @NotNull ConcurrentMap<String, ApiClient> apiClients = new ConcurrentHashMap<>();
 
     @Inject
     public HiveMQRestService() {
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(DEFAULT_MAX_REQUESTS_PER_HOST);
+        dispatcher.setMaxRequestsPerHost(DEFAULT_MAX_REQUESTS_PER_HOST);
+        httpClient = new OkHttpClient.Builder().connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .build();
     }
 
     public @NotNull MqttClientsApi getMqttClientsApi(
             final @NotNull String host, final double requestPerSecondLimit) {
-        final ApiClient apiClient = buildApiClient(host, requestPerSecondLimit);
+        final ApiClient apiClient = getApiClient(host, requestPerSecondLimit);
         return new MqttClientsApi(apiClient);
     }
 
+    /**
+     * @param maxConcurrentRequests the number of concurrent asynchronous requests the HTTP client must allow per host
+     */
+    public @NotNull MqttClientsApi getMqttClientsApi(
+            final @NotNull String host, final double requestPerSecondLimit, final int maxConcurrentRequests) {
+        ensureMaxRequestsPerHost(maxConcurrentRequests);
+        return getMqttClientsApi(host, requestPerSecondLimit);
+    }
+
     public @NotNull DataHubDataPoliciesApi getDataPoliciesApi(
             final @NotNull String host, final double requestPerSecondLimit) {
-        final ApiClient apiClient = buildApiClient(host, requestPerSecondLimit);
+        final ApiClient apiClient = getApiClient(host, requestPerSecondLimit);
         return new DataHubDataPoliciesApi(apiClient);
     }
 
     public @NotNull DataHubBehaviorPoliciesApi getBehaviorPoliciesApi(
             final @NotNull String host, final double requestPerSecondLimit) {
-        final ApiClient apiClient = buildApiClient(host, requestPerSecondLimit);
+        final ApiClient apiClient = getApiClient(host, requestPerSecondLimit);
         return new DataHubBehaviorPoliciesApi(apiClient);
     }
 
     public @NotNull DataHubStateApi getBehaviorStateApi(
             final @NotNull String host, final double requestPerSecondLimit) {
-        final ApiClient apiClient = buildApiClient(host, requestPerSecondLimit);
+        final ApiClient apiClient = getApiClient(host, requestPerSecondLimit);
         return new DataHubStateApi(apiClient);
     }
 
     public @NotNull DataHubSchemasApi getSchemasApi(
             final @NotNull String host, final double requestPerSecondLimit) {
-        final ApiClient apiClient = buildApiClient(host, requestPerSecondLimit);
+        final ApiClient apiClient = getApiClient(host, requestPerSecondLimit);
         return new DataHubSchemasApi(apiClient);
     }
 
     public @NotNull DataHubScriptsApi getScriptsApi(
             final @NotNull String host, final double requestPerSecondLimit) {
-        final ApiClient apiClient = buildApiClient(host, requestPerSecondLimit);
+        final ApiClient apiClient = getApiClient(host, requestPerSecondLimit);
         return new DataHubScriptsApi(apiClient);
     }
 
-    private static @NotNull ApiClient buildApiClient(final @NotNull String host, final double requestsPerSecondLimit) {
-        final OkHttpClient okHttpClient = new OkHttpClient.Builder().connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
-                .addInterceptor(new RateLimitInterceptor(requestsPerSecondLimit))
-                .build();
-        final ApiClient apiClient = Configuration.getDefaultApiClient();
-        apiClient.setHttpClient(okHttpClient);
+    private void ensureMaxRequestsPerHost(final int maxRequestsPerHost) {
+        final Dispatcher dispatcher = httpClient.dispatcher();
+        synchronized (dispatcher) {
+            if (dispatcher.getMaxRequests() < maxRequestsPerHost) {
+                dispatcher.setMaxRequests(maxRequestsPerHost);
+            }
+            if (dispatcher.getMaxRequestsPerHost() < maxRequestsPerHost) {
+                dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+            }
+        }
+    }
+
+    private @NotNull ApiClient getApiClient(final @NotNull String host, final double requestsPerSecondLimit) {
+        return apiClients.computeIfAbsent(host + " " + requestsPerSecondLimit,
+                key -> buildApiClient(host, requestsPerSecondLimit));
+    }
+
+    private @NotNull ApiClient buildApiClient(final @NotNull String host, final double requestsPerSecondLimit) {
+        // the derived client shares the connection pool and the dispatcher of the shared client
+        final OkHttpClient okHttpClient =
+                httpClient.newBuilder().addInterceptor(new RateLimitInterceptor(requestsPerSecondLimit)).build();
+        final ApiClient apiClient = new ApiClient(okHttpClient);
         apiClient.setBasePath(host);
         final Gson gson = apiClient.getJSON()
                 .getGson()
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.rest;
+
+import com.hivemq.cli.openapi.ApiException;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiPaginationCursor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Iterates over the items of a paginated HiveMQ REST API resource.
+ * <p>
+ * The cursor of the next page is taken from the next link of every page. With prefetching enabled, the next page is
+ * requested as soon as the current page was received, so that it is transferred while the caller is still processing
+ * the items of the current page. Pages are still requested one after another, as every cursor is only known once the
+ * previous page was received.
+ * <p>
+ * Unlike {@link Iterator}, the methods propagate the {@link ApiException} of a failed page request.
+ *
+ * @param <T> the type of the items
+ */
+public class PaginatedIterator<T> implements AutoCloseable {
+
+    private static final @NotNull Pattern CURSOR_PATTERN = Pattern.compile("cursor=([^&]*)");
+    private static final @NotNull Executor PREFETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "rest-page-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @FunctionalInterface
+    public interface PageRequest<T> {
+
+        /**
+         * @param cursor the cursor of the requested page or null for the first page
+         */
+        @NotNull Page<T> fetch(@Nullable String cursor) throws ApiException;
+    }
+
+    public static class Page<T> {
+
+        private final @NotNull List<T> items;
+        private final @Nullable String nextCursor;
+
+        public Page(final @Nullable List<T> items, final @Nullable HivemqOpenapiPaginationCursor links) {
+            this.items = items == null ? Collections.emptyList() : items;
+            this.nextCursor = links == null ? null : cursorOf(links.getNext());
+        }
+    }
+
+    private final @NotNull PageRequest<T> pageRequest;
+    private final boolean prefetch;
+    private final @NotNull Executor executor;
+    private @NotNull Iterator<T> items = Collections.emptyIterator();
+    private @Nullable CompletableFuture<Page<T>> nextPage;
+    private @Nullable String nextPageCursor;
+    private @Nullable String nextCursor;
+    private @Nullable String pageCursor;
+    private boolean firstPage = true;
+    private long pageCount;
+
+    public PaginatedIterator(final @NotNull PageRequest<T> pageRequest, final boolean prefetch) {
+        this(pageRequest, prefetch, PREFETCH_EXECUTOR);
+    }
+
+    public PaginatedIterator(
+            final @NotNull PageRequest<T> pageRequest, final boolean prefetch, final @NotNull Executor executor) {
+        this(pageRequest, prefetch, executor, null);
+    }
+
+    /**
+     * @param startCursor the cursor of the first requested page, e.g. to continue an earlier iteration, or null to
+     *                    start with the first page
+     */
+    public PaginatedIterator(
+            final @NotNull PageRequest<T> pageRequest,
+            final boolean prefetch,
+            final @NotNull Executor executor,
+            final @Nullable String startCursor) {
+        this.pageRequest = pageRequest;
+        this.prefetch = prefetch;
+        this.executor = executor;
+        this.nextCursor = startCursor;
+    }
+
+    public static @NotNull Executor prefetchExecutor() {
+        return PREFETCH_EXECUTOR;
+    }
+
+    /**
+     * @return the cursor contained in the given next link or null if there is no next page
+     */
+    public static @Nullable String cursorOf(final @Nullable String nextLink) {
+        if (nextLink == null) {
+            return null;
+        }
+        final Matcher matcher = CURSOR_PATTERN.matcher(nextLink);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Requests pages until one with items is received or the last page is reached.
+     */
+    public boolean hasNext() throws ApiException {
+        while (!items.hasNext()) {
+            if (!fetchNextPage()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public @NotNull T next() throws ApiException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return items.next();
+    }
+
+    /**
+     * @return the cursor the page of the last returned item was requested with or null for the first page
+     */
+    public @Nullable String getPageCursor() {
+        return pageCursor;
+    }
+
+    /**
+     * @return the number of pages received so far
+     */
+    public long getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Discards a prefetched page which was not consumed.
+     */
+    @Override
+    public void close() {
+        final CompletableFuture<Page<T>> nextPage = this.nextPage;
+        if (nextPage != null) {
+            nextPage.cancel(false);
+            this.nextPage = null;
+        }
+    }
+
+    private boolean fetchNextPage() throws ApiException {
+        final Page<T> page;
+        final String cursor;
+        if (nextPage != null) {
+            cursor = nextPageCursor;
+            page = await(nextPage);
+            nextPage = null;
+        } else if (firstPage || nextCursor != null) {
+            cursor = nextCursor;
+            page = pageRequest.fetch(cursor);
+        } else {
+            return false;
+        }
+        firstPage = false;
+        pageCount++;
+        pageCursor = cursor;
+        items = page.items.iterator();
+        nextCursor = page.nextCursor;
+        if (prefetch && nextCursor != null) {
+            final String prefetchCursor = nextCursor;
+            nextCursor = null;
+            nextPageCursor = prefetchCursor;
+            nextPage = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return pageRequest.fetch(prefetchCursor);
+                } catch (final ApiException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+        return true;
+    }
+
+    private @NotNull Page<T> await(final @NotNull CompletableFuture<Page<T>> page) throws ApiException {
+        try {
+            return page.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ApiException) {
+                throw (ApiException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+}
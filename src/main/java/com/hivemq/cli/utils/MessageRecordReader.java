@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads message payloads one record at a time from a stream, so that arbitrarily large files or pipes can be
+ * published without loading them into memory. Records are only read when the caller asks for the next one, which
+ * propagates the backpressure of the publish window to the input.
+ * <p>
+ * No record may exceed the maximum MQTT payload size, so a file without line breaks is rejected instead of being read
+ * into the heap as a whole.
+ */
+public class MessageRecordReader implements Closeable {
+
+    /**
+     * The maximum payload size of an MQTT PUBLISH packet.
+     */
+    private static final int MAX_RECORD_SIZE = 268_435_455;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_LINE_CAPACITY = 256;
+
+    public enum RecordFormat {
+        /**
+         * Every line (terminated by \n or \r\n) is a record.
+         */
+        lines,
+        /**
+         * Every record is prefixed with its length as a 4 byte big-endian unsigned integer.
+         */
+        lengthPrefixed
+    }
+
+    private final @NotNull InputStream inputStream;
+    private final @NotNull RecordFormat recordFormat;
+    private final int maxRecordSize;
+    private final byte @NotNull [] readBuffer = new byte[READ_BUFFER_SIZE];
+    private int readPosition;
+    private int readLimit;
+    private long recordCount;
+
+    public MessageRecordReader(final @NotNull InputStream inputStream, final @NotNull RecordFormat recordFormat) {
+        this(inputStream, recordFormat, MAX_RECORD_SIZE);
+    }
+
+    MessageRecordReader(
+            final @NotNull InputStream inputStream, final @NotNull RecordFormat recordFormat, final int maxRecordSize) {
+        this.inputStream = inputStream;
+        this.recordFormat = recordFormat;
+        this.maxRecordSize = maxRecordSize;
+    }
+
+    /**
+     * @return the next record or null if the end of the stream is reached
+     * @throws IOException if reading fails or a record is truncated or too large
+     */
+    public @Nullable ByteBuffer next() throws IOException {
+        final ByteBuffer record;
+        switch (recordFormat) {
+            case lines:
+                record = nextLine();
+                break;
+            case lengthPrefixed:
+                record = nextLengthPrefixed();
+                break;
+            default:
+                throw new IllegalStateException("Unknown record format " + recordFormat);
+        }
+        if (record != null) {
+            recordCount++;
+        }
+        return record;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    private @Nullable ByteBuffer nextLine() throws IOException {
+        if (!fillReadBuffer()) {
+            return null;
+        }
+        byte[] line = null;
+        int lineLength = 0;
+        boolean terminated = false;
+        do {
+            int end = readPosition;
+            while (end < readLimit && readBuffer[end] != '\n') {
+                end++;
+            }
+            final int chunkLength = end - readPosition;
+            // a line may be followed by \r before the \n, which is not part of the record
+            if ((long) lineLength + chunkLength > (long) maxRecordSize + 1) {
+                throw lineTooLarge();
+            }
+            terminated = end < readLimit;
+            if (line == null) {
+                // a line which is terminated in the read buffer is copied exactly once
+                line = new byte[terminated ? chunkLength : Math.max(INITIAL_LINE_CAPACITY, chunkLength)];
+            } else if (lineLength + chunkLength > line.length) {
+                final long grownCapacity = Math.max((long) lineLength + chunkLength, 2L * line.length);
+                line = Arrays.copyOf(line, (int) Math.min(grownCapacity, (long) maxRecordSize + 1));
+            }
+            System.arraycopy(readBuffer, readPosition, line, lineLength, chunkLength);
+            lineLength += chunkLength;
+            readPosition = terminated ? end + 1 : end;
+        } while (!terminated && fillReadBuffer());
+
+        final int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+        if (length > maxRecordSize) {
+            throw lineTooLarge();
+        }
+        return ByteBuffer.wrap(line, 0, length).slice();
+    }
+
+    private @Nullable ByteBuffer nextLengthPrefixed() throws IOException {
+        if (!fillReadBuffer()) {
+            return null;
+        }
+        long length = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            if (!fillReadBuffer()) {
+                throw new IOException("The length of record " + (recordCount + 1) + " is truncated");
+            }
+            length = (length << 8) | (readBuffer[readPosition++] & 0xFF);
+        }
+        if (length > maxRecordSize) {
+            throw new IOException("Record " + (recordCount + 1) + " exceeds the maximum MQTT payload size of " +
+                    maxRecordSize + " bytes with " + length + " bytes");
+        }
+        final byte[] record = new byte[(int) length];
+        int offset = 0;
+        while (offset < record.length) {
+            final int read;
+            if (readPosition < readLimit) {
+                read = Math.min(readLimit - readPosition, record.length - offset);
+                System.arraycopy(readBuffer, readPosition, record, offset, read);
+                readPosition += read;
+            } else {
+                // large records are read directly without copying them through the read buffer
+                read = inputStream.read(record, offset, record.length - offset);
+                if (read == -1) {
+                    throw new IOException("Record " + (recordCount + 1) + " is truncated, expected " + length +
+                            " bytes");
+                }
+            }
+            offset += read;
+        }
+        return ByteBuffer.wrap(record);
+    }
+
+    /**
+     * @return false if the end of the stream is reached and no bytes are left in the read buffer
+     */
+    private boolean fillReadBuffer() throws IOException {
+        if (readPosition < readLimit) {
+            return true;
+        }
+        readPosition = 0;
+        readLimit = 0;
+        int read;
+        do {
+            read = inputStream.read(readBuffer, 0, readBuffer.length);
+        } while (read == 0);
+        if (read == -1) {
+            return false;
+        }
+        readLimit = read;
+        return true;
+    }
+
+    private @NotNull IOException lineTooLarge() {
+        return new IOException("Record " + (recordCount + 1) + " exceeds the maximum MQTT payload size of " +
+                maxRecordSize + " bytes without a line break");
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
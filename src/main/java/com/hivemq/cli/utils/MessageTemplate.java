@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A topic or payload template which is rendered for every message of a bulk publish.
+ * <p>
+ * Supported placeholders are <code>{seq}</code> (the sequence number of the message starting at 0),
+ * <code>{ts}</code> (the current epoch milliseconds), <code>{uuid}</code> (a random UUID) and
+ * <code>{random:N}</code> (N random bytes, rendered as 2N hex characters inside of topics).
+ * Unknown placeholders are kept as they are.
+ */
+public class MessageTemplate {
+
+    private static final @NotNull String RANDOM_PREFIX = "random:";
+    private static final char @NotNull [] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final @NotNull List<Segment> segments;
+    private final boolean constant;
+
+    private MessageTemplate(final @NotNull List<Segment> segments) {
+        this.segments = segments;
+        this.constant = segments.size() <= 1 && (segments.isEmpty() || segments.get(0).type == SegmentType.LITERAL);
+    }
+
+    public static @NotNull MessageTemplate of(final @NotNull String template) {
+        return of(template.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static @NotNull MessageTemplate of(final @NotNull ByteBuffer template) {
+        final ByteBuffer duplicate = template.duplicate();
+        final byte[] bytes = new byte[duplicate.remaining()];
+        duplicate.get(bytes);
+        return of(bytes);
+    }
+
+    private static @NotNull MessageTemplate of(final byte @NotNull [] template) {
+        final List<Segment> segments = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        // placeholders are pure ASCII, so scanning the raw bytes is safe for UTF-8 encoded templates
+        while (i < template.length) {
+            if (template[i] != '{') {
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < template.length && template[end] != '}' && template[end] != '{') {
+                end++;
+            }
+            if (end == template.length || template[end] == '{') {
+                i = end;
+                continue;
+            }
+            final Segment placeholder =
+                    parsePlaceholder(new String(template, i + 1, end - i - 1, StandardCharsets.US_ASCII));
+            if (placeholder != null) {
+                if (i > literalStart) {
+                    segments.add(Segment.literal(template, literalStart, i));
+                }
+                segments.add(placeholder);
+                literalStart = end + 1;
+            }
+            i = end + 1;
+        }
+        if (template.length > literalStart) {
+            segments.add(Segment.literal(template, literalStart, template.length));
+        }
+        return new MessageTemplate(segments);
+    }
+
+    private static @Nullable Segment parsePlaceholder(final @NotNull String name) {
+        switch (name) {
+            case "seq":
+                return new Segment(SegmentType.SEQUENCE, null, 0);
+            case "ts":
+                return new Segment(SegmentType.TIMESTAMP, null, 0);
+            case "uuid":
+                return new Segment(SegmentType.UUID_STRING, null, 0);
+            default:
+                if (name.startsWith(RANDOM_PREFIX)) {
+                    try {
+                        final int size = Integer.parseInt(name.substring(RANDOM_PREFIX.length()));
+                        if (size >= 0) {
+                            return new Segment(SegmentType.RANDOM_BYTES, null, size);
+                        }
+                    } catch (final NumberFormatException ignored) {
+                    }
+                }
+                return null;
+        }
+    }
+
+    /**
+     * @return true if the template does not contain any placeholder and therefore always renders the same value
+     */
+    public boolean isConstant() {
+        return constant;
+    }
+
+    public @NotNull ByteBuffer renderBytes(final long sequence) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (final Segment segment : segments) {
+            switch (segment.type) {
+                case LITERAL:
+                    out.write(Objects.requireNonNull(segment.literal), 0, segment.literal.length);
+                    break;
+                case RANDOM_BYTES: {
+                    final byte[] random = new byte[segment.size];
+                    ThreadLocalRandom.current().nextBytes(random);
+                    out.write(random, 0, random.length);
+                    break;
+                }
+                default: {
+                    final byte[] value = renderValue(segment, sequence).getBytes(StandardCharsets.UTF_8);
+                    out.write(value, 0, value.length);
+                }
+            }
+        }
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    public @NotNull String renderString(final long sequence) {
+        final StringBuilder out = new StringBuilder();
+        for (final Segment segment : segments) {
+            switch (segment.type) {
+                case LITERAL:
+                    out.append(new String(Objects.requireNonNull(segment.literal), StandardCharsets.UTF_8));
+                    break;
+                case RANDOM_BYTES:
+                    for (int i = 0; i < segment.size; i++) {
+                        final int random = ThreadLocalRandom.current().nextInt(256);
+                        out.append(HEX_DIGITS[random >>> 4]).append(HEX_DIGITS[random & 0xF]);
+                    }
+                    break;
+                default:
+                    out.append(renderValue(segment, sequence));
+            }
+        }
+        return out.toString();
+    }
+
+    private static @NotNull String renderValue(final @NotNull Segment segment, final long sequence) {
+        switch (segment.type) {
+            case SEQUENCE:
+                return Long.toString(sequence);
+            case TIMESTAMP:
+                return Long.toString(System.currentTimeMillis());
+            case UUID_STRING:
+                return UUID.randomUUID().toString();
+            default:
+                throw new IllegalStateException("Unexpected template segment type " + segment.type);
+        }
+    }
+
+    private enum SegmentType {
+        LITERAL,
+        SEQUENCE,
+        TIMESTAMP,
+        UUID_STRING,
+        RANDOM_BYTES
+    }
+
+    private static class Segment {
+
+        private final @NotNull SegmentType type;
+        private final byte @Nullable [] literal;
+        private final int size;
+
+        private Segment(final @NotNull SegmentType type, final byte @Nullable [] literal, final int size) {
+            this.type = type;
+            this.literal = literal;
+            this.size = size;
+        }
+
+        private static @NotNull Segment literal(final byte @NotNull [] template, final int from, final int to) {
+            final byte[] literal = new byte[to - from];
+            System.arraycopy(template, from, literal, 0, literal.length);
+            return new Segment(SegmentType.LITERAL, literal, 0);
+        }
+    }
+}
@@ -22,6 +22,10 @@ import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -61,6 +65,17 @@ public class MqttUtils {
                 "}");
     }
 
+    // Reads one topic per line, blank lines are skipped
+    public static @NotNull List<String> readTopicsFile(final @NotNull Path topicsFile) throws IOException {
+        final List<String> topics = new ArrayList<>();
+        for (final String line : Files.readAllLines(topicsFile, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                topics.add(line);
+            }
+        }
+        return topics;
+    }
+
     public static @Nullable Mqtt5UserProperties convertToMqtt5UserProperties(final @Nullable Mqtt5UserProperty @Nullable ... userProperties) {
         if (userProperties == null) {
             return null;
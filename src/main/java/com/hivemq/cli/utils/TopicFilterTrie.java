@@ -0,0 +1,236 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import com.hivemq.client.mqtt.datatypes.MqttSharedTopicFilter;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trie of topic filters with one node per topic level, which finds all filters intersecting with a topic filter
+ * or matching a topic in time proportional to the number of levels instead of the number of filters (as long as
+ * the looked up filter contains no wildcards).
+ * <p>
+ * Shared subscriptions are stored with the topic filter they share, so <code>$share/group/a/+</code> intersects
+ * with <code>a/b</code>. A multi-level wildcard also matches its parent level, so <code>a/#</code> intersects with
+ * <code>a</code>.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <V> the type of the values stored with the topic filters
+ */
+public class TopicFilterTrie<V> {
+
+    private static final @NotNull String SINGLE_LEVEL_WILDCARD = String.valueOf(MqttTopicFilter.SINGLE_LEVEL_WILDCARD);
+    private static final @NotNull String MULTI_LEVEL_WILDCARD = String.valueOf(MqttTopicFilter.MULTI_LEVEL_WILDCARD);
+
+    private final @NotNull Node<V> root = new Node<>();
+    private int size = 0;
+
+    /**
+     * @return false if the value was already stored with the topic filter
+     */
+    public boolean add(final @NotNull MqttTopicFilter topicFilter, final @NotNull V value) {
+        Node<V> node = root;
+        for (final String level : levelsOf(topicFilter)) {
+            node = node.getOrCreateChild(level);
+        }
+        if (node.values == null) {
+            node.values = new ArrayList<>(1);
+        } else if (node.values.contains(value)) {
+            return false;
+        }
+        node.values.add(value);
+        size++;
+        return true;
+    }
+
+    /**
+     * @return false if the value was not stored with the topic filter
+     */
+    public boolean remove(final @NotNull MqttTopicFilter topicFilter, final @NotNull V value) {
+        if (!remove(root, levelsOf(topicFilter), 0, value)) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    private static <V> boolean remove(
+            final @NotNull Node<V> node,
+            final @NotNull String @NotNull [] levels,
+            final int index,
+            final @NotNull V value) {
+        if (index == levels.length) {
+            if (node.values == null || !node.values.remove(value)) {
+                return false;
+            }
+            if (node.values.isEmpty()) {
+                node.values = null;
+            }
+            return true;
+        }
+        final Node<V> child = node.children == null ? null : node.children.get(levels[index]);
+        if (child == null || !remove(child, levels, index + 1, value)) {
+            return false;
+        }
+        if (child.isEmpty()) {
+            node.children.remove(levels[index]);
+            if (node.children.isEmpty()) {
+                node.children = null;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        root.children = null;
+        root.values = null;
+        size = 0;
+    }
+
+    /**
+     * @return the values of all topic filters which match at least one topic which is also matched by the given
+     *         topic filter
+     */
+    public @NotNull List<V> getIntersecting(final @NotNull MqttTopicFilter topicFilter) {
+        final List<V> intersecting = new ArrayList<>();
+        collectIntersecting(root, levelsOf(topicFilter), 0, intersecting);
+        return intersecting;
+    }
+
+    /**
+     * @return the values of all topic filters which match the given topic, e.g. to route a received publish
+     */
+    public @NotNull List<V> getMatching(final @NotNull MqttTopic topic) {
+        final List<V> matching = new ArrayList<>();
+        collectIntersecting(root, split(topic.toString()), 0, matching);
+        return matching;
+    }
+
+    private static <V> void collectIntersecting(
+            final @NotNull Node<V> node,
+            final @NotNull String @NotNull [] levels,
+            final int index,
+            final @NotNull List<V> result) {
+        if (index < levels.length && levels[index].equals(MULTI_LEVEL_WILDCARD)) {
+            // matches this level and everything below it
+            collectAll(node, result);
+            return;
+        }
+        if (node.children != null) {
+            final Node<V> multiLevelWildcardChild = node.children.get(MULTI_LEVEL_WILDCARD);
+            if (multiLevelWildcardChild != null) {
+                collectAll(multiLevelWildcardChild, result);
+            }
+        }
+        if (index == levels.length) {
+            if (node.values != null) {
+                result.addAll(node.values);
+            }
+            return;
+        }
+        if (node.children == null) {
+            return;
+        }
+        final String level = levels[index];
+        if (level.equals(SINGLE_LEVEL_WILDCARD)) {
+            for (final Map.Entry<String, Node<V>> child : node.children.entrySet()) {
+                if (!child.getKey().equals(MULTI_LEVEL_WILDCARD)) {
+                    collectIntersecting(child.getValue(), levels, index + 1, result);
+                }
+            }
+        } else {
+            final Node<V> child = node.children.get(level);
+            if (child != null) {
+                collectIntersecting(child, levels, index + 1, result);
+            }
+            final Node<V> singleLevelWildcardChild = node.children.get(SINGLE_LEVEL_WILDCARD);
+            if (singleLevelWildcardChild != null) {
+                collectIntersecting(singleLevelWildcardChild, levels, index + 1, result);
+            }
+        }
+    }
+
+    private static <V> void collectAll(final @NotNull Node<V> node, final @NotNull List<V> result) {
+        if (node.values != null) {
+            result.addAll(node.values);
+        }
+        if (node.children != null) {
+            for (final Node<V> child : node.children.values()) {
+                collectAll(child, result);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static @NotNull String @NotNull [] levelsOf(final @NotNull MqttTopicFilter topicFilter) {
+        if (topicFilter.isShared()) {
+            return split(((MqttSharedTopicFilter) topicFilter).getTopicFilter().toString());
+        }
+        return split(topicFilter.toString());
+    }
+
+    private static @NotNull String @NotNull [] split(final @NotNull String topic) {
+        int levelCount = 1;
+        for (int i = 0; i < topic.length(); i++) {
+            if (topic.charAt(i) == MqttTopic.TOPIC_LEVEL_SEPARATOR) {
+                levelCount++;
+            }
+        }
+        final String[] levels = new String[levelCount];
+        int levelStart = 0;
+        for (int level = 0; level < levelCount - 1; level++) {
+            final int levelEnd = topic.indexOf(MqttTopic.TOPIC_LEVEL_SEPARATOR, levelStart);
+            levels[level] = topic.substring(levelStart, levelEnd);
+            levelStart = levelEnd + 1;
+        }
+        levels[levelCount - 1] = topic.substring(levelStart);
+        return levels;
+    }
+
+    private static class Node<V> {
+
+        private @Nullable Map<String, Node<V>> children;
+        private @Nullable List<V> values;
+
+        private @NotNull Node<V> getOrCreateChild(final @NotNull String level) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            return children.computeIfAbsent(level, key -> new Node<>());
+        }
+
+        private boolean isEmpty() {
+            return children == null && values == null;
+        }
+    }
+}
@@ -32,12 +32,16 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 @SuppressWarnings({"unused", "FieldCanBeLocal"})
 public class JsonMqttPublish extends JsonFormatted {
 
+    static final @NotNull DateTimeFormatter RECEIVED_AT_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
     private final @NotNull String topic;
     private final @NotNull JsonElement payload;
     private final @NotNull MqttQos qos;
@@ -95,6 +99,6 @@ public class JsonMqttPublish extends JsonFormatted {
     }
 
     private @NotNull String getReceivedAt() {
-        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+        return RECEIVED_AT_FORMATTER.format(Instant.now());
     }
 }
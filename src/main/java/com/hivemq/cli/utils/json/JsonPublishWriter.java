@@ -0,0 +1,516 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils.json;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.datatypes.MqttUtf8String;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import org.bouncycastle.util.encoders.Base64;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Formats received publishes as JSON with the same fields as {@link JsonMqttPublish}, but without building a
+ * {@link com.google.gson.JsonElement} tree or using reflection.
+ * <p>
+ * The JSON is written into a reusable buffer. A payload which is valid JSON is validated and copied in a single pass
+ * (re-indented for pretty output, stripped of insignificant whitespace for compact output), any other payload is
+ * written as a string. The compact format writes every publish on a single line (NDJSON).
+ * <p>
+ * Instances are not thread-safe, so every thread formatting received publishes owns one writer.
+ */
+public class JsonPublishWriter {
+
+    private static final int MAX_PAYLOAD_NESTING_DEPTH = 255;
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final char @NotNull [] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final boolean pretty;
+    private final boolean base64;
+    private final @NotNull StringBuilder out = new StringBuilder(INITIAL_BUFFER_SIZE);
+    private final @NotNull CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final @NotNull JsonSplicer splicer = new JsonSplicer();
+    private @NotNull CharBuffer payloadChars = CharBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private boolean firstField;
+    private long receivedAtSecond = Long.MIN_VALUE;
+    private @NotNull String receivedAt = "";
+
+    public JsonPublishWriter(final boolean pretty, final boolean base64) {
+        this.pretty = pretty;
+        this.base64 = base64;
+    }
+
+    public @NotNull String write(final @NotNull Mqtt5Publish publish) {
+        return write(publish, System.currentTimeMillis());
+    }
+
+    public @NotNull String write(final @NotNull Mqtt3Publish publish) {
+        return write(publish, System.currentTimeMillis());
+    }
+
+    @NotNull String write(final @NotNull Mqtt5Publish publish, final long receivedAtMillis) {
+        beginPublish(publish.getTopic().toString(), publish.getPayload(), publish.getQos(), receivedAtMillis);
+        booleanField("retain", publish.isRetain());
+        final Optional<MqttUtf8String> contentType = publish.getContentType();
+        if (contentType.isPresent()) {
+            stringField("contentType", contentType.get().toString());
+        }
+        final Optional<Mqtt5PayloadFormatIndicator> payloadFormatIndicator = publish.getPayloadFormatIndicator();
+        if (payloadFormatIndicator.isPresent()) {
+            stringField("payloadFormatIndicator", payloadFormatIndicator.get().name());
+        }
+        if (publish.getMessageExpiryInterval().isPresent()) {
+            field("messageExpiryInterval");
+            out.append(publish.getMessageExpiryInterval().getAsLong());
+        }
+        final Optional<MqttTopic> responseTopic = publish.getResponseTopic();
+        if (responseTopic.isPresent()) {
+            stringField("responseTopic", responseTopic.get().toString());
+        }
+        final Optional<ByteBuffer> correlationData = publish.getCorrelationData();
+        if (correlationData.isPresent()) {
+            field("correlationData");
+            final CharBuffer chars = decode(correlationData.get());
+            string(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+        }
+        final List<? extends Mqtt5UserProperty> userProperties = publish.getUserProperties().asList();
+        if (!userProperties.isEmpty()) {
+            field("userProperties");
+            out.append('[');
+            for (int i = 0; i < userProperties.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                newLine(2);
+                out.append('{');
+                newLine(3);
+                name("name");
+                string(userProperties.get(i).getName().toString());
+                out.append(',');
+                newLine(3);
+                name("value");
+                string(userProperties.get(i).getValue().toString());
+                newLine(2);
+                out.append('}');
+            }
+            newLine(1);
+            out.append(']');
+        }
+        return endPublish();
+    }
+
+    @NotNull String write(final @NotNull Mqtt3Publish publish, final long receivedAtMillis) {
+        beginPublish(publish.getTopic().toString(), publish.getPayload(), publish.getQos(), receivedAtMillis);
+        booleanField("retain", publish.isRetain());
+        return endPublish();
+    }
+
+    private void beginPublish(
+            final @NotNull String topic,
+            final @NotNull Optional<ByteBuffer> payload,
+            final @NotNull MqttQos qos,
+            final long receivedAtMillis) {
+        out.setLength(0);
+        if (out.capacity() > 64 * INITIAL_BUFFER_SIZE) {
+            // do not keep a huge buffer after a single large payload
+            out.trimToSize();
+        }
+        out.append('{');
+        firstField = true;
+        stringField("topic", topic);
+        field("payload");
+        payload(payload.orElse(null));
+        stringField("qos", qos.name());
+        stringField("receivedAt", formatReceivedAt(receivedAtMillis));
+    }
+
+    private @NotNull String endPublish() {
+        newLine(0);
+        out.append('}');
+        return out.toString();
+    }
+
+    private void payload(final @Nullable ByteBuffer payload) {
+        if (base64) {
+            final byte[] bytes = new byte[payload == null ? 0 : payload.remaining()];
+            if (payload != null) {
+                payload.duplicate().get(bytes);
+            }
+            string(Base64.toBase64String(bytes));
+            return;
+        }
+        final CharBuffer chars = decode(payload == null ? ByteBuffer.allocate(0) : payload);
+        final char[] array = chars.array();
+        final int start = chars.arrayOffset() + chars.position();
+        final int end = start + chars.remaining();
+        final int mark = out.length();
+        if (!splicer.splice(array, start, end)) {
+            out.setLength(mark);
+            string(array, start, end - start);
+        }
+    }
+
+    private @NotNull CharBuffer decode(final @NotNull ByteBuffer bytes) {
+        final ByteBuffer input = bytes.duplicate();
+        final int maxChars = (int) Math.min(Integer.MAX_VALUE, (long) input.remaining() + 1);
+        if (payloadChars.capacity() < maxChars) {
+            payloadChars = CharBuffer.allocate(maxChars);
+        } else if (payloadChars.capacity() > 64 * INITIAL_BUFFER_SIZE && maxChars <= INITIAL_BUFFER_SIZE) {
+            payloadChars = CharBuffer.allocate(INITIAL_BUFFER_SIZE);
+        }
+        payloadChars.clear();
+        decoder.reset();
+        decoder.decode(input, payloadChars, true);
+        decoder.flush(payloadChars);
+        payloadChars.flip();
+        return payloadChars;
+    }
+
+    private @NotNull String formatReceivedAt(final long receivedAtMillis) {
+        final long second = Math.floorDiv(receivedAtMillis, 1000);
+        if (second != receivedAtSecond) {
+            receivedAt = JsonMqttPublish.RECEIVED_AT_FORMATTER.format(Instant.ofEpochSecond(second));
+            receivedAtSecond = second;
+        }
+        return receivedAt;
+    }
+
+    private void stringField(final @NotNull String name, final @NotNull String value) {
+        field(name);
+        string(value);
+    }
+
+    private void booleanField(final @NotNull String name, final boolean value) {
+        field(name);
+        out.append(value);
+    }
+
+    private void field(final @NotNull String name) {
+        if (!firstField) {
+            out.append(',');
+        }
+        firstField = false;
+        newLine(1);
+        name(name);
+    }
+
+    private void name(final @NotNull String name) {
+        string(name);
+        out.append(pretty ? ": " : ":");
+    }
+
+    private void newLine(final int level) {
+        if (pretty) {
+            out.append('\n');
+            for (int i = 0; i < level; i++) {
+                out.append("  ");
+            }
+        }
+    }
+
+    private void string(final @NotNull String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            escapedChar(value.charAt(i));
+        }
+        out.append('"');
+    }
+
+    private void string(final char @NotNull [] value, final int offset, final int length) {
+        out.append('"');
+        for (int i = offset; i < offset + length; i++) {
+            escapedChar(value[i]);
+        }
+        out.append('"');
+    }
+
+    private void escapedChar(final char c) {
+        switch (c) {
+            case '"':
+                out.append("\\\"");
+                break;
+            case '\\':
+                out.append("\\\\");
+                break;
+            case '\n':
+                out.append("\\n");
+                break;
+            case '\r':
+                out.append("\\r");
+                break;
+            case '\t':
+                out.append("\\t");
+                break;
+            case '\b':
+                out.append("\\b");
+                break;
+            case '\f':
+                out.append("\\f");
+                break;
+            default:
+                if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                    out.append("\\u")
+                            .append(HEX_DIGITS[c >>> 12])
+                            .append(HEX_DIGITS[(c >>> 8) & 0xF])
+                            .append(HEX_DIGITS[(c >>> 4) & 0xF])
+                            .append(HEX_DIGITS[c & 0xF]);
+                } else {
+                    out.append(c);
+                }
+        }
+    }
+
+    /**
+     * Validates a JSON document (RFC 8259) and copies it to the output in the same pass.
+     */
+    private class JsonSplicer {
+
+        private char @NotNull [] chars = new char[0];
+        private int end;
+        private int position;
+
+        private boolean splice(final char @NotNull [] chars, final int start, final int end) {
+            this.chars = chars;
+            this.position = start;
+            this.end = end;
+            skipWhitespace();
+            if (!value(1)) {
+                return false;
+            }
+            skipWhitespace();
+            return position == end;
+        }
+
+        private boolean value(final int level) {
+            if (position >= end) {
+                return false;
+            }
+            switch (chars[position]) {
+                case '{':
+                    return object(level);
+                case '[':
+                    return array(level);
+                case '"':
+                    return string();
+                case 't':
+                    return literal("true");
+                case 'f':
+                    return literal("false");
+                case 'n':
+                    return literal("null");
+                default:
+                    return number();
+            }
+        }
+
+        private boolean object(final int level) {
+            if (level > MAX_PAYLOAD_NESTING_DEPTH) {
+                return false;
+            }
+            position++;
+            out.append('{');
+            skipWhitespace();
+            if (position < end && chars[position] == '}') {
+                position++;
+                out.append('}');
+                return true;
+            }
+            while (true) {
+                newLine(level + 1);
+                if (position >= end || chars[position] != '"' || !string()) {
+                    return false;
+                }
+                skipWhitespace();
+                if (position >= end || chars[position] != ':') {
+                    return false;
+                }
+                position++;
+                out.append(pretty ? ": " : ":");
+                skipWhitespace();
+                if (!value(level + 1)) {
+                    return false;
+                }
+                skipWhitespace();
+                if (position >= end) {
+                    return false;
+                }
+                final char c = chars[position++];
+                if (c == '}') {
+                    newLine(level);
+                    out.append('}');
+                    return true;
+                }
+                if (c != ',') {
+                    return false;
+                }
+                out.append(',');
+                skipWhitespace();
+            }
+        }
+
+        private boolean array(final int level) {
+            if (level > MAX_PAYLOAD_NESTING_DEPTH) {
+                return false;
+            }
+            position++;
+            out.append('[');
+            skipWhitespace();
+            if (position < end && chars[position] == ']') {
+                position++;
+                out.append(']');
+                return true;
+            }
+            while (true) {
+                newLine(level + 1);
+                if (!value(level + 1)) {
+                    return false;
+                }
+                skipWhitespace();
+                if (position >= end) {
+                    return false;
+                }
+                final char c = chars[position++];
+                if (c == ']') {
+                    newLine(level);
+                    out.append(']');
+                    return true;
+                }
+                if (c != ',') {
+                    return false;
+                }
+                out.append(',');
+                skipWhitespace();
+            }
+        }
+
+        private boolean string() {
+            final int start = position++;
+            while (position < end) {
+                final char c = chars[position++];
+                if (c == '"') {
+                    out.append(chars, start, position - start);
+                    return true;
+                }
+                if (c < 0x20) {
+                    return false;
+                }
+                if (c == '\\') {
+                    if (position >= end) {
+                        return false;
+                    }
+                    switch (chars[position++]) {
+                        case '"':
+                        case '\\':
+                        case '/':
+                        case 'b':
+                        case 'f':
+                        case 'n':
+                        case 'r':
+                        case 't':
+                            break;
+                        case 'u':
+                            for (int i = 0; i < 4; i++) {
+                                if (position >= end || Character.digit(chars[position++], 16) < 0) {
+                                    return false;
+                                }
+                            }
+                            break;
+                        default:
+                            return false;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean number() {
+            final int start = position;
+            if (position < end && chars[position] == '-') {
+                position++;
+            }
+            if (position < end && chars[position] == '0') {
+                position++;
+            } else if (digits() == 0) {
+                return false;
+            }
+            if (position < end && chars[position] == '.') {
+                position++;
+                if (digits() == 0) {
+                    return false;
+                }
+            }
+            if (position < end && (chars[position] == 'e' || chars[position] == 'E')) {
+                position++;
+                if (position < end && (chars[position] == '+' || chars[position] == '-')) {
+                    position++;
+                }
+                if (digits() == 0) {
+                    return false;
+                }
+            }
+            out.append(chars, start, position - start);
+            return true;
+        }
+
+        private int digits() {
+            final int start = position;
+            while (position < end && chars[position] >= '0' && chars[position] <= '9') {
+                position++;
+            }
+            return position - start;
+        }
+
+        private boolean literal(final @NotNull String literal) {
+            if (end - position < literal.length()) {
+                return false;
+            }
+            for (int i = 0; i < literal.length(); i++) {
+                if (chars[position + i] != literal.charAt(i)) {
+                    return false;
+                }
+            }
+            position += literal.length();
+            out.append(literal);
+            return true;
+        }
+
+        private void skipWhitespace() {
+            while (position < end) {
+                final char c = chars[position];
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return;
+                }
+                position++;
+            }
+        }
+    }
+}
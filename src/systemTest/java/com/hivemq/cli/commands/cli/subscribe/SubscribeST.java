@@ -117,8 +117,6 @@ class SubscribeST {
         subscribeCommand.add("topic3");
 
         final ExecutionResultAsync executionResult = mqttCli.executeAsync(subscribeCommand)
-                .awaitStdOut("received SUBACK")
-                .awaitStdOut("received SUBACK")
                 .awaitStdOut("received SUBACK");
 
         publishMessage("topic1", "message1");
@@ -131,18 +129,11 @@ class SubscribeST {
         executionResult.awaitStdOut("message3");
 
 
+        assertEquals(1, hivemq.getSubscribePackets().size());
         assertSubscribePacket(hivemq.getSubscribePackets().get(0), subscribeAssertion -> {
-            final List<Subscription> expectedSubscriptions = List.of(createSubscription("topic1", Qos.EXACTLY_ONCE));
-            subscribeAssertion.setSubscriptions(expectedSubscriptions);
-        });
-
-        assertSubscribePacket(hivemq.getSubscribePackets().get(1), subscribeAssertion -> {
-            final List<Subscription> expectedSubscriptions = List.of(createSubscription("topic2", Qos.EXACTLY_ONCE));
-            subscribeAssertion.setSubscriptions(expectedSubscriptions);
-        });
-
-        assertSubscribePacket(hivemq.getSubscribePackets().get(2), subscribeAssertion -> {
-            final List<Subscription> expectedSubscriptions = List.of(createSubscription("topic3", Qos.EXACTLY_ONCE));
+            final List<Subscription> expectedSubscriptions = List.of(createSubscription("topic1", Qos.EXACTLY_ONCE),
+                    createSubscription("topic2", Qos.EXACTLY_ONCE),
+                    createSubscription("topic3", Qos.EXACTLY_ONCE));
             subscribeAssertion.setSubscriptions(expectedSubscriptions);
         });
     }
@@ -168,8 +159,6 @@ class SubscribeST {
         subscribeCommand.add("2");
 
         final ExecutionResultAsync executionResult = mqttCli.executeAsync(subscribeCommand)
-                .awaitStdOut("received SUBACK")
-                .awaitStdOut("received SUBACK")
                 .awaitStdOut("received SUBACK");
 
         publishMessage("topic1", "message1");
@@ -182,18 +171,42 @@ class SubscribeST {
         executionResult.awaitStdOut("message3");
 
 
+        assertEquals(1, hivemq.getSubscribePackets().size());
         assertSubscribePacket(hivemq.getSubscribePackets().get(0), subscribeAssertion -> {
-            final List<Subscription> expectedSubscriptions = List.of(createSubscription("topic1", Qos.AT_MOST_ONCE));
+            final List<Subscription> expectedSubscriptions = List.of(createSubscription("topic1", Qos.AT_MOST_ONCE),
+                    createSubscription("topic2", Qos.AT_LEAST_ONCE),
+                    createSubscription("topic3", Qos.EXACTLY_ONCE));
             subscribeAssertion.setSubscriptions(expectedSubscriptions);
         });
+    }
 
-        assertSubscribePacket(hivemq.getSubscribePackets().get(1), subscribeAssertion -> {
-            final List<Subscription> expectedSubscriptions = List.of(createSubscription("topic2", Qos.AT_LEAST_ONCE));
-            subscribeAssertion.setSubscriptions(expectedSubscriptions);
-        });
+    @ParameterizedTest
+    @Timeout(value = 3, unit = TimeUnit.MINUTES)
+    @ValueSource(chars = {'3', '5'})
+    void test_topicsFile(final char mqttVersion) throws Exception {
+        final Path topicsFile = Files.createTempFile("topics-file", ".txt");
+        topicsFile.toFile().deleteOnExit();
+        Files.writeString(topicsFile, "topic2\n\ntopic3\n");
 
-        assertSubscribePacket(hivemq.getSubscribePackets().get(2), subscribeAssertion -> {
-            final List<Subscription> expectedSubscriptions = List.of(createSubscription("topic3", Qos.EXACTLY_ONCE));
+        final List<String> subscribeCommand = defaultSubscribeCommand(mqttVersion);
+        subscribeCommand.remove("-t");
+        subscribeCommand.remove("topic");
+        subscribeCommand.add("-t");
+        subscribeCommand.add("topic1");
+        subscribeCommand.add("--topics-file");
+        subscribeCommand.add(topicsFile.toString());
+
+        final ExecutionResultAsync executionResult =
+                mqttCli.executeAsync(subscribeCommand).awaitStdOut("received SUBACK");
+
+        publishMessage("topic3", "message3");
+        executionResult.awaitStdOut("message3");
+
+        assertEquals(1, hivemq.getSubscribePackets().size());
+        assertSubscribePacket(hivemq.getSubscribePackets().get(0), subscribeAssertion -> {
+            final List<Subscription> expectedSubscriptions = List.of(createSubscription("topic1", Qos.EXACTLY_ONCE),
+                    createSubscription("topic2", Qos.EXACTLY_ONCE),
+                    createSubscription("topic3", Qos.EXACTLY_ONCE));
             subscribeAssertion.setSubscriptions(expectedSubscriptions);
         });
     }
@@ -78,33 +78,19 @@ class ShellSubscribeST {
     @Timeout(value = 3, unit = TimeUnit.MINUTES)
     @ValueSource(chars = {'3', '5'})
     void test_multipleTopics(final char mqttVersion) throws Exception {
-        //FIXME Subscribe command should subscribe to all topics in one packet and not send separate subscribes
         final List<String> subscribeCommand = List.of("sub", "-t", "test1", "-t", "test2", "-t", "test3");
         mqttCliShell.connectClient(hivemq, mqttVersion);
         mqttCliShell.executeAsync(subscribeCommand)
                 .awaitStdOut(String.format("cliTest@%s>", hivemq.getHost()))
                 .awaitLog("sending SUBSCRIBE")
-                .awaitLog("received SUBACK")
-                .awaitLog("sending SUBSCRIBE")
-                .awaitLog("received SUBACK")
-                .awaitLog("sending SUBSCRIBE")
                 .awaitLog("received SUBACK");
 
+        assertEquals(1, hivemq.getSubscribePackets().size());
         assertSubscribePacket(hivemq.getSubscribePackets().get(0), subscribeAssertion -> {
             final List<Subscription> expectedSubscriptions =
-                    List.of(new SubscriptionImpl("test1", Qos.EXACTLY_ONCE, RetainHandling.SEND, false, false));
-            subscribeAssertion.setSubscriptions(expectedSubscriptions);
-        });
-
-        assertSubscribePacket(hivemq.getSubscribePackets().get(1), subscribeAssertion -> {
-            final List<Subscription> expectedSubscriptions =
-                    List.of(new SubscriptionImpl("test2", Qos.EXACTLY_ONCE, RetainHandling.SEND, false, false));
-            subscribeAssertion.setSubscriptions(expectedSubscriptions);
-        });
-
-        assertSubscribePacket(hivemq.getSubscribePackets().get(2), subscribeAssertion -> {
-            final List<Subscription> expectedSubscriptions =
-                    List.of(new SubscriptionImpl("test3", Qos.EXACTLY_ONCE, RetainHandling.SEND, false, false));
+                    List.of(new SubscriptionImpl("test1", Qos.EXACTLY_ONCE, RetainHandling.SEND, false, false),
+                            new SubscriptionImpl("test2", Qos.EXACTLY_ONCE, RetainHandling.SEND, false, false),
+                            new SubscriptionImpl("test3", Qos.EXACTLY_ONCE, RetainHandling.SEND, false, false));
             subscribeAssertion.setSubscriptions(expectedSubscriptions);
         });
     }
@@ -113,34 +99,20 @@ class ShellSubscribeST {
     @Timeout(value = 3, unit = TimeUnit.MINUTES)
     @ValueSource(chars = {'3', '5'})
     void test_multipleTopicsMultipleQos(final char mqttVersion) throws Exception {
-        //FIXME Subscribe command should subscribe to all topics in one packet and not send separate subscribes
         final List<String> subscribeCommand =
                 List.of("sub", "-t", "test1", "-t", "test2", "-t", "test3", "-q", "0", "-q", "1", "-q", "2");
         mqttCliShell.connectClient(hivemq, mqttVersion);
         mqttCliShell.executeAsync(subscribeCommand)
                 .awaitStdOut(String.format("cliTest@%s>", hivemq.getHost()))
                 .awaitLog("sending SUBSCRIBE")
-                .awaitLog("received SUBACK")
-                .awaitLog("sending SUBSCRIBE")
-                .awaitLog("received SUBACK")
-                .awaitLog("sending SUBSCRIBE")
                 .awaitLog("received SUBACK");
 
+        assertEquals(1, hivemq.getSubscribePackets().size());
         assertSubscribePacket(hivemq.getSubscribePackets().get(0), subscribeAssertion -> {
             final List<Subscription> expectedSubscriptions =
-                    List.of(new SubscriptionImpl("test1", Qos.AT_MOST_ONCE, RetainHandling.SEND, false, false));
-            subscribeAssertion.setSubscriptions(expectedSubscriptions);
-        });
-
-        assertSubscribePacket(hivemq.getSubscribePackets().get(1), subscribeAssertion -> {
-            final List<Subscription> expectedSubscriptions =
-                    List.of(new SubscriptionImpl("test2", Qos.AT_LEAST_ONCE, RetainHandling.SEND, false, false));
-            subscribeAssertion.setSubscriptions(expectedSubscriptions);
-        });
-
-        assertSubscribePacket(hivemq.getSubscribePackets().get(2), subscribeAssertion -> {
-            final List<Subscription> expectedSubscriptions =
-                    List.of(new SubscriptionImpl("test3", Qos.EXACTLY_ONCE, RetainHandling.SEND, false, false));
+                    List.of(new SubscriptionImpl("test1", Qos.AT_MOST_ONCE, RetainHandling.SEND, false, false),
+                            new SubscriptionImpl("test2", Qos.AT_LEAST_ONCE, RetainHandling.SEND, false, false),
+                            new SubscriptionImpl("test3", Qos.EXACTLY_ONCE, RetainHandling.SEND, false, false));
             subscribeAssertion.setSubscriptions(expectedSubscriptions);
         });
     }
@@ -68,21 +68,11 @@ class ShellUnsubscribeST {
         mqttCliShell.executeAsync(subscribeCommand)
                 .awaitStdOut(String.format("cliTest@%s>", hivemq.getHost()))
                 .awaitLog("sending UNSUBSCRIBE")
-                .awaitLog("received UNSUBACK")
-                .awaitLog("sending UNSUBSCRIBE")
-                .awaitLog("received UNSUBACK")
-                .awaitLog("sending UNSUBSCRIBE")
                 .awaitLog("received UNSUBACK");
 
-
+        assertEquals(1, hivemq.getUnsubscribePackets().size());
         assertUnsubscribePacket(hivemq.getUnsubscribePackets().get(0),
-                unsubscribeAssertion -> unsubscribeAssertion.setTopicFilters(List.of("test1")));
-
-        assertUnsubscribePacket(hivemq.getUnsubscribePackets().get(1),
-                unsubscribeAssertion -> unsubscribeAssertion.setTopicFilters(List.of("test2")));
-
-        assertUnsubscribePacket(hivemq.getUnsubscribePackets().get(2),
-                unsubscribeAssertion -> unsubscribeAssertion.setTopicFilters(List.of("test3")));
+                unsubscribeAssertion -> unsubscribeAssertion.setTopicFilters(List.of("test1", "test2", "test3")));
     }
 
     @ParameterizedTest
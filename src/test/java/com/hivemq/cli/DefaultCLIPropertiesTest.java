@@ -16,6 +16,7 @@
 
 package com.hivemq.cli;
 
+import com.hivemq.cli.mqtt.Transport;
 import com.hivemq.client.mqtt.MqttVersion;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
@@ -80,6 +81,9 @@ class DefaultCLIPropertiesTest {
         assertNull(defaultCLIProperties.getClientCertificateChain());
         assertNull(defaultCLIProperties.getServerCertificateChain());
         assertNull(defaultCLIProperties.getClientPrivateKey());
+        assertNull(defaultCLIProperties.getTransport());
+        assertNull(defaultCLIProperties.getNettyThreads());
+        assertNull(defaultCLIProperties.getApplicationThreads());
     }
 
     @Test
@@ -99,6 +103,9 @@ class DefaultCLIPropertiesTest {
         assertNull(defaultCLIProperties.getClientCertificateChain());
         assertNull(defaultCLIProperties.getServerCertificateChain());
         assertNull(defaultCLIProperties.getClientPrivateKey());
+        assertNull(defaultCLIProperties.getTransport());
+        assertNull(defaultCLIProperties.getNettyThreads());
+        assertNull(defaultCLIProperties.getApplicationThreads());
     }
 
     @Test
@@ -118,5 +125,8 @@ class DefaultCLIPropertiesTest {
         assertNull(defaultCLIProperties.getClientCertificateChain());
         assertNull(defaultCLIProperties.getServerCertificateChain());
         assertNull(defaultCLIProperties.getClientPrivateKey());
+        assertEquals(Transport.NIO, defaultCLIProperties.getTransport());
+        assertEquals(4, defaultCLIProperties.getNettyThreads());
+        assertEquals(2, defaultCLIProperties.getApplicationThreads());
     }
 }
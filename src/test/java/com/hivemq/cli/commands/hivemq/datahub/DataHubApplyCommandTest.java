@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.datahub;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.hivemq.cli.openapi.ApiException;
+import com.hivemq.cli.openapi.hivemq.DataHubBehaviorPoliciesApi;
+import com.hivemq.cli.openapi.hivemq.DataHubDataPoliciesApi;
+import com.hivemq.cli.openapi.hivemq.DataHubSchemasApi;
+import com.hivemq.cli.openapi.hivemq.DataHubScriptsApi;
+import com.hivemq.cli.rest.HiveMQRestService;
+import com.hivemq.cli.utils.TestLoggerUtils;
+import com.hivemq.cli.utils.json.OffsetDateTimeSerializer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DataHubApplyCommandTest {
+
+    private final @NotNull HiveMQRestService hiveMQRestService = mock();
+    private final @NotNull Gson gson =
+            new GsonBuilder().registerTypeAdapter(OffsetDateTime.class, new OffsetDateTimeSerializer()).create();
+    private final @NotNull OutputFormatter outputFormatter = mock();
+    private final @NotNull DataHubSchemasApi schemasApi = mock();
+    private final @NotNull DataHubScriptsApi scriptsApi = mock();
+    private final @NotNull DataHubDataPoliciesApi dataPoliciesApi = mock();
+    private final @NotNull DataHubBehaviorPoliciesApi behaviorPoliciesApi = mock();
+
+    private final @NotNull CommandLine commandLine =
+            new CommandLine(new DataHubApplyCommand(hiveMQRestService, outputFormatter, gson));
+
+    @TempDir
+    private @NotNull Path directory;
+
+    @BeforeEach
+    void setUp() throws ApiException {
+        TestLoggerUtils.resetLogger();
+        when(hiveMQRestService.getSchemasApi(any(), anyDouble())).thenReturn(schemasApi);
+        when(hiveMQRestService.getScriptsApi(any(), anyDouble())).thenReturn(scriptsApi);
+        when(hiveMQRestService.getDataPoliciesApi(any(), anyDouble())).thenReturn(dataPoliciesApi);
+        when(hiveMQRestService.getBehaviorPoliciesApi(any(), anyDouble())).thenReturn(behaviorPoliciesApi);
+        when(dataPoliciesApi.getDataPolicy(any(), any())).thenThrow(new ApiException(404, "Not found"));
+    }
+
+    @Test
+    void call_directoryMissing_error() {
+        assertEquals(2, commandLine.execute());
+    }
+
+    @Test
+    void call_directoryNotFound_error() {
+        assertEquals(1, commandLine.execute("--directory=" + directory.resolve("missing")));
+        verify(outputFormatter).printError(eq("Directory not found: " + directory.resolve("missing")));
+    }
+
+    @Test
+    void call_parallelismZero_error() {
+        assertEquals(1, commandLine.execute("--directory=" + directory, "--parallelism=0"));
+        verify(outputFormatter).printError(eq("The parallelism must be at least 1."));
+    }
+
+    @Test
+    void call_urlAndRateLimitPassed_usedInApi() {
+        assertEquals(0, commandLine.execute("--rate=123", "--url=test-url", "--directory=" + directory));
+        verify(hiveMQRestService).getDataPoliciesApi(eq("test-url"), eq(123d));
+        verify(hiveMQRestService).getSchemasApi(eq("test-url"), eq(123d));
+    }
+
+    @Test
+    void call_taskSuccessful_return0() throws IOException, ApiException {
+        Files.createDirectories(directory.resolve("data-policies"));
+        Files.write(directory.resolve("data-policies/policy-1.json"),
+                "{\"id\":\"policy-1\",\"matching\":{\"topicFilter\":\"a/#\"}}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(0, commandLine.execute("--directory=" + directory));
+        verify(dataPoliciesApi).createDataPolicy(any());
+    }
+
+    @Test
+    void call_taskFailed_return1() throws IOException, ApiException {
+        Files.createDirectories(directory.resolve("data-policies"));
+        Files.write(directory.resolve("data-policies/policy-1.json"),
+                "{\"id\":\"policy-1\",\"matching\":{\"topicFilter\":\"a/#\"}}".getBytes(StandardCharsets.UTF_8));
+        when(dataPoliciesApi.createDataPolicy(any())).thenThrow(ApiException.class);
+
+        assertEquals(1, commandLine.execute("--directory=" + directory));
+    }
+}
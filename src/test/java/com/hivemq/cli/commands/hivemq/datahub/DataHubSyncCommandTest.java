@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.datahub;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.hivemq.cli.openapi.ApiException;
+import com.hivemq.cli.openapi.JSON;
+import com.hivemq.cli.openapi.hivemq.DataHubBehaviorPoliciesApi;
+import com.hivemq.cli.openapi.hivemq.DataHubDataPoliciesApi;
+import com.hivemq.cli.openapi.hivemq.DataHubSchemasApi;
+import com.hivemq.cli.openapi.hivemq.DataHubScriptsApi;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicyList;
+import com.hivemq.cli.rest.HiveMQRestService;
+import com.hivemq.cli.utils.TestLoggerUtils;
+import com.hivemq.cli.utils.json.OffsetDateTimeSerializer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DataHubSyncCommandTest {
+
+    private final @NotNull HiveMQRestService hiveMQRestService = mock();
+    private final @NotNull Gson gson =
+            new GsonBuilder().registerTypeAdapter(OffsetDateTime.class, new OffsetDateTimeSerializer()).create();
+    private final @NotNull OutputFormatter outputFormatter = mock();
+    private final @NotNull DataHubSchemasApi schemasApi = mock();
+    private final @NotNull DataHubScriptsApi scriptsApi = mock();
+    private final @NotNull DataHubDataPoliciesApi dataPoliciesApi = mock();
+    private final @NotNull DataHubBehaviorPoliciesApi behaviorPoliciesApi = mock();
+
+    private final @NotNull CommandLine commandLine =
+            new CommandLine(new DataHubSyncCommand(hiveMQRestService, outputFormatter, gson));
+
+    @TempDir
+    private @NotNull Path directory;
+
+    @BeforeEach
+    void setUp() throws ApiException, IOException {
+        TestLoggerUtils.resetLogger();
+        when(hiveMQRestService.getSchemasApi(any(), anyDouble())).thenReturn(schemasApi);
+        when(hiveMQRestService.getScriptsApi(any(), anyDouble())).thenReturn(scriptsApi);
+        when(hiveMQRestService.getDataPoliciesApi(any(), anyDouble())).thenReturn(dataPoliciesApi);
+        when(hiveMQRestService.getBehaviorPoliciesApi(any(), anyDouble())).thenReturn(behaviorPoliciesApi);
+        when(dataPoliciesApi.getAllDataPolicies(any(), any(), any(), any(), any(), any())).thenReturn(JSON.deserialize(
+                "{\"items\":[]}",
+                HivemqOpenapiDataPolicyList.class));
+        Files.createDirectories(directory.resolve("definitions/data-policies"));
+        Files.write(directory.resolve("definitions/data-policies/policy-1.json"),
+                "{\"id\":\"policy-1\",\"matching\":{\"topicFilter\":\"a/#\"}}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void call_directoryMissing_error() {
+        assertEquals(2, commandLine.execute());
+    }
+
+    @Test
+    void call_taskSuccessful_cacheWritten() throws ApiException {
+        final Path cacheFile = directory.resolve("cache.json");
+
+        assertEquals(0,
+                commandLine.execute("--directory=" + directory.resolve("definitions"), "--cache-file=" + cacheFile));
+        verify(dataPoliciesApi).createDataPolicy(any());
+        assertTrue(Files.exists(cacheFile));
+    }
+
+    @Test
+    void call_checkOutOfSync_return1() throws ApiException {
+        assertEquals(1,
+                commandLine.execute("--directory=" + directory.resolve("definitions"),
+                        "--cache-file=" + directory.resolve("cache.json"),
+                        "--check"));
+        verify(dataPoliciesApi, never()).createDataPolicy(any());
+    }
+
+    @Test
+    void call_listFailed_return1() throws ApiException {
+        when(dataPoliciesApi.getAllDataPolicies(any(), any(), any(), any(), any(), any())).thenThrow(
+                ApiException.class);
+
+        assertEquals(1,
+                commandLine.execute("--directory=" + directory.resolve("definitions"),
+                        "--cache-file=" + directory.resolve("cache.json")));
+        verify(outputFormatter).printApiException(any(), any());
+    }
+}
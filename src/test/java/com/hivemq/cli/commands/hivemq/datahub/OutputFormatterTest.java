@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.datahub;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicy;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicyList;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicyMatching;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OutputFormatterTest {
+
+    private final @NotNull Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final @NotNull ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final @NotNull OutputFormatter outputFormatter =
+            new OutputFormatter(new PrintStream(outputStream, true), gson);
+
+    private final @NotNull HivemqOpenapiDataPolicy policy1 = new HivemqOpenapiDataPolicy().id("policy-1")
+            .matching(new HivemqOpenapiDataPolicyMatching().topicFilter("a/#"));
+    private final @NotNull HivemqOpenapiDataPolicy policy2 = new HivemqOpenapiDataPolicy().id("policy-2")
+            .matching(new HivemqOpenapiDataPolicyMatching().topicFilter("b/#"));
+
+    @Test
+    void printItems_json_sameAsWholeList() {
+        final OutputFormatter.ItemsPrinter itemsPrinter =
+                outputFormatter.printItems(DataHubListOptions.OutputFormat.json);
+        itemsPrinter.print(policy1);
+        itemsPrinter.print(policy2);
+        itemsPrinter.finish();
+
+        assertEquals(gson.toJson(new HivemqOpenapiDataPolicyList().items(Arrays.asList(policy1, policy2))) +
+                System.lineSeparator(), output());
+        assertEquals(2, itemsPrinter.getCount());
+    }
+
+    @Test
+    void printItems_jsonNoItems_emptyList() {
+        outputFormatter.printItems(DataHubListOptions.OutputFormat.json).finish();
+
+        assertEquals(gson.toJson(new HivemqOpenapiDataPolicyList().items(Collections.emptyList())) +
+                System.lineSeparator(), output());
+    }
+
+    @Test
+    void printItems_ndjson_oneItemPerLine() {
+        final OutputFormatter.ItemsPrinter itemsPrinter =
+                outputFormatter.printItems(DataHubListOptions.OutputFormat.ndjson);
+        itemsPrinter.print(policy1);
+        itemsPrinter.print(policy2);
+        itemsPrinter.finish();
+
+        assertEquals("{\"id\":\"policy-1\",\"matching\":{\"topicFilter\":\"a/#\"}}" +
+                System.lineSeparator() +
+                "{\"id\":\"policy-2\",\"matching\":{\"topicFilter\":\"b/#\"}}" +
+                System.lineSeparator(), output());
+    }
+
+    @Test
+    void printItems_jsonAbortedAfterItems_listClosed() {
+        final OutputFormatter.ItemsPrinter itemsPrinter =
+                outputFormatter.printItems(DataHubListOptions.OutputFormat.json);
+        itemsPrinter.print(policy1);
+        itemsPrinter.abort();
+
+        assertEquals(gson.toJson(new HivemqOpenapiDataPolicyList().items(Collections.singletonList(policy1))) +
+                System.lineSeparator(), output());
+    }
+
+    @Test
+    void printItems_jsonAbortedWithoutItems_nothingPrinted() {
+        outputFormatter.printItems(DataHubListOptions.OutputFormat.json).abort();
+
+        assertEquals("", output());
+    }
+
+    private @NotNull String output() {
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -19,8 +19,10 @@ package com.hivemq.cli.commands.hivemq.export.clients;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
 import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
 import com.hivemq.cli.rest.HiveMQRestService;
+import mockwebserver3.Dispatcher;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,8 +38,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 import static com.hivemq.cli.rest.hivemq.TestResponseBodies.CLIENT_DETAILS_ALL;
 import static com.hivemq.cli.rest.hivemq.TestResponseBodies.CLIENT_DETAILS_CONNECTED;
 import static com.hivemq.cli.rest.hivemq.TestResponseBodies.CLIENT_DETAILS_PERSISTENT_OFFLINE;
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
 import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -188,4 +194,96 @@ class ClientDetailsRetrieverTaskTest {
 
         assertEquals(25, receivedClientDetails.get());
     }
+
+    @Test
+    void too_many_requests_retried_after_retry_after() throws ExecutionException, InterruptedException {
+        clientIdsQueue.add("client-1");
+        server.enqueue(new MockResponse.Builder().code(429).addHeader("Retry-After", "1").build());
+        server.enqueue(new MockResponse.Builder().code(HTTP_OK).body(CLIENT_DETAILS_ALL).build());
+
+        final long start = System.nanoTime();
+        final CompletableFuture<Void> completableFuture = CompletableFuture.runAsync(clientDetailsRetrieverTask);
+        when(clientIdsFuture.isDone()).thenReturn(true);
+
+        completableFuture.get();
+
+        assertEquals(1, clientDetailsQueue.size());
+        assertEquals(2, server.getRequestCount());
+        assertTrue(System.nanoTime() - start >= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void service_unavailable_failed_after_max_retries() {
+        clientDetailsRetrieverTask = new ClientDetailsRetrieverTask(mqttClientsApi,
+                clientIdsFuture,
+                clientIdsQueue,
+                clientDetailsQueue,
+                ClientDetailsRetrieverTask.DEFAULT_MAX_CONCURRENT_REQUESTS,
+                2);
+        clientIdsQueue.add("client-1");
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse.Builder().code(HTTP_UNAVAILABLE).build());
+        }
+
+        final CompletableFuture<Void> completableFuture = CompletableFuture.runAsync(clientDetailsRetrieverTask);
+        when(clientIdsFuture.isDone()).thenReturn(true);
+
+        assertThrows(ExecutionException.class, completableFuture::get);
+        assertEquals(3, server.getRequestCount());
+        assertEquals(0, clientDetailsQueue.size());
+    }
+
+    @Test
+    void internal_error_not_retried() {
+        clientIdsQueue.add("client-1");
+        server.enqueue(new MockResponse.Builder().code(HTTP_INTERNAL_ERROR).build());
+
+        final CompletableFuture<Void> completableFuture = CompletableFuture.runAsync(clientDetailsRetrieverTask);
+        when(clientIdsFuture.isDone()).thenReturn(true);
+
+        assertThrows(ExecutionException.class, completableFuture::get);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void details_with_subscriptions_success() throws ExecutionException, InterruptedException {
+        final BlockingQueue<ClientSubscription> subscriptionsQueue = new LinkedBlockingQueue<>();
+        clientDetailsRetrieverTask = new ClientDetailsRetrieverTask(mqttClientsApi,
+                clientIdsFuture,
+                clientIdsQueue,
+                clientDetailsQueue,
+                ClientDetailsRetrieverTask.DEFAULT_MAX_CONCURRENT_REQUESTS,
+                ClientDetailsRetrieverTask.DEFAULT_MAX_RETRIES,
+                null,
+                subscriptionsQueue);
+        // details and subscriptions are requested concurrently, so the responses are chosen by path
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public @NotNull MockResponse dispatch(final @NotNull RecordedRequest request) {
+                if (request.getUrl().encodedPath().endsWith("/subscriptions")) {
+                    return new MockResponse.Builder().code(HTTP_OK)
+                            .body("{\"items\":[{\"topicFilter\":\"topic/0\",\"qos\":\"AT_MOST_ONCE\"}," +
+                                    "{\"topicFilter\":\"topic/1\",\"qos\":\"EXACTLY_ONCE\",\"noLocal\":true}]}")
+                            .build();
+                }
+                return new MockResponse.Builder().code(HTTP_OK).body(CLIENT_DETAILS_ALL).build();
+            }
+        });
+        clientIdsQueue.add("client-1");
+
+        final CompletableFuture<Void> completableFuture = CompletableFuture.runAsync(clientDetailsRetrieverTask);
+        when(clientIdsFuture.isDone()).thenReturn(true);
+
+        completableFuture.get();
+
+        assertEquals(1, clientDetailsQueue.size());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(2, subscriptionsQueue.size());
+        final ClientSubscription first = subscriptionsQueue.take();
+        assertEquals("client-1", first.getClientId());
+        assertEquals("topic/0", first.getSubscription().getTopicFilter());
+        final ClientSubscription second = subscriptionsQueue.take();
+        assertEquals("topic/1", second.getSubscription().getTopicFilter());
+        assertTrue(second.getSubscription().getNoLocal());
+    }
 }
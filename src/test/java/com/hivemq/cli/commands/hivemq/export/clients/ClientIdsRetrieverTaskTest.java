@@ -20,6 +20,7 @@ import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
 import com.hivemq.cli.rest.HiveMQRestService;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -86,6 +87,18 @@ class ClientIdsRetrieverTaskTest {
         assertEquals(51, clientIdsQueue.size());
     }
 
+    @Test
+    void page_size_used_as_limit() throws Exception {
+        clientIdsRetrieverTask = new ClientIdsRetrieverTask(mqttClientsApi, clientIdsQueue, 100);
+        server.enqueue(new MockResponse.Builder().code(HTTP_OK).body(CLIENT_IDS_SINGLE_RESULT).build());
+
+        clientIdsRetrieverTask.run();
+
+        final RecordedRequest request = server.takeRequest();
+        assertEquals("100", request.getUrl().queryParameter("limit"));
+        assertEquals(1, clientIdsQueue.size());
+    }
+
     @Test
     void unrecoverable_exception_success() {
         final MockResponse response =
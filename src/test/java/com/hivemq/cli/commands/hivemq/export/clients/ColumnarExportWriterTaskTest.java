@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiConnectionDetails;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ColumnarExportWriterTaskTest {
+
+    @TempDir
+    private @NotNull File tempDir;
+
+    private @NotNull CompletableFuture<Void> clientDetailsFuture;
+    private @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue;
+
+    @BeforeEach
+    void setUp() {
+        //noinspection unchecked
+        clientDetailsFuture = mock(CompletableFuture.class);
+        when(clientDetailsFuture.isDone()).thenReturn(true);
+        clientDetailsQueue = new LinkedBlockingQueue<>();
+    }
+
+    @Test
+    void rows_written_in_row_groups_column_by_column() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            final HivemqOpenapiClientDetails clientDetails = new HivemqOpenapiClientDetails();
+            clientDetails.setId("client-" + i);
+            clientDetails.setConnected(i % 2 == 0);
+            if (i == 4) {
+                final HivemqOpenapiConnectionDetails connectionDetails = new HivemqOpenapiConnectionDetails();
+                connectionDetails.setSourceIp("127.0.0.1");
+                clientDetails.setConnection(connectionDetails);
+            }
+            clientDetailsQueue.add(clientDetails);
+        }
+
+        final File file = new File(tempDir, "clients.columnar");
+        final ColumnarExportWriterTask<HivemqOpenapiClientDetails> task = new ColumnarExportWriterTask<>(clientDetailsFuture,
+                clientDetailsQueue,
+                file,
+                Arrays.asList(ClientDetailsField.clientId, ClientDetailsField.connected, ClientDetailsField.ip),
+                2,
+                false,
+                null,
+                HivemqOpenapiClientDetails::getId);
+        CompletableFuture.runAsync(task).get();
+
+        try (final DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            final byte[] magic = new byte[4];
+            in.readFully(magic);
+            assertArrayEquals(ColumnarExportWriterTask.MAGIC, magic);
+            assertEquals(ColumnarExportWriterTask.VERSION, in.readByte());
+            assertEquals(3, in.readInt());
+            assertEquals("clientId", in.readUTF());
+            assertEquals("connected", in.readUTF());
+            assertEquals("ip", in.readUTF());
+
+            assertEquals(Arrays.asList(Arrays.asList("client-0", "client-1"),
+                    Arrays.asList("true", "false"),
+                    Arrays.asList(null, null)), readRowGroup(in, 3));
+            assertEquals(Arrays.asList(Arrays.asList("client-2", "client-3"),
+                    Arrays.asList("true", "false"),
+                    Arrays.asList(null, null)), readRowGroup(in, 3));
+            assertEquals(Arrays.asList(Arrays.asList("client-4"),
+                    Arrays.asList("true"),
+                    Arrays.asList("127.0.0.1")), readRowGroup(in, 3));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    private static @NotNull List<List<String>> readRowGroup(final @NotNull DataInputStream in, final int columnCount)
+            throws Exception {
+        final int rows = in.readInt();
+        final List<List<String>> columns = new ArrayList<>();
+        for (int column = 0; column < columnCount; column++) {
+            final byte[] data = new byte[in.readInt()];
+            final byte[] compressed = new byte[in.readInt()];
+            in.readFully(compressed);
+            final Inflater inflater = new Inflater();
+            inflater.setInput(compressed);
+            assertEquals(data.length, inflater.inflate(data));
+            inflater.end();
+
+            final ByteArrayInputStream columnIn = new ByteArrayInputStream(data);
+            final List<String> values = new ArrayList<>();
+            for (int row = 0; row < rows; row++) {
+                values.add(readValue(columnIn));
+            }
+            assertEquals(-1, columnIn.read());
+            columns.add(values);
+        }
+        return columns;
+    }
+
+    private static @Nullable String readValue(final @NotNull ByteArrayInputStream in) throws IOException {
+        int length = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.read();
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        if (length == 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length - 1];
+        assertEquals(bytes.length, in.read(bytes, 0, bytes.length));
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -44,18 +44,20 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
 
-import static com.hivemq.cli.commands.hivemq.export.clients.ClientDetailsCsvWriterTask.EXPORT_CSV_HEADER;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
-class ClientDetailsCsvWriterTaskTest {
+class CsvExportWriterTaskTest {
+
+    private static final @NotNull String @NotNull [] EXPORT_CSV_HEADER =
+            Arrays.stream(ClientDetailsField.values()).map(Enum::name).toArray(String[]::new);
 
     private @NotNull CompletableFuture<Void> clientDetailsFuture;
     private @NotNull File csvFile;
     private @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue;
-    private @NotNull ClientDetailsCsvWriterTask clientDetailsCsvWriterTask;
+    private @NotNull CsvExportWriterTask<HivemqOpenapiClientDetails> clientDetailsCsvWriterTask;
     private @NotNull CSVReader csvReader;
 
     @BeforeEach
@@ -66,14 +68,18 @@ class ClientDetailsCsvWriterTaskTest {
 
         csvFile = File.createTempFile("client_details", ".csv");
         clientDetailsQueue = new LinkedBlockingQueue<>();
-        clientDetailsCsvWriterTask = new ClientDetailsCsvWriterTask(
+        clientDetailsCsvWriterTask = new CsvExportWriterTask<>(
                 clientDetailsFuture,
                 clientDetailsQueue,
                 csvFile,
+                Arrays.asList(ClientDetailsField.values()),
                 CSVWriter.DEFAULT_SEPARATOR,
                 CSVWriter.DEFAULT_QUOTE_CHARACTER,
                 CSVWriter.DEFAULT_ESCAPE_CHARACTER,
-                CSVWriter.DEFAULT_LINE_END);
+                CSVWriter.DEFAULT_LINE_END,
+                false,
+                null,
+                HivemqOpenapiClientDetails::getId);
         csvReader = new CSVReader(new FileReader(csvFile));
     }
 
@@ -370,14 +376,18 @@ class ClientDetailsCsvWriterTaskTest {
     void wait_for_client_details() throws IOException, CsvException {
         final HivemqOpenapiClientDetails allClientDetails = TestClientDetails.getAllClientDetails();
         clientDetailsQueue = new LinkedBlockingQueue<>(1);
-        clientDetailsCsvWriterTask = new ClientDetailsCsvWriterTask(
+        clientDetailsCsvWriterTask = new CsvExportWriterTask<>(
                 clientDetailsFuture,
                 clientDetailsQueue,
                 csvFile,
+                Arrays.asList(ClientDetailsField.values()),
                 CSVWriter.DEFAULT_SEPARATOR,
                 CSVWriter.DEFAULT_QUOTE_CHARACTER,
                 CSVWriter.DEFAULT_ESCAPE_CHARACTER,
-                CSVWriter.DEFAULT_LINE_END);
+                CSVWriter.DEFAULT_LINE_END,
+                false,
+                null,
+                HivemqOpenapiClientDetails::getId);
 
         final CompletableFuture<Void> detailsProducerFuture = CompletableFuture.runAsync(() -> {
             try {
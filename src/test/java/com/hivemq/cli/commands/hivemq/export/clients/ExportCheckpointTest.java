@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportCheckpointTest {
+
+    private static final @NotNull String FORMAT = "csv";
+    private static final @NotNull List<String> FIELDS = List.of("clientId", "connected");
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void resume_completedPages_cursorOfFirstIncompletePage() throws Exception {
+        final File file = tempDir.resolve("export.csv.checkpoint").toFile();
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.create(file, FORMAT, FIELDS)) {
+            checkpoint.registerPage(null);
+            assertTrue(checkpoint.registerClientId("client-1"));
+            assertTrue(checkpoint.registerClientId("client-2"));
+            checkpoint.registerPage("cursor-1");
+            assertTrue(checkpoint.registerClientId("client-3"));
+            checkpoint.registerPage("cursor-2");
+            assertTrue(checkpoint.registerClientId("client-4"));
+
+            checkpoint.complete("client-1", true);
+            checkpoint.complete("client-2", false);
+            checkpoint.complete("client-4", true);
+            checkpoint.flush(100);
+        }
+
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.resume(file, FORMAT, FIELDS)) {
+            assertEquals("cursor-1", checkpoint.getResumeCursor());
+            assertEquals(2, checkpoint.getResumedClientIds());
+
+            checkpoint.registerPage("cursor-1");
+            assertTrue(checkpoint.registerClientId("client-3"));
+            checkpoint.registerPage("cursor-2");
+            assertFalse(checkpoint.registerClientId("client-4"));
+            checkpoint.complete("client-3", true);
+            checkpoint.flush(150);
+        }
+
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.resume(file, FORMAT, FIELDS)) {
+            assertEquals("cursor-2", checkpoint.getResumeCursor());
+            assertEquals(3, checkpoint.getResumedClientIds());
+            assertEquals(150, checkpoint.getResumeLength());
+        }
+    }
+
+    @Test
+    void resume_noCompletedPage_startsWithFirstPage() throws Exception {
+        final File file = tempDir.resolve("export.csv.checkpoint").toFile();
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.create(file, FORMAT, FIELDS)) {
+            checkpoint.registerPage(null);
+            assertTrue(checkpoint.registerClientId("client-1"));
+            checkpoint.complete("client-1", true);
+            checkpoint.flush(10);
+        }
+
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.resume(file, FORMAT, FIELDS)) {
+            assertNull(checkpoint.getResumeCursor());
+            checkpoint.registerPage(null);
+            assertFalse(checkpoint.registerClientId("client-1"));
+        }
+    }
+
+    @Test
+    void resume_clientIdWithLineBreak_restored() throws Exception {
+        final File file = tempDir.resolve("export.csv.checkpoint").toFile();
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.create(file, FORMAT, FIELDS)) {
+            checkpoint.registerPage(null);
+            assertTrue(checkpoint.registerClientId("client\\n\n1"));
+            checkpoint.complete("client\\n\n1", true);
+            checkpoint.flush(10);
+        }
+
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.resume(file, FORMAT, FIELDS)) {
+            checkpoint.registerPage(null);
+            assertFalse(checkpoint.registerClientId("client\\n\n1"));
+            assertTrue(checkpoint.registerClientId("client\\n1"));
+        }
+    }
+
+    @Test
+    void resume_entriesAfterLastFlush_ignoredAndDropped() throws Exception {
+        final File file = tempDir.resolve("export.csv.checkpoint").toFile();
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.create(file, FORMAT, FIELDS)) {
+            checkpoint.registerPage(null);
+            assertTrue(checkpoint.registerClientId("client-1"));
+            assertTrue(checkpoint.registerClientId("client-2"));
+            checkpoint.registerPage("cursor-1");
+            assertTrue(checkpoint.registerClientId("client-3"));
+            checkpoint.complete("client-1", true);
+            checkpoint.flush(10);
+            checkpoint.complete("client-2", true);
+        }
+
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.resume(file, FORMAT, FIELDS)) {
+            assertNull(checkpoint.getResumeCursor());
+            assertEquals(1, checkpoint.getResumedClientIds());
+            assertEquals(10, checkpoint.getResumeLength());
+            checkpoint.flush(10);
+        }
+
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.resume(file, FORMAT, FIELDS)) {
+            checkpoint.registerPage(null);
+            assertFalse(checkpoint.registerClientId("client-1"));
+            assertTrue(checkpoint.registerClientId("client-2"));
+        }
+    }
+
+    @Test
+    void resume_truncatedLengthEntry_previousLengthUsed() throws Exception {
+        final Path file = tempDir.resolve("export.csv.checkpoint");
+        Files.writeString(file,
+                "# mqtt-cli client export checkpoint\n" +
+                        "format csv\n" +
+                        "fields clientId,connected\n" +
+                        "id client-1\n" +
+                        "length 1234\n" +
+                        "id client-2\n" +
+                        "length 56");
+
+        try (final ExportCheckpoint checkpoint = ExportCheckpoint.resume(file.toFile(), FORMAT, FIELDS)) {
+            assertEquals(1, checkpoint.getResumedClientIds());
+            assertEquals(1234, checkpoint.getResumeLength());
+        }
+    }
+
+    @Test
+    void resume_differentFormatOrFields_ioException() throws Exception {
+        final File file = tempDir.resolve("export.csv.checkpoint").toFile();
+        ExportCheckpoint.create(file, FORMAT, FIELDS).close();
+
+        assertThrows(IOException.class, () -> ExportCheckpoint.resume(file, "ndjson", FIELDS));
+        assertThrows(IOException.class, () -> ExportCheckpoint.resume(file, FORMAT, List.of("clientId")));
+    }
+
+    @Test
+    void resume_notACheckpointFile_ioException() throws Exception {
+        final Path file = tempDir.resolve("export.csv");
+        Files.writeString(file, "clientId,connected\n");
+
+        assertThrows(IOException.class, () -> ExportCheckpoint.resume(file.toFile(), FORMAT, FIELDS));
+    }
+
+    @Test
+    void fileOf_outputFile_sidecarFile() {
+        assertEquals(new File("export.csv.checkpoint"), ExportCheckpoint.fileOf(new File("export.csv")));
+    }
+}
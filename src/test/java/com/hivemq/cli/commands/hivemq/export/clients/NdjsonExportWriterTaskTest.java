@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiConnectionDetails;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NdjsonExportWriterTaskTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    private @NotNull CompletableFuture<Void> clientDetailsFuture;
+    private @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue;
+
+    @BeforeEach
+    void setUp() {
+        //noinspection unchecked
+        clientDetailsFuture = mock(CompletableFuture.class);
+        when(clientDetailsFuture.isDone()).thenReturn(true);
+        clientDetailsQueue = new LinkedBlockingQueue<>();
+    }
+
+    @Test
+    void selected_fields_one_object_per_line() throws Exception {
+        final HivemqOpenapiClientDetails first = new HivemqOpenapiClientDetails();
+        first.setId("client-1");
+        first.setConnected(true);
+        first.setSessionExpiryInterval(120L);
+        first.setConnectedAt(OffsetDateTime.parse("2020-07-17T14:36:58.641286+02:00"));
+        final HivemqOpenapiConnectionDetails connectionDetails = new HivemqOpenapiConnectionDetails();
+        connectionDetails.setSourceIp("127.0.0.1");
+        first.setConnection(connectionDetails);
+        final HivemqOpenapiClientDetails second = new HivemqOpenapiClientDetails();
+        second.setId("client-\"2\"");
+        second.setConnected(false);
+        clientDetailsQueue.add(first);
+        clientDetailsQueue.add(second);
+
+        final File file = tempDir.resolve("clients.ndjson").toFile();
+        final NdjsonExportWriterTask<HivemqOpenapiClientDetails> task = new NdjsonExportWriterTask<>(clientDetailsFuture,
+                clientDetailsQueue,
+                file,
+                Arrays.asList(ClientDetailsField.clientId,
+                        ClientDetailsField.connected,
+                        ClientDetailsField.sessionExpiryInterval,
+                        ClientDetailsField.connectedAt,
+                        ClientDetailsField.ip),
+                false,
+                null,
+                HivemqOpenapiClientDetails::getId);
+        CompletableFuture.runAsync(task).get();
+
+        final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertEquals("{\"clientId\":\"client-1\",\"connected\":true,\"sessionExpiryInterval\":120," +
+                "\"connectedAt\":\"2020-07-17T14:36:58.641286+02:00\",\"ip\":\"127.0.0.1\"}", lines.get(0));
+        final JsonObject secondObject = JsonParser.parseString(lines.get(1)).getAsJsonObject();
+        assertEquals("client-\"2\"", secondObject.get("clientId").getAsString());
+        assertFalse(secondObject.get("connected").getAsBoolean());
+        assertFalse(secondObject.has("ip"));
+        assertEquals(2, task.getWrittenItems());
+    }
+
+    @Test
+    void no_client_details_empty_file() throws Exception {
+        final File file = tempDir.resolve("clients.ndjson").toFile();
+        final NdjsonExportWriterTask<HivemqOpenapiClientDetails> task = new NdjsonExportWriterTask<>(clientDetailsFuture,
+                clientDetailsQueue,
+                file,
+                Arrays.asList(ClientDetailsField.values()),
+                false,
+                null,
+                HivemqOpenapiClientDetails::getId);
+        CompletableFuture.runAsync(task).get();
+
+        assertEquals(0, file.length());
+    }
+}
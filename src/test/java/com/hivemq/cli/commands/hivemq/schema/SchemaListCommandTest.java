@@ -16,6 +16,7 @@
 
 package com.hivemq.cli.commands.hivemq.schema;
 
+import com.google.gson.Gson;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.DataHubSchemasApi;
@@ -27,6 +28,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import picocli.CommandLine;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
@@ -34,13 +38,15 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SchemaListCommandTest {
 
     private final @NotNull HiveMQRestService hiveMQRestService = mock();
-    private final @NotNull OutputFormatter outputFormatter = mock();
+    private final @NotNull OutputFormatter outputFormatter =
+            spy(new OutputFormatter(new PrintStream(new ByteArrayOutputStream()), new Gson()));
     private final @NotNull DataHubSchemasApi schemasApi = mock();
 
     private final @NotNull CommandLine commandLine =
@@ -97,4 +103,16 @@ public class SchemaListCommandTest {
         doThrow(ApiException.class).when(schemasApi).getAllSchemas(any(), any(), any(), any(), any());
         assertEquals(1, commandLine.execute());
     }
+
+    @Test
+    void call_pageSize_usedAsUrlParameter() throws ApiException {
+        assertEquals(0, commandLine.execute("--page-size=100"));
+        verify(schemasApi).getAllSchemas(isNull(), isNull(), isNull(), eq(100), isNull());
+    }
+
+    @Test
+    void call_pageSizeTooSmall_error() {
+        assertEquals(1, commandLine.execute("--page-size=5"));
+        verify(outputFormatter).printError(eq("The page size must be between 10 and 500."));
+    }
 }
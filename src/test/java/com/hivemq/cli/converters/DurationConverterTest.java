@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.converters;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DurationConverterTest {
+
+    private @NotNull DurationConverter durationConverter;
+
+    @BeforeEach
+    void setUp() {
+        durationConverter = new DurationConverter();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "s", "test", "-1", "0", "0s", "1.5s", "10x", "5 minutes", "99999999999999999999"})
+    void testInvalidString(final @NotNull String s) {
+        final Exception e = assertThrows(Exception.class, () -> durationConverter.convert(s));
+
+        assertEquals(DurationConverter.WRONG_INPUT_MESSAGE, e.getMessage());
+    }
+
+    @Test
+    void testSuccess() throws Exception {
+        assertEquals(Duration.ofSeconds(30), durationConverter.convert("30"));
+        assertEquals(Duration.ofMillis(250), durationConverter.convert("250ms"));
+        assertEquals(Duration.ofSeconds(30), durationConverter.convert("30s"));
+        assertEquals(Duration.ofMinutes(5), durationConverter.convert("5m"));
+        assertEquals(Duration.ofHours(1), durationConverter.convert("1H"));
+        assertEquals(Duration.ofDays(2), durationConverter.convert("2d"));
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.converters;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimestampConverterTest {
+
+    private @NotNull TimestampConverter timestampConverter;
+
+    @BeforeEach
+    void setUp() {
+        timestampConverter = new TimestampConverter();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "test", "-1", "1.5", "2024-01-02", "2024-01-02T03:04:05"})
+    void testInvalidString(final @NotNull String s) {
+        final Exception e = assertThrows(Exception.class, () -> timestampConverter.convert(s));
+
+        assertEquals(TimestampConverter.WRONG_INPUT_MESSAGE, e.getMessage());
+    }
+
+    @Test
+    void testSuccess() throws Exception {
+        assertEquals(0L, timestampConverter.convert("0"));
+        assertEquals(1_704_164_645_000L, timestampConverter.convert("1704164645000"));
+        assertEquals(1_704_164_645_000L, timestampConverter.convert("2024-01-02T03:04:05Z"));
+        assertEquals(1_704_164_645_123L, timestampConverter.convert("2024-01-02T04:04:05.123+01:00"));
+    }
+}
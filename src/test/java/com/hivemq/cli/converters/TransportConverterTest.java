@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.converters;
+
+import com.hivemq.cli.mqtt.Transport;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransportConverterTest {
+
+    private final @NotNull TransportConverter transportConverter = new TransportConverter();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"nio", "NIO", "Nio"})
+    void convert_NIO_SUCCESS(final @NotNull String s) throws Exception {
+        assertEquals(Transport.NIO, transportConverter.convert(s));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"epoll", "EPOLL"})
+    void convert_EPOLL_SUCCESS(final @NotNull String s) throws Exception {
+        assertEquals(Transport.EPOLL, transportConverter.convert(s));
+    }
+
+    @Test
+    void convert_IO_URING_FAILURE() {
+        final Exception e = assertThrows(Exception.class, () -> transportConverter.convert("io_uring"));
+        assertEquals(TransportConverter.IO_URING_MESSAGE, e.getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "kqueue", "tcp"})
+    void convert_UNKNOWN_FAILURE(final @NotNull String s) {
+        final Exception e = assertThrows(Exception.class, () -> transportConverter.convert(s));
+        assertEquals(TransportConverter.WRONG_INPUT_MESSAGE, e.getMessage());
+    }
+}
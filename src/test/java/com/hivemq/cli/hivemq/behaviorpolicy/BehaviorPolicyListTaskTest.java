@@ -16,6 +16,11 @@
 
 package com.hivemq.cli.hivemq.behaviorpolicy;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.DataHubBehaviorPoliciesApi;
@@ -24,10 +29,14 @@ import com.hivemq.cli.openapi.hivemq.HivemqOpenapiBehaviorPolicyList;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiPaginationCursor;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -36,20 +45,31 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class BehaviorPolicyListTaskTest {
 
+    private static final int PAGE_SIZE = 100;
+
     private final @NotNull DataHubBehaviorPoliciesApi behaviorPoliciesApi = mock(DataHubBehaviorPoliciesApi.class);
-    private final @NotNull OutputFormatter outputFormatter = mock();
+    private final @NotNull ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final @NotNull OutputFormatter outputFormatter =
+            spy(new OutputFormatter(new PrintStream(outputStream), new Gson()));
 
     @Test
     void execute_policyIdsProvided_usedAsUrlParameter() throws ApiException {
         final String[] policyIds = {"policy-1", "policy-2", "policy-3"};
-        final BehaviorPolicyListTask task =
-                new BehaviorPolicyListTask(outputFormatter, behaviorPoliciesApi, policyIds, null, null, null);
+        final BehaviorPolicyListTask task = new BehaviorPolicyListTask(outputFormatter,
+                behaviorPoliciesApi,
+                policyIds,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(behaviorPoliciesApi.getAllBehaviorPolicies(any(),
                 any(),
@@ -69,8 +89,14 @@ public class BehaviorPolicyListTaskTest {
     @Test
     void execute_clientIdsProvided_usedAsUrlParameter() throws ApiException {
         final String[] clientIds = {"client-1", "client-2", "client-3"};
-        final BehaviorPolicyListTask task =
-                new BehaviorPolicyListTask(outputFormatter, behaviorPoliciesApi, null, clientIds, null, null);
+        final BehaviorPolicyListTask task = new BehaviorPolicyListTask(outputFormatter,
+                behaviorPoliciesApi,
+                null,
+                clientIds,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(behaviorPoliciesApi.getAllBehaviorPolicies(any(),
                 any(),
@@ -90,8 +116,14 @@ public class BehaviorPolicyListTaskTest {
     @Test
     void execute_fieldsProvided_usedAsUrlParameter() throws ApiException {
         final String[] fields = {"id", "version", "createdAt"};
-        final BehaviorPolicyListTask task =
-                new BehaviorPolicyListTask(outputFormatter, behaviorPoliciesApi, null, null, fields, null);
+        final BehaviorPolicyListTask task = new BehaviorPolicyListTask(outputFormatter,
+                behaviorPoliciesApi,
+                null,
+                null,
+                fields,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(behaviorPoliciesApi.getAllBehaviorPolicies(any(),
                 any(),
@@ -110,8 +142,14 @@ public class BehaviorPolicyListTaskTest {
 
     @Test
     void execute_cursorReturned_allPagesFetched() throws ApiException {
-        final BehaviorPolicyListTask task =
-                new BehaviorPolicyListTask(outputFormatter, behaviorPoliciesApi, null, null, null, null);
+        final BehaviorPolicyListTask task = new BehaviorPolicyListTask(outputFormatter,
+                behaviorPoliciesApi,
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         final HivemqOpenapiBehaviorPolicy policy1 = new HivemqOpenapiBehaviorPolicy().id("policy-1");
         final HivemqOpenapiBehaviorPolicy policy2 = new HivemqOpenapiBehaviorPolicy().id("policy-2");
@@ -138,16 +176,19 @@ public class BehaviorPolicyListTaskTest {
         verify(behaviorPoliciesApi).getAllBehaviorPolicies(isNull(), isNull(), isNull(), any(), eq("cursor-2"));
         verify(behaviorPoliciesApi, times(3)).getAllBehaviorPolicies(any(), any(), any(), any(), any());
 
-        final ArgumentCaptor<HivemqOpenapiBehaviorPolicyList> outputCaptor =
-                ArgumentCaptor.forClass(HivemqOpenapiBehaviorPolicyList.class);
-        verify(outputFormatter).printJson(outputCaptor.capture());
-        assertEquals(Arrays.asList(policy1, policy2, policy3, policy4), outputCaptor.getValue().getItems());
+        assertEquals(Arrays.asList("policy-1", "policy-2", "policy-3", "policy-4"), printedIds());
     }
 
     @Test
     void execute_cursorReturnedLimitSpecified_limitNotExceeded() throws ApiException {
-        final BehaviorPolicyListTask task =
-                new BehaviorPolicyListTask(outputFormatter, behaviorPoliciesApi, null, null, null, 3);
+        final BehaviorPolicyListTask task = new BehaviorPolicyListTask(outputFormatter,
+                behaviorPoliciesApi,
+                null,
+                null,
+                null,
+                3,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         final HivemqOpenapiBehaviorPolicy policy1 = new HivemqOpenapiBehaviorPolicy().id("policy-1");
         final HivemqOpenapiBehaviorPolicy policy2 = new HivemqOpenapiBehaviorPolicy().id("policy-2");
@@ -170,16 +211,19 @@ public class BehaviorPolicyListTaskTest {
         verify(behaviorPoliciesApi).getAllBehaviorPolicies(isNull(), isNull(), isNull(), any(), eq("cursor-1"));
         verify(behaviorPoliciesApi, times(2)).getAllBehaviorPolicies(any(), any(), any(), any(), any());
 
-        final ArgumentCaptor<HivemqOpenapiBehaviorPolicyList> outputCaptor =
-                ArgumentCaptor.forClass(HivemqOpenapiBehaviorPolicyList.class);
-        verify(outputFormatter).printJson(outputCaptor.capture());
-        assertEquals(Arrays.asList(policy1, policy2, policy3), outputCaptor.getValue().getItems());
+        assertEquals(Arrays.asList("policy-1", "policy-2", "policy-3"), printedIds());
     }
 
     @Test
     void execute_apiException_printError() throws ApiException {
-        final BehaviorPolicyListTask task =
-                new BehaviorPolicyListTask(outputFormatter, behaviorPoliciesApi, null, null, null, null);
+        final BehaviorPolicyListTask task = new BehaviorPolicyListTask(outputFormatter,
+                behaviorPoliciesApi,
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(behaviorPoliciesApi.getAllBehaviorPolicies(any(),
                 any(),
@@ -190,4 +234,15 @@ public class BehaviorPolicyListTaskTest {
         assertFalse(task.execute());
         verify(outputFormatter, times(1)).printApiException(any(), any());
     }
+
+    private @NotNull List<String> printedIds() {
+        final JsonArray items = JsonParser.parseString(outputStream.toString(StandardCharsets.UTF_8))
+                .getAsJsonObject()
+                .getAsJsonArray("items");
+        final List<String> ids = new ArrayList<>();
+        for (final JsonElement item : items) {
+            ids.add(item.getAsJsonObject().get("id").getAsString());
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.hivemq.datahub;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
+import com.hivemq.cli.openapi.ApiException;
+import com.hivemq.cli.openapi.JSON;
+import com.hivemq.cli.openapi.hivemq.DataHubBehaviorPoliciesApi;
+import com.hivemq.cli.openapi.hivemq.DataHubDataPoliciesApi;
+import com.hivemq.cli.openapi.hivemq.DataHubSchemasApi;
+import com.hivemq.cli.openapi.hivemq.DataHubScriptsApi;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicy;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicyList;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiSchema;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiSchemaList;
+import com.hivemq.cli.utils.json.OffsetDateTimeSerializer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DataHubApplyTaskTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    private final @NotNull DataHubSchemasApi schemasApi = mock();
+    private final @NotNull DataHubScriptsApi scriptsApi = mock();
+    private final @NotNull DataHubDataPoliciesApi dataPoliciesApi = mock();
+    private final @NotNull DataHubBehaviorPoliciesApi behaviorPoliciesApi = mock();
+    private final @NotNull OutputFormatter outputFormatter = mock();
+    private final @NotNull ArgumentCaptor<Object> resultCaptor = ArgumentCaptor.forClass(Object.class);
+    private final @NotNull Gson gson =
+            new GsonBuilder().registerTypeAdapter(OffsetDateTime.class, new OffsetDateTimeSerializer()).create();
+
+    private static final @NotNull String SCHEMA_JSON =
+            "{\"id\":\"schema-1\",\"type\":\"JSON\",\"schemaDefinition\":\"e30=\"}";
+    private static final @NotNull String POLICY_JSON = "{\"id\":\"policy-1\",\"matching\":{\"topicFilter\":\"a/#\"}," +
+            "\"validation\":{\"validators\":[{\"type\":\"schema\",\"arguments\":{\"strategy\":\"ALL_OF\"," +
+            "\"schemas\":[{\"schemaId\":\"schema-1\",\"version\":\"latest\"}]}}]}}";
+
+    private final @NotNull DataHubDefinition schema = new DataHubDefinition(DataHubDefinition.Type.SCHEMA,
+            "schema-1",
+            JsonParser.parseString(SCHEMA_JSON).getAsJsonObject(),
+            Paths.get("schemas/schema-1.json"),
+            Collections.emptySet());
+    private final @NotNull DataHubDefinition policy = new DataHubDefinition(DataHubDefinition.Type.DATA_POLICY,
+            "policy-1",
+            JsonParser.parseString(POLICY_JSON).getAsJsonObject(),
+            Paths.get("data-policies/policy-1.json"),
+            new HashSet<>(Collections.singletonList("schema:schema-1")));
+
+    @BeforeEach
+    void setUp() throws ApiException {
+        when(schemasApi.getSchema(any(), any())).thenThrow(new ApiException(404, "Not found"));
+        when(dataPoliciesApi.getDataPolicy(any(), any())).thenThrow(new ApiException(404, "Not found"));
+    }
+
+    @Test
+    void execute_notExisting_createdInDependencyOrder() throws ApiException {
+        assertTrue(createTask(Arrays.asList(policy, schema), false).execute());
+
+        final InOrder inOrder = inOrder(schemasApi, dataPoliciesApi);
+        inOrder.verify(schemasApi).createSchema(any());
+        inOrder.verify(dataPoliciesApi).getDataPolicy(eq("policy-1"), isNull());
+        inOrder.verify(dataPoliciesApi).createDataPolicy(any());
+        assertEquals(Arrays.asList("created", "created"), actions());
+    }
+
+    @Test
+    void execute_unchangedPolicy_skipped() throws ApiException {
+        doReturn(gson.fromJson(POLICY_JSON, HivemqOpenapiDataPolicy.class)).when(dataPoliciesApi)
+                .getDataPolicy(eq("policy-1"), isNull());
+        // a definition retrieved with "get" contains the fields assigned by the broker
+        final JsonObject retrievedPolicy = policy.getJson().deepCopy();
+        retrievedPolicy.addProperty("createdAt", "2023-11-03T13:07:15.650Z");
+        retrievedPolicy.addProperty("lastUpdatedAt", "2023-11-03T13:07:15.650Z");
+        final DataHubDefinition definition = new DataHubDefinition(DataHubDefinition.Type.DATA_POLICY,
+                "policy-1",
+                retrievedPolicy,
+                policy.getPath(),
+                policy.getDependencies());
+
+        assertTrue(createTask(Collections.singletonList(definition), false).execute());
+
+        verify(dataPoliciesApi, never()).createDataPolicy(any());
+        verify(dataPoliciesApi, never()).updateDataPolicy(any(), any());
+        assertEquals(Collections.singletonList("unchanged"), actions());
+    }
+
+    @Test
+    void execute_changedPolicy_updated() throws ApiException {
+        final HivemqOpenapiDataPolicy current = gson.fromJson(POLICY_JSON.replace("a/#", "b/#"),
+                HivemqOpenapiDataPolicy.class);
+        doReturn(current).when(dataPoliciesApi).getDataPolicy(eq("policy-1"), isNull());
+
+        assertTrue(createTask(Collections.singletonList(policy), false).execute());
+
+        verify(dataPoliciesApi).updateDataPolicy(eq("policy-1"), any());
+        assertEquals(Collections.singletonList("updated"), actions());
+        final JsonArray changedFields = items().get(0).getAsJsonObject().getAsJsonArray("changedFields");
+        assertEquals(1, changedFields.size());
+        assertEquals("matching", changedFields.get(0).getAsString());
+    }
+
+    @Test
+    void execute_dryRun_nothingApplied() throws ApiException {
+        assertTrue(createTask(Arrays.asList(schema, policy), true).execute());
+
+        verify(schemasApi, never()).createSchema(any());
+        verify(dataPoliciesApi, never()).createDataPolicy(any());
+        assertEquals(Arrays.asList("create", "create"), actions());
+    }
+
+    @Test
+    void execute_schemaFailed_dependentPolicySkipped() throws ApiException {
+        when(schemasApi.createSchema(any())).thenThrow(new ApiException(400, "Invalid schema"));
+
+        assertFalse(createTask(Arrays.asList(schema, policy), false).execute());
+
+        verify(outputFormatter).printApiException(any(), any());
+        verify(dataPoliciesApi, never()).getDataPolicy(any(), any());
+        assertEquals(Arrays.asList("failed", "skipped"), actions());
+    }
+
+    @Test
+    void execute_syncUnchangedPolicy_notFetchedAgain() throws ApiException {
+        final String remotePolicyJson = POLICY_JSON.replace("{\"id\":\"policy-1\",",
+                "{\"id\":\"policy-1\",\"createdAt\":\"2023-11-03T13:07:15.650Z\"," +
+                        "\"lastUpdatedAt\":\"2023-11-03T13:07:15.650Z\",");
+        when(dataPoliciesApi.getAllDataPolicies(any(), any(), any(), any(), any(), any())).thenReturn(JSON.deserialize(
+                "{\"items\":[" + remotePolicyJson + "]}",
+                HivemqOpenapiDataPolicyList.class));
+        doReturn(JSON.deserialize(remotePolicyJson, HivemqOpenapiDataPolicy.class)).when(dataPoliciesApi)
+                .getDataPolicy(eq("policy-1"), isNull());
+        final Path cacheFile = tempDir.resolve("cache.json");
+
+        assertTrue(createTask(Collections.singletonList(policy), cacheFile).execute());
+        assertEquals(Collections.singletonList("unchanged"), actions());
+        clearInvocations(outputFormatter);
+        assertTrue(createTask(Collections.singletonList(policy), cacheFile).execute());
+        assertEquals(Collections.singletonList("unchanged"), actions());
+
+        verify(dataPoliciesApi, times(1)).getDataPolicy(any(), any());
+        verify(dataPoliciesApi, never()).updateDataPolicy(any(), any());
+    }
+
+    @Test
+    void execute_syncNotExistingPolicy_createdWithoutFetch() throws ApiException {
+        when(dataPoliciesApi.getAllDataPolicies(any(), any(), any(), any(), any(), any())).thenReturn(JSON.deserialize(
+                "{\"items\":[]}",
+                HivemqOpenapiDataPolicyList.class));
+
+        final DataHubApplyTask task = createTask(Collections.singletonList(policy), tempDir.resolve("cache.json"));
+        assertTrue(task.execute());
+
+        verify(dataPoliciesApi, never()).getDataPolicy(any(), any());
+        verify(dataPoliciesApi).createDataPolicy(any());
+        assertTrue(task.isChanged());
+        assertEquals(Collections.singletonList("created"), actions());
+    }
+
+    @Test
+    void execute_syncUnchangedSchemaWithSeveralVersions_notFetchedAgain() throws ApiException {
+        final String latestSchemaJson = SCHEMA_JSON.replace("{\"id\":\"schema-1\",",
+                "{\"id\":\"schema-1\",\"version\":2,\"createdAt\":\"2023-11-03T13:07:15.650Z\",");
+        final String firstSchemaJson = SCHEMA_JSON.replace("{\"id\":\"schema-1\",",
+                "{\"id\":\"schema-1\",\"version\":1,\"createdAt\":\"2023-11-02T10:00:00.000Z\",");
+        // the latest version is listed first
+        when(schemasApi.getAllSchemas(any(), any(), any(), any(), any())).thenReturn(JSON.deserialize(
+                "{\"items\":[" + latestSchemaJson + "," + firstSchemaJson + "]}",
+                HivemqOpenapiSchemaList.class));
+        doReturn(JSON.deserialize(latestSchemaJson, HivemqOpenapiSchema.class)).when(schemasApi)
+                .getSchema(eq("schema-1"), isNull());
+        final Path cacheFile = tempDir.resolve("cache.json");
+
+        assertTrue(createTask(Collections.singletonList(schema), cacheFile).execute());
+        assertEquals(Collections.singletonList("unchanged"), actions());
+        clearInvocations(outputFormatter);
+        assertTrue(createTask(Collections.singletonList(schema), cacheFile).execute());
+        assertEquals(Collections.singletonList("unchanged"), actions());
+
+        verify(schemasApi, times(1)).getSchema(any(), any());
+        verify(schemasApi, never()).createSchema(any());
+    }
+
+    private @NotNull DataHubApplyTask createTask(
+            final @NotNull List<DataHubDefinition> definitions, final boolean dryRun) {
+        return new DataHubApplyTask(outputFormatter,
+                schemasApi,
+                scriptsApi,
+                dataPoliciesApi,
+                behaviorPoliciesApi,
+                gson,
+                definitions,
+                4,
+                dryRun);
+    }
+
+    private @NotNull DataHubApplyTask createTask(
+            final @NotNull List<DataHubDefinition> definitions, final @NotNull Path cacheFile) {
+        return new DataHubApplyTask(outputFormatter,
+                schemasApi,
+                scriptsApi,
+                dataPoliciesApi,
+                behaviorPoliciesApi,
+                gson,
+                definitions,
+                4,
+                false,
+                DataHubFingerprintCache.load(cacheFile, "http://localhost:8888"));
+    }
+
+    private @NotNull JsonArray items() {
+        verify(outputFormatter).printJson(resultCaptor.capture());
+        return ((JsonObject) resultCaptor.getValue()).getAsJsonArray("items");
+    }
+
+    private @NotNull List<String> actions() {
+        final JsonArray items = items();
+        final String[] actions = new String[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            actions[i] = items.get(i).getAsJsonObject().get("action").getAsString();
+        }
+        return Arrays.asList(actions);
+    }
+}
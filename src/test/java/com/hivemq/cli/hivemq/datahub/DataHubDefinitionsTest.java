@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.hivemq.datahub;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DataHubDefinitionsTest {
+
+    @TempDir
+    private @NotNull Path directory;
+
+    @Test
+    void load_allTypes_dependenciesCollected() throws IOException {
+        write("schemas/schema-1.json", "{\"id\":\"schema-1\",\"type\":\"JSON\",\"schemaDefinition\":\"e30=\"}");
+        write("scripts/script-1.json", "{\"id\":\"script-1\",\"functionType\":\"TRANSFORMATION\",\"source\":\"\"}");
+        write("data-policies/policy-1.json", "{\"id\":\"policy-1\",\"matching\":{\"topicFilter\":\"a/#\"}," +
+                "\"validation\":{\"validators\":[{\"type\":\"schema\",\"arguments\":{\"strategy\":\"ALL_OF\"," +
+                "\"schemas\":[{\"schemaId\":\"schema-1\",\"version\":\"latest\"}]}}]}," +
+                "\"onSuccess\":{\"pipeline\":[{\"id\":\"op-1\",\"functionId\":\"fn:script-1:latest\"}," +
+                "{\"id\":\"op-2\",\"functionId\":\"System.log\"}]}}");
+        write("behavior-policies/policy-1.json", "{\"id\":\"policy-1\",\"matching\":{\"clientIdRegex\":\".*\"}}");
+        write("schemas/ignored.txt", "not a definition");
+
+        final List<DataHubDefinition> definitions = DataHubDefinitions.load(directory);
+
+        assertEquals(Arrays.asList("schema:schema-1", "script:script-1", "data-policy:policy-1",
+                        "behavior-policy:policy-1"),
+                definitions.stream().map(DataHubDefinition::getKey).collect(Collectors.toList()));
+        assertEquals(new HashSet<>(Arrays.asList("schema:schema-1", "script:script-1")),
+                definitions.get(2).getDependencies());
+        assertEquals(Collections.emptySet(), definitions.get(3).getDependencies());
+    }
+
+    @Test
+    void load_missingId_exception() throws IOException {
+        write("schemas/schema-1.json", "{\"type\":\"JSON\"}");
+
+        assertThrows(IOException.class, () -> DataHubDefinitions.load(directory));
+    }
+
+    @Test
+    void load_duplicateId_exception() throws IOException {
+        write("scripts/a.json", "{\"id\":\"script-1\"}");
+        write("scripts/b.json", "{\"id\":\"script-1\"}");
+
+        assertThrows(IOException.class, () -> DataHubDefinitions.load(directory));
+    }
+
+    @Test
+    void load_invalidJson_exception() throws IOException {
+        write("data-policies/policy-1.json", "{\"id\":");
+
+        assertThrows(IOException.class, () -> DataHubDefinitions.load(directory));
+    }
+
+    @Test
+    void levels_policiesAfterReferencedSchemasAndScripts() throws IOException {
+        write("schemas/schema-1.json", "{\"id\":\"schema-1\"}");
+        write("data-policies/policy-1.json", "{\"id\":\"policy-1\",\"validation\":{\"validators\":[{" +
+                "\"arguments\":{\"schemas\":[{\"schemaId\":\"schema-1\"}]}}]}}");
+        write("data-policies/policy-2.json", "{\"id\":\"policy-2\",\"validation\":{\"validators\":[{" +
+                "\"arguments\":{\"schemas\":[{\"schemaId\":\"schema-on-broker\"}]}}]}}");
+
+        final List<List<DataHubDefinition>> levels =
+                DataHubDefinitions.levels(DataHubDefinitions.load(directory));
+
+        assertEquals(2, levels.size());
+        assertEquals(Arrays.asList("schema:schema-1", "data-policy:policy-2"),
+                levels.get(0).stream().map(DataHubDefinition::getKey).collect(Collectors.toList()));
+        assertEquals(Collections.singletonList("data-policy:policy-1"),
+                levels.get(1).stream().map(DataHubDefinition::getKey).collect(Collectors.toList()));
+    }
+
+    private void write(final @NotNull String file, final @NotNull String content) throws IOException {
+        final Path path = directory.resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.hivemq.datahub;
+
+import com.google.gson.JsonParser;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DataHubFingerprintCacheTest {
+
+    private static final @NotNull String URL = "http://localhost:8888";
+
+    @TempDir
+    private @NotNull Path directory;
+
+    @Test
+    void save_load_fingerprintsOfUrlRestored() throws IOException {
+        final Path file = directory.resolve("cache").resolve("datahub-sync.json");
+        final DataHubFingerprintCache cache = DataHubFingerprintCache.load(file, URL);
+        cache.put("schema:schema-1", "2023-11-03T13:07:15.650Z", "abc");
+        cache.save();
+        final DataHubFingerprintCache otherCache = DataHubFingerprintCache.load(file, "http://other:8888");
+        otherCache.put("schema:schema-1", "2023-11-03T13:07:15.650Z", "def");
+        otherCache.save();
+
+        assertEquals("abc",
+                DataHubFingerprintCache.load(file, URL).getFingerprint("schema:schema-1", "2023-11-03T13:07:15.650Z"));
+        assertEquals("def",
+                DataHubFingerprintCache.load(file, "http://other:8888")
+                        .getFingerprint("schema:schema-1", "2023-11-03T13:07:15.650Z"));
+    }
+
+    @Test
+    void getFingerprint_changedMarker_null() {
+        final DataHubFingerprintCache cache = DataHubFingerprintCache.load(directory.resolve("cache.json"), URL);
+        cache.put("schema:schema-1", "2023-11-03T13:07:15.650Z", "abc");
+
+        assertNull(cache.getFingerprint("schema:schema-1", "2023-11-04T08:00:00.000Z"));
+        assertNull(cache.getFingerprint("schema:schema-2", "2023-11-03T13:07:15.650Z"));
+    }
+
+    @Test
+    void load_unreadableFile_empty() throws IOException {
+        final Path file = directory.resolve("cache.json");
+        Files.write(file, "not json".getBytes(StandardCharsets.UTF_8));
+
+        final DataHubFingerprintCache cache = DataHubFingerprintCache.load(file, URL);
+
+        assertNull(cache.getFingerprint("schema:schema-1", "2023-11-03T13:07:15.650Z"));
+    }
+
+    @Test
+    void fingerprintOf_memberOrderAndNumberFormat_ignored() {
+        final String fingerprint = DataHubFingerprintCache.fingerprintOf(JsonParser.parseString(
+                "{\"a\":1,\"b\":{\"c\":\"x\",\"d\":[1,2]}}"));
+
+        assertEquals(fingerprint, DataHubFingerprintCache.fingerprintOf(JsonParser.parseString(
+                "{\"b\":{\"d\":[1.0,2],\"c\":\"x\"},\"a\":1,\"e\":null}")));
+        assertNotEquals(DataHubFingerprintCache.fingerprintOf(JsonParser.parseString("{\"d\":[1,2]}")),
+                DataHubFingerprintCache.fingerprintOf(JsonParser.parseString("{\"d\":[2,1]}")));
+    }
+}
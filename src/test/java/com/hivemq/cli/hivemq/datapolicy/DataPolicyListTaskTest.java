@@ -16,6 +16,11 @@
 
 package com.hivemq.cli.hivemq.datapolicy;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.DataHubDataPoliciesApi;
@@ -24,10 +29,14 @@ import com.hivemq.cli.openapi.hivemq.HivemqOpenapiDataPolicyList;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiPaginationCursor;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -36,20 +45,32 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DataPolicyListTaskTest {
 
+    private static final int PAGE_SIZE = 100;
+
     private final @NotNull DataHubDataPoliciesApi dataPoliciesApi = mock(DataHubDataPoliciesApi.class);
-    private final @NotNull OutputFormatter outputFormatter = mock();
+    private final @NotNull ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final @NotNull OutputFormatter outputFormatter =
+            spy(new OutputFormatter(new PrintStream(outputStream), new Gson()));
 
     @Test
     void execute_policyIdsProvided_usedAsUrlParameter() throws ApiException {
         final String[] policyIds = {"policy-1", "policy-2", "policy-3"};
-        final DataPolicyListTask task =
-                new DataPolicyListTask(outputFormatter, dataPoliciesApi, null, policyIds, null, null, null);
+        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                null,
+                policyIds,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(dataPoliciesApi.getAllDataPolicies(any(),
                 any(),
@@ -71,9 +92,15 @@ public class DataPolicyListTaskTest {
     @Test
     void execute_schemaIdsProvided_usedAsUrlParameter() throws ApiException {
         final String[] schemaIds = {"schema-1", "schema-2", "schema-3"};
-        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter, dataPoliciesApi,
-
-                null, null, schemaIds, null, null);
+        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                null,
+                null,
+                schemaIds,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(dataPoliciesApi.getAllDataPolicies(any(),
                 any(),
@@ -94,9 +121,15 @@ public class DataPolicyListTaskTest {
 
     @Test
     void execute_topicProvided_usedAsUrlParameter() throws ApiException {
-        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter, dataPoliciesApi,
-
-                "topic-1", null, null, null, null);
+        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                "topic-1",
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(dataPoliciesApi.getAllDataPolicies(any(),
                 any(),
@@ -112,8 +145,15 @@ public class DataPolicyListTaskTest {
     @Test
     void execute_fieldsProvided_usedAsUrlParameter() throws ApiException {
         final String[] fields = {"id", "version", "createdAt"};
-        final DataPolicyListTask task =
-                new DataPolicyListTask(outputFormatter, dataPoliciesApi, null, null, null, fields, null);
+        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                null,
+                null,
+                null,
+                fields,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(dataPoliciesApi.getAllDataPolicies(any(),
                 any(),
@@ -134,9 +174,15 @@ public class DataPolicyListTaskTest {
 
     @Test
     void execute_cursorReturned_allPagesFetched() throws ApiException {
-        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter, dataPoliciesApi,
-
-                null, null, null, null, null);
+        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                null,
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         final HivemqOpenapiDataPolicy policy1 = new HivemqOpenapiDataPolicy().id("policy-1");
         final HivemqOpenapiDataPolicy policy2 = new HivemqOpenapiDataPolicy().id("policy-2");
@@ -163,17 +209,20 @@ public class DataPolicyListTaskTest {
         verify(dataPoliciesApi).getAllDataPolicies(isNull(), isNull(), isNull(), isNull(), any(), eq("cursor-2"));
         verify(dataPoliciesApi, times(3)).getAllDataPolicies(any(), any(), any(), any(), any(), any());
 
-        final ArgumentCaptor<HivemqOpenapiDataPolicyList> outputCaptor =
-                ArgumentCaptor.forClass(HivemqOpenapiDataPolicyList.class);
-        verify(outputFormatter).printJson(outputCaptor.capture());
-        assertEquals(Arrays.asList(policy1, policy2, policy3, policy4), outputCaptor.getValue().getItems());
+        assertEquals(Arrays.asList("policy-1", "policy-2", "policy-3", "policy-4"), printedIds());
     }
 
     @Test
     void execute_cursorReturnedLimitSpecified_limitNotExceeded() throws ApiException {
-        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter, dataPoliciesApi,
-
-                null, null, null, null, 3);
+        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                null,
+                null,
+                null,
+                null,
+                3,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         final HivemqOpenapiDataPolicy policy1 = new HivemqOpenapiDataPolicy().id("policy-1");
         final HivemqOpenapiDataPolicy policy2 = new HivemqOpenapiDataPolicy().id("policy-2");
@@ -196,17 +245,67 @@ public class DataPolicyListTaskTest {
         verify(dataPoliciesApi).getAllDataPolicies(isNull(), isNull(), isNull(), isNull(), any(), eq("cursor-1"));
         verify(dataPoliciesApi, times(2)).getAllDataPolicies(any(), any(), any(), any(), any(), any());
 
-        final ArgumentCaptor<HivemqOpenapiDataPolicyList> outputCaptor =
-                ArgumentCaptor.forClass(HivemqOpenapiDataPolicyList.class);
-        verify(outputFormatter).printJson(outputCaptor.capture());
-        assertEquals(Arrays.asList(policy1, policy2, policy3), outputCaptor.getValue().getItems());
+        assertEquals(Arrays.asList("policy-1", "policy-2", "policy-3"), printedIds());
     }
 
     @Test
-    void execute_apiException_printError() throws ApiException {
-        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter, dataPoliciesApi,
+    void execute_limitSmallerThanPageSize_pageSizeReduced() throws ApiException {
+        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                null,
+                null,
+                null,
+                null,
+                20,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
+
+        when(dataPoliciesApi.getAllDataPolicies(any(),
+                any(),
+                any(),
+                any(),
+                any(),
+                any())).thenReturn(new HivemqOpenapiDataPolicyList());
+
+        assertTrue(task.execute());
+        verify(dataPoliciesApi).getAllDataPolicies(isNull(), isNull(), isNull(), isNull(), eq(20), isNull());
+        assertEquals(Collections.emptyList(), printedIds());
+    }
+
+    @Test
+    void execute_ndjson_onePolicyPerLine() throws ApiException {
+        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                null,
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.ndjson);
+
+        when(dataPoliciesApi.getAllDataPolicies(any(), any(), any(), any(), any(), any())).thenReturn(
+                new HivemqOpenapiDataPolicyList().items(Arrays.asList(new HivemqOpenapiDataPolicy().id("policy-1"),
+                        new HivemqOpenapiDataPolicy().id("policy-2"))));
 
-                null, null, null, null, null);
+        assertTrue(task.execute());
+        final String[] lines = outputStream.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertEquals(2, lines.length);
+        assertEquals("policy-1", JsonParser.parseString(lines[0]).getAsJsonObject().get("id").getAsString());
+        assertEquals("policy-2", JsonParser.parseString(lines[1]).getAsJsonObject().get("id").getAsString());
+    }
+
+    @Test
+    void execute_apiException_printError() throws ApiException {
+        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                null,
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(dataPoliciesApi.getAllDataPolicies(any(),
                 any(),
@@ -218,4 +317,39 @@ public class DataPolicyListTaskTest {
         assertFalse(task.execute());
         verify(outputFormatter, times(1)).printApiException(any(), any());
     }
+
+    @Test
+    void execute_apiExceptionAfterFirstPage_printedPoliciesClosed() throws ApiException {
+        final DataPolicyListTask task = new DataPolicyListTask(outputFormatter,
+                dataPoliciesApi,
+                null,
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
+
+        final HivemqOpenapiDataPolicyList page1 =
+                new HivemqOpenapiDataPolicyList().items(Collections.singletonList(new HivemqOpenapiDataPolicy().id(
+                        "policy-1"))).links(new HivemqOpenapiPaginationCursor().next("/policies?cursor=cursor-1"));
+        when(dataPoliciesApi.getAllDataPolicies(any(), any(), any(), any(), any(), isNull())).thenReturn(page1);
+        when(dataPoliciesApi.getAllDataPolicies(any(), any(), any(), any(), any(), eq("cursor-1"))).thenThrow(
+                ApiException.class);
+
+        assertFalse(task.execute());
+        verify(outputFormatter, times(1)).printApiException(any(), any());
+        assertEquals(Collections.singletonList("policy-1"), printedIds());
+    }
+
+    private @NotNull List<String> printedIds() {
+        final JsonArray items = JsonParser.parseString(outputStream.toString(StandardCharsets.UTF_8))
+                .getAsJsonObject()
+                .getAsJsonArray("items");
+        final List<String> ids = new ArrayList<>();
+        for (final JsonElement item : items) {
+            ids.add(item.getAsJsonObject().get("id").getAsString());
+        }
+        return ids;
+    }
 }
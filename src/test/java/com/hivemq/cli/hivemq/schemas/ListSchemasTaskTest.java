@@ -16,6 +16,11 @@
 
 package com.hivemq.cli.hivemq.schemas;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.DataHubSchemasApi;
@@ -24,10 +29,14 @@ import com.hivemq.cli.openapi.hivemq.HivemqOpenapiSchema;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiSchemaList;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -36,19 +45,31 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ListSchemasTaskTest {
 
+    private static final int PAGE_SIZE = 100;
+
     private final @NotNull DataHubSchemasApi schemasApi = mock();
-    private final @NotNull OutputFormatter outputFormatter = mock();
+    private final @NotNull ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final @NotNull OutputFormatter outputFormatter =
+            spy(new OutputFormatter(new PrintStream(outputStream), new Gson()));
 
     @Test
     void execute_schemaIdsProvided_usedAsUrlParameter() throws ApiException {
         final String[] schemaIds = {"schema-1", "schema-2", "schema-3"};
-        final ListSchemasTask task = new ListSchemasTask(outputFormatter, schemasApi, null, schemaIds, null, null);
+        final ListSchemasTask task = new ListSchemasTask(outputFormatter,
+                schemasApi,
+                null,
+                schemaIds,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(schemasApi.getAllSchemas(any(), any(), any(), any(), any())).thenReturn(new HivemqOpenapiSchemaList());
 
@@ -60,7 +81,14 @@ public class ListSchemasTaskTest {
     @Test
     void execute_schemaTypesProvided_usedAsUrlParameter() throws ApiException {
         final String[] schemaTypes = {"type-a", "type-b", "type-c"};
-        final ListSchemasTask task = new ListSchemasTask(outputFormatter, schemasApi, schemaTypes, null, null, null);
+        final ListSchemasTask task = new ListSchemasTask(outputFormatter,
+                schemasApi,
+                schemaTypes,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(schemasApi.getAllSchemas(any(), any(), any(), any(), any())).thenReturn(new HivemqOpenapiSchemaList());
 
@@ -72,7 +100,14 @@ public class ListSchemasTaskTest {
     @Test
     void execute_fieldsProvided_usedAsUrlParameter() throws ApiException {
         final String[] fields = {"id", "version", "createdAt"};
-        final ListSchemasTask task = new ListSchemasTask(outputFormatter, schemasApi, null, null, fields, null);
+        final ListSchemasTask task = new ListSchemasTask(outputFormatter,
+                schemasApi,
+                null,
+                null,
+                fields,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(schemasApi.getAllSchemas(any(), any(), any(), any(), any())).thenReturn(new HivemqOpenapiSchemaList());
 
@@ -83,7 +118,14 @@ public class ListSchemasTaskTest {
 
     @Test
     void execute_cursorReturned_allPagesFetched() throws ApiException {
-        final ListSchemasTask task = new ListSchemasTask(outputFormatter, schemasApi, null, null, null, null);
+        final ListSchemasTask task = new ListSchemasTask(outputFormatter,
+                schemasApi,
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         final HivemqOpenapiSchema schema1 = new HivemqOpenapiSchema().id("schema-1");
         final HivemqOpenapiSchema schema2 = new HivemqOpenapiSchema().id("schema-2");
@@ -107,15 +149,19 @@ public class ListSchemasTaskTest {
         verify(schemasApi).getAllSchemas(isNull(), isNull(), isNull(), any(), eq("cursor-2"));
         verify(schemasApi, times(3)).getAllSchemas(any(), any(), any(), any(), any());
 
-        final ArgumentCaptor<HivemqOpenapiSchemaList> outputCaptor =
-                ArgumentCaptor.forClass(HivemqOpenapiSchemaList.class);
-        verify(outputFormatter).printJson(outputCaptor.capture());
-        assertEquals(Arrays.asList(schema1, schema2, schema3, schema4), outputCaptor.getValue().getItems());
+        assertEquals(Arrays.asList("schema-1", "schema-2", "schema-3", "schema-4"), printedIds());
     }
 
     @Test
     void execute_cursorReturnedLimitSpecified_limitNotExceeded() throws ApiException {
-        final ListSchemasTask task = new ListSchemasTask(outputFormatter, schemasApi, null, null, null, 3);
+        final ListSchemasTask task = new ListSchemasTask(outputFormatter,
+                schemasApi,
+                null,
+                null,
+                null,
+                3,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         final HivemqOpenapiSchema schema1 = new HivemqOpenapiSchema().id("schema-1");
         final HivemqOpenapiSchema schema2 = new HivemqOpenapiSchema().id("schema-2");
@@ -136,19 +182,34 @@ public class ListSchemasTaskTest {
         verify(schemasApi).getAllSchemas(isNull(), isNull(), isNull(), any(), eq("cursor-1"));
         verify(schemasApi, times(2)).getAllSchemas(any(), any(), any(), any(), any());
 
-        final ArgumentCaptor<HivemqOpenapiSchemaList> outputCaptor =
-                ArgumentCaptor.forClass(HivemqOpenapiSchemaList.class);
-        verify(outputFormatter).printJson(outputCaptor.capture());
-        assertEquals(Arrays.asList(schema1, schema2, schema3), outputCaptor.getValue().getItems());
+        assertEquals(Arrays.asList("schema-1", "schema-2", "schema-3"), printedIds());
     }
 
     @Test
     void execute_apiException_printError() throws ApiException {
-        final ListSchemasTask task = new ListSchemasTask(outputFormatter, schemasApi, null, null, null, null);
+        final ListSchemasTask task = new ListSchemasTask(outputFormatter,
+                schemasApi,
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(schemasApi.getAllSchemas(any(), any(), any(), any(), any())).thenThrow(ApiException.class);
 
         assertFalse(task.execute());
         verify(outputFormatter, times(1)).printApiException(any(), any());
     }
+
+    private @NotNull List<String> printedIds() {
+        final JsonArray items = JsonParser.parseString(outputStream.toString(StandardCharsets.UTF_8))
+                .getAsJsonObject()
+                .getAsJsonArray("items");
+        final List<String> ids = new ArrayList<>();
+        for (final JsonElement item : items) {
+            ids.add(item.getAsJsonObject().get("id").getAsString());
+        }
+        return ids;
+    }
 }
@@ -16,6 +16,11 @@
 
 package com.hivemq.cli.hivemq.scripts;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.hivemq.cli.commands.hivemq.datahub.DataHubListOptions;
 import com.hivemq.cli.commands.hivemq.datahub.OutputFormatter;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.DataHubScriptsApi;
@@ -24,10 +29,14 @@ import com.hivemq.cli.openapi.hivemq.HivemqOpenapiScript;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiScriptList;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -36,19 +45,31 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ListScriptsTaskTest {
 
+    private static final int PAGE_SIZE = 100;
+
     private final @NotNull DataHubScriptsApi scriptsApi = mock(DataHubScriptsApi.class);
-    private final @NotNull OutputFormatter outputFormatter = mock();
+    private final @NotNull ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final @NotNull OutputFormatter outputFormatter =
+            spy(new OutputFormatter(new PrintStream(outputStream), new Gson()));
 
     @Test
     void execute_scriptIdsProvided_usedAsUrlParameter() throws ApiException {
         final String[] scriptIds = {"script-1", "script-2", "script-3"};
-        final ListScriptsTask task = new ListScriptsTask(outputFormatter, scriptsApi, null, scriptIds, null, null);
+        final ListScriptsTask task = new ListScriptsTask(outputFormatter,
+                scriptsApi,
+                null,
+                scriptIds,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(scriptsApi.getAllScripts(any(), any(), any(), any(), any())).thenReturn(new HivemqOpenapiScriptList());
 
@@ -63,7 +84,14 @@ public class ListScriptsTaskTest {
                 HivemqOpenapiScript.FunctionTypeEnum.TRANSFORMATION,
                 HivemqOpenapiScript.FunctionTypeEnum.TRANSFORMATION,
                 HivemqOpenapiScript.FunctionTypeEnum.TRANSFORMATION};
-        final ListScriptsTask task = new ListScriptsTask(outputFormatter, scriptsApi, functionTypes, null, null, null);
+        final ListScriptsTask task = new ListScriptsTask(outputFormatter,
+                scriptsApi,
+                functionTypes,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(scriptsApi.getAllScripts(any(), any(), any(), any(), any())).thenReturn(new HivemqOpenapiScriptList());
 
@@ -75,7 +103,14 @@ public class ListScriptsTaskTest {
     @Test
     void execute_fieldsProvided_usedAsUrlParameter() throws ApiException {
         final String[] fields = {"id", "version", "createdAt"};
-        final ListScriptsTask task = new ListScriptsTask(outputFormatter, scriptsApi, null, null, fields, null);
+        final ListScriptsTask task = new ListScriptsTask(outputFormatter,
+                scriptsApi,
+                null,
+                null,
+                fields,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(scriptsApi.getAllScripts(any(), any(), any(), any(), any())).thenReturn(new HivemqOpenapiScriptList());
 
@@ -86,7 +121,14 @@ public class ListScriptsTaskTest {
 
     @Test
     void execute_cursorReturned_allPagesFetched() throws ApiException {
-        final ListScriptsTask task = new ListScriptsTask(outputFormatter, scriptsApi, null, null, null, null);
+        final ListScriptsTask task = new ListScriptsTask(outputFormatter,
+                scriptsApi,
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         final HivemqOpenapiScript script1 = new HivemqOpenapiScript().id("script-1");
         final HivemqOpenapiScript script2 = new HivemqOpenapiScript().id("script-2");
@@ -110,15 +152,19 @@ public class ListScriptsTaskTest {
         verify(scriptsApi).getAllScripts(isNull(), isNull(), isNull(), any(), eq("cursor-2"));
         verify(scriptsApi, times(3)).getAllScripts(any(), any(), any(), any(), any());
 
-        final ArgumentCaptor<HivemqOpenapiScriptList> outputCaptor =
-                ArgumentCaptor.forClass(HivemqOpenapiScriptList.class);
-        verify(outputFormatter).printJson(outputCaptor.capture());
-        assertEquals(Arrays.asList(script1, script2, script3, script4), outputCaptor.getValue().getItems());
+        assertEquals(Arrays.asList("script-1", "script-2", "script-3", "script-4"), printedIds());
     }
 
     @Test
     void execute_cursorReturnedLimitSpecified_limitNotExceeded() throws ApiException {
-        final ListScriptsTask task = new ListScriptsTask(outputFormatter, scriptsApi, null, null, null, 3);
+        final ListScriptsTask task = new ListScriptsTask(outputFormatter,
+                scriptsApi,
+                null,
+                null,
+                null,
+                3,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         final HivemqOpenapiScript script1 = new HivemqOpenapiScript().id("script-1");
         final HivemqOpenapiScript script2 = new HivemqOpenapiScript().id("script-2");
@@ -139,19 +185,34 @@ public class ListScriptsTaskTest {
         verify(scriptsApi).getAllScripts(isNull(), isNull(), isNull(), any(), eq("cursor-1"));
         verify(scriptsApi, times(2)).getAllScripts(any(), any(), any(), any(), any());
 
-        final ArgumentCaptor<HivemqOpenapiScriptList> outputCaptor =
-                ArgumentCaptor.forClass(HivemqOpenapiScriptList.class);
-        verify(outputFormatter).printJson(outputCaptor.capture());
-        assertEquals(Arrays.asList(script1, script2, script3), outputCaptor.getValue().getItems());
+        assertEquals(Arrays.asList("script-1", "script-2", "script-3"), printedIds());
     }
 
     @Test
     void execute_apiException_printError() throws ApiException {
-        final ListScriptsTask task = new ListScriptsTask(outputFormatter, scriptsApi, null, null, null, null);
+        final ListScriptsTask task = new ListScriptsTask(outputFormatter,
+                scriptsApi,
+                null,
+                null,
+                null,
+                null,
+                PAGE_SIZE,
+                DataHubListOptions.OutputFormat.json);
 
         when(scriptsApi.getAllScripts(any(), any(), any(), any(), any())).thenThrow(ApiException.class);
 
         assertFalse(task.execute());
         verify(outputFormatter, times(1)).printApiException(any(), any());
     }
+
+    private @NotNull List<String> printedIds() {
+        final JsonArray items = JsonParser.parseString(outputStream.toString(StandardCharsets.UTF_8))
+                .getAsJsonObject()
+                .getAsJsonArray("items");
+        final List<String> ids = new ArrayList<>();
+        for (final JsonElement item : items) {
+            ids.add(item.getAsJsonObject().get("id").getAsString());
+        }
+        return ids;
+    }
 }
@@ -20,18 +20,22 @@ import com.hivemq.cli.commands.options.AuthenticationOptions;
 import com.hivemq.cli.commands.options.ConnectOptions;
 import com.hivemq.cli.commands.options.ConnectRestrictionOptions;
 import com.hivemq.cli.commands.options.DisconnectOptions;
+import com.hivemq.cli.commands.options.ExecutorOptions;
 import com.hivemq.cli.commands.options.PublishOptions;
 import com.hivemq.cli.commands.options.SubscribeOptions;
 import com.hivemq.cli.commands.options.UnsubscribeOptions;
 import com.hivemq.cli.commands.options.WillOptions;
+import com.hivemq.cli.utils.MessageTemplate;
+import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.MqttVersion;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
-import com.hivemq.client.mqtt.datatypes.MqttSharedTopicFilter;
 import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
 import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
 import com.hivemq.client.mqtt.mqtt3.message.auth.Mqtt3SimpleAuth;
 import com.hivemq.client.mqtt.mqtt3.message.connect.Mqtt3Connect;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConfig;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConnectionConfig;
 import com.hivemq.client.mqtt.mqtt5.message.auth.Mqtt5SimpleAuth;
 import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5Connect;
 import org.jetbrains.annotations.NotNull;
@@ -41,14 +45,22 @@ import org.junit.jupiter.api.Test;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -62,12 +74,14 @@ class AbstractMqttClientExecutorTest {
     private final @NotNull ConnectRestrictionOptions connectRestrictionOptions = mock();
     private final @NotNull AuthenticationOptions authenticationOptions = mock();
     private final @NotNull WillOptions willOptions = mock();
+    private final @NotNull ExecutorOptions executorOptions = mock();
 
     @BeforeEach
     void setUp() {
         when(connectOptions.getConnectRestrictionOptions()).thenReturn(connectRestrictionOptions);
         when(connectOptions.getAuthenticationOptions()).thenReturn(authenticationOptions);
         when(connectOptions.getWillOptions()).thenReturn(willOptions);
+        when(connectOptions.getExecutorOptions()).thenReturn(executorOptions);
         when(connectOptions.getHost()).thenReturn("localhost");
         when(connectOptions.getIdentifier()).thenReturn("client");
         when(connectRestrictionOptions.getReceiveMaximum()).thenReturn(null);
@@ -81,123 +95,188 @@ class AbstractMqttClientExecutorTest {
     }
 
     @Test
-    void checkForSharedTopicDuplicate_noExisting_normalNew() {
-        final Set<MqttTopicFilter> existingFilter = new HashSet<>();
+    void publish_whenMaxInFlightIsGreaterThanOne_thenPublishesArePipelined() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_5_0);
+        final MqttClient client = mqttClientExecutor.connect(connectOptions);
+
+        final PublishOptions publishOptions = mock();
+        when(publishOptions.getTopics()).thenReturn(new String[]{"a", "b", "c"});
+        when(publishOptions.getQos()).thenReturn(new MqttQos[]{MqttQos.AT_LEAST_ONCE});
+        when(publishOptions.getMaxInFlight()).thenReturn(3);
+
+        final CompletableFuture<Void> publishDone =
+                CompletableFuture.runAsync(() -> mqttClientExecutor.publish(client, publishOptions));
+
+        final CompletableFuture<Object> first = takePendingPublish();
+        final CompletableFuture<Object> second = takePendingPublish();
+        final CompletableFuture<Object> third = takePendingPublish();
+        assertEquals(List.of("a", "b", "c"), mqttClientExecutor.getPublishedTopics());
+        assertFalse(publishDone.isDone());
+
+        third.complete(null);
+        second.completeExceptionally(new RuntimeException("failed"));
+        first.complete(null);
+        publishDone.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void publish_whenMaxInFlightIsOne_thenPublishesAreSentSequentially() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_3_1_1);
+        final MqttClient client = mqttClientExecutor.connect(connectOptions);
+
+        final PublishOptions publishOptions = mock();
+        when(publishOptions.getTopics()).thenReturn(new String[]{"a", "b"});
+        when(publishOptions.getQos()).thenReturn(new MqttQos[]{MqttQos.EXACTLY_ONCE});
+        when(publishOptions.getMaxInFlight()).thenReturn(1);
+
+        final CompletableFuture<Void> publishDone =
+                CompletableFuture.runAsync(() -> mqttClientExecutor.publish(client, publishOptions));
 
-        final String newTopic = "a";
-        final List<MqttTopicFilter> duplicateList =
-                mqttClientExecutor.checkForSharedTopicDuplicate(existingFilter, newTopic);
-        assertTrue(duplicateList.isEmpty());
+        final CompletableFuture<Object> first = takePendingPublish();
+        assertNull(mqttClientExecutor.getPendingPublishes().poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(List.of("a"), mqttClientExecutor.getPublishedTopics());
+
+        first.complete(null);
+        takePendingPublish().complete(null);
+        publishDone.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("a", "b"), mqttClientExecutor.getPublishedTopics());
+    }
+
+    private static @NotNull Set<String> identifiersOf(final @NotNull List<MqttClient> clients) {
+        return clients.stream()
+                .map(client -> client.getConfig().getClientIdentifier().orElseThrow().toString())
+                .collect(Collectors.toSet());
+    }
+
+    private @NotNull CompletableFuture<Object> takePendingPublish() throws InterruptedException {
+        final CompletableFuture<Object> pendingPublish =
+                mqttClientExecutor.getPendingPublishes().poll(10, TimeUnit.SECONDS);
+        assertNotNull(pendingPublish);
+        return pendingPublish;
     }
 
     @Test
-    void checkForSharedTopicDuplicate_normalExisting_normalNew() {
-        final Set<MqttTopicFilter> existingFilter = new HashSet<>();
-        existingFilter.add(MqttTopicFilter.of("a"));
-        existingFilter.add(MqttTopicFilter.of("b"));
-
-        final String newTopic = "a";
-        final List<MqttTopicFilter> duplicateList =
-                mqttClientExecutor.checkForSharedTopicDuplicate(existingFilter, newTopic);
-        assertFalse(duplicateList.isEmpty());
-        assertEquals(MqttTopicFilter.of("a"), duplicateList.getFirst());
+    void connectGroup_whenCountIsGiven_thenClientsAreConnectedWithNumberedIdentifiers() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_5_0);
+
+        final List<MqttClient> clients = mqttClientExecutor.connectGroup(connectOptions, "sensor-", 20, 4);
+
+        final Set<String> expectedIdentifiers =
+                IntStream.rangeClosed(1, 20).mapToObj(i -> "sensor-" + i).collect(Collectors.toSet());
+        assertEquals(expectedIdentifiers, identifiersOf(clients));
+        assertEquals(expectedIdentifiers, identifiersOf(mqttClientExecutor.getGroupClients("sensor-")));
     }
 
     @Test
-    void checkForSharedTopicDuplicate_normalExisting_sharedNew() {
-        final Set<MqttTopicFilter> existingFilter = new HashSet<>();
-        existingFilter.add(MqttTopicFilter.of("a"));
-        existingFilter.add(MqttTopicFilter.of("b"));
-
-        final String newTopic = "$share/group/a";
-        final List<MqttTopicFilter> duplicateList =
-                mqttClientExecutor.checkForSharedTopicDuplicate(existingFilter, newTopic);
-        assertFalse(duplicateList.isEmpty());
-        assertEquals(MqttTopicFilter.of("a"), duplicateList.getFirst());
-        //assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst().getValue());
+    void forEachClient_whenActionFailsForOneClient_thenFailureIsCountedAndOtherClientsRun() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_3_1_1);
+        final List<MqttClient> clients = mqttClientExecutor.connectGroup(connectOptions, "device-", 10, 3);
+
+        final Set<String> visitedIdentifiers = ConcurrentHashMap.newKeySet();
+        final int failed = mqttClientExecutor.forEachClient(clients, 3, "test", client -> {
+            final String identifier = client.getConfig().getClientIdentifier().orElseThrow().toString();
+            visitedIdentifiers.add(identifier);
+            if (identifier.equals("device-3")) {
+                throw new RuntimeException("failed");
+            }
+        });
+
+        assertEquals(1, failed);
+        assertEquals(identifiersOf(clients), visitedIdentifiers);
     }
 
     @Test
-    void checkForSharedTopicDuplicate_sharedExisting_normalNew() {
-        final Set<MqttTopicFilter> existingFilter = new HashSet<>();
-        existingFilter.add(MqttSharedTopicFilter.of("group", "a"));
-        existingFilter.add(MqttTopicFilter.of("b"));
-
-        final String newTopic = "a";
-        final List<MqttTopicFilter> duplicateList =
-                mqttClientExecutor.checkForSharedTopicDuplicate(existingFilter, newTopic);
-        assertFalse(duplicateList.isEmpty());
-        assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst());
-        //assertEquals(MqttTopicFilter.of("a"), duplicateList.getFirst().getValue());
+    void subscribe_whenManyTopics_thenTopicsAreSentInBatches() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_5_0);
+        final MqttClient client = mqttClientExecutor.connect(connectOptions);
+        final String[] topics = IntStream.range(0, 2500).mapToObj(i -> "device/" + i).toArray(String[]::new);
+
+        final SubscribeOptions subscribeOptions = mock();
+        when(subscribeOptions.getTopics()).thenReturn(topics);
+        when(subscribeOptions.getQos()).thenReturn(new MqttQos[]{MqttQos.AT_LEAST_ONCE});
+
+        mqttClientExecutor.subscribe(client, subscribeOptions);
+
+        final List<List<String>> batches = mqttClientExecutor.getSubscribedTopicBatches();
+        assertEquals(3, batches.size());
+        assertEquals(List.of(1000, 1000, 500), batches.stream().map(List::size).collect(Collectors.toList()));
+        assertEquals(List.of(topics),
+                batches.stream().flatMap(List::stream).collect(Collectors.toList()));
+        assertTrue(mqttClientExecutor.getSubscribedQos().stream().allMatch(qos -> qos == MqttQos.AT_LEAST_ONCE));
     }
 
     @Test
-    void checkForSharedTopicDuplicate_sharedExisting_sharedNew() {
-        final Set<MqttTopicFilter> existingFilter = new HashSet<>();
-        existingFilter.add(MqttSharedTopicFilter.of("group", "a"));
-        existingFilter.add(MqttTopicFilter.of("b"));
-
-        final String newTopic = "$share/group/a";
-        final List<MqttTopicFilter> duplicateList =
-                mqttClientExecutor.checkForSharedTopicDuplicate(existingFilter, newTopic);
-        assertFalse(duplicateList.isEmpty());
-        assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst());
-        //assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst().getValue());
+    void subscribe_whenBrokerRejectsTopics_thenIllegalStateException() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_3_1_1);
+        final MqttClient client = mqttClientExecutor.connect(connectOptions);
+        mqttClientExecutor.setFailuresPerBatch(1);
+
+        final SubscribeOptions subscribeOptions = mock();
+        when(subscribeOptions.getTopics()).thenReturn(new String[]{"a", "b", "c"});
+        when(subscribeOptions.getQos()).thenReturn(new MqttQos[]{MqttQos.AT_MOST_ONCE, MqttQos.EXACTLY_ONCE});
+
+        final IllegalStateException exception =
+                assertThrows(IllegalStateException.class, () -> mqttClientExecutor.subscribe(client, subscribeOptions));
+        assertEquals("1 of 3 subscriptions failed", exception.getMessage());
+        assertEquals(List.of(List.of("a", "b", "c")), mqttClientExecutor.getSubscribedTopicBatches());
+        assertEquals(List.of(MqttQos.AT_MOST_ONCE, MqttQos.EXACTLY_ONCE, MqttQos.EXACTLY_ONCE),
+                mqttClientExecutor.getSubscribedQos());
     }
 
     @Test
-    void checkForSharedTopicDuplicate_multipleDisjointSharedExisting_normalNew() {
-        final Set<MqttTopicFilter> existingFilter = new HashSet<>();
-        existingFilter.add(MqttSharedTopicFilter.of("group", "a"));
-        existingFilter.add(MqttSharedTopicFilter.of("group", "b"));
-        existingFilter.add(MqttTopicFilter.of("b"));
-
-        final String newTopic = "a";
-        final List<MqttTopicFilter> duplicateList =
-                mqttClientExecutor.checkForSharedTopicDuplicate(existingFilter, newTopic);
-        assertEquals(1, duplicateList.size());
-        assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst());
-        //assertEquals(MqttTopicFilter.of("a"), duplicateList.getFirst().getValue());
+    void unsubscribe_whenMultipleTopics_thenOneUnsubscribeIsSent() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_5_0);
+        final MqttClient client = mqttClientExecutor.connect(connectOptions);
+
+        mqttClientExecutor.unsubscribe(client, new UnsubscribeOptions(new String[]{"a", "b/#", "c/+"}, null));
+
+        assertEquals(List.of(List.of("a", "b/#", "c/+")), mqttClientExecutor.getUnsubscribedTopicBatches());
     }
 
     @Test
-    void checkForSharedTopicDuplicate_multipleIntersectingSharedExisting_normalNew() {
-        final Set<MqttTopicFilter> existingFilter = new HashSet<>();
-        existingFilter.add(MqttSharedTopicFilter.of("group", "a"));
-        existingFilter.add(MqttSharedTopicFilter.of("group", "+"));
-        existingFilter.add(MqttTopicFilter.of("b"));
-
-        final String newTopic = "a";
-        final List<MqttTopicFilter> duplicateList =
-                mqttClientExecutor.checkForSharedTopicDuplicate(existingFilter, newTopic);
-        assertEquals(2, duplicateList.size());
-        assertTrue(duplicateList.stream().anyMatch(topicFilter -> {
-            //assertNotNull(topicFilter.getValue());
-            return topicFilter.equals(MqttSharedTopicFilter.of("group", "+"));
-        }));
-        assertTrue(duplicateList.stream().anyMatch(topicFilter -> {
-            //assertNotNull(topicFilter.getValue());
-            return topicFilter.equals(MqttSharedTopicFilter.of("group", "a"));
-        }));
-        //assertEquals(MqttTopicFilter.of("a"), duplicateList.getFirst().getValue());
-        //assertEquals(MqttTopicFilter.of("a"), duplicateList.get(1).getValue());
+    void getTopicBatchEnd_whenMaximumPacketSizeIsReached_thenBatchEndsBeforeIt() {
+        // every entry of a 4 character topic takes 7 bytes, the packet overhead is 16 bytes
+        final List<String> topics = List.of("aaaa", "bbbb", "cccc", "dddd", "eeee");
+
+        assertEquals(2, AbstractMqttClientExecutor.getTopicBatchEnd(topics, 0, 16 + 2 * 7 + 6));
+        assertEquals(5, AbstractMqttClientExecutor.getTopicBatchEnd(topics, 2, 16 + 3 * 7));
+        assertEquals(1, AbstractMqttClientExecutor.getTopicBatchEnd(topics, 0, 10));
     }
 
     @Test
-    void checkForSharedTopicDuplicate_multipleIntersectingNormalExisting_SharedNew() {
-        final Set<MqttTopicFilter> existingFilter = new HashSet<>();
-        existingFilter.add(MqttTopicFilter.of("a"));
-        existingFilter.add(MqttTopicFilter.of("+"));
-        existingFilter.add(MqttTopicFilter.of("b"));
-
-        final String newTopic = "$share/group/a";
-        final List<MqttTopicFilter> duplicateList =
-                mqttClientExecutor.checkForSharedTopicDuplicate(existingFilter, newTopic);
-        assertEquals(2, duplicateList.size());
-        //assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst().getValue());
-        //assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.get(1).getValue());
-        assertTrue(duplicateList.stream().anyMatch(topicFilter -> topicFilter.equals(MqttTopicFilter.of("a"))));
-        assertTrue(duplicateList.stream().anyMatch(topicFilter -> topicFilter.equals(MqttTopicFilter.of("+"))));
+    void getSendTopicAliasMaximum_whenMqtt5Connected_thenNegotiatedMaximum() {
+        final Mqtt5Client client = mock();
+        final Mqtt5ClientConfig config = mock();
+        final Mqtt5ClientConnectionConfig connectionConfig = mock();
+        final Mqtt5ClientConnectionConfig.RestrictionsConfig restrictionsConfig = mock();
+        when(client.getConfig()).thenReturn(config);
+        when(config.getConnectionConfig()).thenReturn(Optional.of(connectionConfig));
+        when(connectionConfig.getRestrictionsConfig()).thenReturn(restrictionsConfig);
+        when(restrictionsConfig.getSendTopicAliasMaximum()).thenReturn(8);
+
+        assertEquals(8, AbstractMqttClientExecutor.getSendTopicAliasMaximum(client));
+    }
+
+    @Test
+    void getSendTopicAliasMaximum_whenNotConnectedOrMqtt3_thenZero() {
+        final Mqtt5Client mqtt5Client = mock();
+        final Mqtt5ClientConfig config = mock();
+        when(mqtt5Client.getConfig()).thenReturn(config);
+        when(config.getConnectionConfig()).thenReturn(Optional.empty());
+
+        assertEquals(0, AbstractMqttClientExecutor.getSendTopicAliasMaximum(mqtt5Client));
+        assertEquals(0, AbstractMqttClientExecutor.getSendTopicAliasMaximum(mock(Mqtt3Client.class)));
+    }
+
+    @Test
+    void countDistinctTopics_whenTopicsRepeatOrHavePlaceholders_thenOnlyDistinctConstantTopicsAreCounted() {
+        final MessageTemplate[] topicTemplates = new MessageTemplate[]{
+                MessageTemplate.of("a/b"),
+                MessageTemplate.of("a/c"),
+                MessageTemplate.of("a/b"),
+                MessageTemplate.of("a/{seq}")};
+
+        assertEquals(2, AbstractMqttClientExecutor.countDistinctTopics(topicTemplates));
     }
 
     @Test
@@ -301,6 +380,13 @@ class AbstractMqttClientExecutorTest {
 
         private @Nullable Mqtt5Connect mqtt5ConnectMessage = null;
         private @Nullable Mqtt3Connect mqtt3ConnectMessage = null;
+        private final @NotNull List<String> publishedTopics = new CopyOnWriteArrayList<>();
+        private final @NotNull BlockingQueue<CompletableFuture<Object>> pendingPublishes =
+                new LinkedBlockingQueue<>();
+        private final @NotNull List<List<String>> subscribedTopicBatches = new CopyOnWriteArrayList<>();
+        private final @NotNull List<MqttQos> subscribedQos = new CopyOnWriteArrayList<>();
+        private final @NotNull List<List<String>> unsubscribedTopicBatches = new CopyOnWriteArrayList<>();
+        private int failuresPerBatch = 0;
 
         @Override
         void mqtt5Connect(final @NotNull Mqtt5Client client, final @NotNull Mqtt5Connect connectMessage) {
@@ -313,43 +399,78 @@ class AbstractMqttClientExecutorTest {
         }
 
         @Override
-        void mqtt5Subscribe(
+        @NotNull CompletableFuture<Integer> mqtt5Subscribe(
                 final @NotNull Mqtt5Client client,
                 final @NotNull SubscribeOptions subscribeOptions,
-                final @NotNull String topic,
-                final @NotNull MqttQos qos) {
+                final @NotNull List<String> topics,
+                final @NotNull List<MqttQos> qos,
+                final @Nullable SubscribePublishPipeline pipeline) {
+            return subscribe(topics, qos);
         }
 
         @Override
-        void mqtt3Subscribe(
+        @NotNull CompletableFuture<Integer> mqtt3Subscribe(
                 final @NotNull Mqtt3Client client,
                 final @NotNull SubscribeOptions subscribeOptions,
-                final @NotNull String topic,
-                final @NotNull MqttQos qos) {
+                final @NotNull List<String> topics,
+                final @NotNull List<MqttQos> qos,
+                final @Nullable SubscribePublishPipeline pipeline) {
+            return subscribe(topics, qos);
+        }
+
+        private @NotNull CompletableFuture<Integer> subscribe(
+                final @NotNull List<String> topics, final @NotNull List<MqttQos> qos) {
+            subscribedTopicBatches.add(List.copyOf(topics));
+            subscribedQos.addAll(qos);
+            return CompletableFuture.completedFuture(failuresPerBatch);
         }
 
         @Override
-        void mqtt5Publish(
+        @NotNull CompletableFuture<?> mqtt5Publish(
                 final @NotNull Mqtt5Client client,
                 final @NotNull PublishOptions publishOptions,
                 final @NotNull String topic,
-                final @NotNull MqttQos qos) {
+                final @NotNull MqttQos qos,
+                final @NotNull ByteBuffer payload) {
+            return publish(topic);
         }
 
         @Override
-        void mqtt3Publish(
+        @NotNull CompletableFuture<?> mqtt3Publish(
                 final @NotNull Mqtt3Client client,
                 final @NotNull PublishOptions publishOptions,
                 final @NotNull String topic,
-                final @NotNull MqttQos qos) {
+                final @NotNull MqttQos qos,
+                final @NotNull ByteBuffer payload) {
+            return publish(topic);
+        }
+
+        private @NotNull CompletableFuture<?> publish(final @NotNull String topic) {
+            publishedTopics.add(topic);
+            final CompletableFuture<Object> publishFuture = new CompletableFuture<>();
+            pendingPublishes.add(publishFuture);
+            return publishFuture;
         }
 
         @Override
-        void mqtt5Unsubscribe(final @NotNull Mqtt5Client client, final @NotNull UnsubscribeOptions unsubscribeOptions) {
+        @NotNull CompletableFuture<Integer> mqtt5Unsubscribe(
+                final @NotNull Mqtt5Client client,
+                final @NotNull UnsubscribeOptions unsubscribeOptions,
+                final @NotNull List<String> topics) {
+            return unsubscribe(topics);
         }
 
         @Override
-        void mqtt3Unsubscribe(final @NotNull Mqtt3Client client, final @NotNull UnsubscribeOptions unsubscribeOptions) {
+        @NotNull CompletableFuture<Integer> mqtt3Unsubscribe(
+                final @NotNull Mqtt3Client client,
+                final @NotNull UnsubscribeOptions unsubscribeOptions,
+                final @NotNull List<String> topics) {
+            return unsubscribe(topics);
+        }
+
+        private @NotNull CompletableFuture<Integer> unsubscribe(final @NotNull List<String> topics) {
+            unsubscribedTopicBatches.add(List.copyOf(topics));
+            return CompletableFuture.completedFuture(failuresPerBatch);
         }
 
         @Override
@@ -367,5 +488,29 @@ class AbstractMqttClientExecutorTest {
         public @Nullable Mqtt3Connect getMqtt3ConnectMessage() {
             return mqtt3ConnectMessage;
         }
+
+        public @NotNull List<String> getPublishedTopics() {
+            return publishedTopics;
+        }
+
+        public @NotNull BlockingQueue<CompletableFuture<Object>> getPendingPublishes() {
+            return pendingPublishes;
+        }
+
+        public @NotNull List<List<String>> getSubscribedTopicBatches() {
+            return subscribedTopicBatches;
+        }
+
+        public @NotNull List<MqttQos> getSubscribedQos() {
+            return subscribedQos;
+        }
+
+        public @NotNull List<List<String>> getUnsubscribedTopicBatches() {
+            return unsubscribedTopicBatches;
+        }
+
+        public void setFailuresPerBatch(final int failuresPerBatch) {
+            this.failuresPerBatch = failuresPerBatch;
+        }
     }
 }
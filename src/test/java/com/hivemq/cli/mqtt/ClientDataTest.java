@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.datatypes.MqttSharedTopicFilter;
+import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ClientDataTest {
+
+    @Test
+    void getIntersectingSubscriptions_noExisting_normalNew() {
+        final ClientData clientData = new ClientData(mock(MqttClient.class), null);
+
+        final MqttTopicFilter newTopic = MqttTopicFilter.of("a");
+        final List<MqttTopicFilter> duplicateList =
+                clientData.getIntersectingSubscriptions(newTopic);
+        assertTrue(duplicateList.isEmpty());
+    }
+
+    @Test
+    void getIntersectingSubscriptions_normalExisting_normalNew() {
+        final ClientData clientData = new ClientData(mock(MqttClient.class), null);
+        clientData.addSubscription(MqttTopicFilter.of("a"));
+        clientData.addSubscription(MqttTopicFilter.of("b"));
+
+        final MqttTopicFilter newTopic = MqttTopicFilter.of("a");
+        final List<MqttTopicFilter> duplicateList =
+                clientData.getIntersectingSubscriptions(newTopic);
+        assertFalse(duplicateList.isEmpty());
+        assertEquals(MqttTopicFilter.of("a"), duplicateList.getFirst());
+    }
+
+    @Test
+    void getIntersectingSubscriptions_normalExisting_sharedNew() {
+        final ClientData clientData = new ClientData(mock(MqttClient.class), null);
+        clientData.addSubscription(MqttTopicFilter.of("a"));
+        clientData.addSubscription(MqttTopicFilter.of("b"));
+
+        final MqttTopicFilter newTopic = MqttTopicFilter.of("$share/group/a");
+        final List<MqttTopicFilter> duplicateList =
+                clientData.getIntersectingSubscriptions(newTopic);
+        assertFalse(duplicateList.isEmpty());
+        assertEquals(MqttTopicFilter.of("a"), duplicateList.getFirst());
+        //assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst().getValue());
+    }
+
+    @Test
+    void getIntersectingSubscriptions_sharedExisting_normalNew() {
+        final ClientData clientData = new ClientData(mock(MqttClient.class), null);
+        clientData.addSubscription(MqttSharedTopicFilter.of("group", "a"));
+        clientData.addSubscription(MqttTopicFilter.of("b"));
+
+        final MqttTopicFilter newTopic = MqttTopicFilter.of("a");
+        final List<MqttTopicFilter> duplicateList =
+                clientData.getIntersectingSubscriptions(newTopic);
+        assertFalse(duplicateList.isEmpty());
+        assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst());
+        //assertEquals(MqttTopicFilter.of("a"), duplicateList.getFirst().getValue());
+    }
+
+    @Test
+    void getIntersectingSubscriptions_sharedExisting_sharedNew() {
+        final ClientData clientData = new ClientData(mock(MqttClient.class), null);
+        clientData.addSubscription(MqttSharedTopicFilter.of("group", "a"));
+        clientData.addSubscription(MqttTopicFilter.of("b"));
+
+        final MqttTopicFilter newTopic = MqttTopicFilter.of("$share/group/a");
+        final List<MqttTopicFilter> duplicateList =
+                clientData.getIntersectingSubscriptions(newTopic);
+        assertFalse(duplicateList.isEmpty());
+        assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst());
+        //assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst().getValue());
+    }
+
+    @Test
+    void getIntersectingSubscriptions_multipleDisjointSharedExisting_normalNew() {
+        final ClientData clientData = new ClientData(mock(MqttClient.class), null);
+        clientData.addSubscription(MqttSharedTopicFilter.of("group", "a"));
+        clientData.addSubscription(MqttSharedTopicFilter.of("group", "b"));
+        clientData.addSubscription(MqttTopicFilter.of("b"));
+
+        final MqttTopicFilter newTopic = MqttTopicFilter.of("a");
+        final List<MqttTopicFilter> duplicateList =
+                clientData.getIntersectingSubscriptions(newTopic);
+        assertEquals(1, duplicateList.size());
+        assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst());
+        //assertEquals(MqttTopicFilter.of("a"), duplicateList.getFirst().getValue());
+    }
+
+    @Test
+    void getIntersectingSubscriptions_multipleIntersectingSharedExisting_normalNew() {
+        final ClientData clientData = new ClientData(mock(MqttClient.class), null);
+        clientData.addSubscription(MqttSharedTopicFilter.of("group", "a"));
+        clientData.addSubscription(MqttSharedTopicFilter.of("group", "+"));
+        clientData.addSubscription(MqttTopicFilter.of("b"));
+
+        final MqttTopicFilter newTopic = MqttTopicFilter.of("a");
+        final List<MqttTopicFilter> duplicateList =
+                clientData.getIntersectingSubscriptions(newTopic);
+        assertEquals(2, duplicateList.size());
+        assertTrue(duplicateList.stream().anyMatch(topicFilter -> {
+            //assertNotNull(topicFilter.getValue());
+            return topicFilter.equals(MqttSharedTopicFilter.of("group", "+"));
+        }));
+        assertTrue(duplicateList.stream().anyMatch(topicFilter -> {
+            //assertNotNull(topicFilter.getValue());
+            return topicFilter.equals(MqttSharedTopicFilter.of("group", "a"));
+        }));
+        //assertEquals(MqttTopicFilter.of("a"), duplicateList.getFirst().getValue());
+        //assertEquals(MqttTopicFilter.of("a"), duplicateList.get(1).getValue());
+    }
+
+    @Test
+    void getIntersectingSubscriptions_multipleIntersectingNormalExisting_SharedNew() {
+        final ClientData clientData = new ClientData(mock(MqttClient.class), null);
+        clientData.addSubscription(MqttTopicFilter.of("a"));
+        clientData.addSubscription(MqttTopicFilter.of("+"));
+        clientData.addSubscription(MqttTopicFilter.of("b"));
+
+        final MqttTopicFilter newTopic = MqttTopicFilter.of("$share/group/a");
+        final List<MqttTopicFilter> duplicateList =
+                clientData.getIntersectingSubscriptions(newTopic);
+        assertEquals(2, duplicateList.size());
+        //assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.getFirst().getValue());
+        //assertEquals(MqttSharedTopicFilter.of("group", "a"), duplicateList.get(1).getValue());
+        assertTrue(duplicateList.stream().anyMatch(topicFilter -> topicFilter.equals(MqttTopicFilter.of("a"))));
+        assertTrue(duplicateList.stream().anyMatch(topicFilter -> topicFilter.equals(MqttTopicFilter.of("+"))));
+    }
+
+    @Test
+    void getIntersectingSubscriptions_whenRemoved_thenNotIntersecting() {
+        final ClientData clientData = new ClientData(mock(MqttClient.class), null);
+        clientData.addSubscription(MqttTopicFilter.of("a/#"));
+        clientData.addSubscription(MqttTopicFilter.of("a/b"));
+        clientData.removeSubscription(MqttTopicFilter.of("a/#"));
+
+        assertEquals(List.of(MqttTopicFilter.of("a/b")),
+                clientData.getIntersectingSubscriptions(MqttTopicFilter.of("a/+")));
+        assertEquals(1, clientData.getSubscribedTopics().size());
+
+        clientData.removeAllSubscriptions();
+        assertTrue(clientData.getIntersectingSubscriptions(MqttTopicFilter.of("#")).isEmpty());
+    }
+}
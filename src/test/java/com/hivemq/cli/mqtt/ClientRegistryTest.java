@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttClientConfig;
+import com.hivemq.client.mqtt.datatypes.MqttClientIdentifier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClientRegistryTest {
+
+    private final @NotNull ClientRegistry clientRegistry = new ClientRegistry();
+
+    @Test
+    void get_whenRegistered_thenFoundByKeyAndClient() {
+        final ClientData clientData = register("client", "localhost", null);
+
+        assertSame(clientData, clientRegistry.get(ClientKey.of("client", "localhost")));
+        assertSame(clientData, clientRegistry.get(clientData.getClient()));
+        assertNull(clientRegistry.get(ClientKey.of("client", "other")));
+        assertEquals(1, clientRegistry.size());
+    }
+
+    @Test
+    void register_whenSameKey_thenPreviousClientIsReplacedInAllIndexes() {
+        final ClientData previous = register("client", "localhost", "group");
+        final ClientData clientData = register("client", "localhost", null);
+
+        assertEquals(1, clientRegistry.size());
+        assertSame(clientData, clientRegistry.get(ClientKey.of("client", "localhost")));
+        assertSame(clientData, clientRegistry.get(previous.getClient()));
+        assertTrue(clientRegistry.getByGroup("group").isEmpty());
+        assertEquals(List.of(clientData), clientRegistry.getByHost("localhost"));
+    }
+
+    @Test
+    void unregister_whenRegistered_thenRemovedFromAllIndexes() {
+        final ClientData clientData = register("sensor-1", "localhost", "sensor-");
+        register("sensor-2", "localhost", "sensor-");
+
+        assertSame(clientData, clientRegistry.unregister(clientData.getClient()));
+
+        assertNull(clientRegistry.get(ClientKey.of("sensor-1", "localhost")));
+        assertEquals(List.of("sensor-2"), identifiersOf(clientRegistry.getAll()));
+        assertEquals(List.of("sensor-2"), identifiersOf(clientRegistry.getByGroup("sensor-")));
+        assertEquals(List.of("sensor-2"), identifiersOf(clientRegistry.getByHost("localhost")));
+        assertNull(clientRegistry.unregister(ClientKey.of("sensor-1", "localhost")));
+    }
+
+    @Test
+    void getAll_whenRegisteredInAnyOrder_thenSortedByIdentifier() {
+        register("c", "localhost", null);
+        register("a", "localhost", null);
+        register("b", "other", null);
+        register("a", "other", null);
+
+        assertEquals(List.of("a@localhost", "a@other", "b@other", "c@localhost"),
+                clientRegistry.getAll()
+                        .stream()
+                        .map(clientData -> ClientKey.of(clientData.getClient()))
+                        .map(key -> key.getClientIdentifier() + "@" + key.getHostname())
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void getByIdentifierPrefix_whenOtherIdentifiersAround_thenOnlyPrefixed() {
+        register("sensor", "localhost", null);
+        register("sensor-1", "localhost", null);
+        register("sensor-2", "localhost", null);
+        register("sensors", "localhost", null);
+        register("actuator-1", "localhost", null);
+
+        assertEquals(List.of("sensor-1", "sensor-2"), identifiersOf(clientRegistry.getByIdentifierPrefix("sensor-")));
+        assertEquals(5, clientRegistry.getByIdentifierPrefix("").size());
+    }
+
+    @Test
+    void select_whenGlobPattern_thenMatchingIdentifiers() {
+        register("sensor-1", "localhost", null);
+        register("sensor-12", "localhost", null);
+        register("sensor-2-temp", "localhost", null);
+        register("sensor-3", "other", null);
+        register("sensor.1", "localhost", null);
+
+        assertEquals(List.of("sensor-1", "sensor-12", "sensor-2-temp"),
+                identifiersOf(clientRegistry.select("sensor-*", "localhost")));
+        assertEquals(List.of("sensor-1", "sensor-12", "sensor-2-temp", "sensor-3"),
+                identifiersOf(clientRegistry.select("sensor-*", null)));
+        assertEquals(List.of("sensor-1", "sensor-3"), identifiersOf(clientRegistry.select("sensor-?", null)));
+        assertEquals(List.of("sensor-2-temp"), identifiersOf(clientRegistry.select("*-temp", null)));
+        assertEquals(List.of("sensor.1"), identifiersOf(clientRegistry.select("sensor.1", "localhost")));
+        assertEquals(List.of("sensor-1"), identifiersOf(clientRegistry.select("sensor-1", null)));
+        assertTrue(clientRegistry.select("sensor-1", "other").isEmpty());
+    }
+
+    @Test
+    void isPattern_whenWildcard_thenTrue() {
+        assertTrue(ClientRegistry.isPattern("sensor-*"));
+        assertTrue(ClientRegistry.isPattern("sensor-?"));
+        assertFalse(ClientRegistry.isPattern("sensor-1"));
+    }
+
+    @Test
+    void register_whenConcurrent_thenAllIndexesConsistent() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final int offset = thread * 500;
+                futures.add(executorService.submit(() -> {
+                    for (int i = offset; i < offset + 500; i++) {
+                        final ClientData clientData = register("client-" + i, "localhost", "group");
+                        if (i % 2 == 0) {
+                            clientRegistry.unregister(clientData.getClient());
+                        }
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertEquals(2000, clientRegistry.size());
+        assertEquals(2000, clientRegistry.getAll().size());
+        assertEquals(2000, clientRegistry.getByGroup("group").size());
+        assertEquals(2000, clientRegistry.getByHost("localhost").size());
+        assertEquals(2000, clientRegistry.select("client-*", "localhost").size());
+    }
+
+    private @NotNull ClientData register(
+            final @NotNull String identifier, final @NotNull String host, final @Nullable String group) {
+        final MqttClient client = mock();
+        final MqttClientConfig config = mock();
+        when(client.getConfig()).thenReturn(config);
+        when(config.getClientIdentifier()).thenReturn(Optional.of(MqttClientIdentifier.of(identifier)));
+        when(config.getServerHost()).thenReturn(host);
+        final ClientData clientData = new ClientData(client, group);
+        clientRegistry.register(clientData);
+        return clientData;
+    }
+
+    private static @NotNull List<String> identifiersOf(final @NotNull Collection<ClientData> clients) {
+        return clients.stream()
+                .map(clientData -> clientData.getClient().getConfig().getClientIdentifier().orElseThrow().toString())
+                .collect(Collectors.toList());
+    }
+}
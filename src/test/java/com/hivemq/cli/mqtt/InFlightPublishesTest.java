@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3ClientConfig;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConfig;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConnectionConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InFlightPublishesTest {
+
+    @Test
+    void getWindow_whenMqtt5Connected_thenBoundedBySendMaximum() {
+        final Mqtt5Client client = mock();
+        final Mqtt5ClientConfig config = mock();
+        final Mqtt5ClientConnectionConfig connectionConfig = mock();
+        final Mqtt5ClientConnectionConfig.RestrictionsConfig restrictionsConfig = mock();
+        when(client.getConfig()).thenReturn(config);
+        when(config.getConnectionConfig()).thenReturn(Optional.of(connectionConfig));
+        when(connectionConfig.getRestrictionsConfig()).thenReturn(restrictionsConfig);
+        when(restrictionsConfig.getSendMaximum()).thenReturn(5);
+
+        assertEquals(5, InFlightPublishes.getWindow(client, 100));
+        assertEquals(3, InFlightPublishes.getWindow(client, 3));
+        assertEquals(1, InFlightPublishes.getWindow(client, 0));
+    }
+
+    @Test
+    void awaitCapacity_whenWindowIsFull_thenOldestPublishesAreReported() {
+        final Mqtt3Client client = mock();
+        final Mqtt3ClientConfig config = mock();
+        when(client.getConfig()).thenReturn(config);
+        final InFlightPublishes inFlightPublishes = new InFlightPublishes(client, 2);
+
+        inFlightPublishes.add("a", CompletableFuture.failedFuture(new RuntimeException("failed")));
+        inFlightPublishes.add("b", CompletableFuture.completedFuture(null));
+        assertEquals(1, inFlightPublishes.awaitCapacity());
+        assertEquals(1, inFlightPublishes.size());
+
+        inFlightPublishes.add("c", CompletableFuture.failedFuture(new RuntimeException("failed")), false);
+        inFlightPublishes.add("d", CompletableFuture.failedFuture(new RuntimeException("failed")));
+        assertEquals(1, inFlightPublishes.awaitAll());
+        assertEquals(0, inFlightPublishes.size());
+    }
+}
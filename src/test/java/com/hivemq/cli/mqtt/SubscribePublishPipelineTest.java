@@ -0,0 +1,267 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.cli.commands.options.SubscribeOptions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SubscribePublishPipelineTest {
+
+    @Test
+    void submit_manyPublishes_writtenAndAcknowledgedInReceiveOrder() throws Exception {
+        final TestHandler handler = new TestHandler();
+        final SubscribePublishPipeline pipeline = new SubscribePublishPipeline(4, 100);
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            pipeline.submit(handler, "publish-" + i, i);
+            expected.add("publish-" + i);
+        }
+        awaitTrue(() -> handler.acknowledged.size() == expected.size());
+
+        final List<String> expectedMessages = new ArrayList<>();
+        for (final String publish : expected) {
+            expectedMessages.add(publish.toUpperCase());
+        }
+        assertEquals(expectedMessages, handler.written);
+        assertEquals(expected, handler.acknowledged);
+        assertTrue(pipeline.getMaxQueueDepth() <= 100);
+    }
+
+    @Test
+    void submit_commitPending_acknowledgedAfterCommit() throws Exception {
+        final TestHandler handler = new TestHandler();
+        final CompletableFuture<Void> committed = new CompletableFuture<>();
+        handler.committed = committed;
+        final SubscribePublishPipeline pipeline = new SubscribePublishPipeline(2, 10);
+
+        pipeline.submit(handler, "first", 0);
+        pipeline.submit(handler, "second", 1);
+        awaitTrue(() -> handler.written.size() == 2);
+        Thread.sleep(50);
+        assertEquals(List.of(), handler.acknowledged);
+
+        committed.complete(null);
+        awaitTrue(() -> handler.acknowledged.size() == 2);
+        assertEquals(List.of("first", "second"), handler.acknowledged);
+    }
+
+    @Test
+    void submit_formatFails_messageNotWrittenButPublishHandedToWriterAndAcknowledged() throws Exception {
+        final TestHandler handler = new TestHandler();
+        final SubscribePublishPipeline pipeline = new SubscribePublishPipeline(1, 10);
+
+        pipeline.submit(handler, "skip", 0);
+        pipeline.submit(handler, "fail", 1);
+        pipeline.submit(handler, "last", 2);
+        awaitTrue(() -> handler.acknowledged.size() == 3);
+
+        assertEquals(List.of("LAST"), handler.written);
+        assertEquals(List.of("skip", "fail", "last"), handler.writtenPublishes);
+        assertEquals(List.of("skip", "fail", "last"), handler.acknowledged);
+    }
+
+    @Test
+    void submit_queueFull_blocksUntilWriterCatchesUp() throws Exception {
+        final TestHandler handler = new TestHandler();
+        final CountDownLatch writeBlocked = new CountDownLatch(1);
+        handler.writeBlocked = writeBlocked;
+        final SubscribePublishPipeline pipeline = new SubscribePublishPipeline(1, 2);
+
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                pipeline.submit(handler, "publish-" + i, i);
+            }
+        });
+        producer.start();
+        awaitTrue(() -> pipeline.getQueueDepth() == 2 && producer.getState() == Thread.State.WAITING);
+        assertEquals(2, pipeline.getMaxQueueDepth());
+
+        writeBlocked.countDown();
+        producer.join(10_000);
+        awaitTrue(() -> handler.acknowledged.size() == 10);
+        assertEquals(0, pipeline.getQueueDepth());
+    }
+
+    @Test
+    void close_publishesPending_writtenCommittedAndAcknowledged() {
+        final TestHandler handler = new TestHandler();
+        final SubscribePublishPipeline pipeline = new SubscribePublishPipeline(2, 1_000);
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            pipeline.submit(handler, "publish-" + i, i);
+            expected.add("publish-" + i);
+        }
+        pipeline.close();
+
+        assertEquals(expected, handler.writtenPublishes);
+        assertEquals(expected, handler.acknowledged);
+        assertTrue(handler.commits.get() > 0);
+    }
+
+    @Test
+    void submit_afterClose_processedOnCallingThread() {
+        final TestHandler handler = new TestHandler();
+        final SubscribePublishPipeline pipeline = new SubscribePublishPipeline(1, 10);
+        pipeline.close();
+
+        pipeline.submit(handler, "late", 0);
+
+        assertEquals(List.of("LATE"), handler.written);
+        assertEquals(List.of("late"), handler.acknowledged);
+    }
+
+    @Test
+    void submit_handlersOfDifferentClients_sharePipelineAndKeepReceiveOrder() {
+        final TestHandler first = new TestHandler();
+        final TestHandler second = new TestHandler();
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        first.order = order;
+        second.order = order;
+        final SubscribePublishPipeline pipeline = new SubscribePublishPipeline(4, 100);
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            pipeline.submit(i % 2 == 0 ? first : second, "publish-" + i, i);
+            expected.add("publish-" + i);
+        }
+        pipeline.close();
+
+        assertEquals(expected, order);
+        assertEquals(500, first.acknowledged.size());
+        assertEquals(500, second.acknowledged.size());
+    }
+
+    @Test
+    void acquire_sameSubscribeCommand_sharedUntilLastRelease() {
+        final SubscribeOptions subscribeOptions = mock();
+        when(subscribeOptions.getPipelineWorkers()).thenReturn(1);
+        when(subscribeOptions.getPipelineQueueSize()).thenReturn(10);
+        final TestHandler handler = new TestHandler();
+
+        final SubscribePublishPipeline pipeline = SubscribePublishPipeline.acquire(subscribeOptions);
+        assertNotNull(pipeline);
+        assertSame(pipeline, SubscribePublishPipeline.acquire(subscribeOptions));
+        final SubscribeOptions otherSubscribeOptions = mock();
+        when(otherSubscribeOptions.getPipelineWorkers()).thenReturn(1);
+        final SubscribePublishPipeline other = SubscribePublishPipeline.acquire(otherSubscribeOptions);
+        assertNotSame(pipeline, other);
+        Objects.requireNonNull(other).release();
+
+        pipeline.release();
+        pipeline.submit(handler, "queued", 0);
+        pipeline.release();
+        assertEquals(List.of("queued"), handler.acknowledged);
+
+        final SubscribePublishPipeline next = SubscribePublishPipeline.acquire(subscribeOptions);
+        assertNotSame(pipeline, next);
+        Objects.requireNonNull(next).release();
+    }
+
+    private static void awaitTrue(final @NotNull BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static class TestHandler implements SubscribePublishPipeline.Handler<String> {
+
+        private final @NotNull List<String> written = Collections.synchronizedList(new ArrayList<>());
+        private final @NotNull List<String> writtenPublishes = Collections.synchronizedList(new ArrayList<>());
+        private final @NotNull List<String> acknowledged = Collections.synchronizedList(new ArrayList<>());
+        private final @NotNull AtomicInteger commits = new AtomicInteger();
+        private volatile @Nullable CompletableFuture<Void> committed;
+        private volatile @Nullable List<String> order;
+        private volatile @Nullable CountDownLatch writeBlocked;
+
+        @Override
+        public @Nullable String format(final @NotNull String publish) {
+            if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                try {
+                    Thread.sleep(1);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (publish.equals("skip")) {
+                return null;
+            }
+            if (publish.equals("fail")) {
+                throw new IllegalStateException("format failed");
+            }
+            return publish.toUpperCase();
+        }
+
+        @Override
+        public void write(final @NotNull String publish, final @Nullable String message, final long receivedAt) {
+            final CountDownLatch writeBlocked = this.writeBlocked;
+            if (writeBlocked != null) {
+                try {
+                    writeBlocked.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            writtenPublishes.add(publish);
+            final List<String> order = this.order;
+            if (order != null) {
+                order.add(publish);
+            }
+            if (message != null) {
+                written.add(message);
+            }
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Void> commit() {
+            commits.incrementAndGet();
+            final CompletableFuture<Void> committed = this.committed;
+            return committed == null ? CompletableFuture.completedFuture(null) : committed;
+        }
+
+        @Override
+        public void acknowledge(final @NotNull String publish) {
+            acknowledged.add(publish);
+        }
+    }
+}
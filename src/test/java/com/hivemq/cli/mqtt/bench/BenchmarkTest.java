@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.bench;
+
+import com.hivemq.cli.commands.options.BenchOptions;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttVersion;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConfig;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5Subscribe;
+import com.hivemq.client.mqtt.mqtt5.message.unsubscribe.Mqtt5Unsubscribe;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BenchmarkTest {
+
+    private final @NotNull BenchOptions benchOptions = mock();
+    private final @NotNull Map<String, List<Consumer<Mqtt5Publish>>> subscriptions = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(benchOptions.getTopics()).thenReturn(1);
+        when(benchOptions.getTopicPrefix()).thenReturn("bench");
+        when(benchOptions.getQos()).thenReturn(new MqttQos[]{MqttQos.AT_MOST_ONCE});
+        when(benchOptions.getPayloadSizes()).thenReturn(new Long[]{64L});
+        when(benchOptions.getWarmup()).thenReturn(Duration.ofMillis(50));
+        when(benchOptions.getDuration()).thenReturn(Duration.ofMillis(200));
+        when(benchOptions.getRate()).thenReturn(1000.0);
+        when(benchOptions.getMaxInFlight()).thenReturn(10);
+    }
+
+    @Test
+    void run_whenOneTopic_thenEveryMessageFansOutToAllSubscribers() throws Exception {
+        final List<MqttClient> publishers = List.of(mockPublisher(), mockPublisher());
+        final List<MqttClient> subscribers = List.of(mockSubscriber(), mockSubscriber(), mockSubscriber());
+
+        final List<BenchmarkResult> results = new Benchmark(publishers, subscribers, benchOptions).run();
+
+        assertEquals(1, results.size());
+        final BenchmarkResult result = results.get(0);
+        assertTrue(result.getSent() > 0);
+        assertEquals(result.getSent() * 3, result.getExpected());
+        assertEquals(result.getExpected(), result.getReceived());
+        assertEquals(0, result.getLost());
+        assertEquals(result.getReceived(), result.getLatencies().getCount());
+        assertTrue(result.getSentPerSecond() > 0);
+    }
+
+    @Test
+    void run_whenQosAndPayloadSizeMatrix_thenOneResultPerCombinationOnOwnTopics() throws Exception {
+        when(benchOptions.getQos()).thenReturn(new MqttQos[]{MqttQos.AT_MOST_ONCE, MqttQos.AT_LEAST_ONCE});
+        when(benchOptions.getPayloadSizes()).thenReturn(new Long[]{8L, 1024L});
+        when(benchOptions.getWarmup()).thenReturn(Duration.ofMillis(10));
+        when(benchOptions.getDuration()).thenReturn(Duration.ofMillis(50));
+        final List<Mqtt5Publish> published = new CopyOnWriteArrayList<>();
+
+        final List<BenchmarkResult> results =
+                new Benchmark(List.of(mockPublisher(published)), List.of(mockSubscriber()), benchOptions).run();
+
+        assertEquals(4, results.size());
+        assertEquals(MqttQos.AT_MOST_ONCE, results.get(0).getQos());
+        assertEquals(8, results.get(0).getPayloadSize());
+        assertEquals(MqttQos.AT_LEAST_ONCE, results.get(3).getQos());
+        assertEquals(1024, results.get(3).getPayloadSize());
+        final List<String> topics = new ArrayList<>();
+        for (final Mqtt5Publish publish : published) {
+            final String topic = publish.getTopic().toString();
+            if (!topics.contains(topic)) {
+                topics.add(topic);
+            }
+        }
+        assertEquals(List.of("bench/0/0", "bench/1/0", "bench/2/0", "bench/3/0"), topics);
+    }
+
+    @Test
+    void run_whenPayloadSizeIsSmallerThanTimestamp_thenIllegalArgumentException() {
+        when(benchOptions.getPayloadSizes()).thenReturn(new Long[]{4L});
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new Benchmark(List.of(mockPublisher()), List.of(mockSubscriber()), benchOptions).run());
+    }
+
+    private @NotNull MqttClient mockPublisher() {
+        return mockPublisher(new CopyOnWriteArrayList<>());
+    }
+
+    private @NotNull MqttClient mockPublisher(final @NotNull List<Mqtt5Publish> published) {
+        final Mqtt5AsyncClient asyncClient = mock();
+        when(asyncClient.publish(any(Mqtt5Publish.class))).thenAnswer(invocation -> {
+            final Mqtt5Publish publish = invocation.getArgument(0);
+            published.add(publish);
+            for (final Consumer<Mqtt5Publish> callback : subscriptions.getOrDefault(publish.getTopic().toString(),
+                    List.of())) {
+                callback.accept(publish);
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+        return mockClient(asyncClient);
+    }
+
+    @SuppressWarnings("unchecked")
+    private @NotNull MqttClient mockSubscriber() {
+        final Mqtt5AsyncClient asyncClient = mock();
+        when(asyncClient.subscribe(any(Mqtt5Subscribe.class), any(Consumer.class))).thenAnswer(invocation -> {
+            final Mqtt5Subscribe subscribe = invocation.getArgument(0);
+            subscriptions.computeIfAbsent(subscribe.getSubscriptions().get(0).getTopicFilter().toString(),
+                    topic -> new CopyOnWriteArrayList<>()).add(invocation.getArgument(1));
+            return CompletableFuture.completedFuture(null);
+        });
+        when(asyncClient.unsubscribe(any(Mqtt5Unsubscribe.class))).thenReturn(CompletableFuture.completedFuture(null));
+        return mockClient(asyncClient);
+    }
+
+    private static @NotNull MqttClient mockClient(final @NotNull Mqtt5AsyncClient asyncClient) {
+        final Mqtt5Client client = mock();
+        final Mqtt5ClientConfig config = mock();
+        when(client.getConfig()).thenReturn(config);
+        when(config.getMqttVersion()).thenReturn(MqttVersion.MQTT_5_0);
+        when(client.toAsync()).thenReturn(asyncClient);
+        return client;
+    }
+}
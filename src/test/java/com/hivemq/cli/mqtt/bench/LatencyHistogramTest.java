@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.bench;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void getValueAtPercentile_whenEmpty_thenZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    void getValueAtPercentile_whenSmallValues_thenExact() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean());
+    }
+
+    @Test
+    void getValueAtPercentile_whenLargeValues_thenWithinPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final long millis = TimeUnit.MILLISECONDS.toNanos(1);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * millis);
+        }
+
+        assertWithinPrecision(500 * millis, histogram.getValueAtPercentile(50));
+        assertWithinPrecision(990 * millis, histogram.getValueAtPercentile(99));
+        assertWithinPrecision(999 * millis, histogram.getValueAtPercentile(99.9));
+        assertEquals(1000 * millis, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void record_whenNegative_thenRecordedAsZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    void indexOf_whenBucketBoundaries_thenContinuousAndHighestValueMatches() {
+        int previousIndex = -1;
+        for (long value = 0; value < 1 << 16; value++) {
+            final int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previousIndex || index == previousIndex + 1);
+            assertTrue(LatencyHistogram.highestValueOf(index) >= value);
+            previousIndex = index;
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    private static void assertWithinPrecision(final long expected, final long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 50, "expected " + expected + " but was " + actual);
+    }
+}
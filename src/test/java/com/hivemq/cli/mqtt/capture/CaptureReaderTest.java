@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.cli.mqtt.output.OutputFileWriter;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CaptureReaderTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void next_readsWrittenRecordsWithAllProperties() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        final CaptureRecord written = new CaptureRecord(1_000,
+                "topic/\u00e4",
+                MqttQos.EXACTLY_ONCE,
+                true,
+                Mqtt5PayloadFormatIndicator.UTF_8,
+                60L,
+                "text/plain",
+                "response/topic",
+                ByteBuffer.wrap(new byte[]{1, 2, 3}),
+                Mqtt5UserProperties.builder().add("key", "value").add("key", "other").build(),
+                ByteBuffer.wrap(new byte[]{0, -1, 10, 13}));
+        try (final CaptureWriter writer = new CaptureWriter(file, OutputFileWriter.FsyncPolicy.never)) {
+            writer.write(written);
+            writer.write(record(2_000, "second"));
+        }
+
+        try (final CaptureReader reader = new CaptureReader(file)) {
+            final CaptureRecord read = reader.next();
+            assertNotNull(read);
+            assertEquals(1_000, read.getTimestamp());
+            assertEquals("topic/\u00e4", read.getTopic());
+            assertEquals(MqttQos.EXACTLY_ONCE, read.getQos());
+            assertTrue(read.isRetain());
+            assertEquals(Mqtt5PayloadFormatIndicator.UTF_8, read.getPayloadFormatIndicator());
+            assertEquals(60L, read.getMessageExpiryInterval());
+            assertEquals("text/plain", read.getContentType());
+            assertEquals("response/topic", read.getResponseTopic());
+            assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3}), read.getCorrelationData());
+            assertEquals(written.getUserProperties(), read.getUserProperties());
+            assertEquals(ByteBuffer.wrap(new byte[]{0, -1, 10, 13}), read.getPayload());
+
+            final CaptureRecord second = reader.next();
+            assertNotNull(second);
+            assertEquals("second", second.getTopic());
+            assertNull(second.getPayloadFormatIndicator());
+            assertNull(second.getMessageExpiryInterval());
+            assertNull(second.getCorrelationData());
+            assertFalse(second.isRetain());
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void seek_usesIndexAndPositionsAtFirstRecordAtOrAfterTimestamp() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        final int count = 5_000;
+        try (final CaptureWriter writer = new CaptureWriter(file, OutputFileWriter.FsyncPolicy.never)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(record(i / 2 * 10L, "topic/" + i));
+            }
+        }
+        final long indexEntries = (Files.size(CaptureFormat.indexPath(file)) - CaptureFormat.HEADER_SIZE) /
+                CaptureFormat.INDEX_ENTRY_SIZE;
+        assertTrue(indexEntries > 1);
+        assertTrue(indexEntries < count / 100);
+
+        try (final CaptureReader reader = new CaptureReader(file)) {
+            reader.seek(12_345);
+            final CaptureRecord record = reader.next();
+            assertNotNull(record);
+            assertEquals(12_350, record.getTimestamp());
+            assertEquals("topic/2470", record.getTopic());
+
+            reader.seek(20_000);
+            assertEquals("topic/4000", reader.next().getTopic());
+
+            reader.seek(0);
+            assertEquals("topic/0", reader.next().getTopic());
+
+            reader.seek(Long.MAX_VALUE);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void next_withSmallWindows_remapsAtRecordBoundaries() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        try (final CaptureWriter writer = new CaptureWriter(file, OutputFileWriter.FsyncPolicy.never)) {
+            for (int i = 0; i < 100; i++) {
+                writer.write(record(i, "topic/" + i));
+            }
+        }
+
+        try (final CaptureReader reader = new CaptureReader(file, 2_000)) {
+            for (int i = 0; i < 100; i++) {
+                final CaptureRecord record = reader.next();
+                assertNotNull(record);
+                assertEquals("topic/" + i, record.getTopic());
+                assertEquals(1_024, record.getPayload().remaining());
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void next_truncatedLastRecord_isIgnored() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        try (final CaptureWriter writer = new CaptureWriter(file, OutputFileWriter.FsyncPolicy.never)) {
+            writer.write(record(1, "first"));
+            writer.write(record(2, "second"));
+        }
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        try (final CaptureReader reader = new CaptureReader(file)) {
+            assertEquals("first", reader.next().getTopic());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void write_appendsToExistingCapture() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        try (final CaptureWriter writer = new CaptureWriter(file, OutputFileWriter.FsyncPolicy.never)) {
+            writer.write(record(1, "first"));
+        }
+        try (final CaptureWriter writer = new CaptureWriter(file, OutputFileWriter.FsyncPolicy.close)) {
+            writer.write(record(2, "second"));
+        }
+
+        try (final CaptureReader reader = new CaptureReader(file)) {
+            assertEquals("first", reader.next().getTopic());
+            assertEquals("second", reader.next().getTopic());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void write_afterTruncatedLastRecord_removesItAndContinuesTimestamps() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        try (final CaptureWriter writer = new CaptureWriter(file, OutputFileWriter.FsyncPolicy.never)) {
+            writer.write(record(5, "first"));
+            writer.write(record(6, "second"));
+        }
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+        try (final CaptureWriter writer = new CaptureWriter(file, OutputFileWriter.FsyncPolicy.never)) {
+            writer.write(record(1, "third"));
+        }
+
+        try (final CaptureReader reader = new CaptureReader(file)) {
+            assertEquals("first", reader.next().getTopic());
+            final CaptureRecord third = reader.next();
+            assertNotNull(third);
+            assertEquals("third", third.getTopic());
+            assertEquals(5, third.getTimestamp());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void write_afterZeroFilledTail_removesTailAndIndexEntriesPointingIntoIt() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        try (final CaptureWriter writer = new CaptureWriter(file, OutputFileWriter.FsyncPolicy.never)) {
+            writer.write(record(1, "first"));
+        }
+        final long end = Files.size(file);
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             final FileChannel indexChannel = FileChannel.open(CaptureFormat.indexPath(file),
+                     StandardOpenOption.WRITE,
+                     StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(100));
+            indexChannel.write(ByteBuffer.allocate(CaptureFormat.INDEX_ENTRY_SIZE).putLong(1).putLong(end + 10).flip());
+            indexChannel.write(ByteBuffer.allocate(3));
+        }
+        try (final CaptureWriter writer = new CaptureWriter(file, OutputFileWriter.FsyncPolicy.never)) {
+            writer.write(record(2, "second"));
+        }
+
+        assertEquals(CaptureFormat.HEADER_SIZE + 2 * CaptureFormat.INDEX_ENTRY_SIZE,
+                Files.size(CaptureFormat.indexPath(file)));
+        try (final CaptureReader reader = new CaptureReader(file)) {
+            assertEquals("first", reader.next().getTopic());
+            assertEquals("second", reader.next().getTopic());
+            assertNull(reader.next());
+            reader.seek(2);
+            assertEquals("second", reader.next().getTopic());
+        }
+    }
+
+    @Test
+    void constructor_noCaptureFile_throws() throws Exception {
+        final Path file = tempDir.resolve("capture.txt");
+        Files.writeString(file, "some text output", StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> new CaptureReader(file));
+    }
+
+    private static @NotNull CaptureRecord record(final long timestamp, final @NotNull String topic) {
+        return new CaptureRecord(timestamp,
+                topic,
+                MqttQos.AT_LEAST_ONCE,
+                false,
+                null,
+                null,
+                null,
+                null,
+                null,
+                Mqtt5UserProperties.of(),
+                ByteBuffer.wrap(new byte[1_024]));
+    }
+}
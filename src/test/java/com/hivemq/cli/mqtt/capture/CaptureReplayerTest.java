@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.cli.commands.options.ReplayOptions;
+import com.hivemq.cli.mqtt.output.OutputFileWriter;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttVersion;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConfig;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CaptureReplayerTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    private final @NotNull ReplayOptions replayOptions = mock();
+    private @NotNull Path capture;
+
+    @BeforeEach
+    void setUp() {
+        capture = tempDir.resolve("capture.bin");
+        try (final CaptureWriter writer = new CaptureWriter(capture, OutputFileWriter.FsyncPolicy.never)) {
+            for (int i = 0; i < 100; i++) {
+                writer.write(record(1_000 + i * 2L, "prod/topic" + i % 7, Integer.toString(i)));
+            }
+        }
+        when(replayOptions.getMaxInFlight()).thenReturn(10);
+        when(replayOptions.getTopicRewrites()).thenReturn(List.of());
+        when(replayOptions.getFrom()).thenReturn(null);
+        when(replayOptions.getTo()).thenReturn(null);
+    }
+
+    @Test
+    void replay_multipleConnections_keepsOrderPerTopic() throws Exception {
+        final List<List<Mqtt5Publish>> published = new ArrayList<>();
+        final List<MqttClient> clients = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final List<Mqtt5Publish> publishes = new ArrayList<>();
+            published.add(publishes);
+            clients.add(mockClient(publishes));
+        }
+        when(replayOptions.getSpeed()).thenReturn(null);
+
+        try (final CaptureReader reader = new CaptureReader(capture)) {
+            assertEquals(0, new CaptureReplayer(clients, replayOptions).replay(reader));
+        }
+
+        int total = 0;
+        for (final List<Mqtt5Publish> publishes : published) {
+            total += publishes.size();
+            int last = -1;
+            String lastTopic = null;
+            for (final Mqtt5Publish publish : publishes) {
+                final int sequence = Integer.parseInt(StandardCharsets.UTF_8.decode(publish.getPayload().orElseThrow())
+                        .toString());
+                if (publish.getTopic().toString().equals(lastTopic)) {
+                    assertTrue(sequence > last);
+                }
+                last = sequence;
+                lastTopic = publish.getTopic().toString();
+            }
+        }
+        assertEquals(100, total);
+        for (final List<Mqtt5Publish> publishes : published) {
+            for (final Mqtt5Publish publish : publishes) {
+                final String topic = publish.getTopic().toString();
+                for (final List<Mqtt5Publish> others : published) {
+                    if (others != publishes) {
+                        assertTrue(others.stream().noneMatch(other -> other.getTopic().toString().equals(topic)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void replay_withTimeRangeAndTopicRewrite_publishesRewrittenRange() throws Exception {
+        final List<Mqtt5Publish> publishes = new ArrayList<>();
+        when(replayOptions.getSpeed()).thenReturn(100.0);
+        when(replayOptions.getFrom()).thenReturn(1_020L);
+        when(replayOptions.getTo()).thenReturn(1_040L);
+        when(replayOptions.getTopicRewrites()).thenReturn(List.of(new TopicRewrite(Pattern.compile("^prod/"),
+                "staging/")));
+
+        try (final CaptureReader reader = new CaptureReader(capture)) {
+            new CaptureReplayer(List.of(mockClient(publishes)), replayOptions).replay(reader);
+        }
+
+        assertEquals(10, publishes.size());
+        for (int i = 0; i < publishes.size(); i++) {
+            final Mqtt5Publish publish = publishes.get(i);
+            assertEquals("staging/topic" + (i + 10) % 7, publish.getTopic().toString());
+            assertEquals(ByteBuffer.wrap(Integer.toString(i + 10).getBytes(StandardCharsets.UTF_8)),
+                    publish.getPayload().orElseThrow());
+            assertEquals(MqttQos.AT_LEAST_ONCE, publish.getQos());
+        }
+    }
+
+    private static @NotNull MqttClient mockClient(final @NotNull List<Mqtt5Publish> publishes) {
+        final Mqtt5Client client = mock();
+        final Mqtt5ClientConfig config = mock();
+        final Mqtt5AsyncClient asyncClient = mock();
+        when(client.getConfig()).thenReturn(config);
+        when(config.getMqttVersion()).thenReturn(MqttVersion.MQTT_5_0);
+        when(client.toAsync()).thenReturn(asyncClient);
+        when(asyncClient.publish(any(Mqtt5Publish.class))).thenAnswer(invocation -> {
+            publishes.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(null);
+        });
+        return client;
+    }
+
+    private static @NotNull CaptureRecord record(
+            final long timestamp, final @NotNull String topic, final @NotNull String payload) {
+        return new CaptureRecord(timestamp,
+                topic,
+                MqttQos.AT_LEAST_ONCE,
+                false,
+                null,
+                null,
+                null,
+                null,
+                null,
+                Mqtt5UserProperties.of(),
+                ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+}
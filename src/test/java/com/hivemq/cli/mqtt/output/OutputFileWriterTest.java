@@ -0,0 +1,216 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.output;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutputFileWriterTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void write_appendsLinesInOrder() throws Exception {
+        final Path file = tempDir.resolve("out.txt");
+        Files.writeString(file, "existing" + System.lineSeparator());
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("existing");
+        try (final OutputFileWriter writer = new OutputFileWriter(file, null, OutputFileWriter.FsyncPolicy.commit)) {
+            for (int i = 0; i < 50_000; i++) {
+                writer.write("message-" + i);
+                expected.add("message-" + i);
+            }
+        }
+
+        assertEquals(expected, Files.readAllLines(file));
+    }
+
+    @Test
+    void write_withFlushInterval_writesAfterInterval() throws Exception {
+        final Path file = tempDir.resolve("out.txt");
+
+        try (final OutputFileWriter writer = new OutputFileWriter(file,
+                Duration.ofMillis(50),
+                OutputFileWriter.FsyncPolicy.never)) {
+            writer.write("message");
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (!Files.exists(file) || Files.size(file) == 0) {
+                if (System.currentTimeMillis() > deadline) {
+                    break;
+                }
+                Thread.sleep(10);
+            }
+            assertEquals(List.of("message"), Files.readAllLines(file));
+        }
+    }
+
+    @Test
+    void flush_completesAfterEnqueuedMessagesAreWritten() throws Exception {
+        final Path file = tempDir.resolve("out.txt");
+
+        try (final OutputFileWriter writer = new OutputFileWriter(file,
+                Duration.ofHours(1),
+                OutputFileWriter.FsyncPolicy.commit)) {
+            writer.write("first");
+            writer.write("second");
+            writer.flush().get(10, TimeUnit.SECONDS);
+
+            assertEquals(List.of("first", "second"), Files.readAllLines(file));
+        }
+    }
+
+    @Test
+    void write_deletedFile_isRecreated() throws Exception {
+        final Path file = tempDir.resolve("out.txt");
+
+        try (final OutputFileWriter writer = new OutputFileWriter(file, null, OutputFileWriter.FsyncPolicy.never)) {
+            writer.write("first");
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (writer.getQueueSize() > 0 || !Files.exists(file) || Files.size(file) == 0) {
+                if (System.currentTimeMillis() > deadline) {
+                    break;
+                }
+                Thread.sleep(10);
+            }
+            Files.delete(file);
+            writer.write("second");
+        }
+
+        assertEquals(List.of("second"), Files.readAllLines(file));
+    }
+
+    @Test
+    void of_sameFile_returnsSameWriter() {
+        final OutputFileWriter writer = OutputFileWriter.of(tempDir.resolve("out.txt").toFile(),
+                null,
+                OutputFileWriter.FsyncPolicy.never,
+                null,
+                null,
+                OutputFileWriter.Compression.none);
+        try {
+            assertSame(writer,
+                    OutputFileWriter.of(tempDir.resolve("./out.txt").toFile(),
+                            Duration.ofSeconds(1),
+                            OutputFileWriter.FsyncPolicy.commit,
+                            1024L,
+                            null,
+                            OutputFileWriter.Compression.gzip));
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    void write_withRotateSize_rollsOverBetweenMessages() throws Exception {
+        final Path file = tempDir.resolve("out.txt");
+        final int lineLength = ("message-0" + System.lineSeparator()).length();
+
+        final List<String> expected = new ArrayList<>();
+        try (final OutputFileWriter writer = new OutputFileWriter(file,
+                null,
+                OutputFileWriter.FsyncPolicy.never,
+                (long) lineLength * 3,
+                null,
+                OutputFileWriter.Compression.none)) {
+            for (int i = 0; i < 10; i++) {
+                writer.write("message-" + i);
+                expected.add("message-" + i);
+            }
+        }
+
+        final List<Path> segments = listSegments(".txt");
+        assertEquals(3, segments.size());
+        final List<String> actual = new ArrayList<>();
+        for (final Path segment : segments) {
+            final List<String> lines = Files.readAllLines(segment);
+            assertEquals(3, lines.size());
+            actual.addAll(lines);
+        }
+        final List<String> current = Files.readAllLines(file);
+        assertEquals(List.of("message-9"), current);
+        actual.addAll(current);
+        // segments rotated within the same second are only distinguished by an index, so compare regardless of order
+        actual.sort(null);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void write_withGzipCompression_compressesRolledOverSegments() throws Exception {
+        final Path file = tempDir.resolve("out.txt");
+
+        try (final OutputFileWriter writer = new OutputFileWriter(file,
+                null,
+                OutputFileWriter.FsyncPolicy.never,
+                1L,
+                null,
+                OutputFileWriter.Compression.gzip)) {
+            writer.write("first");
+            writer.write("second");
+        }
+
+        assertTrue(listSegments(".txt").isEmpty());
+        final List<Path> segments = listSegments(".txt.gz");
+        assertEquals(1, segments.size());
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(
+                Files.newInputStream(segments.get(0))), StandardCharsets.UTF_8))) {
+            assertEquals(List.of("first"), reader.lines().collect(Collectors.toList()));
+        }
+        assertEquals(List.of("second"), Files.readAllLines(file));
+    }
+
+    @Test
+    void segmentPath_existingSegment_appendsIndex() throws Exception {
+        final Path file = tempDir.resolve("out.txt");
+        final LocalDateTime time = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+        final Path first = OutputFileWriter.segmentPath(file, time);
+        assertEquals(tempDir.resolve("out-20240102-030405.txt"), first);
+
+        Files.createFile(tempDir.resolve("out-20240102-030405.txt.gz"));
+        assertEquals(tempDir.resolve("out-20240102-030405-1.txt"), OutputFileWriter.segmentPath(file, time));
+    }
+
+    private @NotNull List<Path> listSegments(final @NotNull String suffix) throws Exception {
+        try (final Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("out-"))
+                    .filter(path -> path.getFileName().toString().endsWith(suffix))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
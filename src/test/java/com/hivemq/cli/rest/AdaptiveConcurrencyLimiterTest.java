@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void acquire_blocksAtLimit() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 10);
+        final long start = limiter.acquire();
+
+        final CompletableFuture<Long> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire();
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+
+        limiter.onIgnore(start);
+        second.get(10, TimeUnit.SECONDS);
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void onSuccess_slowStartIncreasesLimitUpToMax() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 4);
+        for (int round = 0; round < 5; round++) {
+            final int permits = limiter.getLimit();
+            for (int i = 0; i < permits; i++) {
+                limiter.acquire();
+            }
+            for (int i = 0; i < permits; i++) {
+                // a constant latency of 10 ms
+                limiter.onSuccess(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void onOverload_halvesLimitOncePerWindow() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 8);
+        final long first = limiter.acquire();
+        final long second = limiter.acquire();
+
+        limiter.onOverload(first);
+        assertEquals(4, limiter.getLimit());
+        // started before the decrease, so it must not decrease the limit again
+        limiter.onOverload(second);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.onOverload(limiter.acquire());
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void onOverload_limitNotBelowOne() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2);
+        for (int i = 0; i < 5; i++) {
+            limiter.onOverload(limiter.acquire());
+        }
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void pause_delaysAcquire() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1);
+        limiter.pause(Duration.ofMillis(200));
+
+        final long start = System.nanoTime();
+        limiter.acquire();
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190));
+    }
+
+    @Test
+    void parseRetryAfter_seconds() {
+        final Duration duration = AdaptiveConcurrencyLimiter.parseRetryAfter(Map.of("retry-after", List.of("120")),
+                ZonedDateTime.now());
+        assertEquals(Duration.ofSeconds(120), duration);
+    }
+
+    @Test
+    void parseRetryAfter_httpDate() {
+        final ZonedDateTime now = ZonedDateTime.of(2015, 10, 21, 7, 28, 0, 0, ZoneOffset.UTC);
+        final Duration duration = AdaptiveConcurrencyLimiter.parseRetryAfter(Map.of("Retry-After",
+                List.of("Wed, 21 Oct 2015 07:28:30 GMT")), now);
+        assertEquals(Duration.ofSeconds(30), duration);
+    }
+
+    @Test
+    void parseRetryAfter_missingOrInvalid() {
+        assertNull(AdaptiveConcurrencyLimiter.parseRetryAfter(null, ZonedDateTime.now()));
+        assertNull(AdaptiveConcurrencyLimiter.parseRetryAfter(Map.of(), ZonedDateTime.now()));
+        assertNull(AdaptiveConcurrencyLimiter.parseRetryAfter(Map.of("Retry-After", List.of("soon")),
+                ZonedDateTime.now()));
+    }
+}
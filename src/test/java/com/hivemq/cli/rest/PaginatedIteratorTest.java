@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.rest;
+
+import com.hivemq.cli.openapi.ApiException;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiPaginationCursor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaginatedIteratorTest {
+
+    private static final @NotNull String NEXT_LINK_PREFIX = "/api/v1/mqtt/clients?cursor=";
+
+    private final @NotNull List<String> requestedCursors = new CopyOnWriteArrayList<>();
+
+    @Test
+    void next_multiplePages_allItemsInOrder() throws Exception {
+        final PaginatedIterator<String> iterator = new PaginatedIterator<>(this::fetch, true);
+
+        final List<String> items = new ArrayList<>();
+        while (iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+
+        assertEquals(Arrays.asList("a", "b", "c", "d"), items);
+        assertEquals(Arrays.asList(null, "cursor-1", "cursor-2", "cursor-3"), requestedCursors);
+        assertEquals(4, iterator.getPageCount());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void next_prefetch_requestsNextPageWhileCurrentPageIsProcessed() throws Exception {
+        final CountDownLatch secondPageRequested = new CountDownLatch(1);
+        final PaginatedIterator<String> iterator = new PaginatedIterator<>(cursor -> {
+            if ("cursor-1".equals(cursor)) {
+                secondPageRequested.countDown();
+            }
+            return fetch(cursor);
+        }, true);
+
+        assertEquals("a", iterator.next());
+
+        assertTrue(secondPageRequested.await(10, TimeUnit.SECONDS));
+        iterator.close();
+    }
+
+    @Test
+    void next_noPrefetch_requestsPagesOnlyWhenNeeded() throws Exception {
+        final PaginatedIterator<String> iterator = new PaginatedIterator<>(this::fetch, false);
+
+        assertEquals("a", iterator.next());
+        assertEquals("b", iterator.next());
+
+        assertEquals(Collections.singletonList(null), requestedCursors);
+    }
+
+    @Test
+    void hasNext_emptyPage_skipped() throws Exception {
+        final PaginatedIterator<String> iterator = new PaginatedIterator<>(cursor -> {
+            if (cursor == null) {
+                return new PaginatedIterator.Page<>(null, nextLink("cursor-1"));
+            }
+            return new PaginatedIterator.Page<>(Collections.singletonList("a"), null);
+        }, true);
+
+        assertTrue(iterator.hasNext());
+        assertEquals("a", iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void hasNext_prefetchedPageFailed_apiExceptionThrown() throws Exception {
+        final PaginatedIterator<String> iterator = new PaginatedIterator<>(cursor -> {
+            if (cursor == null) {
+                return new PaginatedIterator.Page<>(Collections.singletonList("a"), nextLink("cursor-1"));
+            }
+            throw new ApiException(400, "Invalid cursor");
+        }, true);
+
+        assertEquals("a", iterator.next());
+        final ApiException exception = assertThrows(ApiException.class, iterator::hasNext);
+        assertEquals(400, exception.getCode());
+    }
+
+    @Test
+    void next_startCursor_continuesWithPageOfCursor() throws Exception {
+        final PaginatedIterator<String> iterator =
+                new PaginatedIterator<>(this::fetch, true, PaginatedIterator.prefetchExecutor(), "cursor-1");
+
+        assertEquals("c", iterator.next());
+        assertEquals("cursor-1", iterator.getPageCursor());
+        assertEquals("d", iterator.next());
+        assertEquals("cursor-3", iterator.getPageCursor());
+        assertFalse(iterator.hasNext());
+        assertEquals(Arrays.asList("cursor-1", "cursor-2", "cursor-3"), requestedCursors);
+    }
+
+    @Test
+    void cursorOf_nextLinks_cursorExtracted() {
+        assertEquals("abc=", PaginatedIterator.cursorOf("/api/v1/mqtt/clients?cursor=abc=&limit=100"));
+        assertEquals("abc", PaginatedIterator.cursorOf("/api/v1/mqtt/clients?limit=100&cursor=abc"));
+        assertNull(PaginatedIterator.cursorOf("/api/v1/mqtt/clients?limit=100"));
+        assertNull(PaginatedIterator.cursorOf(null));
+    }
+
+    private @NotNull PaginatedIterator.Page<String> fetch(final @Nullable String cursor) {
+        requestedCursors.add(cursor);
+        if (cursor == null) {
+            return new PaginatedIterator.Page<>(Arrays.asList("a", "b"), nextLink("cursor-1"));
+        }
+        switch (cursor) {
+            case "cursor-1":
+                return new PaginatedIterator.Page<>(Collections.singletonList("c"), nextLink("cursor-2"));
+            case "cursor-2":
+                return new PaginatedIterator.Page<>(Collections.emptyList(), nextLink("cursor-3"));
+            default:
+                return new PaginatedIterator.Page<>(Collections.singletonList("d"),
+                        new HivemqOpenapiPaginationCursor());
+        }
+    }
+
+    private static @NotNull HivemqOpenapiPaginationCursor nextLink(final @NotNull String cursor) {
+        return new HivemqOpenapiPaginationCursor().next(NEXT_LINK_PREFIX + cursor + "&limit=2");
+    }
+}
@@ -17,8 +17,10 @@
 package com.hivemq.cli.rest.hivemq;
 
 import com.hivemq.cli.openapi.ApiException;
+import com.hivemq.cli.openapi.Configuration;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClient;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientList;
+import com.hivemq.cli.openapi.hivemq.DataHubSchemasApi;
 import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
 import com.hivemq.cli.rest.HiveMQRestService;
 import mockwebserver3.MockResponse;
@@ -42,6 +44,8 @@ import static java.net.HttpURLConnection.HTTP_OK;
 import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -155,4 +159,30 @@ class HiveMQCLICommandRestServiceTest {
 
         assertTrue(stopTime > startTime + 4_000_000);
     }
+
+    @Test
+    void api_clients_shared_per_url() {
+        final HiveMQRestService hiveMQRestService = new HiveMQRestService();
+        final MqttClientsApi clientsApi = hiveMQRestService.getMqttClientsApi(server.url("/").toString(), 500);
+        final DataHubSchemasApi schemasApi = hiveMQRestService.getSchemasApi(server.url("/").toString(), 500);
+        final MqttClientsApi otherClientsApi = hiveMQRestService.getMqttClientsApi("http://localhost:1/", 500);
+
+        assertSame(clientsApi.getApiClient(), schemasApi.getApiClient());
+        assertNotSame(clientsApi.getApiClient(), otherClientsApi.getApiClient());
+        assertNotSame(Configuration.getDefaultApiClient(), clientsApi.getApiClient());
+        assertSame(clientsApi.getApiClient().getHttpClient().connectionPool(),
+                otherClientsApi.getApiClient().getHttpClient().connectionPool());
+    }
+
+    @Test
+    void max_requests_per_host_raised() {
+        final HiveMQRestService hiveMQRestService = new HiveMQRestService();
+        final MqttClientsApi clientsApi = hiveMQRestService.getMqttClientsApi(server.url("/").toString(), 500, 200);
+
+        assertEquals(200, clientsApi.getApiClient().getHttpClient().dispatcher().getMaxRequestsPerHost());
+        assertEquals(200, clientsApi.getApiClient().getHttpClient().dispatcher().getMaxRequests());
+
+        hiveMQRestService.getMqttClientsApi(server.url("/").toString(), 500, 10);
+        assertEquals(200, clientsApi.getApiClient().getHttpClient().dispatcher().getMaxRequestsPerHost());
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageRecordReaderTest {
+
+    @Test
+    void next_lines() throws IOException {
+        final MessageRecordReader reader = new MessageRecordReader(stream("first\nsecond\r\n\nlast"),
+                MessageRecordReader.RecordFormat.lines);
+
+        assertEquals(buffer("first"), reader.next());
+        assertEquals(buffer("second"), reader.next());
+        assertEquals(buffer(""), reader.next());
+        assertEquals(buffer("last"), reader.next());
+        assertNull(reader.next());
+        assertEquals(4, reader.getRecordCount());
+    }
+
+    @Test
+    void next_lines_trailingNewLine() throws IOException {
+        final MessageRecordReader reader =
+                new MessageRecordReader(stream("first\n"), MessageRecordReader.RecordFormat.lines);
+
+        assertEquals(buffer("first"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_lines_spanningReadBuffers() throws IOException {
+        final String longLine = "x".repeat(200_000);
+        final MessageRecordReader reader = new MessageRecordReader(stream(longLine + "\r\n" + longLine),
+                MessageRecordReader.RecordFormat.lines);
+
+        assertEquals(buffer(longLine), reader.next());
+        assertEquals(buffer(longLine), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_lines_maxRecordSize() throws IOException {
+        final MessageRecordReader reader =
+                new MessageRecordReader(stream("abc\r\nabcd\n"), MessageRecordReader.RecordFormat.lines, 3);
+
+        assertEquals(buffer("abc"), reader.next());
+        final IOException exception = assertThrows(IOException.class, reader::next);
+        assertTrue(exception.getMessage().contains("Record 2"));
+    }
+
+    @Test
+    void next_lines_withoutLineBreakTooLarge() {
+        final MessageRecordReader reader = new MessageRecordReader(stream("x".repeat(200_000)),
+                MessageRecordReader.RecordFormat.lines,
+                100_000);
+
+        final IOException exception = assertThrows(IOException.class, reader::next);
+        assertTrue(exception.getMessage().contains("Record 1"));
+    }
+
+    @Test
+    void next_lengthPrefixed() throws IOException {
+        final byte[] input = {0, 0, 0, 3, 'a', '\n', 'b', 0, 0, 0, 0, 0, 0, 0, 1, 'c'};
+        final MessageRecordReader reader = new MessageRecordReader(new ByteArrayInputStream(input),
+                MessageRecordReader.RecordFormat.lengthPrefixed);
+
+        assertEquals(buffer("a\nb"), reader.next());
+        assertEquals(buffer(""), reader.next());
+        assertEquals(buffer("c"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_lengthPrefixed_spanningReadBuffers() throws IOException {
+        final byte[] input = new byte[2 * (4 + 100_000)];
+        input[1] = 0x01;
+        input[2] = (byte) 0x86;
+        input[3] = (byte) 0xA0;
+        System.arraycopy(input, 0, input, 4 + 100_000, 4);
+        final MessageRecordReader reader = new MessageRecordReader(new ByteArrayInputStream(input),
+                MessageRecordReader.RecordFormat.lengthPrefixed);
+
+        assertEquals(ByteBuffer.allocate(100_000), reader.next());
+        assertEquals(ByteBuffer.allocate(100_000), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_lengthPrefixed_truncated() {
+        final byte[] input = {0, 0, 0, 5, 'a'};
+        final MessageRecordReader reader = new MessageRecordReader(new ByteArrayInputStream(input),
+                MessageRecordReader.RecordFormat.lengthPrefixed);
+
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    void next_lengthPrefixed_tooLarge() {
+        final byte[] input = {(byte) 0xFF, 0, 0, 0};
+        final MessageRecordReader reader = new MessageRecordReader(new ByteArrayInputStream(input),
+                MessageRecordReader.RecordFormat.lengthPrefixed);
+
+        assertThrows(IOException.class, reader::next);
+    }
+
+    private static ByteArrayInputStream stream(final String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer buffer(final String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
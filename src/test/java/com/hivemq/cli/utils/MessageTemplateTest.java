@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageTemplateTest {
+
+    @Test
+    void renderString_withoutPlaceholders_isConstant() {
+        final MessageTemplate template = MessageTemplate.of("sensors/{unknown}/temp{");
+
+        assertTrue(template.isConstant());
+        assertEquals("sensors/{unknown}/temp{", template.renderString(5));
+    }
+
+    @Test
+    void renderString_sequence() {
+        final MessageTemplate template = MessageTemplate.of("sensors/{seq}/temp");
+
+        assertFalse(template.isConstant());
+        assertEquals("sensors/0/temp", template.renderString(0));
+        assertEquals("sensors/42/temp", template.renderString(42));
+    }
+
+    @Test
+    void renderString_uuidAndTimestamp() {
+        final long before = System.currentTimeMillis();
+        final String rendered = MessageTemplate.of("{uuid}|{ts}").renderString(0);
+        final String[] parts = rendered.split("\\|");
+
+        assertEquals(UUID.fromString(parts[0]).toString(), parts[0]);
+        assertTrue(Long.parseLong(parts[1]) >= before);
+    }
+
+    @Test
+    void renderString_randomIsHexEncoded() {
+        final String rendered = MessageTemplate.of("device-{random:4}").renderString(0);
+
+        assertTrue(rendered.matches("device-[0-9a-f]{8}"), rendered);
+    }
+
+    @Test
+    void renderBytes_randomBytesAndUtf8Literals() {
+        final MessageTemplate template =
+                MessageTemplate.of(ByteBuffer.wrap("\u00e4{seq}:{random:16}".getBytes(StandardCharsets.UTF_8)));
+
+        final ByteBuffer first = template.renderBytes(7);
+        final ByteBuffer second = template.renderBytes(7);
+        final byte[] prefix = "\u00e47:".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(prefix.length + 16, first.remaining());
+        assertEquals(ByteBuffer.wrap(prefix), first.duplicate().limit(prefix.length));
+        assertNotEquals(first, second);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopicFilterTrieTest {
+
+    @Test
+    void getIntersecting_whenExactLevels_thenOnlyEqualFilter() {
+        final TopicFilterTrie<String> trie = trieOf("a/b", "a/c", "a", "a/b/c");
+
+        assertEquals(Set.of("a/b"), intersecting(trie, "a/b"));
+    }
+
+    @Test
+    void getIntersecting_whenSingleLevelWildcard_thenBothDirections() {
+        final TopicFilterTrie<String> trie = trieOf("a/+", "a/b", "a/b/c", "+/x");
+
+        assertEquals(Set.of("a/+", "a/b"), intersecting(trie, "a/b"));
+        assertEquals(Set.of("a/+", "a/b", "+/x"), intersecting(trie, "a/+"));
+        assertEquals(Set.of("a/+", "a/b", "+/x"), intersecting(trie, "+/+"));
+    }
+
+    @Test
+    void getIntersecting_whenMultiLevelWildcard_thenParentLevelAndEverythingBelow() {
+        final TopicFilterTrie<String> trie = trieOf("a/#", "a", "a/b/c", "b");
+
+        assertEquals(Set.of("a/#", "a"), intersecting(trie, "a"));
+        assertEquals(Set.of("a/#", "a/b/c"), intersecting(trie, "a/b/c"));
+        assertEquals(Set.of("a/#", "a", "a/b/c"), intersecting(trie, "a/#"));
+        assertEquals(Set.of("a/#", "a", "a/b/c", "b"), intersecting(trie, "#"));
+        assertEquals(Set.of("a/#", "a/b/c"), intersecting(trie, "+/+/c"));
+    }
+
+    @Test
+    void getIntersecting_whenShared_thenComparedBySharedTopicFilter() {
+        final TopicFilterTrie<String> trie = trieOf("$share/group/a/+", "b");
+
+        assertEquals(Set.of("$share/group/a/+"), intersecting(trie, "a/b"));
+        assertEquals(Set.of("b"), intersecting(trie, "$share/other/b"));
+    }
+
+    @Test
+    void getIntersecting_whenEmptyLevels_thenMatchedLikeOtherLevels() {
+        final TopicFilterTrie<String> trie = trieOf("/a", "a/", "+/a");
+
+        assertEquals(Set.of("/a", "+/a"), intersecting(trie, "/a"));
+        assertEquals(Set.of("a/"), intersecting(trie, "a/"));
+    }
+
+    @Test
+    void getMatching_whenTopic_thenMatchingFilters() {
+        final TopicFilterTrie<String> trie = trieOf("sensors/+/temperature", "sensors/#", "sensors/a", "#", "+");
+
+        assertEquals(Set.of("sensors/+/temperature", "sensors/#", "#"),
+                new HashSet<>(trie.getMatching(MqttTopic.of("sensors/a/temperature"))));
+        assertEquals(Set.of("sensors/#", "sensors/a", "#"), new HashSet<>(trie.getMatching(MqttTopic.of("sensors/a"))));
+        assertEquals(Set.of("sensors/#", "#", "+"), new HashSet<>(trie.getMatching(MqttTopic.of("sensors"))));
+    }
+
+    @Test
+    void add_whenSameValueTwice_thenStoredOnce() {
+        final TopicFilterTrie<String> trie = new TopicFilterTrie<>();
+
+        assertTrue(trie.add(MqttTopicFilter.of("a/b"), "value"));
+        assertFalse(trie.add(MqttTopicFilter.of("a/b"), "value"));
+        assertTrue(trie.add(MqttTopicFilter.of("a/b"), "other"));
+        assertEquals(2, trie.size());
+        assertEquals(List.of("value", "other"), trie.getIntersecting(MqttTopicFilter.of("a/b")));
+    }
+
+    @Test
+    void remove_whenLastValue_thenNoLongerIntersecting() {
+        final TopicFilterTrie<String> trie = trieOf("a/b/c", "a/#");
+
+        assertFalse(trie.remove(MqttTopicFilter.of("a/b"), "a/b"));
+        assertFalse(trie.remove(MqttTopicFilter.of("a/b/c"), "a/#"));
+        assertTrue(trie.remove(MqttTopicFilter.of("a/b/c"), "a/b/c"));
+        assertEquals(Set.of("a/#"), intersecting(trie, "#"));
+        assertTrue(trie.remove(MqttTopicFilter.of("a/#"), "a/#"));
+        assertTrue(trie.isEmpty());
+        assertTrue(trie.getIntersecting(MqttTopicFilter.of("#")).isEmpty());
+    }
+
+    @Test
+    void clear_whenFilled_thenEmpty() {
+        final TopicFilterTrie<String> trie = trieOf("a", "b/+", "#");
+        trie.clear();
+
+        assertTrue(trie.isEmpty());
+        assertTrue(trie.getIntersecting(MqttTopicFilter.of("#")).isEmpty());
+    }
+
+    private static @NotNull TopicFilterTrie<String> trieOf(final @NotNull String @NotNull ... topicFilters) {
+        final TopicFilterTrie<String> trie = new TopicFilterTrie<>();
+        for (final String topicFilter : topicFilters) {
+            trie.add(MqttTopicFilter.of(topicFilter), topicFilter);
+        }
+        return trie;
+    }
+
+    private static @NotNull Set<String> intersecting(
+            final @NotNull TopicFilterTrie<String> trie, final @NotNull String topicFilter) {
+        final List<String> intersecting = trie.getIntersecting(MqttTopicFilter.of(topicFilter));
+        final Set<String> unique = new HashSet<>(intersecting);
+        assertEquals(intersecting.size(), unique.size(), "duplicates in " + intersecting);
+        return unique;
+    }
+}
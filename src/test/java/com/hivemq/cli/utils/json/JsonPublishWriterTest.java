@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils.json;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.datatypes.MqttUtf8String;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import org.bouncycastle.util.encoders.Base64;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JsonPublishWriterTest {
+
+    private static final long RECEIVED_AT = 1_700_000_000_123L;
+    private static final @NotNull String RECEIVED_AT_STRING =
+            JsonMqttPublish.RECEIVED_AT_FORMATTER.format(Instant.ofEpochMilli(RECEIVED_AT));
+
+    @Test
+    void mqtt3_textPayload_prettyPrinted() {
+        final Mqtt3Publish publish = mqtt3Publish("hello \"world\"\n");
+
+        final String json = new JsonPublishWriter(true, false).write(publish, RECEIVED_AT);
+
+        assertEquals("{\n" +
+                "  \"topic\": \"myTopic\",\n" +
+                "  \"payload\": \"hello \\\"world\\\"\\n\",\n" +
+                "  \"qos\": \"AT_LEAST_ONCE\",\n" +
+                "  \"receivedAt\": \"" + RECEIVED_AT_STRING + "\",\n" +
+                "  \"retain\": true\n" +
+                "}", json);
+    }
+
+    @Test
+    void mqtt3_jsonPayload_splicedAndReindented() {
+        final Mqtt3Publish publish = mqtt3Publish("{\"a\":[1, -2.5e3,{}],\n\"b\" : {\"c\":null,\"d\":[]}, \"e\":\"\\u00e4\"}");
+
+        final String json = new JsonPublishWriter(true, false).write(publish, RECEIVED_AT);
+
+        assertEquals("{\n" +
+                "  \"topic\": \"myTopic\",\n" +
+                "  \"payload\": {\n" +
+                "    \"a\": [\n" +
+                "      1,\n" +
+                "      -2.5e3,\n" +
+                "      {}\n" +
+                "    ],\n" +
+                "    \"b\": {\n" +
+                "      \"c\": null,\n" +
+                "      \"d\": []\n" +
+                "    },\n" +
+                "    \"e\": \"\\u00e4\"\n" +
+                "  },\n" +
+                "  \"qos\": \"AT_LEAST_ONCE\",\n" +
+                "  \"receivedAt\": \"" + RECEIVED_AT_STRING + "\",\n" +
+                "  \"retain\": true\n" +
+                "}", json);
+    }
+
+    @Test
+    void mqtt3_jsonPayload_ndjson_singleLine() {
+        final Mqtt3Publish publish = mqtt3Publish(" {\"a\" : [1, true],\n \"b\":\"x y\"}\n");
+
+        final String json = new JsonPublishWriter(false, false).write(publish, RECEIVED_AT);
+
+        assertEquals("{\"topic\":\"myTopic\",\"payload\":{\"a\":[1,true],\"b\":\"x y\"},\"qos\":\"AT_LEAST_ONCE\"," +
+                "\"receivedAt\":\"" + RECEIVED_AT_STRING + "\",\"retain\":true}", json);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "{", "[1,]", "{\"a\":1,}", "{a:1}", "01", "1.", "-", "1e", "tru", "nulls", "\"a", "\"\\x\"", "[1] [2]",
+            "'a'", "{\"a\" 1}", "\"\\u12g4\""})
+    void invalidJsonPayload_writtenAsString(final @NotNull String payload) {
+        final JsonPublishWriter writer = new JsonPublishWriter(false, false);
+
+        final String json = writer.write(mqtt3Publish(payload), RECEIVED_AT);
+
+        assertFalse(json.contains("\n"));
+        final JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        assertEquals(payload, object.get("payload").getAsString());
+    }
+
+    @Test
+    void deeplyNestedPayload_writtenAsString() {
+        final String payload = "[".repeat(1000) + "]".repeat(1000);
+
+        final String json = new JsonPublishWriter(true, false).write(mqtt3Publish(payload), RECEIVED_AT);
+
+        assertEquals(payload, JsonParser.parseString(json).getAsJsonObject().get("payload").getAsString());
+    }
+
+    @Test
+    void base64Payload_writtenAsString() {
+        final String json = new JsonPublishWriter(true, true).write(mqtt3Publish("1234"), RECEIVED_AT);
+
+        final JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        assertEquals(Base64.toBase64String("1234".getBytes(StandardCharsets.UTF_8)),
+                object.get("payload").getAsString());
+    }
+
+    @Test
+    void controlCharacters_escaped() {
+        final String payload = "a\u0001b\tc\u2028";
+
+        final String json = new JsonPublishWriter(false, false).write(mqtt3Publish(payload), RECEIVED_AT);
+
+        assertEquals(payload, JsonParser.parseString(json).getAsJsonObject().get("payload").getAsString());
+        assertFalse(json.contains("\u2028"));
+    }
+
+    @Test
+    void writer_reused_noStateLeaks() {
+        final JsonPublishWriter writer = new JsonPublishWriter(false, false);
+        writer.write(mqtt3Publish("{\"a\":" + "x".repeat(10_000)), RECEIVED_AT);
+
+        final String json = writer.write(mqtt3Publish("[1]"), RECEIVED_AT + 1000);
+
+        final JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        assertEquals("[1]", object.get("payload").toString());
+        assertEquals(JsonMqttPublish.RECEIVED_AT_FORMATTER.format(Instant.ofEpochMilli(RECEIVED_AT + 1000)),
+                object.get("receivedAt").getAsString());
+    }
+
+    @Test
+    void mqtt5_allFieldsPresent_sameAsJsonMqttPublish() {
+        final Mqtt5Publish publish = mock(Mqtt5Publish.class);
+        final ByteBuffer payload = ByteBuffer.wrap("{\"temperature\": 21.5, \"unit\": \"C\"}".getBytes(
+                StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        when(publish.getPayload()).thenReturn(Optional.of(payload));
+        when(publish.getPayloadAsBytes()).thenReturn("{\"temperature\": 21.5, \"unit\": \"C\"}".getBytes(
+                StandardCharsets.UTF_8));
+        when(publish.getTopic()).thenReturn(MqttTopic.of("myTopic"));
+        when(publish.getQos()).thenReturn(MqttQos.EXACTLY_ONCE);
+        when(publish.isRetain()).thenReturn(false);
+        when(publish.getContentType()).thenReturn(Optional.of(MqttUtf8String.of("application/json")));
+        when(publish.getPayloadFormatIndicator()).thenReturn(Optional.of(UTF_8));
+        when(publish.getMessageExpiryInterval()).thenReturn(OptionalLong.of(1337));
+        when(publish.getResponseTopic()).thenReturn(Optional.of(MqttTopic.of("myResponseTopic")));
+        when(publish.getCorrelationData()).thenReturn(Optional.of(ByteBuffer.wrap("hello".getBytes(
+                StandardCharsets.UTF_8)).asReadOnlyBuffer()));
+        when(publish.getUserProperties()).thenReturn(Mqtt5UserProperties.of(Mqtt5UserProperty.of("name1", "value1"),
+                Mqtt5UserProperty.of("name2", "value=2")));
+
+        final JsonObject expected = JsonParser.parseString(new JsonMqttPublish(publish, false).toString())
+                .getAsJsonObject();
+        final JsonObject pretty = JsonParser.parseString(new JsonPublishWriter(true, false).write(publish))
+                .getAsJsonObject();
+        final JsonObject compact = JsonParser.parseString(new JsonPublishWriter(false, false).write(publish))
+                .getAsJsonObject();
+        expected.remove("receivedAt");
+        pretty.remove("receivedAt");
+        compact.remove("receivedAt");
+
+        assertEquals(expected, pretty);
+        assertEquals(expected, compact);
+        assertEquals(expected.keySet().toString(), pretty.keySet().toString());
+        assertEquals(0, payload.position());
+    }
+
+    private static @NotNull Mqtt3Publish mqtt3Publish(final @NotNull String payload) {
+        final Mqtt3Publish publish = mock(Mqtt3Publish.class);
+        when(publish.getPayload()).thenReturn(Optional.of(ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8))
+                .asReadOnlyBuffer()));
+        when(publish.getTopic()).thenReturn(MqttTopic.of("myTopic"));
+        when(publish.getQos()).thenReturn(MqttQos.AT_LEAST_ONCE);
+        when(publish.isRetain()).thenReturn(true);
+        return publish;
+    }
+}